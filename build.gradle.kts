@@ -4,6 +4,7 @@ import org.gradle.api.tasks.testing.logging.TestLogEvent
 plugins {
     alias(libs.plugins.hivemq.extension)
     alias(libs.plugins.defaults)
+    alias(libs.plugins.jmh)
     alias(libs.plugins.oci)
     alias(libs.plugins.spotless)
 }
@@ -38,8 +39,11 @@ tasks.compileJava {
 dependencies {
     compileOnly(libs.jetbrains.annotations)
 
-    implementation(libs.dropwizard.metrics.cloudwatch)
     implementation(libs.aws.sdkv2.cloudwatch)
+    implementation(libs.aws.sdkv2.nettyNioClient)
+    // the AWS CRT HTTP client is optional, its native libraries are built separately with the crtClientZip task
+    compileOnly(libs.aws.sdkv2.crtClient)
+    implementation(libs.aws.sdkv2.sts)
     // The AWS SDK's apache5-client (sync HTTP client) pulls httpclient5 5.6.1, which pins httpcore5-h2 to 5.4.
     // Forcing httpclient5 to 5.6.2 transitively pulls the patched httpcore5/httpcore5-h2 5.4.3
     // (its parent raises httpcore.version 5.4 -> 5.4.3).
@@ -55,6 +59,21 @@ dependencies {
     // configuration
     implementation(libs.jaxb.api)
     runtimeOnly(libs.jaxb.impl)
+
+    jmhCompileOnly(libs.jetbrains.annotations)
+    jmhImplementation(libs.hivemq.extensionSdk)
+    // the reporter the extension used before, the baseline of the ReportTickBenchmark
+    jmhImplementation(libs.dropwizard.metrics.cloudwatch)
+    jmhRuntimeOnly(libs.jaxb.impl)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // reports the allocated bytes per operation as gc.alloc.rate.norm
+    profilers.add("gc")
+    // machine-readable results to compare against the results of a previous release
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
 }
 
 oci {
@@ -90,6 +109,21 @@ oci {
     }
 }
 
+// the optional AWS CRT HTTP client, with the dependencies that are not already part of the extension
+val crtClient = configurations.create("crtClient") {
+    isCanBeConsumed = false
+    isCanBeResolved = true
+}
+dependencies {
+    crtClient(libs.aws.sdkv2.crtClient)
+}
+tasks.register<Zip>("crtClientZip") {
+    group = "hivemq extension"
+    description = "Assembles the optional AWS CRT HTTP client, its jars are copied into the extension folder."
+    archiveClassifier = "crt-client"
+    from(crtClient.minus(configurations.runtimeClasspath.get()))
+}
+
 // see https://javadoc.io/doc/org.mockito/mockito-core/latest/org.mockito/org/mockito/Mockito.html#0.3
 val mockitoAgent = configurations.create("mockitoAgent") {
     isCanBeConsumed = false
@@ -119,6 +153,7 @@ testing {
             dependencies {
                 compileOnly(libs.jetbrains.annotations)
                 implementation(libs.assertj)
+                implementation(libs.aws.sdkv2.crtClient)
                 implementation(libs.mockito)
                 implementation(libs.logback.classic)
             }
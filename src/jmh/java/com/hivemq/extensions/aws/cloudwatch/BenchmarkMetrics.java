@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers HiveMQ-like metrics of all kinds for the benchmarks.
+ */
+final class BenchmarkMetrics {
+
+    static final @NotNull String PREFIX = "com.hivemq.benchmark.";
+
+    private BenchmarkMetrics() {
+    }
+
+    /**
+     * Registers the metrics in equal parts as gauges, counters, meters, histograms and timers, all with recorded
+     * values.
+     */
+    static void register(final @NotNull MetricRegistry metricRegistry, final int metrics) {
+        for (var i = 0; i < metrics; i++) {
+            final var value = i + 1;
+            switch (i % 5) {
+                case 0:
+                    metricRegistry.register(PREFIX + "gauge." + i, (Gauge<Integer>) () -> value);
+                    break;
+                case 1:
+                    metricRegistry.counter(PREFIX + "counter." + i).inc(value);
+                    break;
+                case 2:
+                    metricRegistry.meter(PREFIX + "meter." + i).mark(value);
+                    break;
+                case 3:
+                    final var histogram = metricRegistry.histogram(PREFIX + "histogram." + i);
+                    for (var j = 1; j <= 100; j++) {
+                        histogram.update(j);
+                    }
+                    break;
+                default:
+                    final var timer = metricRegistry.timer(PREFIX + "timer." + i);
+                    for (var j = 1; j <= 100; j++) {
+                        timer.update(j, TimeUnit.MILLISECONDS);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return the reported metrics of all benchmark metrics, resolved from the metric registry
+     */
+    static @NotNull ReportedMetrics reportedMetrics(final @NotNull MetricRegistry metricRegistry) {
+        final var reportedMetrics =
+                new ReportedMetrics(new ConfiguredMetricsFilter(List.of(new Metric(PREFIX, MatchType.PREFIX))),
+                        new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        return reportedMetrics;
+    }
+}
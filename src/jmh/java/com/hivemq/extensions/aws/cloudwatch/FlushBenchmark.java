@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a complete report, from the metric snapshots to the packed PutMetricData requests sent to a stub client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int metrics;
+
+    private final @NotNull StubCloudWatchAsyncClient client = new StubCloudWatchAsyncClient();
+    private final @NotNull ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private @NotNull CloudWatchReporter reporter;
+
+    @Setup
+    public void setUp() {
+        final var metricRegistry = new MetricRegistry();
+        final var reportedMetrics = BenchmarkMetrics.reportedMetrics(metricRegistry);
+        BenchmarkMetrics.register(metricRegistry, metrics);
+        final var publisher =
+                MetricDataPublisher.builder(client, "benchmark", executorService).maxInFlightRequests(4).build();
+        reporter = CloudWatchReporter.builder(publisher, reportedMetrics).zeroValuesSubmission(true).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public long report() {
+        reporter.report();
+        return client.getSentDatums();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the matching of all registered metric names against a configuration with all match types.
+ * <p>
+ * {@link #matchCached()} is the steady state of a report tick, {@link #matchUncached()} includes compiling the
+ * configured metrics and evaluating every name once, as on startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsFilterBenchmark {
+
+    private static final @NotNull List<Metric> CONFIGURED_METRICS = List.of(
+            new Metric("com.hivemq.messages.incoming.total.count", MatchType.EXACT),
+            new Metric("com.hivemq.messages.outgoing.total.count", MatchType.EXACT),
+            new Metric("com.hivemq.networking.connections.current", MatchType.EXACT),
+            new Metric("com.hivemq.sessions.", MatchType.PREFIX),
+            new Metric("com.hivemq.persistence.", MatchType.PREFIX),
+            new Metric("com.hivemq.messages.*.count", MatchType.GLOB),
+            new Metric("com.hivemq.**.dropped.*", MatchType.GLOB),
+            new Metric("com\\.hivemq\\.cluster\\.[a-z]+\\.time", MatchType.REGEX));
+
+    private static final @NotNull List<String> NAME_PATTERNS = List.of(
+            "com.hivemq.messages.incoming.%d.count",
+            "com.hivemq.messages.outgoing.%d.rate",
+            "com.hivemq.sessions.%d.current",
+            "com.hivemq.networking.bytes.%d.total",
+            "com.hivemq.persistence.executor.%d.time",
+            "com.hivemq.subscriptions.dropped.%d",
+            "com.hivemq.cluster.node%d.time",
+            "com.hivemq.extension.metric.%d.count");
+
+    @Param({"100", "1000", "10000"})
+    public int metrics;
+
+    private @NotNull String[] names;
+    private @NotNull ConfiguredMetricsFilter filter;
+
+    @Setup
+    public void setUp() {
+        names = new String[metrics];
+        for (var i = 0; i < metrics; i++) {
+            names[i] = String.format(NAME_PATTERNS.get(i % NAME_PATTERNS.size()), i);
+        }
+        filter = new ConfiguredMetricsFilter(CONFIGURED_METRICS);
+        matchAll(filter);
+    }
+
+    @Benchmark
+    public int matchCached() {
+        return matchAll(filter);
+    }
+
+    @Benchmark
+    public int matchUncached() {
+        return matchAll(new ConfiguredMetricsFilter(CONFIGURED_METRICS));
+    }
+
+    private int matchAll(final @NotNull ConfiguredMetricsFilter filter) {
+        var matches = 0;
+        for (final var name : names) {
+            if (filter.matches(name, null)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
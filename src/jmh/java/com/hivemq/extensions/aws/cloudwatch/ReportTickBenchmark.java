@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.AggregationMode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single report tick, from reading the metrics to sending the requests to a stub client.
+ * <p>
+ * The {@code dropwizard} reporter is the baseline: the Dropwizard CloudWatch reporter this extension used before,
+ * which materializes sorted maps of all metrics and builds every datum from scratch. The {@code extension} reporter
+ * walks the resolved metrics and builds the datums from pooled builders, the {@code aggregated} reporter additionally
+ * sends each metric as one aggregated datum.
+ * <p>
+ * Run with the gc profiler ({@code ./gradlew jmh}), {@code gc.alloc.rate.norm} is the number of bytes allocated per
+ * tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportTickBenchmark {
+
+    @Param({"100", "1000"})
+    public int metrics;
+
+    @Param({"dropwizard", "extension", "aggregated"})
+    public @NotNull String reporter;
+
+    private final @NotNull StubCloudWatchAsyncClient client = new StubCloudWatchAsyncClient();
+    private final @NotNull ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private @Nullable io.github.azagniotov.metrics.reporter.cloudwatch.CloudWatchReporter dropwizardReporter;
+    private @NotNull Runnable tick;
+
+    @Setup
+    public void setUp() {
+        final var metricRegistry = new MetricRegistry();
+        final var reportedMetrics = BenchmarkMetrics.reportedMetrics(metricRegistry);
+        BenchmarkMetrics.register(metricRegistry, metrics);
+        if (reporter.equals("dropwizard")) {
+            // zero values are submitted, so every tick constructs the datums of all metrics
+            final var dropwizardReporter = io.github.azagniotov.metrics.reporter.cloudwatch.CloudWatchReporter
+                    .forRegistry(metricRegistry, client, "benchmark")
+                    .filter((name, metric) -> name.startsWith(BenchmarkMetrics.PREFIX))
+                    .withZeroValuesSubmission()
+                    .build();
+            this.dropwizardReporter = dropwizardReporter;
+            tick = dropwizardReporter::report;
+        } else {
+            final var aggregator = reporter.equals("aggregated") ?
+                    new MetricAggregator(reportedMetrics, AggregationMode.STATISTIC_SET, 1000, 60_000, true, false) :
+                    null;
+            final var publisher =
+                    MetricDataPublisher.builder(client, "benchmark", executorService).maxInFlightRequests(4).build();
+            final var cloudWatchReporter = CloudWatchReporter.builder(publisher, reportedMetrics)
+                    .zeroValuesSubmission(true)
+                    .aggregator(aggregator)
+                    .build();
+            final var timestamp = Instant.now();
+            tick = () -> cloudWatchReporter.report(timestamp);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (dropwizardReporter != null) {
+            dropwizardReporter.close();
+        }
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public long tick() {
+        tick.run();
+        return client.getSentDatums();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the CPU cost of compressing a PutMetricData request body with gzip, like the AWS SDK does with
+ * {@code request-compression}, against the bytes it saves.
+ * <p>
+ * The request body is the form encoding of the AWS query protocol of the first request of a report, which is the
+ * largest encoding CloudWatch supports. The {@code uncompressedBytes} and {@code compressedBytes} counters are summed
+ * over all operations, their ratio is the compression ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestCompressionBenchmark {
+
+    // the metrics of a report, histograms and timers add several datums each
+    @Param({"20", "100", "1000"})
+    public int metrics;
+
+    private final @NotNull ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private byte @NotNull [] body;
+
+    @Setup
+    public void setUp() {
+        final var metricRegistry = new MetricRegistry();
+        final var reportedMetrics = BenchmarkMetrics.reportedMetrics(metricRegistry);
+        BenchmarkMetrics.register(metricRegistry, metrics);
+        final var publisher =
+                MetricDataPublisher.builder(new StubCloudWatchAsyncClient(), "benchmark", executorService).build();
+        final var reporter = CloudWatchReporter.builder(publisher, reportedMetrics).zeroValuesSubmission(true).build();
+        final var batches = MetricDataBatcher.pack("benchmark", reporter.collect(Instant.now()));
+        body = queryBody("benchmark", batches.get(0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public int gzip(final @NotNull Bytes bytes) throws IOException {
+        final var compressed = new ByteArrayOutputStream(body.length / 4);
+        try (final var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        bytes.uncompressedBytes += body.length;
+        bytes.compressedBytes += compressed.size();
+        return compressed.size();
+    }
+
+    private static byte @NotNull [] queryBody(final @NotNull String namespace, final @NotNull List<MetricDatum> data) {
+        final var body = new StringBuilder("Action=PutMetricData&Version=2010-08-01");
+        field(body, "Namespace", namespace);
+        for (var i = 0; i < data.size(); i++) {
+            final var datum = data.get(i);
+            final var prefix = "MetricData.member." + (i + 1) + ".";
+            field(body, prefix + "MetricName", datum.metricName());
+            if (datum.hasDimensions()) {
+                for (var j = 0; j < datum.dimensions().size(); j++) {
+                    final var dimension = datum.dimensions().get(j);
+                    field(body, prefix + "Dimensions.member." + (j + 1) + ".Name", dimension.name());
+                    field(body, prefix + "Dimensions.member." + (j + 1) + ".Value", dimension.value());
+                }
+            }
+            if (datum.timestamp() != null) {
+                field(body, prefix + "Timestamp", datum.timestamp().toString());
+            }
+            if (datum.value() != null) {
+                field(body, prefix + "Value", datum.value().toString());
+            }
+            if (datum.statisticValues() != null) {
+                field(body, prefix + "StatisticValues.SampleCount", datum.statisticValues().sampleCount().toString());
+                field(body, prefix + "StatisticValues.Sum", datum.statisticValues().sum().toString());
+                field(body, prefix + "StatisticValues.Minimum", datum.statisticValues().minimum().toString());
+                field(body, prefix + "StatisticValues.Maximum", datum.statisticValues().maximum().toString());
+            }
+            if (datum.unitAsString() != null) {
+                field(body, prefix + "Unit", datum.unitAsString());
+            }
+            if (datum.storageResolution() != null) {
+                field(body, prefix + "StorageResolution", datum.storageResolution().toString());
+            }
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void field(
+            final @NotNull StringBuilder body,
+            final @NotNull String name,
+            final @NotNull String value) {
+        body.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+
+        public long uncompressedBytes;
+        public long compressedBytes;
+    }
+}
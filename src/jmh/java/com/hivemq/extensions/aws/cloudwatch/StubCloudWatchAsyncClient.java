@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A CloudWatch client that completes every request immediately, so the benchmarks only measure the extension.
+ */
+class StubCloudWatchAsyncClient implements CloudWatchAsyncClient {
+
+    private static final @NotNull CompletableFuture<PutMetricDataResponse> RESPONSE =
+            CompletableFuture.completedFuture(PutMetricDataResponse.builder().build());
+
+    private final @NotNull AtomicLong sentDatums = new AtomicLong();
+
+    @Override
+    public @NotNull CompletableFuture<PutMetricDataResponse> putMetricData(
+            final @NotNull PutMetricDataRequest request) {
+        sentDatums.addAndGet(request.metricData().size());
+        return RESPONSE;
+    }
+
+    long getSentDatums() {
+        return sentDatums.get();
+    }
+
+    @Override
+    public @NotNull String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of a configuration file with all elements and the given number of metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigParseBenchmark {
+
+    @Param({"10", "1000"})
+    public int metrics;
+
+    private final @NotNull ConfigurationXmlParser parser = new ConfigurationXmlParser();
+    private @NotNull File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("config", ".xml");
+        Files.writeString(file.toPath(), createXml(metrics), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a configuration file with all elements and the given number of metrics
+     */
+    static @NotNull String createXml(final int metrics) {
+        final var xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<cloudwatch-extension-configuration>\n")
+                .append("    <report-interval>1</report-interval>\n")
+                .append("    <api-timeout>2000</api-timeout>\n")
+                .append("    <max-in-flight-requests>4</max-in-flight-requests>\n")
+                .append("    <metrics>\n");
+        for (var i = 0; i < metrics; i++) {
+            switch (i % 3) {
+                case 0:
+                    xml.append("        <metric>com.hivemq.messages.").append(i).append(".count</metric>\n");
+                    break;
+                case 1:
+                    xml.append("        <metric match=\"prefix\">com.hivemq.sessions.")
+                            .append(i)
+                            .append(".</metric>\n");
+                    break;
+                default:
+                    xml.append("        <metric match=\"glob\" high-resolution=\"true\">com.hivemq.*.")
+                            .append(i)
+                            .append("</metric>\n");
+                    break;
+            }
+        }
+        xml.append("    </metrics>\n")
+                .append("    <aggregation><mode>values</mode><sample-interval>1000</sample-interval></aggregation>\n")
+                .append("    <retry><buffer-size>100</buffer-size><eviction>oldest</eviction></retry>\n")
+                .append("</cloudwatch-extension-configuration>\n");
+        return xml.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public @NotNull Config parse() throws IOException {
+        return parser.unmarshalExtensionConfig(file);
+    }
+}
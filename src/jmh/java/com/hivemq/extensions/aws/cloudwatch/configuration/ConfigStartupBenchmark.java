@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first configuration read of a freshly started JVM, as on a broker restart: with the JAXB parser, with
+ * the StAX parser and from the configuration cache.
+ * <p>
+ * Every fork measures a single read, so the JAXB context bootstrap, the class loading and the interpreted code are
+ * part of the result. The cache is written in the setup of the fork, so the cached read does not include the
+ * reflection of the configuration entities, which the StAX parser does on its first read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ConfigStartupBenchmark {
+
+    @Param({"10", "1000"})
+    public int metrics;
+
+    private @NotNull File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("config", ".xml");
+        Files.writeString(file.toPath(), ConfigParseBenchmark.createXml(metrics), StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public @NotNull Config jaxb() throws IOException {
+        return new ConfigurationXmlParser().unmarshalExtensionConfig(file);
+    }
+
+    @Benchmark
+    public @NotNull Config stax() throws IOException {
+        return new ConfigurationStaxParser().unmarshalExtensionConfig(file);
+    }
+
+    @Benchmark
+    public @NotNull Config cached(final @NotNull Cache cache) throws IOException {
+        final var xml = Files.readAllBytes(file.toPath());
+        return Objects.requireNonNull(new ConfigurationCache(cache.file).read(ConfigurationCache.hash(xml)));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+
+        private @NotNull Path file;
+
+        @Setup
+        public void setUp(final @NotNull ConfigStartupBenchmark benchmark) throws IOException {
+            final var xml = Files.readAllBytes(benchmark.file.toPath());
+            file = ConfigurationCache.of(benchmark.file.toPath());
+            new ConfigurationCache(file).write(ConfigurationCache.hash(xml),
+                    new ConfigurationStaxParser().unmarshalExtensionConfig(xml));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket for PutMetricData requests, whose rate adapts to the responses of CloudWatch (AIMD).
+ * <p>
+ * Every request takes a token. Tokens are refilled at the current rate up to the burst size, so after an idle period
+ * a few requests are sent at once and the remaining requests of a report are paced instead of being sent at the tick
+ * boundary. When no token is left, the request is delayed until the token it reserved is refilled.
+ * <p>
+ * Each successful request increases the rate additively, so the rate grows by {@value #ADDITIVE_INCREASE} requests per
+ * second every second while all requests succeed. A throttled request or a request slower than the latency threshold
+ * halves the rate. As all requests in flight are throttled together, the rate is decreased at most once per
+ * {@value #DECREASE_COOLDOWN_MILLIS} ms.
+ */
+@ThreadSafe
+class AdaptiveRateLimiter {
+
+    static final double ADDITIVE_INCREASE = 1;
+    static final double MULTIPLICATIVE_DECREASE = 0.5;
+    static final long DECREASE_COOLDOWN_MILLIS = 1000;
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(DECREASE_COOLDOWN_MILLIS);
+
+    private final double minRate;
+    private final double maxRate;
+    private final int burst;
+    private final long latencyThresholdNanos;
+
+    private double rate;
+    private double tokens;
+    private long refilledAtNanos;
+    private long decreasedAtNanos;
+    private boolean decreased;
+
+    AdaptiveRateLimiter(
+            final double initialRate,
+            final double minRate,
+            final double maxRate,
+            final int burst,
+            final long latencyThresholdMillis,
+            final long nowNanos,
+            final @NotNull ExtensionMetrics extensionMetrics) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = burst;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.rate = initialRate;
+        this.tokens = burst;
+        this.refilledAtNanos = nowNanos;
+        extensionMetrics.gauge("publish.rate-limit", (Gauge<Double>) this::getRate);
+    }
+
+    /**
+     * Takes a token for a request. Without a token left, the token is reserved, so concurrent requests are delayed one
+     * after another.
+     *
+     * @return the nanoseconds the request has to wait before it is sent, 0 if it can be sent immediately
+     */
+    synchronized long reserve(final long nowNanos) {
+        refill(nowNanos);
+        tokens--;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens * NANOS_PER_SECOND / rate);
+    }
+
+    /**
+     * Records a successful request, which increases the rate unless the request was slower than the latency threshold.
+     */
+    synchronized void succeeded(final long nowNanos, final long latencyNanos) {
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease(nowNanos);
+            return;
+        }
+        refill(nowNanos);
+        rate = Math.min(maxRate, rate + ADDITIVE_INCREASE / rate);
+    }
+
+    /**
+     * Records a throttled request, which decreases the rate.
+     */
+    synchronized void throttled(final long nowNanos) {
+        decrease(nowNanos);
+    }
+
+    /**
+     * @return the current rate in requests per second
+     */
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private void decrease(final long nowNanos) {
+        if (decreased && nowNanos - decreasedAtNanos < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+        refill(nowNanos);
+        rate = Math.max(minRate, rate * MULTIPLICATIVE_DECREASE);
+        decreased = true;
+        decreasedAtNanos = nowNanos;
+    }
+
+    private void refill(final long nowNanos) {
+        final var elapsedNanos = nowNanos - refilledAtNanos;
+        if (elapsedNanos > 0) {
+            tokens = Math.min(burst, tokens + elapsedNanos * rate / NANOS_PER_SECOND);
+            refilledAtNanos = nowNanos;
+        }
+    }
+}
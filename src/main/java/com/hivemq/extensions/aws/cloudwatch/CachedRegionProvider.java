@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
+
+/**
+ * Resolves the AWS region once and shares it between the CloudWatch and the STS client, so the default region provider
+ * chain, which may query the instance metadata service, is not walked for every client.
+ * <p>
+ * A failed resolution is not cached, so it is retried with the next client.
+ */
+@ThreadSafe
+class CachedRegionProvider implements AwsRegionProvider {
+
+    private final @NotNull AwsRegionProvider delegate;
+
+    private @Nullable Region region;
+
+    CachedRegionProvider(final @Nullable String region) {
+        this(region != null ? () -> Region.of(region) : new DefaultAwsRegionProviderChain());
+    }
+
+    CachedRegionProvider(final @NotNull AwsRegionProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized @NotNull Region getRegion() {
+        if (region == null) {
+            region = delegate.getRegion();
+        }
+        return region;
+    }
+}
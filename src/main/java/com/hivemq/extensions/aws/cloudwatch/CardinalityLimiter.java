@@ -0,0 +1,407 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits the number of metrics that are sent individually for metric definitions with a limit, e.g. per-client
+ * metric families that are enabled with a pattern.
+ * <p>
+ * The activity of each metric of a family is counted with the space-saving algorithm, which monitors a bounded number
+ * of metrics: gauges count with their absolute value, all other metrics with their count increase. The counts decay
+ * with each report, so the top metrics follow the current activity. Only the monitored metrics with the highest
+ * counts are sent individually, all other metrics of the family are folded into one statistic set per type, which is
+ * sent under the name of the metric definition with the configured dimensions of the definition and the dimension
+ * {@code Limit=other}.
+ * <p>
+ * All memory is allocated when a family is created or a metric is seen for the first time, so the limiter does not
+ * allocate while the metrics of the families do not change.
+ */
+class CardinalityLimiter {
+
+    // the number of monitored metrics per sent metric, more monitored metrics reduce the error of the counts
+    static final int MONITORED_PER_LIMIT = 2;
+    // the factor the counts are multiplied with on each report
+    static final double DECAY = 0.8;
+
+    static final @NotNull Dimension OTHER_DIMENSION = Dimension.builder().name("Limit").value("other").build();
+
+    private final @NotNull Family @NotNull [] families;
+    private final boolean zeroValuesSubmission;
+    // the state of the metrics that are not part of a family
+    private final @NotNull State unlimited = new State(null, this);
+
+    private CardinalityLimiter(final @NotNull List<Family> families, final boolean zeroValuesSubmission) {
+        this.families = families.toArray(new Family[0]);
+        this.zeroValuesSubmission = zeroValuesSubmission;
+    }
+
+    /**
+     * @return the limiter for the enabled metric definitions with a limit or {@code null} if none has a limit
+     */
+    static @Nullable CardinalityLimiter create(
+            final @NotNull List<Metric> enabledMetrics,
+            final @NotNull MetricDimensions dimensions,
+            final boolean zeroValuesSubmission) {
+        final var families = new ArrayList<Family>();
+        for (final var metric : enabledMetrics) {
+            if (metric.getLimit().isPresent()) {
+                families.add(new Family(metric.getValue(),
+                        new ConfiguredMetricsFilter(List.of(metric)),
+                        metric.getLimit().get(),
+                        dimensions.get(metric)));
+            }
+        }
+        return families.isEmpty() ? null : new CardinalityLimiter(families, zeroValuesSubmission);
+    }
+
+    /**
+     * Counts the activity of the metrics and selects the metrics that are sent individually, must be called once per
+     * report before {@link #fold(ReportedMetric)}. Only called by the reporting thread.
+     */
+    void update(final @NotNull ReportedMetric @NotNull [] metrics) {
+        for (final var family : families) {
+            family.decay();
+        }
+        for (final var metric : metrics) {
+            final var state = state(metric);
+            final var family = state.family;
+            if (family == null) {
+                continue;
+            }
+            switch (metric.getKind()) {
+                case GAUGE:
+                    final var value = ((Gauge<?>) metric.getMetric()).getValue();
+                    state.value = value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+                    break;
+                default:
+                    // the delta is only consumed when the metric is folded or sent
+                    final var count = ((Counting) metric.getMetric()).getCount();
+                    state.value = count - metric.getLastCount();
+                    state.count = count;
+            }
+            if (!Double.isNaN(state.value)) {
+                family.offer(state, Math.abs(state.value));
+            }
+        }
+        for (final var family : families) {
+            family.select();
+        }
+    }
+
+    /**
+     * @return whether the metric is folded into the other metric of its family instead of being sent individually
+     */
+    boolean fold(final @NotNull ReportedMetric metric) {
+        final var state = state(metric);
+        final var family = state.family;
+        if (family == null || family.isSelected(state)) {
+            return false;
+        }
+        if (!Double.isNaN(state.value)) {
+            if (metric.getKind() == ReportedMetric.Kind.GAUGE) {
+                family.otherGauges.add(state.value);
+            } else {
+                metric.countDelta(state.count);
+                family.otherCounts.add(state.value);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the other metric of each family with folded metrics and resets them for the next report.
+     */
+    void stageOther(final @NotNull List<MetricDatum> metricData, final @NotNull Instant timestamp) {
+        for (final var family : families) {
+            family.otherGauges.stage(metricData, family.name, StandardUnit.NONE, zeroValuesSubmission, timestamp);
+            family.otherCounts.stage(metricData, family.name, StandardUnit.COUNT, zeroValuesSubmission, timestamp);
+        }
+    }
+
+    private @NotNull State state(final @NotNull ReportedMetric metric) {
+        final var state = metric.getLimiterState();
+        if (state != null && state.limiter == this) {
+            return state;
+        }
+        // the first report of the metric, or the first after the configuration was reloaded
+        for (final var family : families) {
+            if (family.filter.evaluate(metric.getName())) {
+                final var newState = new State(family, this);
+                metric.setLimiterState(newState);
+                return newState;
+            }
+        }
+        metric.setLimiterState(unlimited);
+        return unlimited;
+    }
+
+    /**
+     * The metrics of one metric definition with a limit, with a space-saving summary of their activity.
+     */
+    private static final class Family {
+
+        private final @NotNull String name;
+        private final @NotNull ConfiguredMetricsFilter filter;
+        private final int limit;
+
+        // the monitored metrics and their activity by slot, with a min-heap of the slots by activity
+        private final @Nullable State @NotNull [] monitored;
+        private final double @NotNull [] activities;
+        private final int @NotNull [] heap;
+        private final int @NotNull [] heapIndexes;
+        private final boolean @NotNull [] selected;
+        private final double @NotNull [] scratch;
+        private int size;
+
+        private final @NotNull Other otherGauges;
+        private final @NotNull Other otherCounts;
+
+        private Family(
+                final @NotNull String name,
+                final @NotNull ConfiguredMetricsFilter filter,
+                final int limit,
+                final @NotNull List<Dimension> dimensions) {
+            this.name = name;
+            this.filter = filter;
+            this.limit = limit;
+            otherGauges = new Other(CloudWatchReporter.GAUGE_DIMENSION, dimensions);
+            otherCounts = new Other(CloudWatchReporter.COUNT_DIMENSION, dimensions);
+            final var capacity = limit * MONITORED_PER_LIMIT;
+            monitored = new State[capacity];
+            activities = new double[capacity];
+            heap = new int[capacity];
+            heapIndexes = new int[capacity];
+            selected = new boolean[capacity];
+            scratch = new double[capacity];
+        }
+
+        private void decay() {
+            // scaling all activities keeps the order of the heap
+            for (var slot = 0; slot < size; slot++) {
+                activities[slot] *= DECAY;
+            }
+        }
+
+        private void offer(final @NotNull State state, final double activity) {
+            if (state.slot >= 0) {
+                activities[state.slot] += activity;
+                siftDown(heapIndexes[state.slot]);
+            } else if (size < monitored.length) {
+                final var slot = size++;
+                monitored[slot] = state;
+                activities[slot] = activity;
+                state.slot = slot;
+                heap[slot] = slot;
+                heapIndexes[slot] = slot;
+                siftUp(slot);
+            } else {
+                // replace the metric with the least activity, the new metric inherits its activity as error
+                final var slot = heap[0];
+                final var evicted = monitored[slot];
+                if (evicted != null) {
+                    evicted.slot = -1;
+                }
+                monitored[slot] = state;
+                activities[slot] += activity;
+                state.slot = slot;
+                siftDown(0);
+            }
+        }
+
+        private void select() {
+            if (size <= limit) {
+                for (var slot = 0; slot < size; slot++) {
+                    selected[slot] = true;
+                }
+                return;
+            }
+            System.arraycopy(activities, 0, scratch, 0, size);
+            final var threshold = nthSmallest(scratch, size, size - limit);
+            var ties = limit;
+            for (var slot = 0; slot < size; slot++) {
+                if (activities[slot] > threshold) {
+                    ties--;
+                }
+            }
+            for (var slot = 0; slot < size; slot++) {
+                final var activity = activities[slot];
+                selected[slot] = activity > threshold || (activity == threshold && ties-- > 0);
+            }
+        }
+
+        private boolean isSelected(final @NotNull State state) {
+            return state.slot >= 0 && selected[state.slot];
+        }
+
+        private void siftUp(int index) {
+            final var slot = heap[index];
+            while (index > 0) {
+                final var parent = (index - 1) >>> 1;
+                if (activities[heap[parent]] <= activities[slot]) {
+                    break;
+                }
+                move(heap[parent], index);
+                index = parent;
+            }
+            move(slot, index);
+        }
+
+        private void siftDown(int index) {
+            final var slot = heap[index];
+            while (true) {
+                var child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && activities[heap[child + 1]] < activities[heap[child]]) {
+                    child++;
+                }
+                if (activities[slot] <= activities[heap[child]]) {
+                    break;
+                }
+                move(heap[child], index);
+                index = child;
+            }
+            move(slot, index);
+        }
+
+        private void move(final int slot, final int index) {
+            heap[index] = slot;
+            heapIndexes[slot] = index;
+        }
+    }
+
+    /**
+     * @return the value with the given rank in ascending order, the values are reordered
+     */
+    static double nthSmallest(final double @NotNull [] values, final int size, final int rank) {
+        var left = 0;
+        var right = size - 1;
+        while (left < right) {
+            final var pivot = values[(left + right) >>> 1];
+            var i = left;
+            var j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final var value = values[i];
+                    values[i++] = values[j];
+                    values[j--] = value;
+                }
+            }
+            if (rank <= j) {
+                right = j;
+            } else if (rank >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return values[rank];
+    }
+
+    /**
+     * The folded metrics of one type of a family.
+     */
+    private static final class Other {
+
+        private final @NotNull List<Dimension> dimensions;
+        private double sampleCount;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Other(final @NotNull Dimension typeDimension, final @NotNull List<Dimension> configuredDimensions) {
+            final var dimensions = new ArrayList<Dimension>(configuredDimensions.size() + 2);
+            dimensions.add(typeDimension);
+            dimensions.add(OTHER_DIMENSION);
+            dimensions.addAll(configuredDimensions);
+            this.dimensions = List.copyOf(dimensions);
+        }
+
+        private void add(final double value) {
+            sampleCount++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        private void stage(
+                final @NotNull List<MetricDatum> metricData,
+                final @NotNull String name,
+                final @NotNull StandardUnit unit,
+                final boolean zeroValuesSubmission,
+                final @NotNull Instant timestamp) {
+            if (sampleCount > 0 && (zeroValuesSubmission || max > 0)) {
+                metricData.add(MetricDatum.builder()
+                        .metricName(name)
+                        .unit(unit)
+                        .dimensions(dimensions)
+                        .storageResolution(CloudWatchReporter.STANDARD_RESOLUTION)
+                        .statisticValues(StatisticSet.builder()
+                                .sampleCount(sampleCount)
+                                .sum(CloudWatchReporter.sendableValue(sum))
+                                .minimum(CloudWatchReporter.sendableValue(min))
+                                .maximum(CloudWatchReporter.sendableValue(max))
+                                .build())
+                        .timestamp(timestamp)
+                        .build());
+            }
+            sampleCount = 0;
+            sum = 0;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * The limiter state of a metric.
+     */
+    static final class State {
+
+        private final @Nullable Family family;
+        private final @NotNull CardinalityLimiter limiter;
+        private int slot = -1;
+        // the gauge value or count increase of the current report and the count it was computed from
+        private double value;
+        private long count;
+
+        private State(final @Nullable Family family, final @NotNull CardinalityLimiter limiter) {
+            this.family = family;
+            this.limiter = limiter;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Decides whether a value is sent, so values that did not change since they were last sent are skipped.
+ * <p>
+ * A value is sent if it moved by more than the absolute or the relative threshold since it was last sent, or by any
+ * amount if no threshold is configured. An unchanged value is sent again after the configured number of reports, so
+ * CloudWatch alarms on the metric do not change to insufficient data. The last sent values are kept per datum of a
+ * {@link ReportedMetric}, so they are kept when the configuration is reloaded.
+ */
+class ChangeDetector {
+
+    private final double absoluteThreshold;
+    private final double relativeThreshold;
+    private final int heartbeat;
+
+    /**
+     * @param absoluteThreshold the absolute threshold or {@code null} if not configured
+     * @param relativeThreshold the relative threshold or {@code null} if not configured
+     * @param heartbeat         the number of reports after which an unchanged value is sent again
+     */
+    ChangeDetector(
+            final @Nullable Double absoluteThreshold,
+            final @Nullable Double relativeThreshold,
+            final int heartbeat) {
+        // an unset threshold never triggers, unless both are unset, then any change triggers
+        final var anyChange = absoluteThreshold == null && relativeThreshold == null;
+        this.absoluteThreshold = absoluteThreshold != null ? absoluteThreshold : anyChange ? 0 : Double.MAX_VALUE;
+        this.relativeThreshold = relativeThreshold != null ? relativeThreshold : Double.MAX_VALUE;
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Only called by the reporting thread.
+     *
+     * @param  metric the metric of the datum
+     * @param  index  the index of the datum of the metric
+     * @param  value  the current value of the datum
+     * @return        whether the value is sent, in which case it becomes the last sent value
+     */
+    boolean shouldSend(final @NotNull ReportedMetric metric, final int index, final double value) {
+        var state = metric.getChangeState();
+        if (state == null) {
+            state = new State(metric.getDatumCount());
+            metric.setChangeState(state);
+        }
+        final var lastValue = state.lastValues[index];
+        final var difference = Math.abs(value - lastValue);
+        if (++state.unchangedReports[index] < heartbeat &&
+                !Double.isNaN(lastValue) &&
+                !(difference > absoluteThreshold) &&
+                !(difference > relativeThreshold * Math.abs(lastValue))) {
+            return false;
+        }
+        state.lastValues[index] = value;
+        state.unchangedReports[index] = 0;
+        return true;
+    }
+
+    /**
+     * The last sent values of the datums of a metric.
+     */
+    static final class State {
+
+        private final double @NotNull [] lastValues;
+        private final int @NotNull [] unchangedReports;
+
+        private State(final int datumCount) {
+            lastValues = new double[datumCount];
+            // NaN marks values that were never sent
+            Arrays.fill(lastValues, Double.NaN);
+            unchangedReports = new int[datumCount];
+        }
+    }
+}
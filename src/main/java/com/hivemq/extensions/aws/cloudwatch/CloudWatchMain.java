@@ -24,15 +24,18 @@ import com.hivemq.extension.sdk.api.parameter.ExtensionStopInput;
 import com.hivemq.extension.sdk.api.parameter.ExtensionStopOutput;
 import com.hivemq.extension.sdk.api.services.ManagedExtensionExecutorService;
 import com.hivemq.extension.sdk.api.services.Services;
+import com.hivemq.extensions.aws.cloudwatch.configuration.ConfigurationWatcher;
 import com.hivemq.extensions.aws.cloudwatch.configuration.ExtensionConfiguration;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Main class for HiveMQ AWS CloudWatch extension.
  * <p>
- * After HiveMQ is started, the configured HiveMQ metrics will be exposed to AWS CloudWatch.
+ * After HiveMQ is started, the configured HiveMQ metrics will be exposed to AWS CloudWatch. Changes of the config
+ * file are applied while the extension is running.
  *
  * @author David Sondermann
  */
@@ -45,6 +48,8 @@ public class CloudWatchMain implements ExtensionMain {
     private final @NotNull MetricRegistry metricRegistry = Services.metricRegistry();
     private final @NotNull CloudWatchReporterService reporterService = new CloudWatchReporterService();
 
+    private @Nullable ConfigurationWatcher configurationWatcher;
+
     @Override
     public final void extensionStart(
             final @NotNull ExtensionStartInput extensionStartInput,
@@ -53,6 +58,10 @@ public class CloudWatchMain implements ExtensionMain {
             final var extensionHomeFolder = extensionStartInput.getExtensionInformation().getExtensionHomeFolder();
             final var extensionConfiguration = new ExtensionConfiguration(extensionHomeFolder);
             reporterService.startCloudWatchReporter(extensionConfiguration, service, metricRegistry);
+            configurationWatcher = new ConfigurationWatcher(extensionConfiguration,
+                    service,
+                    () -> reporterService.reloadCloudWatchReporter(extensionConfiguration, service, metricRegistry));
+            configurationWatcher.start();
             log.info("Start {}", extensionStartInput.getExtensionInformation().getName());
         } catch (final Exception e) {
             extensionStartOutput.preventExtensionStartup("Extension cannot be started due to errors. ");
@@ -64,6 +73,10 @@ public class CloudWatchMain implements ExtensionMain {
     public final void extensionStop(
             final @NotNull ExtensionStopInput extensionStopInput,
             final @NotNull ExtensionStopOutput extensionStopOutput) {
+        if (configurationWatcher != null) {
+            configurationWatcher.stop();
+            configurationWatcher = null;
+        }
         reporterService.stopCloudWatchReporter();
         log.info("Stop {}", extensionStopInput.getExtensionInformation().getName());
     }
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Sampling;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reports the enabled HiveMQ metrics to AWS CloudWatch.
+ * <p>
+ * The datums of a report are handed to a {@link MetricSink}, which sends them with PutMetricData requests or writes
+ * them as Embedded Metric Format documents.
+ * <p>
+ * The datums are compatible with the ones of the Dropwizard CloudWatch reporter this extension used before: each
+ * metric is reported under its registry name with a {@code Type} dimension, counts are reported as the difference
+ * to the previous report (unless raw count values are enabled) and histograms and timers additionally report their
+ * 75th, 95th and 99.9th percentile.
+ * <p>
+ * If an {@link MetricAggregator} is configured, each metric is sent as a single aggregated datum instead. If a
+ * {@link ClusterAggregator} is configured, the cluster-wide datums are sent by the leader node and only the node
+ * metrics are sent by each node. If a {@link ChangeDetector} is configured, gauges, percentiles and raw count values
+ * are only sent when they changed, count differences are always sent. If a {@link CardinalityLimiter} is
+ * configured, only the most active metrics of limited metric definitions are sent individually. If
+ * {@link MetricSketches} are configured, histograms and timers are sent as the values and counts of their sketch
+ * instead of percentiles.
+ */
+class CloudWatchReporter {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(CloudWatchReporter.class);
+
+    static final int STANDARD_RESOLUTION = 60;
+    static final int HIGH_RESOLUTION = 1;
+
+    // CloudWatch rejects values outside of this range
+    private static final double SMALLEST_SENDABLE_VALUE = 8.515920e-109;
+    private static final double LARGEST_SENDABLE_VALUE = 1.174271e+108;
+
+    private static final @NotNull String DIMENSION_NAME_TYPE = "Type";
+    static final @NotNull Dimension GAUGE_DIMENSION = typeDimension("gauge");
+    static final @NotNull Dimension COUNT_DIMENSION = typeDimension("count");
+    static final @NotNull Dimension SNAPSHOT_SUMMARY_DIMENSION = typeDimension("snapshot-summary");
+    private static final double @NotNull [] PERCENTILES = {0.75, 0.95, 0.999};
+    private static final @NotNull Dimension @NotNull [] PERCENTILE_DIMENSIONS =
+            {typeDimension("75%"), typeDimension("95%"), typeDimension("99.9%")};
+    static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final @NotNull MetricSink sink;
+    private final @NotNull ReportedMetrics reportedMetrics;
+    private final boolean zeroValuesSubmission;
+    private final boolean reportRawCountValue;
+    private final @Nullable MetricAggregator aggregator;
+    private final @Nullable ClusterAggregator clusterAggregator;
+    private final @Nullable ChangeDetector changeDetector;
+    private volatile @Nullable CardinalityLimiter cardinalityLimiter;
+    private final @Nullable MetricSketches sketches;
+
+    private @Nullable ScheduledFuture<?> scheduledReport;
+    private @Nullable ScheduledFuture<?> scheduledSample;
+    private @Nullable ScheduledFuture<?> scheduledSketchSample;
+    private @Nullable Histogram tickDrift;
+    private @Nullable Histogram tickDuration;
+    private long periodMillis;
+    private long nextTickMillis;
+
+    private CloudWatchReporter(final @NotNull Builder builder) {
+        this.sink = builder.sink;
+        this.reportedMetrics = builder.reportedMetrics;
+        this.zeroValuesSubmission = builder.zeroValuesSubmission;
+        this.reportRawCountValue = builder.reportRawCountValue;
+        this.aggregator = builder.aggregator;
+        this.clusterAggregator = builder.clusterAggregator;
+        this.changeDetector = builder.changeDetector;
+        this.cardinalityLimiter = builder.cardinalityLimiter;
+        this.sketches = builder.sketches;
+    }
+
+    /**
+     * @return a builder of a reporter that sends the values of all metrics without any aggregation, change detection,
+     *         limits or sketches and skips zero values
+     */
+    static @NotNull Builder builder(final @NotNull MetricSink sink, final @NotNull ReportedMetrics reportedMetrics) {
+        return new Builder(sink, reportedMetrics);
+    }
+
+    /**
+     * Starts the reports. If aligned, the reports are scheduled at multiples of the period since the epoch, so they
+     * line up with the periods of CloudWatch. The drift of the report start and the report duration are recorded in
+     * the extension metrics.
+     */
+    synchronized void start(
+            final @NotNull ScheduledExecutorService scheduler,
+            final long period,
+            final @NotNull TimeUnit unit,
+            final boolean aligned,
+            final @NotNull ExtensionMetrics extensionMetrics) {
+        if (scheduledReport != null) {
+            throw new IllegalStateException("CloudWatchReporter already started");
+        }
+        tickDrift = extensionMetrics.histogram("report.tick-drift");
+        tickDuration = extensionMetrics.histogram("report.tick-duration");
+        sink.start();
+        scheduledReport = scheduleReport(scheduler, unit.toMillis(period), aligned);
+        if (aggregator != null) {
+            final var sampleInterval = aggregator.getSampleIntervalMillis();
+            scheduledSample = scheduler.scheduleAtFixedRate(this::sampleSafely,
+                    sampleInterval,
+                    sampleInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (sketches != null) {
+            final var sampleInterval = sketches.getSampleIntervalMillis();
+            scheduledSketchSample = scheduler.scheduleAtFixedRate(this::sampleSketchesSafely,
+                    sampleInterval,
+                    sampleInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Changes the report interval, a report that is in progress is completed.
+     */
+    synchronized void reschedule(
+            final @NotNull ScheduledExecutorService scheduler,
+            final long period,
+            final @NotNull TimeUnit unit,
+            final boolean aligned) {
+        if (scheduledReport == null) {
+            throw new IllegalStateException("CloudWatchReporter not started");
+        }
+        scheduledReport.cancel(false);
+        scheduledReport = scheduleReport(scheduler, unit.toMillis(period), aligned);
+        if (aggregator != null) {
+            aggregator.setReportIntervalMillis(unit.toMillis(period));
+        }
+    }
+
+    private @NotNull ScheduledFuture<?> scheduleReport(
+            final @NotNull ScheduledExecutorService scheduler,
+            final long periodMillis,
+            final boolean aligned) {
+        final var now = System.currentTimeMillis();
+        final var initialDelay = aligned ? periodMillis - Math.floorMod(now, periodMillis) : periodMillis;
+        this.periodMillis = periodMillis;
+        nextTickMillis = now + initialDelay;
+        return scheduler.scheduleAtFixedRate(this::reportSafely, initialDelay, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces the cardinality limiter, e.g. when the configuration is reloaded. The activity of the metrics is
+     * counted again from the next report.
+     */
+    void setCardinalityLimiter(final @Nullable CardinalityLimiter cardinalityLimiter) {
+        this.cardinalityLimiter = cardinalityLimiter;
+    }
+
+    /**
+     * Replaces the dimensions of the cluster-wide datums, e.g. when the configuration is reloaded.
+     */
+    void setClusterDimensions(final @NotNull MetricDimensions clusterDimensions) {
+        if (clusterAggregator != null) {
+            clusterAggregator.setDimensions(clusterDimensions);
+        }
+    }
+
+    synchronized void stop() {
+        if (scheduledReport != null) {
+            scheduledReport.cancel(false);
+            scheduledReport = null;
+        }
+        if (scheduledSample != null) {
+            scheduledSample.cancel(false);
+            scheduledSample = null;
+        }
+        if (scheduledSketchSample != null) {
+            scheduledSketchSample.cancel(false);
+            scheduledSketchSample = null;
+        }
+        if (clusterAggregator != null) {
+            clusterAggregator.close();
+        }
+        sink.close();
+    }
+
+    private void sampleSafely() {
+        try {
+            Objects.requireNonNull(aggregator).sample();
+        } catch (final Throwable t) {
+            log.error("Error while sampling HiveMQ metrics", t);
+        }
+    }
+
+    private void sampleSketchesSafely() {
+        try {
+            Objects.requireNonNull(sketches).sample();
+        } catch (final Throwable t) {
+            log.error("Error while sampling HiveMQ histograms and timers", t);
+        }
+    }
+
+    private void reportSafely() {
+        final var startMillis = System.currentTimeMillis();
+        final var tickDuration = recordTickStart(startMillis);
+        // an exception would cancel all subsequent reports of the scheduled executor
+        try {
+            report();
+        } catch (final Throwable t) {
+            log.error("Error while reporting HiveMQ metrics to AWS CloudWatch", t);
+        }
+        if (tickDuration != null) {
+            tickDuration.update(System.currentTimeMillis() - startMillis);
+        }
+    }
+
+    /**
+     * @return the histogram of the report duration
+     */
+    private synchronized @Nullable Histogram recordTickStart(final long startMillis) {
+        if (tickDrift != null) {
+            tickDrift.update(startMillis - nextTickMillis);
+        }
+        // a late report of a fixed rate schedule is followed by the next one, so the schedule itself does not shift
+        nextTickMillis += periodMillis;
+        return tickDuration;
+    }
+
+    synchronized void report() {
+        report(Instant.now());
+    }
+
+    synchronized void report(final @NotNull Instant timestamp) {
+        sink.publish(collect(timestamp));
+    }
+
+    @NotNull List<MetricDatum> collect(final @NotNull Instant timestamp) {
+        final var metrics = reportedMetrics.get();
+        final var metricData = new ArrayList<MetricDatum>(metrics.length);
+        if (aggregator != null) {
+            aggregator.flush(timestamp, metricData, sketches == null);
+            if (sketches != null) {
+                for (final var metric : metrics) {
+                    if (MetricSketches.isSketched(metric)) {
+                        sketches.flush(metric, timestamp, metricData);
+                    }
+                }
+            }
+            return metricData;
+        }
+        if (clusterAggregator != null) {
+            clusterAggregator.collect(timestamp, metrics, metricData);
+        }
+        final var cardinalityLimiter = this.cardinalityLimiter;
+        if (cardinalityLimiter != null) {
+            cardinalityLimiter.update(metrics);
+        }
+        for (final var metric : metrics) {
+            if (clusterAggregator != null && !clusterAggregator.isNodeMetric(metric)) {
+                continue;
+            }
+            if (cardinalityLimiter != null && cardinalityLimiter.fold(metric)) {
+                continue;
+            }
+            switch (metric.getKind()) {
+                case GAUGE:
+                    final var value = ((Gauge<?>) metric.getMetric()).getValue();
+                    if (value instanceof Number) {
+                        stage(metricData,
+                                metric,
+                                0,
+                                ((Number) value).doubleValue(),
+                                StandardUnit.NONE,
+                                GAUGE_DIMENSION,
+                                true,
+                                timestamp);
+                    }
+                    break;
+                case COUNTER:
+                case METER:
+                    stageCount(metricData, metric, timestamp);
+                    break;
+                case HISTOGRAM:
+                    stageCount(metricData, metric, timestamp);
+                    if (sketches != null) {
+                        sketches.flush(metric, timestamp, metricData);
+                    } else {
+                        stagePercentiles(metricData, metric, 1, StandardUnit.NONE, timestamp);
+                    }
+                    break;
+                case TIMER:
+                    stageCount(metricData, metric, timestamp);
+                    if (sketches != null) {
+                        sketches.flush(metric, timestamp, metricData);
+                    } else {
+                        stagePercentiles(metricData, metric, NANOS_PER_MILLI, StandardUnit.MILLISECONDS, timestamp);
+                    }
+                    break;
+            }
+        }
+        if (cardinalityLimiter != null) {
+            cardinalityLimiter.stageOther(metricData, timestamp);
+        }
+        return metricData;
+    }
+
+    private void stageCount(
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric,
+            final @NotNull Instant timestamp) {
+        final var currentCount = ((Counting) metric.getMetric()).getCount();
+        final var delta = metric.countDelta(currentCount);
+        stage(metricData,
+                metric,
+                0,
+                reportRawCountValue ? currentCount : delta,
+                StandardUnit.COUNT,
+                COUNT_DIMENSION,
+                reportRawCountValue,
+                timestamp);
+    }
+
+    private void stagePercentiles(
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric,
+            final double divisor,
+            final @NotNull StandardUnit unit,
+            final @NotNull Instant timestamp) {
+        final var snapshot = ((Sampling) metric.getMetric()).getSnapshot();
+        if (zeroValuesSubmission || snapshot.size() > 0) {
+            for (var i = 0; i < PERCENTILES.length; i++) {
+                stage(metricData,
+                        metric,
+                        i + 1,
+                        snapshot.getValue(PERCENTILES[i]) / divisor,
+                        unit,
+                        PERCENTILE_DIMENSIONS[i],
+                        true,
+                        timestamp);
+            }
+        }
+    }
+
+    /**
+     * @param level whether the value is a level like a gauge, only levels are subject to change detection
+     */
+    private void stage(
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric,
+            final int index,
+            final double value,
+            final @NotNull StandardUnit unit,
+            final @NotNull Dimension typeDimension,
+            final boolean level,
+            final @NotNull Instant timestamp) {
+        // only submit metrics that show some data to save costs
+        if ((zeroValuesSubmission || value > 0) &&
+                (!level || changeDetector == null || changeDetector.shouldSend(metric, index, value))) {
+            metricData.add(metric.datumBuilder(index, unit, typeDimension)
+                    .value(sendableValue(value))
+                    .timestamp(timestamp)
+                    .build());
+        }
+    }
+
+    static double sendableValue(final double value) {
+        final var magnitude = Math.abs(value);
+        if (magnitude == 0 || Double.isNaN(value)) {
+            return 0;
+        } else if (magnitude < SMALLEST_SENDABLE_VALUE) {
+            return Math.copySign(SMALLEST_SENDABLE_VALUE, value);
+        } else if (magnitude > LARGEST_SENDABLE_VALUE) {
+            return Math.copySign(LARGEST_SENDABLE_VALUE, value);
+        }
+        return value;
+    }
+
+    private static @NotNull Dimension typeDimension(final @NotNull String type) {
+        return Dimension.builder().name(DIMENSION_NAME_TYPE).value(type).build();
+    }
+
+    static final class Builder {
+
+        private final @NotNull MetricSink sink;
+        private final @NotNull ReportedMetrics reportedMetrics;
+        private boolean zeroValuesSubmission;
+        private boolean reportRawCountValue;
+        private @Nullable MetricAggregator aggregator;
+        private @Nullable ClusterAggregator clusterAggregator;
+        private @Nullable ChangeDetector changeDetector;
+        private @Nullable CardinalityLimiter cardinalityLimiter;
+        private @Nullable MetricSketches sketches;
+
+        private Builder(final @NotNull MetricSink sink, final @NotNull ReportedMetrics reportedMetrics) {
+            this.sink = sink;
+            this.reportedMetrics = reportedMetrics;
+        }
+
+        @NotNull Builder zeroValuesSubmission(final boolean zeroValuesSubmission) {
+            this.zeroValuesSubmission = zeroValuesSubmission;
+            return this;
+        }
+
+        @NotNull Builder reportRawCountValue(final boolean reportRawCountValue) {
+            this.reportRawCountValue = reportRawCountValue;
+            return this;
+        }
+
+        @NotNull Builder aggregator(final @Nullable MetricAggregator aggregator) {
+            this.aggregator = aggregator;
+            return this;
+        }
+
+        @NotNull Builder clusterAggregator(final @Nullable ClusterAggregator clusterAggregator) {
+            this.clusterAggregator = clusterAggregator;
+            return this;
+        }
+
+        @NotNull Builder changeDetector(final @Nullable ChangeDetector changeDetector) {
+            this.changeDetector = changeDetector;
+            return this;
+        }
+
+        @NotNull Builder cardinalityLimiter(final @Nullable CardinalityLimiter cardinalityLimiter) {
+            this.cardinalityLimiter = cardinalityLimiter;
+            return this;
+        }
+
+        @NotNull Builder sketches(final @Nullable MetricSketches sketches) {
+            this.sketches = sketches;
+            return this;
+        }
+
+        @NotNull CloudWatchReporter build() {
+            return new CloudWatchReporter(this);
+        }
+    }
+}
@@ -16,26 +16,46 @@
 
 package com.hivemq.extensions.aws.cloudwatch;
 
-import com.codahale.metrics.Metric;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
 import com.hivemq.extension.sdk.api.services.ManagedExtensionExecutorService;
 import com.hivemq.extensions.aws.cloudwatch.configuration.ExtensionConfiguration;
-import io.github.azagniotov.metrics.reporter.cloudwatch.CloudWatchReporter;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClient;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Reporter;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.SinkType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Startup;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.CompressionConfiguration;
 import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.time.Duration;
-import java.util.Collection;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * @author David Sondermann
@@ -44,71 +64,703 @@ class CloudWatchReporterService {
 
     private static final @NotNull Logger log = LoggerFactory.getLogger(CloudWatchReporterService.class);
 
-    private static final @NotNull String METRIC_NAMESPACE = "hivemq-metrics";
+    private final @NotNull List<MetricRegistryListener> registryListeners = new ArrayList<>();
+    private final @NotNull DimensionPlaceholders dimensionPlaceholders;
 
     private @Nullable CloudWatchReporter cloudWatchReporter;
+    private @Nullable ReporterGroups reporterGroups;
+    private @Nullable MetricRegistry metricRegistry;
+    private @Nullable ExtensionMetrics extensionMetrics;
+    private @Nullable ReportedMetrics reportedMetrics;
+    private @Nullable ConfiguredMetricsFilter filter;
+    private @Nullable ConfiguredMetricsFilter highResolutionFilter;
+    private @NotNull List<ConfiguredMetricsFilter> groupFilters = List.of();
+    private @Nullable DedicatedExecutors dedicatedExecutors;
+    private @Nullable ScheduledExecutorService scheduler;
+    private @Nullable RefreshingCredentialsProvider credentialsProvider;
+    private @Nullable ExtensionConfiguration pendingReload;
+    private long reportIntervalMillis;
+    private boolean alignReportInterval;
+    private long generation;
+
+    CloudWatchReporterService() {
+        this(DimensionPlaceholders.fromEnvironment());
+    }
+
+    CloudWatchReporterService(final @NotNull DimensionPlaceholders dimensionPlaceholders) {
+        this.dimensionPlaceholders = dimensionPlaceholders;
+    }
 
     public @Nullable CloudWatchReporter getCloudWatchReporter() {
         return cloudWatchReporter;
     }
 
-    void startCloudWatchReporter(
+    synchronized void startCloudWatchReporter(
             final @NotNull ExtensionConfiguration configuration,
             final @NotNull ManagedExtensionExecutorService executorService,
             final @NotNull MetricRegistry metricRegistry) {
         final var cloudWatchConfig = configuration.getConfig();
-        if (configuration.getEnabledMetrics().isEmpty()) {
+        if (configuration.getEnabledMetrics().isEmpty() &&
+                cloudWatchConfig.getReporters().isEmpty() &&
+                !cloudWatchConfig.isReportExtensionMetrics()) {
             log.warn("No HiveMQ metrics enabled, no AWS CloudWatch report started");
         } else {
-            final var apiTimeout = cloudWatchConfig.getApiTimeout().map(Duration::ofMillis).orElse(null);
-
-            final var cloudWatchAsyncClientBuilder = CloudWatchAsyncClient.builder()
-                    .credentialsProvider(DefaultCredentialsProvider.builder().build())
-                    .asyncConfiguration(ClientAsyncConfiguration.builder()
-                            .advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, executorService)
-                            .build())
-                    .overrideConfiguration(ClientOverrideConfiguration.builder()
-                            .apiCallTimeout(apiTimeout)
-                            .apiCallAttemptTimeout(apiTimeout)
-                            .build());
-            if (configuration.getConfig().getCloudWatchEndpointOverride() != null) {
-                cloudWatchAsyncClientBuilder
-                        .endpointOverride(URI.create(configuration.getConfig().getCloudWatchEndpointOverride()));
+            final var dedicatedExecutors = cloudWatchConfig.getReportingExecutor()
+                    .map(reportingExecutor -> new DedicatedExecutors(reportingExecutor.getCompletionThreads(),
+                            reportingExecutor.getCompletionQueueSize(),
+                            reportingExecutor.isVirtualThreads()))
+                    .orElse(null);
+            final ScheduledExecutorService scheduler =
+                    dedicatedExecutors != null ? dedicatedExecutors.getScheduler() : executorService;
+            final Executor completionExecutor =
+                    dedicatedExecutors != null ? dedicatedExecutors.getCompletionExecutor() : executorService;
+            this.dedicatedExecutors = dedicatedExecutors;
+            this.scheduler = scheduler;
+
+            final var extensionMetrics = new ExtensionMetrics(metricRegistry);
+            this.extensionMetrics = extensionMetrics;
+            final var pipelineMetrics = new PipelineMetrics(extensionMetrics);
+            if (dedicatedExecutors != null) {
+                extensionMetrics.gauge("executor.queue-size", (Gauge<Integer>) dedicatedExecutors::queueSize);
+            }
+
+            final var reporters = reporters(cloudWatchConfig);
+            final var groupFilters = reporters.stream()
+                    .map(reporter -> ExtensionConfiguration.enabledMetrics(reporter.getMetrics()))
+                    .map(ConfiguredMetricsFilter::new)
+                    .collect(Collectors.toUnmodifiableList());
+            this.groupFilters = groupFilters;
+            registryListeners.addAll(groupFilters);
+
+            final var enabledMetrics = enabledMetrics(configuration);
+            final var filter = new ConfiguredMetricsFilter(enabledMetrics);
+            final var highResolutionFilter = highResolutionFilter(enabledMetrics);
+            this.metricRegistry = metricRegistry;
+            this.filter = filter;
+            this.highResolutionFilter = highResolutionFilter;
+            this.reportIntervalMillis = cloudWatchConfig.getReportIntervalMillis();
+            this.alignReportInterval = cloudWatchConfig.isAlignReportInterval();
+            final var publisher = new CompletableFuture<MetricDataPublisher>();
+            final var credentialsConfig = cloudWatchConfig.getCredentials().orElse(null);
+            final var regionProvider =
+                    credentialsConfig != null ? new CachedRegionProvider(credentialsConfig.getRegion()) : null;
+            if (credentialsConfig != null && cloudWatchConfig.hasSink(SinkType.CLOUDWATCH)) {
+                // the credentials are resolved with the first request, i.e. in the background, and refreshed on the
+                // completion executor, so the blocking calls to STS or the instance metadata service do not delay
+                // the reports on the scheduler
+                credentialsProvider = CredentialsProviderFactory.create(credentialsConfig,
+                        regionProvider,
+                        scheduler,
+                        completionExecutor,
+                        extensionMetrics);
             }
+            final var sink = createSink(configuration,
+                    scheduler,
+                    completionExecutor,
+                    extensionMetrics,
+                    pipelineMetrics,
+                    credentialsProvider,
+                    regionProvider,
+                    publisher);
 
-            final var cloudWatchReporterBuilder = CloudWatchReporter
-                    .forRegistry(metricRegistry, cloudWatchAsyncClientBuilder.build(), METRIC_NAMESPACE)
-                    .filter(new ConfiguredMetricsFilter(configuration.getEnabledMetrics()));
-            if (cloudWatchConfig.getZeroValuesSubmission()) {
-                cloudWatchReporterBuilder.withZeroValuesSubmission();
+            // placeholders like ${hostname} or ${ec2:instance-id} are looked up with the name service or the EC2
+            // instance metadata service on the completion executor, so the start of HiveMQ does not wait for them,
+            // and the reporters are started once they are resolved
+            final var placeholderValues = placeholderValues(configuration, enabledMetrics, reporters);
+            if (dimensionPlaceholders.isNodeIdFromHostname() &&
+                    placeholderValues.stream().anyMatch(value -> value.contains("${node-id}"))) {
+                log.warn("The environment variable {} is not set, so the hostname is used as the HiveMQ node ID. " +
+                                "Nodes with the same hostname, e.g. containers, share a node ID and with cluster " +
+                                "aggregation all send the cluster-wide metrics, set {} to a unique ID per node",
+                        DimensionPlaceholders.NODE_ID_VARIABLE,
+                        DimensionPlaceholders.NODE_ID_VARIABLE);
             }
-            if (cloudWatchConfig.getReportRawCountValue()) {
-                cloudWatchReporterBuilder.withReportRawCountValue();
+            final var generation = this.generation;
+            final Runnable startReporters = () -> startReporters(generation,
+                    configuration,
+                    enabledMetrics,
+                    reporters,
+                    sink,
+                    publisher,
+                    pipelineMetrics);
+            if (placeholderValues.stream().noneMatch(dimensionPlaceholders::requiresLookUp)) {
+                startReporters.run();
+            } else {
+                CompletableFuture.runAsync(() -> placeholderValues.forEach(dimensionPlaceholders::lookUp),
+                        completionExecutor).thenRun(startReporters).exceptionally(throwable -> {
+                    log.error("Could not start CloudWatchReporter, reason: ", throwable);
+                    return null;
+                });
             }
-            cloudWatchReporter = cloudWatchReporterBuilder.build();
-            cloudWatchReporter.start(cloudWatchConfig.getReportInterval(), TimeUnit.MINUTES);
-            log.info("Started CloudWatchReporter for {} HiveMQ metrics", configuration.getEnabledMetrics().size());
         }
     }
 
-    void stopCloudWatchReporter() {
-        if (cloudWatchReporter != null) {
-            cloudWatchReporter.stop();
-            log.info("Stopped CloudWatchReporter");
+    /**
+     * Starts the reporter and the reporter groups once the placeholders of their dimensions are resolved. If the
+     * extension was stopped in the meantime, only the sink is closed.
+     */
+    private synchronized void startReporters(
+            final long generation,
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull List<Metric> enabledMetrics,
+            final @NotNull List<Reporter> reporters,
+            final @NotNull MetricSink sink,
+            final @NotNull CompletableFuture<MetricDataPublisher> publisher,
+            final @NotNull PipelineMetrics pipelineMetrics) {
+        final var metricRegistry = this.metricRegistry;
+        final var scheduler = this.scheduler;
+        final var filter = this.filter;
+        final var highResolutionFilter = this.highResolutionFilter;
+        if (generation != this.generation ||
+                metricRegistry == null ||
+                scheduler == null ||
+                filter == null ||
+                highResolutionFilter == null) {
+            sink.close();
+            return;
+        }
+        final var cloudWatchConfig = configuration.getConfig();
+        final var dimensions = MetricDimensions.create(cloudWatchConfig, enabledMetrics, dimensionPlaceholders);
+        final var reportedMetrics = new ReportedMetrics(routedFilter(filter, groupFilters),
+                highResolutionFilter,
+                dimensions,
+                pipelineMetrics);
+        this.reportedMetrics = reportedMetrics;
+        registryListeners.addAll(List.of(filter, highResolutionFilter, reportedMetrics));
+        final var startup = cloudWatchConfig.getStartup().orElseGet(Startup::new);
+        final var groups = new ArrayList<ReporterGroups.Group>();
+        for (var i = 0; i < reporters.size(); i++) {
+            groups.add(createReporterGroup(configuration,
+                    reporters.get(i),
+                    routedFilter(groupFilters.get(i), groupFilters.subList(0, i)),
+                    publisher,
+                    scheduler,
+                    startup,
+                    pipelineMetrics));
+        }
+        // adding the listeners resolves the metrics that are already registered
+        registryListeners.forEach(metricRegistry::addListener);
+
+        final var aggregator = cloudWatchConfig.getAggregation()
+                .map(aggregation -> new MetricAggregator(reportedMetrics,
+                        aggregation.getMode(),
+                        aggregation.getSampleInterval(),
+                        cloudWatchConfig.getReportIntervalMillis(),
+                        cloudWatchConfig.getZeroValuesSubmission(),
+                        cloudWatchConfig.getReportRawCountValue()))
+                .orElse(null);
+        final var clusterAggregator = createClusterAggregator(configuration, enabledMetrics);
+        if (clusterAggregator != null) {
+            registryListeners.add(clusterAggregator.getNodeMetricsFilter());
+            metricRegistry.addListener(clusterAggregator.getNodeMetricsFilter());
+        }
+        final var changeDetector = cloudWatchConfig.getChangeDetection()
+                .map(changeDetection -> new ChangeDetector(changeDetection.getAbsoluteThreshold().orElse(null),
+                        changeDetection.getRelativeThreshold().orElse(null),
+                        changeDetection.getHeartbeat()))
+                .orElse(null);
+        final var sketches = cloudWatchConfig.getSketches()
+                .map(sketchesConfig -> new MetricSketches(reportedMetrics,
+                        sketchesConfig.getRelativeAccuracy(),
+                        sketchesConfig.getSampleInterval()))
+                .orElse(null);
+        final var cloudWatchReporter = CloudWatchReporter.builder(sink, reportedMetrics)
+                .zeroValuesSubmission(cloudWatchConfig.getZeroValuesSubmission())
+                .reportRawCountValue(cloudWatchConfig.getReportRawCountValue())
+                .aggregator(aggregator)
+                .clusterAggregator(clusterAggregator)
+                .changeDetector(changeDetector)
+                .cardinalityLimiter(CardinalityLimiter.create(enabledMetrics,
+                        dimensions,
+                        cloudWatchConfig.getZeroValuesSubmission()))
+                .sketches(sketches)
+                .build();
+        this.cloudWatchReporter = cloudWatchReporter;
+        cloudWatchReporter.start(scheduler,
+                cloudWatchConfig.getReportInterval(),
+                cloudWatchConfig.getReportIntervalUnit().getTimeUnit(),
+                cloudWatchConfig.isAlignReportInterval(),
+                extensionMetrics);
+        log.info("Started CloudWatchReporter for {} HiveMQ metrics with a report interval of {} {}",
+                enabledMetrics.size(),
+                cloudWatchConfig.getReportInterval(),
+                cloudWatchConfig.getReportIntervalUnit().getTimeUnit());
+        if (!groups.isEmpty()) {
+            final var reporterGroups = new ReporterGroups(groups);
+            reporterGroups.start(scheduler, cloudWatchConfig.isAlignReportInterval());
+            this.reporterGroups = reporterGroups;
+            log.info("Started {} reporter groups with a shared report tick of {} ms",
+                    groups.size(),
+                    reporterGroups.getTickMillis());
+        }
+        final var pendingReload = this.pendingReload;
+        if (pendingReload != null) {
+            this.pendingReload = null;
+            reload(pendingReload, metricRegistry, cloudWatchReporter, reportedMetrics, scheduler);
         }
     }
 
-    private static class ConfiguredMetricsFilter implements MetricFilter {
+    /**
+     * @return the configured dimension values of the reporter and the reporter groups and the node ID of the cluster
+     *         aggregation, which may contain placeholders
+     */
+    private static @NotNull List<String> placeholderValues(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull List<Metric> enabledMetrics,
+            final @NotNull List<Reporter> reporters) {
+        final var cloudWatchConfig = configuration.getConfig();
+        final var values = new ArrayList<>(MetricDimensions.values(cloudWatchConfig, enabledMetrics));
+        for (final var reporter : reporters) {
+            values.addAll(MetricDimensions.values(cloudWatchConfig,
+                    ExtensionConfiguration.enabledMetrics(reporter.getMetrics())));
+        }
+        if (cloudWatchConfig.getCluster().isPresent() && configuration.getClusterDirectory().isPresent()) {
+            values.add("${node-id}");
+        }
+        return values;
+    }
 
-        private final @NotNull Collection<String> metrics;
+    /**
+     * @return the reporter groups, which publish with PutMetricData requests and therefore require the CloudWatch sink
+     */
+    private static @NotNull List<Reporter> reporters(final @NotNull Config cloudWatchConfig) {
+        if (cloudWatchConfig.getReporters().isEmpty() || cloudWatchConfig.hasSink(SinkType.CLOUDWATCH)) {
+            return cloudWatchConfig.getReporters();
+        }
+        log.warn("Reporter groups require the {} sink, ignoring {} reporter groups",
+                SinkType.CLOUDWATCH.name().toLowerCase(Locale.ROOT),
+                cloudWatchConfig.getReporters().size());
+        return List.of();
+    }
+
+    /**
+     * Creates the reporter of a reporter group. Its metrics are published with a publisher that is derived from the
+     * publisher of the CloudWatch sink once that is initialized, so all groups share its client and rate limiter.
+     */
+    private @NotNull ReporterGroups.Group createReporterGroup(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull Reporter reporter,
+            final @NotNull MetricFilter filter,
+            final @NotNull CompletableFuture<MetricDataPublisher> publisher,
+            final @NotNull ScheduledExecutorService scheduler,
+            final @NotNull Startup startup,
+            final @NotNull PipelineMetrics pipelineMetrics) {
+        final var enabledMetrics = ExtensionConfiguration.enabledMetrics(reporter.getMetrics());
+        final var highResolutionFilter = highResolutionFilter(enabledMetrics);
+        final var dimensions =
+                MetricDimensions.create(configuration.getConfig(), enabledMetrics, dimensionPlaceholders);
+        final var reportedMetrics = new ReportedMetrics(filter, highResolutionFilter, dimensions, pipelineMetrics);
+        registryListeners.addAll(List.of(highResolutionFilter, reportedMetrics));
+        final var namespace = reporter.getNamespace();
+        final var sink = new DeferredSink("cloudwatch " + namespace,
+                () -> publisher.thenApply(namespacePublisher -> namespacePublisher.forNamespace(namespace)),
+                scheduler,
+                startup.getBufferSize(),
+                startup.getTimeout(),
+                startup.getTimeoutPolicy(),
+                null);
+        final var cloudWatchReporter = CloudWatchReporter.builder(sink, reportedMetrics)
+                .zeroValuesSubmission(reporter.getZeroValuesSubmission())
+                .reportRawCountValue(reporter.getReportRawCountValue())
+                .cardinalityLimiter(CardinalityLimiter.create(enabledMetrics,
+                        dimensions,
+                        reporter.getZeroValuesSubmission()))
+                .build();
+        log.info("Created reporter group for {} HiveMQ metrics to namespace {} with a report interval of {} {}",
+                enabledMetrics.size(),
+                namespace,
+                reporter.getReportInterval(),
+                reporter.getReportIntervalUnit().getTimeUnit());
+        return new ReporterGroups.Group(namespace, reporter.getReportIntervalMillis(), sink, cloudWatchReporter);
+    }
 
-        ConfiguredMetricsFilter(final @NotNull Collection<String> metrics) {
-            this.metrics = metrics;
+    /**
+     * @return a filter that matches the metrics of the given filter which are not routed to a preceding reporter group
+     */
+    private static @NotNull MetricFilter routedFilter(
+            final @NotNull MetricFilter filter,
+            final @NotNull List<? extends MetricFilter> precedingFilters) {
+        if (precedingFilters.isEmpty()) {
+            return filter;
         }
+        return (name, metric) -> {
+            if (!filter.matches(name, metric)) {
+                return false;
+            }
+            for (final var precedingFilter : precedingFilters) {
+                if (precedingFilter.matches(name, metric)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
 
-        @Override
-        public boolean matches(final @Nullable String name, final @Nullable Metric metric) {
-            return metrics.contains(name);
+    /**
+     * Applies a reloaded configuration. The enabled metrics, their dimensions, the report interval and its alignment of
+     * a running reporter are replaced without stopping it, all other changes require a restart of the extension.
+     * This includes changes of the reporter groups, the metrics routed to them are still excluded from the reporter.
+     */
+    synchronized void reloadCloudWatchReporter(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull ManagedExtensionExecutorService executorService,
+            final @NotNull MetricRegistry metricRegistry) {
+        final var cloudWatchReporter = this.cloudWatchReporter;
+        final var reportedMetrics = this.reportedMetrics;
+        final var scheduler = this.scheduler;
+        if (scheduler != null && cloudWatchReporter == null) {
+            // the reporter is started once the placeholders of its dimensions are resolved, it applies the reload then
+            pendingReload = configuration;
+            return;
+        }
+        if (cloudWatchReporter == null || reportedMetrics == null || scheduler == null) {
+            startCloudWatchReporter(configuration, executorService, metricRegistry);
+            return;
+        }
+        reload(configuration, metricRegistry, cloudWatchReporter, reportedMetrics, scheduler);
+    }
+
+    private void reload(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull MetricRegistry metricRegistry,
+            final @NotNull CloudWatchReporter cloudWatchReporter,
+            final @NotNull ReportedMetrics reportedMetrics,
+            final @NotNull ScheduledExecutorService scheduler) {
+        final var enabledMetrics = enabledMetrics(configuration);
+        if (enabledMetrics.isEmpty()) {
+            log.warn("No HiveMQ metrics enabled, no HiveMQ metrics are reported to AWS CloudWatch");
+        }
+        final var cloudWatchConfig = configuration.getConfig();
+        final var filter = new ConfiguredMetricsFilter(enabledMetrics);
+        final var highResolutionFilter = highResolutionFilter(enabledMetrics);
+        final var dimensions = MetricDimensions.create(cloudWatchConfig, enabledMetrics, dimensionPlaceholders);
+        replaceRegistryListener(metricRegistry, this.filter, filter);
+        replaceRegistryListener(metricRegistry, this.highResolutionFilter, highResolutionFilter);
+        this.filter = filter;
+        this.highResolutionFilter = highResolutionFilter;
+        reportedMetrics.setFilters(routedFilter(filter, groupFilters),
+                highResolutionFilter,
+                dimensions,
+                metricRegistry.getMetrics());
+        cloudWatchReporter.setCardinalityLimiter(CardinalityLimiter.create(enabledMetrics,
+                dimensions,
+                cloudWatchConfig.getZeroValuesSubmission()));
+        cloudWatchReporter.setClusterDimensions(MetricDimensions.createClusterWide(cloudWatchConfig,
+                enabledMetrics,
+                dimensionPlaceholders));
+
+        if (cloudWatchConfig.getReportIntervalMillis() != reportIntervalMillis ||
+                cloudWatchConfig.isAlignReportInterval() != alignReportInterval) {
+            reportIntervalMillis = cloudWatchConfig.getReportIntervalMillis();
+            alignReportInterval = cloudWatchConfig.isAlignReportInterval();
+            cloudWatchReporter.reschedule(scheduler,
+                    cloudWatchConfig.getReportInterval(),
+                    cloudWatchConfig.getReportIntervalUnit().getTimeUnit(),
+                    alignReportInterval);
+        }
+        log.info("Reloaded CloudWatchReporter for {} HiveMQ metrics with a report interval of {} {}",
+                enabledMetrics.size(),
+                cloudWatchConfig.getReportInterval(),
+                cloudWatchConfig.getReportIntervalUnit().getTimeUnit());
+    }
+
+    private void replaceRegistryListener(
+            final @NotNull MetricRegistry metricRegistry,
+            final @Nullable MetricRegistryListener oldListener,
+            final @NotNull MetricRegistryListener newListener) {
+        if (oldListener != null) {
+            metricRegistry.removeListener(oldListener);
+            registryListeners.remove(oldListener);
+        }
+        registryListeners.add(newListener);
+        metricRegistry.addListener(newListener);
+    }
+
+    /**
+     * @return the enabled metric definitions, including the metrics of the extension itself if they are reported
+     */
+    private static @NotNull List<Metric> enabledMetrics(final @NotNull ExtensionConfiguration configuration) {
+        final var enabledMetrics = configuration.getEnabledMetricDefinitions();
+        if (!configuration.getConfig().isReportExtensionMetrics()) {
+            return enabledMetrics;
+        }
+        final var withExtensionMetrics = new ArrayList<>(enabledMetrics);
+        withExtensionMetrics.add(new Metric(ExtensionMetrics.PREFIX, MatchType.PREFIX));
+        return withExtensionMetrics;
+    }
+
+    private static @NotNull ConfiguredMetricsFilter highResolutionFilter(final @NotNull List<Metric> enabledMetrics) {
+        return new ConfiguredMetricsFilter(enabledMetrics.stream()
+                .filter(Metric::isHighResolution)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return the configured sink, several sinks are published to on queues of their own
+     */
+    private static @NotNull MetricSink createSink(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull ScheduledExecutorService scheduler,
+            final @NotNull Executor completionExecutor,
+            final @NotNull ExtensionMetrics extensionMetrics,
+            final @NotNull PipelineMetrics pipelineMetrics,
+            final @Nullable AwsCredentialsProvider credentialsProvider,
+            final @Nullable AwsRegionProvider regionProvider,
+            final @NotNull CompletableFuture<MetricDataPublisher> publisher) {
+        final var sinkConfigs = configuration.getConfig().getSinks();
+        final var sinks = new ArrayList<MetricSink>();
+        final var names = new ArrayList<String>();
+        for (final var sinkConfig : sinkConfigs) {
+            final var type = Objects.requireNonNull(sinkConfig.getType());
+            final MetricSink sink;
+            switch (type) {
+                case EMF:
+                    sink = createEmfSink(configuration, pipelineMetrics);
+                    break;
+                case DEBUG:
+                    sink = new DebugSink();
+                    break;
+                case CLOUDWATCH:
+                default:
+                    final var startup = configuration.getConfig().getStartup().orElseGet(Startup::new);
+                    final Supplier<MetricDataPublisher> factory = () -> createPublisher(configuration,
+                            scheduler,
+                            completionExecutor,
+                            extensionMetrics,
+                            pipelineMetrics,
+                            credentialsProvider,
+                            regionProvider);
+                    final var createdPublisher = new CompletableFuture<MetricDataPublisher>();
+                    final var deferredSink = new DeferredSink("cloudwatch",
+                            () -> createdPublisher.completeAsync(factory, completionExecutor),
+                            scheduler,
+                            startup.getBufferSize(),
+                            startup.getTimeout(),
+                            startup.getTimeoutPolicy(),
+                            extensionMetrics);
+                    // the reporter groups derive their publishers from the publisher once the sink is ready, a failed
+                    // sink closes a late publisher and its client, so the reporter groups fail with it
+                    deferredSink.ready()
+                            .thenCompose(ready -> createdPublisher)
+                            .whenComplete((readyPublisher, throwable) -> {
+                                if (throwable != null) {
+                                    publisher.completeExceptionally(throwable);
+                                } else {
+                                    publisher.complete(readyPublisher);
+                                }
+                            });
+                    sink = deferredSink;
+            }
+            if (sinkConfigs.size() == 1) {
+                return sink;
+            }
+            final var name = type.name().toLowerCase(Locale.ROOT);
+            names.add(name);
+            sinks.add(new QueuedSink(name,
+                    sink,
+                    sinkConfig.getQueueSize(),
+                    completionExecutor,
+                    extensionMetrics));
+        }
+        log.info("Publishing HiveMQ metrics to the sinks {}", names);
+        return new FanOutSink(sinks);
+    }
+
+    /**
+     * Creates the publisher of the top level namespace with a new CloudWatch client.
+     */
+    static @NotNull MetricDataPublisher createPublisher(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull ScheduledExecutorService scheduler,
+            final @NotNull Executor completionExecutor,
+            final @NotNull ExtensionMetrics extensionMetrics,
+            final @NotNull PipelineMetrics pipelineMetrics,
+            final @Nullable AwsCredentialsProvider credentialsProvider,
+            final @Nullable AwsRegionProvider regionProvider) {
+        final var cloudWatchConfig = configuration.getConfig();
+        final var apiTimeout = cloudWatchConfig.getApiTimeout().map(Duration::ofMillis).orElse(null);
+        final var resolvedCredentialsProvider =
+                credentialsProvider != null ? credentialsProvider : DefaultCredentialsProvider.builder().build();
+        try {
+            // resolves the credentials ahead of the first request, e.g. from the instance metadata service
+            resolvedCredentialsProvider.resolveCredentials();
+        } catch (final SdkClientException e) {
+            log.warn("Could not resolve AWS credentials yet, retrying with the first request: {}", e.getMessage());
+        }
+        final var overrideConfigurationBuilder =
+                ClientOverrideConfiguration.builder().apiCallTimeout(apiTimeout).apiCallAttemptTimeout(apiTimeout);
+        cloudWatchConfig.getRequestCompression()
+                .ifPresent(requestCompression -> overrideConfigurationBuilder.compressionConfiguration(
+                        CompressionConfiguration.builder()
+                                .requestCompressionEnabled(requestCompression.isEnabled())
+                                .minimumCompressionThresholdInBytes(requestCompression.getThreshold())
+                                .build()));
+        final var cloudWatchAsyncClientBuilder = CloudWatchAsyncClient.builder()
+                .credentialsProvider(resolvedCredentialsProvider)
+                .asyncConfiguration(ClientAsyncConfiguration.builder()
+                        .advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, completionExecutor)
+                        .build())
+                .overrideConfiguration(overrideConfigurationBuilder.build());
+        cloudWatchConfig.getHttpClient()
+                .ifPresent(httpClient -> cloudWatchAsyncClientBuilder.httpClientBuilder(HttpClientFactory.builder(
+                        httpClient)));
+        if (regionProvider != null) {
+            cloudWatchAsyncClientBuilder.region(regionProvider.getRegion());
+        }
+        if (cloudWatchConfig.getCloudWatchEndpointOverride() != null) {
+            cloudWatchAsyncClientBuilder.endpointOverride(URI.create(cloudWatchConfig.getCloudWatchEndpointOverride()));
+        }
+
+        final var spool = createSpool(configuration, extensionMetrics);
+        final var retryBuffer = cloudWatchConfig.getRetry()
+                .map(retry -> new RetryBuffer(retry.getBufferSize(),
+                        retry.getEviction(),
+                        retry.getInitialBackoff(),
+                        retry.getMaxBackoff(),
+                        spool,
+                        extensionMetrics))
+                .orElse(null);
+        final var rateLimiter = cloudWatchConfig.getRateLimit()
+                .map(rateLimit -> new AdaptiveRateLimiter(rateLimit.getInitialRate(),
+                        rateLimit.getMinRate(),
+                        rateLimit.getMaxRate(),
+                        rateLimit.getBurst(),
+                        rateLimit.getLatencyThreshold(),
+                        System.nanoTime(),
+                        extensionMetrics))
+                .orElse(null);
+        final var client = cloudWatchAsyncClientBuilder.build();
+        final var publisher = MetricDataPublisher.builder(client, cloudWatchConfig.getNamespace(), scheduler)
+                .maxInFlightRequests(cloudWatchConfig.getMaxInFlightRequests())
+                .retryBuffer(retryBuffer)
+                .spool(spool)
+                .pipelineMetrics(pipelineMetrics)
+                .rateLimiter(rateLimiter)
+                .build();
+        final var prewarmConnections =
+                cloudWatchConfig.getHttpClient().map(HttpClient::getPrewarmConnections).orElse(0);
+        if (prewarmConnections > 0) {
+            publisher.prewarm(prewarmConnections);
+        }
+        return publisher;
+    }
+
+    private static @NotNull EmfSink createEmfSink(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull PipelineMetrics pipelineMetrics) {
+        final var cloudWatchConfig = configuration.getConfig();
+        final var emf = cloudWatchConfig.getEmf().orElseThrow();
+        final EmfTarget target;
+        switch (emf.getTarget()) {
+            case STDOUT:
+                target = new StreamEmfTarget(System.out);
+                break;
+            case UDP:
+                target = new UdpEmfTarget(new InetSocketAddress(emf.getHost(), emf.getPort()));
+                break;
+            case TCP:
+                target = new TcpEmfTarget(new InetSocketAddress(emf.getHost(), emf.getPort()));
+                break;
+            case FILE:
+            default:
+                target = new FileEmfTarget(configuration.getEmfFile().orElseThrow(),
+                        emf.getMaxFileSize(),
+                        emf.getMaxFiles());
+        }
+        log.info("Writing HiveMQ metrics as EMF to {}", emf.getTarget());
+        final var encoder = new EmfEncoder(cloudWatchConfig.getNamespace(),
+                emf.getLogGroup().orElse(null),
+                target.getMaxDocumentSize());
+        return new EmfSink(encoder, target, pipelineMetrics);
+    }
+
+    private @Nullable ClusterAggregator createClusterAggregator(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull List<Metric> enabledMetrics) {
+        final var cloudWatchConfig = configuration.getConfig();
+        final var clusterConfig = cloudWatchConfig.getCluster();
+        final var clusterDirectory = configuration.getClusterDirectory();
+        if (clusterConfig.isEmpty() || clusterDirectory.isEmpty()) {
+            return null;
+        }
+        final var nodeId = dimensionPlaceholders.resolve("${node-id}");
+        if (nodeId == null) {
+            log.error("Could not resolve the HiveMQ node ID, cluster aggregation is disabled");
+            return null;
+        }
+        final ClusterTransport transport;
+        try {
+            transport = new DirectoryClusterTransport(clusterDirectory.get());
+        } catch (final IOException e) {
+            log.error("Could not open AWS CloudWatch cluster directory {}, cluster aggregation is disabled, reason: {}",
+                    clusterDirectory.get(),
+                    e.getMessage());
+            return null;
+        }
+        log.info("Started cluster aggregation of HiveMQ metrics for node {}", nodeId);
+        return new ClusterAggregator(nodeId,
+                transport,
+                new ConfiguredMetricsFilter(clusterConfig.get().getNodeMetrics()),
+                MetricDimensions.createClusterWide(cloudWatchConfig, enabledMetrics, dimensionPlaceholders),
+                clusterConfig.get().getNodeTimeout(),
+                cloudWatchConfig.getZeroValuesSubmission());
+    }
+
+    private static @Nullable MetricSpool createSpool(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull ExtensionMetrics extensionMetrics) {
+        final var spoolConfig = configuration.getConfig().getSpool();
+        final var spoolDirectory = configuration.getSpoolDirectory();
+        if (spoolConfig.isEmpty() || spoolDirectory.isEmpty()) {
+            return null;
+        }
+        try {
+            return new MetricSpool(spoolDirectory.get(),
+                    spoolConfig.get().getMaxSize(),
+                    spoolConfig.get().getSegmentSize(),
+                    extensionMetrics);
+        } catch (final IOException e) {
+            log.error("Could not open AWS CloudWatch spool {}, metrics are not spooled, reason: {}",
+                    spoolDirectory.get(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    synchronized void stopCloudWatchReporter() {
+        // a reporter that waits for the placeholders of its dimensions is not started anymore
+        generation++;
+        pendingReload = null;
+        // the reporter groups share the client of the reporter, so they are stopped first
+        if (reporterGroups != null) {
+            reporterGroups.stop();
+            reporterGroups = null;
+        }
+        if (cloudWatchReporter != null) {
+            cloudWatchReporter.stop();
+            cloudWatchReporter = null;
+            log.info("Stopped CloudWatchReporter");
+        }
+        if (dedicatedExecutors != null) {
+            dedicatedExecutors.shutdown();
+            dedicatedExecutors = null;
+        }
+        scheduler = null;
+        if (credentialsProvider != null) {
+            credentialsProvider.close();
+            credentialsProvider = null;
+        }
+        if (metricRegistry != null) {
+            registryListeners.forEach(metricRegistry::removeListener);
+        }
+        registryListeners.clear();
+        reportedMetrics = null;
+        filter = null;
+        highResolutionFilter = null;
+        groupFilters = List.of();
+        if (extensionMetrics != null) {
+            extensionMetrics.remove();
+            extensionMetrics = null;
         }
     }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates the metrics of all nodes of a cluster, so only one node publishes the cluster-wide values.
+ * <p>
+ * Each node publishes a {@link NodeSummary} of its metrics per report. The live node with the smallest node ID is
+ * the leader and sends one statistic set per metric with a {@code Scope} dimension of {@code cluster} and the
+ * configured dimensions that are not node-specific, see {@link MetricDimensions#createClusterWide}: gauges with
+ * the sum, minimum and maximum over the nodes, counts with the sum of the count increases of the nodes and
+ * histograms and timers with the merged count, sum, minimum and maximum of their snapshots. Only the metrics of the
+ * node metrics filter are still sent by each node with its own values.
+ * <p>
+ * Counts are exchanged as cumulative counts and the leader computes the increases itself, so a node that becomes
+ * the leader only sends the increases after it has seen a node twice and increases are never sent twice.
+ */
+class ClusterAggregator {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ClusterAggregator.class);
+
+    static final @NotNull Dimension CLUSTER_SCOPE_DIMENSION =
+            Dimension.builder().name("Scope").value("cluster").build();
+
+    private final @NotNull String nodeId;
+    private final @NotNull ClusterTransport transport;
+    private final @NotNull ConfiguredMetricsFilter nodeMetricsFilter;
+    private final long nodeTimeoutMillis;
+    private final boolean zeroValuesSubmission;
+
+    // the last cumulative count of each metric by node ID, only kept while this node is the leader
+    private final @NotNull Map<String, Map<String, Double>> lastCounts = new HashMap<>();
+    // the dimensions of the cluster-wide datums by metric name
+    private final @NotNull Map<String, List<Dimension>> rollupDimensions = new HashMap<>();
+    private @NotNull MetricDimensions dimensions;
+    private boolean leader;
+
+    ClusterAggregator(
+            final @NotNull String nodeId,
+            final @NotNull ClusterTransport transport,
+            final @NotNull ConfiguredMetricsFilter nodeMetricsFilter,
+            final @NotNull MetricDimensions dimensions,
+            final long nodeTimeoutMillis,
+            final boolean zeroValuesSubmission) {
+        this.nodeId = nodeId;
+        this.transport = transport;
+        this.nodeMetricsFilter = nodeMetricsFilter;
+        this.dimensions = dimensions;
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        this.zeroValuesSubmission = zeroValuesSubmission;
+    }
+
+    @NotNull ConfiguredMetricsFilter getNodeMetricsFilter() {
+        return nodeMetricsFilter;
+    }
+
+    /**
+     * Replaces the dimensions of the cluster-wide datums, e.g. after the configuration was reloaded.
+     */
+    synchronized void setDimensions(final @NotNull MetricDimensions dimensions) {
+        this.dimensions = dimensions;
+        rollupDimensions.clear();
+    }
+
+    /**
+     * @return whether the metric is still sent by each node with its own values
+     */
+    boolean isNodeMetric(final @NotNull ReportedMetric metric) {
+        return nodeMetricsFilter.matches(metric.getName(), metric.getMetric());
+    }
+
+    /**
+     * Publishes the summary of this node and, if this node is the leader, adds the cluster-wide datums.
+     */
+    synchronized void collect(
+            final @NotNull Instant timestamp,
+            final @NotNull ReportedMetric @NotNull [] metrics,
+            final @NotNull List<MetricDatum> metricData) {
+        final var now = timestamp.toEpochMilli();
+        try {
+            transport.publish(NodeSummary.of(nodeId, now, metrics));
+        } catch (final IOException e) {
+            log.warn("Could not publish the HiveMQ metric summary of node {}, reason: {}", nodeId, e.getMessage());
+        }
+        final Map<String, NodeSummary> liveNodes = new HashMap<>();
+        try {
+            for (final var summary : transport.receive()) {
+                if (summary.getTimestamp() >= now - nodeTimeoutMillis) {
+                    liveNodes.put(summary.getNodeId(), summary);
+                }
+            }
+        } catch (final IOException e) {
+            log.warn("Could not receive the HiveMQ metric summaries of the cluster, reason: {}", e.getMessage());
+            return;
+        }
+        // the own summary might not be visible yet
+        if (liveNodes.keySet().stream().anyMatch(id -> id.compareTo(nodeId) < 0)) {
+            if (leader) {
+                log.info("Node {} stopped publishing the cluster-wide HiveMQ metrics", nodeId);
+                leader = false;
+            }
+            lastCounts.clear();
+            return;
+        }
+        if (!leader) {
+            log.info("Node {} started publishing the cluster-wide HiveMQ metrics", nodeId);
+            leader = true;
+        }
+        lastCounts.keySet().retainAll(liveNodes.keySet());
+        final var rollups = new LinkedHashMap<String, Rollup>();
+        for (final var summary : liveNodes.values()) {
+            final var nodeLastCounts = lastCounts.computeIfAbsent(summary.getNodeId(), id -> new HashMap<>());
+            for (final var entry : summary.getEntries()) {
+                final var rollup = rollups.computeIfAbsent(entry.getName(), name -> new Rollup(entry));
+                if (entry.getKind() == ReportedMetric.Kind.GAUGE) {
+                    rollup.add(1, entry.getValue(), entry.getValue(), entry.getValue());
+                    continue;
+                }
+                final var lastCount = nodeLastCounts.put(entry.getName(), entry.getValue());
+                if (lastCount == null) {
+                    // the first summary of the node only sets the base of the increases
+                    continue;
+                }
+                var delta = entry.getValue() - lastCount;
+                if (delta < 0) {
+                    // the node was restarted
+                    delta = entry.getValue();
+                }
+                if (entry.getKind() == ReportedMetric.Kind.HISTOGRAM || entry.getKind() == ReportedMetric.Kind.TIMER) {
+                    if (delta > 0) {
+                        rollup.add(delta, entry.getMean() * delta, entry.getMin(), entry.getMax());
+                    }
+                } else {
+                    rollup.add(1, delta, delta, delta);
+                }
+            }
+        }
+        for (final var rollup : rollups.values()) {
+            stage(metricData, rollup, timestamp);
+        }
+    }
+
+    private void stage(
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull Rollup rollup,
+            final @NotNull Instant timestamp) {
+        if (rollup.sampleCount == 0 || (!zeroValuesSubmission && rollup.max <= 0)) {
+            return;
+        }
+        final StandardUnit unit;
+        final Dimension typeDimension;
+        switch (rollup.kind) {
+            case GAUGE:
+                unit = StandardUnit.NONE;
+                typeDimension = CloudWatchReporter.GAUGE_DIMENSION;
+                break;
+            case HISTOGRAM:
+                unit = StandardUnit.NONE;
+                typeDimension = CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION;
+                break;
+            case TIMER:
+                unit = StandardUnit.MILLISECONDS;
+                typeDimension = CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION;
+                break;
+            default:
+                unit = StandardUnit.COUNT;
+                typeDimension = CloudWatchReporter.COUNT_DIMENSION;
+        }
+        metricData.add(MetricDatum.builder()
+                .metricName(rollup.name)
+                .unit(unit)
+                .dimensions(rollupDimensions.computeIfAbsent(rollup.name,
+                        name -> rollupDimensions(name, typeDimension)))
+                .storageResolution(rollup.highResolution ?
+                        CloudWatchReporter.HIGH_RESOLUTION :
+                        CloudWatchReporter.STANDARD_RESOLUTION)
+                .statisticValues(StatisticSet.builder()
+                        .sampleCount((double) rollup.sampleCount)
+                        .sum(CloudWatchReporter.sendableValue(rollup.sum))
+                        .minimum(CloudWatchReporter.sendableValue(rollup.min))
+                        .maximum(CloudWatchReporter.sendableValue(rollup.max))
+                        .build())
+                .timestamp(timestamp)
+                .build());
+    }
+
+    private @NotNull List<Dimension> rollupDimensions(
+            final @NotNull String name,
+            final @NotNull Dimension typeDimension) {
+        final var configuredDimensions = dimensions.get(name);
+        final var rollupDimensions = new ArrayList<Dimension>(configuredDimensions.size() + 2);
+        rollupDimensions.add(typeDimension);
+        rollupDimensions.add(CLUSTER_SCOPE_DIMENSION);
+        rollupDimensions.addAll(configuredDimensions);
+        return List.copyOf(rollupDimensions);
+    }
+
+    /**
+     * Removes the summary of this node, so the other nodes elect a new leader without waiting for the node timeout.
+     */
+    synchronized void close() {
+        try {
+            transport.leave(nodeId);
+        } catch (final IOException e) {
+            log.warn("Could not remove the HiveMQ metric summary of node {}, reason: {}", nodeId, e.getMessage());
+        }
+        lastCounts.clear();
+        leader = false;
+    }
+
+    private static final class Rollup {
+
+        private final @NotNull String name;
+        private final ReportedMetric.@NotNull Kind kind;
+        private final boolean highResolution;
+        private double sampleCount;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Rollup(final NodeSummary.@NotNull Entry entry) {
+            name = entry.getName();
+            kind = entry.getKind();
+            highResolution = entry.isHighResolution();
+        }
+
+        private void add(final double count, final double sum, final double min, final double max) {
+            sampleCount += count;
+            this.sum += sum;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+        }
+    }
+}
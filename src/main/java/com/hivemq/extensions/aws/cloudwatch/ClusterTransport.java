@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Exchanges the metric summaries between the nodes of a cluster.
+ * <p>
+ * A transport only has to keep the latest summary of each node, as the summaries contain cumulative counts.
+ */
+interface ClusterTransport {
+
+    /**
+     * Replaces the previous summary of the node.
+     */
+    void publish(@NotNull NodeSummary summary) throws IOException;
+
+    /**
+     * @return the latest summary of each node, including the own node
+     */
+    @NotNull Collection<NodeSummary> receive() throws IOException;
+
+    /**
+     * Removes the summary of the node, so the other nodes do not wait for the node timeout.
+     */
+    void leave(@NotNull String nodeId) throws IOException;
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistryListener;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches metric names against the configured metrics.
+ * <p>
+ * The configured metrics are compiled once: exact names are kept in a hash set, prefixes in a trie and globs and
+ * regular expressions as precompiled patterns. Each decision is cached per metric name, so a report only evaluates
+ * the configured metrics for names that were not seen before. The cached decision of a metric is dropped when the
+ * metric is removed from the registry, so the filter has to be registered as a listener on the reported registry.
+ */
+@ThreadSafe
+class ConfiguredMetricsFilter extends MetricRegistryListener.Base implements MetricFilter {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ConfiguredMetricsFilter.class);
+
+    private final @NotNull Set<String> exactNames = new HashSet<>();
+    private final @NotNull PrefixTrie prefixes = new PrefixTrie();
+    private final @NotNull List<Pattern> patterns = new ArrayList<>();
+    private final @NotNull Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    ConfiguredMetricsFilter(final @NotNull Collection<Metric> metrics) {
+        for (final var metric : metrics) {
+            final var value = metric.getValue();
+            switch (metric.getMatch()) {
+                case EXACT:
+                    exactNames.add(value);
+                    break;
+                case PREFIX:
+                    prefixes.add(value);
+                    break;
+                case GLOB:
+                    patterns.add(Pattern.compile(globToRegex(value)));
+                    break;
+                case REGEX:
+                    try {
+                        patterns.add(Pattern.compile(value));
+                    } catch (final PatternSyntaxException e) {
+                        log.warn("Ignoring HiveMQ metric regex '{}', reason: {}", value, e.getDescription());
+                    }
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public boolean matches(final @Nullable String name, final com.codahale.metrics.@Nullable Metric metric) {
+        if (name == null) {
+            return false;
+        }
+        final var decision = decisions.get(name);
+        if (decision != null) {
+            return decision;
+        }
+        final var matches = evaluate(name);
+        decisions.put(name, matches);
+        return matches;
+    }
+
+    /**
+     * @return whether the name matches one of the configured metrics, without caching the decision
+     */
+    boolean evaluate(final @NotNull String name) {
+        if (exactNames.contains(name) || prefixes.matchesPrefixOf(name)) {
+            return true;
+        }
+        for (final var pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int cachedDecisions() {
+        return decisions.size();
+    }
+
+    @Override
+    public void onGaugeRemoved(final @NotNull String name) {
+        decisions.remove(name);
+    }
+
+    @Override
+    public void onCounterRemoved(final @NotNull String name) {
+        decisions.remove(name);
+    }
+
+    @Override
+    public void onHistogramRemoved(final @NotNull String name) {
+        decisions.remove(name);
+    }
+
+    @Override
+    public void onMeterRemoved(final @NotNull String name) {
+        decisions.remove(name);
+    }
+
+    @Override
+    public void onTimerRemoved(final @NotNull String name) {
+        decisions.remove(name);
+    }
+
+    static @NotNull String globToRegex(final @NotNull String glob) {
+        final var regex = new StringBuilder(glob.length() + 16);
+        final var literal = new StringBuilder();
+        for (var i = 0; i < glob.length(); i++) {
+            final var c = glob.charAt(i);
+            if (c != '*' && c != '?') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            if (c == '?') {
+                regex.append('.');
+            } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else {
+                regex.append("[^.]*");
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+
+    private static class PrefixTrie {
+
+        private final @NotNull Node root = new Node();
+        private boolean empty = true;
+
+        void add(final @NotNull String prefix) {
+            var node = root;
+            for (var i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            }
+            node.terminal = true;
+            empty = false;
+        }
+
+        boolean matchesPrefixOf(final @NotNull String name) {
+            if (empty) {
+                return false;
+            }
+            var node = root;
+            for (var i = 0; i < name.length(); i++) {
+                if (node.terminal) {
+                    return true;
+                }
+                node = node.children.get(name.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+
+        private static class Node {
+
+            private final @NotNull Map<Character, Node> children = new HashMap<>();
+            private boolean terminal;
+        }
+    }
+}
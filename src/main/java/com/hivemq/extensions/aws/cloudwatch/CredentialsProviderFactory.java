@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.AssumeRole;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Credentials;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.StaticCredentials;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider;
+import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates the configured credentials provider of the CloudWatch client.
+ * <p>
+ * The static credentials or, without them, the default credentials provider chain are the source credentials. With an
+ * {@code assume-role} element, these are used to assume the role with STS. In any case, the credentials are refreshed
+ * in the background by a {@link RefreshingCredentialsProvider}.
+ */
+final class CredentialsProviderFactory {
+
+    private CredentialsProviderFactory() {
+    }
+
+    static @NotNull RefreshingCredentialsProvider create(
+            final @NotNull Credentials credentials,
+            final @NotNull AwsRegionProvider regionProvider,
+            final @NotNull ScheduledExecutorService scheduler,
+            final @NotNull Executor refreshExecutor,
+            final @Nullable ExtensionMetrics extensionMetrics) {
+        return new RefreshingCredentialsProvider(() -> delegate(credentials, regionProvider),
+                scheduler,
+                refreshExecutor,
+                credentials.getRefreshAhead(),
+                Clock.systemUTC(),
+                extensionMetrics);
+    }
+
+    static @NotNull AwsCredentialsProvider delegate(
+            final @NotNull Credentials credentials,
+            final @NotNull AwsRegionProvider regionProvider) {
+        final var sourceProvider = credentials.getStaticCredentials()
+                .map(CredentialsProviderFactory::staticProvider)
+                .orElseGet(() -> DefaultCredentialsProvider.builder().build());
+        final var assumeRole = credentials.getAssumeRole().orElse(null);
+        if (assumeRole == null) {
+            return sourceProvider;
+        }
+        return assumeRoleProvider(assumeRole, sourceProvider, regionProvider, credentials.getRefreshAhead());
+    }
+
+    private static @NotNull AwsCredentialsProvider staticProvider(final @NotNull StaticCredentials staticCredentials) {
+        final var accessKeyId = Objects.requireNonNull(staticCredentials.getAccessKeyId());
+        final var secretAccessKey = Objects.requireNonNull(staticCredentials.getSecretAccessKey());
+        if (staticCredentials.getSessionToken() != null) {
+            return StaticCredentialsProvider.create(AwsSessionCredentials.create(accessKeyId,
+                    secretAccessKey,
+                    staticCredentials.getSessionToken()));
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey));
+    }
+
+    private static @NotNull AwsCredentialsProvider assumeRoleProvider(
+            final @NotNull AssumeRole assumeRole,
+            final @NotNull AwsCredentialsProvider sourceProvider,
+            final @NotNull AwsRegionProvider regionProvider,
+            final long refreshAheadMillis) {
+        final var stsClientBuilder =
+                StsClient.builder().region(regionProvider.getRegion()).credentialsProvider(sourceProvider);
+        if (assumeRole.getStsEndpointOverride() != null) {
+            stsClientBuilder.endpointOverride(URI.create(assumeRole.getStsEndpointOverride()));
+        }
+        final var assumeRoleRequest = AssumeRoleRequest.builder()
+                .roleArn(assumeRole.getRoleArn())
+                .roleSessionName(assumeRole.getSessionName())
+                .externalId(assumeRole.getExternalId())
+                .durationSeconds(assumeRole.getDuration())
+                .build();
+        // the RefreshingCredentialsProvider refreshes in the background, so the provider of the SDK refreshes inline
+        // once the credentials are within the refresh ahead time of their expiry
+        return StsAssumeRoleCredentialsProvider.builder()
+                .stsClient(stsClientBuilder.build())
+                .refreshRequest(assumeRoleRequest)
+                .prefetchTime(Duration.ofMillis(refreshAheadMillis))
+                .asyncCredentialUpdateEnabled(false)
+                .build();
+    }
+}
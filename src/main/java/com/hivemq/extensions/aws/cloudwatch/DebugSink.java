@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Logs the metric data of each report, e.g. to check the names, dimensions and values of the reported metrics
+ * locally without sending them to CloudWatch.
+ */
+@ThreadSafe
+class DebugSink implements MetricSink {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(DebugSink.class);
+
+    @Override
+    public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+        log.info("Report of {} HiveMQ metrics", metricData.size());
+        for (final var datum : metricData) {
+            log.info("  {}", format(datum));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static @NotNull String format(final @NotNull MetricDatum datum) {
+        final var builder = new StringBuilder(datum.metricName()).append(" {");
+        for (var i = 0; i < datum.dimensions().size(); i++) {
+            final var dimension = datum.dimensions().get(i);
+            builder.append(i > 0 ? ", " : "").append(dimension.name()).append('=').append(dimension.value());
+        }
+        builder.append("} ");
+        if (datum.value() != null) {
+            builder.append(datum.value());
+        } else if (datum.statisticValues() != null) {
+            final var statisticSet = datum.statisticValues();
+            builder.append("sum=")
+                    .append(statisticSet.sum())
+                    .append(", count=")
+                    .append(statisticSet.sampleCount())
+                    .append(", min=")
+                    .append(statisticSet.minimum())
+                    .append(", max=")
+                    .append(statisticSet.maximum());
+        } else {
+            builder.append("values=").append(datum.values()).append(", counts=").append(datum.counts());
+        }
+        if (datum.unit() != null) {
+            builder.append(' ').append(datum.unitAsString());
+        }
+        return builder.append(" @ ").append(datum.timestamp()).toString();
+    }
+}
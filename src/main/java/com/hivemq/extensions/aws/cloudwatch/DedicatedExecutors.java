@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The scheduler of the reports and the executor that completes the CloudWatch requests, isolated from the shared
+ * extension executor, so other extensions can not delay the reports.
+ * <p>
+ * The scheduler uses a single platform thread. The requests are completed on virtual threads if enabled and
+ * supported by the JVM (Java 21+), otherwise on a bounded pool of platform threads that completes on the calling
+ * thread when its queue is full.
+ */
+@ThreadSafe
+class DedicatedExecutors {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(DedicatedExecutors.class);
+
+    private final @NotNull ScheduledThreadPoolExecutor scheduler;
+    private final @NotNull ExecutorService completionExecutor;
+
+    DedicatedExecutors(final int completionThreads, final int completionQueueSize, final boolean virtualThreads) {
+        scheduler = new ScheduledThreadPoolExecutor(1, threadFactory("hivemq-cloudwatch-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        final var virtualThreadExecutor = virtualThreads ? virtualThreadExecutor() : null;
+        if (virtualThreadExecutor != null) {
+            completionExecutor = virtualThreadExecutor;
+        } else {
+            final var executor = new ThreadPoolExecutor(completionThreads,
+                    completionThreads,
+                    60,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(completionQueueSize),
+                    threadFactory("hivemq-cloudwatch-completion"),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            completionExecutor = executor;
+        }
+    }
+
+    @NotNull ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    @NotNull ExecutorService getCompletionExecutor() {
+        return completionExecutor;
+    }
+
+    /**
+     * @return the number of tasks that are due but wait for a thread
+     */
+    int queueSize() {
+        var size = 0;
+        for (final var task : scheduler.getQueue()) {
+            if (((Delayed) task).getDelay(TimeUnit.NANOSECONDS) <= 0) {
+                size++;
+            }
+        }
+        if (completionExecutor instanceof ThreadPoolExecutor) {
+            size += ((ThreadPoolExecutor) completionExecutor).getQueue().size();
+        }
+        return size;
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        // pending completions are still run, they only release the resources of finished requests
+        completionExecutor.shutdown();
+    }
+
+    private static @Nullable ExecutorService virtualThreadExecutor() {
+        try {
+            // the extension is compiled for Java 11, so virtual threads are only available via reflection
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            log.debug("Virtual threads are not supported by the JVM, AWS CloudWatch requests are completed on " +
+                    "platform threads");
+            return null;
+        }
+    }
+
+    private static @NotNull ThreadFactory threadFactory(final @NotNull String name) {
+        final var counter = new AtomicInteger();
+        return runnable -> {
+            final var thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
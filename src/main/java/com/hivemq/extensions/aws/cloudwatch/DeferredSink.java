@@ -0,0 +1,291 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.StartupTimeoutPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Creates a sink on an executor, so resolving the credentials and building the client does not block the start of
+ * the extension.
+ * <p>
+ * Until the sink is created at most {@code bufferSize} reports are buffered, a further report replaces the oldest
+ * buffered one. The buffered reports are published in order once the sink is ready. If the sink is not created within
+ * {@code timeoutMillis}, the {@link StartupTimeoutPolicy} decides whether the creation is awaited further or given up.
+ * <p>
+ * Instead of a factory, the sink can be awaited from a future, e.g. a sink that is derived from another deferred sink
+ * once that is {@link #ready()}.
+ */
+@ThreadSafe
+class DeferredSink implements MetricSink {
+
+    static final int STATUS_INITIALIZING = 0;
+    static final int STATUS_READY = 1;
+    static final int STATUS_FAILED = 2;
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(DeferredSink.class);
+
+    private final @NotNull String name;
+    private final @NotNull Supplier<CompletableFuture<? extends MetricSink>> initialization;
+    private final @NotNull ScheduledExecutorService scheduler;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final @NotNull StartupTimeoutPolicy timeoutPolicy;
+    private final @NotNull ArrayDeque<List<MetricDatum>> buffer = new ArrayDeque<>();
+    private final @Nullable Counter droppedReports;
+    private final @NotNull CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    private int status = STATUS_INITIALIZING;
+    private boolean timedOut;
+    private boolean closed;
+    private long startNanos;
+    private @Nullable MetricSink sink;
+    private @Nullable ScheduledFuture<?> timeoutFuture;
+
+    DeferredSink(
+            final @NotNull String name,
+            final @NotNull Supplier<MetricSink> factory,
+            final @NotNull Executor executor,
+            final @NotNull ScheduledExecutorService scheduler,
+            final int bufferSize,
+            final long timeoutMillis,
+            final @NotNull StartupTimeoutPolicy timeoutPolicy,
+            final @Nullable ExtensionMetrics extensionMetrics) {
+        this(name,
+                () -> CompletableFuture.supplyAsync(factory, executor),
+                scheduler,
+                bufferSize,
+                timeoutMillis,
+                timeoutPolicy,
+                extensionMetrics);
+    }
+
+    DeferredSink(
+            final @NotNull String name,
+            final @NotNull Supplier<CompletableFuture<? extends MetricSink>> initialization,
+            final @NotNull ScheduledExecutorService scheduler,
+            final int bufferSize,
+            final long timeoutMillis,
+            final @NotNull StartupTimeoutPolicy timeoutPolicy,
+            final @Nullable ExtensionMetrics extensionMetrics) {
+        this.name = name;
+        this.initialization = initialization;
+        this.scheduler = scheduler;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.timeoutPolicy = timeoutPolicy;
+        if (extensionMetrics != null) {
+            droppedReports = extensionMetrics.counter("startup.dropped");
+            extensionMetrics.gauge("startup.status", (Gauge<Integer>) this::status);
+            extensionMetrics.gauge("startup.buffered", (Gauge<Integer>) this::buffered);
+        } else {
+            droppedReports = null;
+        }
+    }
+
+    /**
+     * Starts the creation of the sink and returns without waiting for it.
+     */
+    @Override
+    public void start() {
+        synchronized (this) {
+            startNanos = System.nanoTime();
+            try {
+                timeoutFuture = scheduler.schedule(this::timedOut, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                // the scheduler was shut down, so the extension stops
+                return;
+            }
+        }
+        log.debug("Initializing sink {} in the background", name);
+        try {
+            initialization.get().whenComplete(this::initialized);
+        } catch (final RejectedExecutionException e) {
+            initialized(null, e);
+        }
+    }
+
+    /**
+     * @return a future that completes when the sink handled the metric data, or right away when the report was
+     *         buffered or dropped, so a queue in front of this sink does not fill up while the sink is initialized
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+        final boolean dropped;
+        synchronized (this) {
+            if (status == STATUS_READY) {
+                //noinspection ConstantConditions
+                return sink.publish(metricData);
+            }
+            if (closed || status == STATUS_FAILED || timedOut || bufferSize == 0) {
+                dropped = true;
+            } else {
+                dropped = buffer.size() == bufferSize;
+                if (dropped) {
+                    buffer.poll();
+                }
+                buffer.add(metricData);
+            }
+        }
+        if (dropped) {
+            drop(1);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void initialized(final @Nullable MetricSink newSink, final @Nullable Throwable throwable) {
+        if (throwable != null || newSink == null) {
+            log.error("Could not initialize sink {}, no HiveMQ metrics are published to it",
+                    name,
+                    throwable instanceof CompletionException ? throwable.getCause() : throwable);
+            fail();
+            return;
+        }
+        final long initNanos;
+        synchronized (this) {
+            if (closed || status == STATUS_FAILED) {
+                initNanos = -1;
+            } else {
+                sink = newSink;
+                initNanos = System.nanoTime() - startNanos;
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+            }
+        }
+        if (initNanos < 0) {
+            newSink.close();
+            return;
+        }
+        log.info("Initialized sink {} in {} ms", name, TimeUnit.NANOSECONDS.toMillis(initNanos));
+        newSink.start();
+        while (true) {
+            final List<MetricDatum> metricData;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                metricData = buffer.poll();
+                if (metricData == null) {
+                    status = STATUS_READY;
+                    timedOut = false;
+                }
+            }
+            if (metricData == null) {
+                ready.complete(null);
+                return;
+            }
+            newSink.publish(metricData);
+        }
+    }
+
+    private void timedOut() {
+        final int reports;
+        synchronized (this) {
+            if (closed || status != STATUS_INITIALIZING || sink != null) {
+                return;
+            }
+            timedOut = true;
+            reports = buffer.size();
+            buffer.clear();
+        }
+        if (timeoutPolicy == StartupTimeoutPolicy.FAIL) {
+            log.error("Sink {} was not initialized within {} ms, no HiveMQ metrics are published to it",
+                    name,
+                    timeoutMillis);
+            fail();
+        } else {
+            log.warn("Sink {} was not initialized within {} ms, HiveMQ metrics are dropped until it is initialized",
+                    name,
+                    timeoutMillis);
+        }
+        drop(reports);
+    }
+
+    private void fail() {
+        final int reports;
+        synchronized (this) {
+            status = STATUS_FAILED;
+            reports = buffer.size();
+            buffer.clear();
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+        drop(reports);
+        ready.completeExceptionally(new IllegalStateException("Sink " + name + " failed"));
+    }
+
+    private void drop(final int reports) {
+        if (droppedReports != null && reports > 0) {
+            droppedReports.inc(reports);
+        }
+    }
+
+    /**
+     * @return a future that completes when the sink is ready, or exceptionally when it failed or was closed before
+     */
+    @NotNull CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    /**
+     * @return {@link #STATUS_INITIALIZING}, {@link #STATUS_READY} or {@link #STATUS_FAILED}
+     */
+    synchronized int status() {
+        return status;
+    }
+
+    synchronized int buffered() {
+        return buffer.size();
+    }
+
+    @Override
+    public void close() {
+        final MetricSink sinkToClose;
+        synchronized (this) {
+            closed = true;
+            buffer.clear();
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            sinkToClose = sink;
+        }
+        ready.completeExceptionally(new IllegalStateException("Sink " + name + " was closed"));
+        if (sinkToClose != null) {
+            sinkToClose.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+/**
+ * Resolves the placeholders in configured dimension values.
+ * <p>
+ * The following placeholders are supported:
+ * <ul>
+ *     <li>{@code ${hostname}}: the hostname of the broker</li>
+ *     <li>{@code ${node-id}}: the environment variable {@code HIVEMQ_NODE_ID}, or the hostname if it is not set, the
+ *     extension SDK does not expose the cluster node ID of HiveMQ</li>
+ *     <li>{@code ${cluster-id}}: the environment variable {@code HIVEMQ_CLUSTER_ID}</li>
+ *     <li>{@code ${env:NAME}}: the environment variable {@code NAME}</li>
+ *     <li>{@code ${ec2:instance-id}}, {@code ${ec2:instance-type}}, {@code ${ec2:availability-zone}},
+ *     {@code ${ec2:region}} or any other EC2 instance metadata category, e.g. {@code ${ec2:ami-id}}</li>
+ * </ul>
+ * The hostname and the EC2 instance metadata are looked up once, when they are first resolved, and then cached, see
+ * {@link #lookUp(String)}.
+ */
+class DimensionPlaceholders {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(DimensionPlaceholders.class);
+
+    static final @NotNull String NODE_ID_VARIABLE = "HIVEMQ_NODE_ID";
+    static final @NotNull String CLUSTER_ID_VARIABLE = "HIVEMQ_CLUSTER_ID";
+
+    private final @NotNull Map<String, String> environment;
+    private final @NotNull Ec2InstanceMetadata ec2InstanceMetadata;
+
+    private @Nullable String hostname;
+    private boolean hostnameLookedUp;
+
+    DimensionPlaceholders(
+            final @NotNull Map<String, String> environment,
+            final @Nullable String hostname,
+            final @NotNull Ec2InstanceMetadata ec2InstanceMetadata) {
+        this(environment, ec2InstanceMetadata);
+        this.hostname = hostname;
+        this.hostnameLookedUp = true;
+    }
+
+    private DimensionPlaceholders(
+            final @NotNull Map<String, String> environment,
+            final @NotNull Ec2InstanceMetadata ec2InstanceMetadata) {
+        this.environment = environment;
+        this.ec2InstanceMetadata = ec2InstanceMetadata;
+    }
+
+    /**
+     * @return the placeholders of the environment, the hostname is looked up when it is first resolved
+     */
+    static @NotNull DimensionPlaceholders fromEnvironment() {
+        final var environment = System.getenv();
+        return new DimensionPlaceholders(environment, Ec2InstanceMetadata.fromEnvironment(environment));
+    }
+
+    private synchronized @Nullable String hostname() {
+        if (!hostnameLookedUp) {
+            try {
+                hostname = InetAddress.getLocalHost().getHostName();
+            } catch (final UnknownHostException e) {
+                log.debug("Could not resolve the hostname, reason: {}", e.getMessage());
+            }
+            hostnameLookedUp = true;
+        }
+        return hostname;
+    }
+
+    /**
+     * @return whether the value contains a placeholder that is resolved differently on each node of a cluster, which
+     *         are all placeholders except {@code ${cluster-id}}, {@code ${env:NAME}} and {@code ${ec2:region}}
+     */
+    static boolean isNodeSpecific(final @NotNull String value) {
+        return value.contains("${hostname}") ||
+                value.contains("${node-id}") ||
+                value.replace("${ec2:region}", "").contains("${ec2:");
+    }
+
+    /**
+     * @return whether {@code ${node-id}} falls back to the hostname, which is not unique if several nodes share it,
+     *         e.g. containers with the same hostname
+     */
+    boolean isNodeIdFromHostname() {
+        return !environment.containsKey(NODE_ID_VARIABLE);
+    }
+
+    /**
+     * @return whether resolving the value may block, because it contains a placeholder that is looked up with the name
+     *         service or the EC2 instance metadata service
+     */
+    boolean requiresLookUp(final @NotNull String value) {
+        return value.contains("${hostname}") ||
+                (value.contains("${node-id}") && isNodeIdFromHostname()) ||
+                value.contains("${ec2:");
+    }
+
+    /**
+     * Looks up the placeholders of the value without resolving it, so resolving it afterwards does not block.
+     */
+    void lookUp(final @NotNull String value) {
+        var start = value.indexOf("${");
+        while (start >= 0) {
+            final var end = value.indexOf('}', start);
+            if (end < 0) {
+                return;
+            }
+            placeholder(value.substring(start + 2, end));
+            start = value.indexOf("${", end + 1);
+        }
+    }
+
+    /**
+     * @return the value with all placeholders replaced or {@code null} if a placeholder could not be resolved
+     */
+    @Nullable String resolve(final @NotNull String value) {
+        var start = value.indexOf("${");
+        if (start < 0) {
+            return value;
+        }
+        final var resolved = new StringBuilder(value.length() + 32);
+        var end = -1;
+        while (start >= 0) {
+            resolved.append(value, end + 1, start);
+            end = value.indexOf('}', start);
+            if (end < 0) {
+                log.warn("Unterminated placeholder in dimension value '{}'", value);
+                return null;
+            }
+            final var name = value.substring(start + 2, end);
+            final var replacement = placeholder(name);
+            if (replacement == null) {
+                log.warn("Could not resolve placeholder ${{}} in dimension value '{}'", name, value);
+                return null;
+            }
+            resolved.append(replacement);
+            start = value.indexOf("${", end + 1);
+        }
+        return resolved.append(value, end + 1, value.length()).toString();
+    }
+
+    private @Nullable String placeholder(final @NotNull String name) {
+        switch (name) {
+            case "hostname":
+                return hostname();
+            case "node-id":
+                final var nodeId = environment.get(NODE_ID_VARIABLE);
+                return nodeId != null ? nodeId : hostname();
+            case "cluster-id":
+                return environment.get(CLUSTER_ID_VARIABLE);
+            case "ec2:availability-zone":
+                return ec2InstanceMetadata.get("placement/availability-zone");
+            case "ec2:region":
+                return ec2InstanceMetadata.get("placement/region");
+            default:
+                if (name.startsWith("env:")) {
+                    return environment.get(name.substring("env:".length()));
+                }
+                if (name.startsWith("ec2:")) {
+                    return ec2InstanceMetadata.get(name.substring("ec2:".length()));
+                }
+                return null;
+        }
+    }
+}
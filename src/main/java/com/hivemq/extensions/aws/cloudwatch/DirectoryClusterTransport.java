@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A transport over a directory that is shared by all nodes, e.g. on Amazon EFS.
+ * <p>
+ * Each node writes its summary to its own file. The file is written to a temporary file first and then moved, so
+ * other nodes never read a partially written summary.
+ */
+@ThreadSafe
+class DirectoryClusterTransport implements ClusterTransport {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(DirectoryClusterTransport.class);
+
+    static final @NotNull String SUFFIX = ".summary";
+
+    private final @NotNull Path directory;
+
+    DirectoryClusterTransport(final @NotNull Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public void publish(final @NotNull NodeSummary summary) throws IOException {
+        final var file = file(summary.getNodeId());
+        final var temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporaryFile, summary.encode());
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public @NotNull Collection<NodeSummary> receive() throws IOException {
+        final var summaries = new ArrayList<NodeSummary>();
+        try (final var files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (final var file : files) {
+                try {
+                    summaries.add(NodeSummary.decode(Files.readAllBytes(file)));
+                } catch (final NoSuchFileException e) {
+                    // the node left in the meantime
+                } catch (final IOException e) {
+                    log.debug("Could not read the HiveMQ metric summary {}, reason: {}", file, e.getMessage());
+                }
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public void leave(final @NotNull String nodeId) throws IOException {
+        Files.deleteIfExists(file(nodeId));
+    }
+
+    private @NotNull Path file(final @NotNull String nodeId) {
+        // node IDs can contain characters that are not allowed in file names
+        final var fileName = new StringBuilder(nodeId.length() * 2);
+        for (final var b : nodeId.getBytes(StandardCharsets.UTF_8)) {
+            final var c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.') {
+                fileName.append(c);
+            } else {
+                fileName.append('_').append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        return directory.resolve(fileName.append(SUFFIX).toString());
+    }
+}
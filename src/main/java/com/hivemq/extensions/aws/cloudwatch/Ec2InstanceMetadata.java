@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the instance metadata of the EC2 instance the broker runs on, with the session tokens of IMDSv2.
+ * <p>
+ * The endpoint is configured like in the AWS SDK, with the system property {@code aws.ec2MetadataServiceEndpoint} or
+ * the environment variable {@code AWS_EC2_METADATA_SERVICE_ENDPOINT}, so a local stub can replace the instance
+ * metadata service. Values are read once and cached. If the instance metadata service is not reachable, e.g. the
+ * broker does not run on EC2, no further requests are made.
+ */
+@ThreadSafe
+class Ec2InstanceMetadata {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(Ec2InstanceMetadata.class);
+
+    static final @NotNull String DEFAULT_ENDPOINT = "http://169.254.169.254";
+    private static final int TIMEOUT_MILLIS = 1000;
+    private static final int TOKEN_TTL_SECONDS = 60;
+
+    private final @NotNull URI endpoint;
+    private final @NotNull Map<String, Optional<String>> values = new ConcurrentHashMap<>();
+
+    private volatile boolean unavailable;
+
+    Ec2InstanceMetadata(final @NotNull URI endpoint, final boolean disabled) {
+        this.endpoint = endpoint;
+        this.unavailable = disabled;
+    }
+
+    static @NotNull Ec2InstanceMetadata fromEnvironment(final @NotNull Map<String, String> environment) {
+        var endpoint = System.getProperty("aws.ec2MetadataServiceEndpoint");
+        if (endpoint == null) {
+            endpoint = environment.getOrDefault("AWS_EC2_METADATA_SERVICE_ENDPOINT", DEFAULT_ENDPOINT);
+        }
+        final var disabled = Boolean.parseBoolean(System.getProperty("aws.disableEc2Metadata",
+                environment.getOrDefault("AWS_EC2_METADATA_DISABLED", "false")));
+        return new Ec2InstanceMetadata(URI.create(endpoint), disabled);
+    }
+
+    /**
+     * @param  path the path of the metadata category below {@code /latest/meta-data/}, e.g. {@code instance-id}
+     * @return      the value of the metadata category or {@code null} if it is not available
+     */
+    @Nullable String get(final @NotNull String path) {
+        return values.computeIfAbsent(path, this::read).orElse(null);
+    }
+
+    private @NotNull Optional<String> read(final @NotNull String path) {
+        if (unavailable) {
+            return Optional.empty();
+        }
+        try {
+            final var tokenConnection = open("/latest/api/token");
+            tokenConnection.setRequestMethod("PUT");
+            tokenConnection.setRequestProperty("X-aws-ec2-metadata-token-ttl-seconds", "" + TOKEN_TTL_SECONDS);
+            final var token = readResponse(tokenConnection);
+            if (token == null) {
+                unavailable = true;
+                return Optional.empty();
+            }
+            final var connection = open("/latest/meta-data/" + path);
+            connection.setRequestProperty("X-aws-ec2-metadata-token", token);
+            return Optional.ofNullable(readResponse(connection));
+        } catch (final IOException e) {
+            log.debug("EC2 instance metadata service is not available, reason: {}", e.getMessage());
+            unavailable = true;
+            return Optional.empty();
+        }
+    }
+
+    private @NotNull HttpURLConnection open(final @NotNull String path) throws IOException {
+        final var connection = (HttpURLConnection) endpoint.resolve(path).toURL().openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        return connection;
+    }
+
+    private static @Nullable String readResponse(final @NotNull HttpURLConnection connection) throws IOException {
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return null;
+            }
+            try (final InputStream inputStream = connection.getInputStream()) {
+                final var value = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).trim();
+                return value.isEmpty() ? null : value;
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
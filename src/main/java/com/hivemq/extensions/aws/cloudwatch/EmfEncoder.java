@@ -0,0 +1,318 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.NotThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Encodes metric data as CloudWatch Embedded Metric Format (EMF) documents, one JSON document per line.
+ * <p>
+ * The datums with the same dimensions and timestamp share a document, up to {@value #MAX_METRICS_PER_DOCUMENT}
+ * metrics per document. A document that exceeds the maximum document size of the target, e.g. the payload of a UDP
+ * datagram, is written again as two documents with half of its metrics each, a single metric that exceeds it is
+ * dropped. The JSON is written into a reusable byte buffer and is pure ASCII, all other characters are
+ * escaped, so no charset encoding is needed.
+ * <p>
+ * EMF has no statistic sets, so a statistic set is written as its sum. Values with counts are written as a value
+ * array, each value repeated by its count, up to {@value #MAX_VALUES_PER_METRIC} values.
+ */
+@NotThreadSafe
+class EmfEncoder {
+
+    // limits of the Embedded Metric Format
+    static final int MAX_METRICS_PER_DOCUMENT = 100;
+    static final int MAX_VALUES_PER_METRIC = 100;
+
+    private static final byte @NotNull [] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // whole numbers below this magnitude are written without a fraction and exponent
+    private static final double MAX_EXACT_LONG = 1e15;
+
+    private final @NotNull String namespace;
+    private final @Nullable String logGroup;
+    private final int maxDocumentSize;
+    private final @NotNull LinkedHashMap<Group, List<MetricDatum>> groups = new LinkedHashMap<>();
+    private final @NotNull Set<String> documentNames = new HashSet<>();
+    private final byte @NotNull [] digits = new byte[20];
+
+    private byte @NotNull [] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int size;
+    private int documents;
+    private int droppedDatums;
+
+    EmfEncoder(final @NotNull String namespace, final @Nullable String logGroup) {
+        this(namespace, logGroup, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxDocumentSize the maximum size of a document in bytes, see {@link EmfTarget#getMaxDocumentSize()}
+     */
+    EmfEncoder(final @NotNull String namespace, final @Nullable String logGroup, final int maxDocumentSize) {
+        this.namespace = namespace;
+        this.logGroup = logGroup;
+        this.maxDocumentSize = maxDocumentSize;
+    }
+
+    /**
+     * @return the newline terminated documents, the buffer is only valid until the next call
+     */
+    @NotNull ByteBuffer encode(final @NotNull List<MetricDatum> metricData) {
+        size = 0;
+        documents = 0;
+        droppedDatums = 0;
+        groups.clear();
+        for (final var datum : metricData) {
+            groups.computeIfAbsent(new Group(datum.dimensions(), datum.timestamp()), group -> new ArrayList<>())
+                    .add(datum);
+        }
+        final var now = System.currentTimeMillis();
+        groups.forEach((group, datums) -> {
+            final var timestamp = group.timestamp != null ? group.timestamp.toEpochMilli() : now;
+            var documentStart = 0;
+            documentNames.clear();
+            for (var i = 0; i < datums.size(); i++) {
+                // a metric name must be unique in a document
+                if (i - documentStart == MAX_METRICS_PER_DOCUMENT || !documentNames.add(datums.get(i).metricName())) {
+                    writeDocuments(group.dimensions, timestamp, datums.subList(documentStart, i));
+                    documentStart = i;
+                    documentNames.clear();
+                    documentNames.add(datums.get(i).metricName());
+                }
+            }
+            writeDocuments(group.dimensions, timestamp, datums.subList(documentStart, datums.size()));
+        });
+        groups.clear();
+        return ByteBuffer.wrap(buffer, 0, size);
+    }
+
+    /**
+     * @return the number of documents of the last {@link #encode(List)}
+     */
+    int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @return the number of datums of the last {@link #encode(List)} that were dropped, as their document alone
+     *         exceeds the maximum document size
+     */
+    int getDroppedDatums() {
+        return droppedDatums;
+    }
+
+    private void writeDocuments(
+            final @NotNull List<Dimension> dimensions,
+            final long timestamp,
+            final @NotNull List<MetricDatum> datums) {
+        final var documentStart = size;
+        writeDocument(dimensions, timestamp, datums);
+        if (size - documentStart <= maxDocumentSize) {
+            return;
+        }
+        size = documentStart;
+        documents--;
+        if (datums.size() == 1) {
+            droppedDatums++;
+            return;
+        }
+        final var half = datums.size() / 2;
+        writeDocuments(dimensions, timestamp, datums.subList(0, half));
+        writeDocuments(dimensions, timestamp, datums.subList(half, datums.size()));
+    }
+
+    private void writeDocument(
+            final @NotNull List<Dimension> dimensions,
+            final long timestamp,
+            final @NotNull List<MetricDatum> datums) {
+        ascii("{\"_aws\":{\"Timestamp\":");
+        number(timestamp);
+        if (logGroup != null) {
+            ascii(",\"LogGroupName\":");
+            string(logGroup);
+        }
+        ascii(",\"CloudWatchMetrics\":[{\"Namespace\":");
+        string(namespace);
+        ascii(",\"Dimensions\":[[");
+        for (var i = 0; i < dimensions.size(); i++) {
+            if (i > 0) {
+                ascii(",");
+            }
+            string(dimensions.get(i).name());
+        }
+        ascii("]],\"Metrics\":[");
+        for (var i = 0; i < datums.size(); i++) {
+            final var datum = datums.get(i);
+            ascii(i > 0 ? ",{\"Name\":" : "{\"Name\":");
+            string(datum.metricName());
+            if (datum.unit() != null) {
+                ascii(",\"Unit\":");
+                string(datum.unitAsString());
+            }
+            if (Objects.equals(datum.storageResolution(), CloudWatchReporter.HIGH_RESOLUTION)) {
+                ascii(",\"StorageResolution\":1");
+            }
+            ascii("}");
+        }
+        ascii("]}]}");
+        for (final var dimension : dimensions) {
+            ascii(",");
+            string(dimension.name());
+            ascii(":");
+            string(dimension.value());
+        }
+        for (final var datum : datums) {
+            ascii(",");
+            string(datum.metricName());
+            ascii(":");
+            value(datum);
+        }
+        ascii("}\n");
+        documents++;
+    }
+
+    private void value(final @NotNull MetricDatum datum) {
+        if (datum.value() != null) {
+            number(datum.value());
+        } else if (datum.statisticValues() != null) {
+            number(datum.statisticValues().sum());
+        } else if (!datum.values().isEmpty()) {
+            final var values = datum.values();
+            final var counts = datum.counts();
+            ascii("[");
+            var written = 0;
+            for (var i = 0; i < values.size() && written < MAX_VALUES_PER_METRIC; i++) {
+                final var count = i < counts.size() ? (long) Math.max(1, counts.get(i)) : 1;
+                for (var j = 0; j < count && written < MAX_VALUES_PER_METRIC; j++) {
+                    if (written++ > 0) {
+                        ascii(",");
+                    }
+                    number(values.get(i));
+                }
+            }
+            ascii("]");
+        } else {
+            ascii("0");
+        }
+    }
+
+    private void number(final double value) {
+        if (!Double.isFinite(value)) {
+            ascii("0");
+        } else if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_LONG) {
+            number((long) value);
+        } else {
+            ascii(Double.toString(value));
+        }
+    }
+
+    private void number(final long value) {
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+        }
+        // the magnitude of the written numbers is always below Long.MAX_VALUE
+        var remaining = Math.abs(value);
+        var length = 0;
+        do {
+            digits[length++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        while (length > 0) {
+            buffer[size++] = digits[--length];
+        }
+    }
+
+    private void string(final @NotNull String value) {
+        ensureCapacity(value.length() * 6 + 2);
+        buffer[size++] = '"';
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[size++] = '\\';
+                buffer[size++] = (byte) c;
+            } else if (c < 0x20 || c > 0x7e) {
+                buffer[size++] = '\\';
+                buffer[size++] = 'u';
+                buffer[size++] = HEX_DIGITS[(c >> 12) & 0xf];
+                buffer[size++] = HEX_DIGITS[(c >> 8) & 0xf];
+                buffer[size++] = HEX_DIGITS[(c >> 4) & 0xf];
+                buffer[size++] = HEX_DIGITS[c & 0xf];
+            } else {
+                buffer[size++] = (byte) c;
+            }
+        }
+        buffer[size++] = '"';
+    }
+
+    private void ascii(final @NotNull String value) {
+        ensureCapacity(value.length());
+        for (var i = 0; i < value.length(); i++) {
+            buffer[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+
+    private static final class Group {
+
+        private final @NotNull List<Dimension> dimensions;
+        private final @Nullable Instant timestamp;
+        private final int hashCode;
+
+        private Group(final @NotNull List<Dimension> dimensions, final @Nullable Instant timestamp) {
+            this.dimensions = dimensions;
+            this.timestamp = timestamp;
+            hashCode = 31 * dimensions.hashCode() + Objects.hashCode(timestamp);
+        }
+
+        @Override
+        public boolean equals(final @Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Group)) {
+                return false;
+            }
+            final var group = (Group) o;
+            return dimensions.equals(group.dimensions) && Objects.equals(timestamp, group.timestamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the metric data of each report as Embedded Metric Format documents to a local target, from which CloudWatch
+ * extracts the metrics, e.g. via the CloudWatch agent or CloudWatch Logs. This replaces the PutMetricData requests
+ * with a local write.
+ * <p>
+ * Metric data that can not be written is dropped, the next report is written again.
+ */
+@ThreadSafe
+class EmfSink implements MetricSink {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(EmfSink.class);
+
+    private final @NotNull EmfEncoder encoder;
+    private final @NotNull EmfTarget target;
+    private final @Nullable PipelineMetrics pipelineMetrics;
+
+    EmfSink(
+            final @NotNull EmfEncoder encoder,
+            final @NotNull EmfTarget target,
+            final @Nullable PipelineMetrics pipelineMetrics) {
+        this.encoder = encoder;
+        this.target = target;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @Override
+    public synchronized @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+        if (metricData.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final var startNanos = System.nanoTime();
+        final var documents = encoder.encode(metricData);
+        final var bytes = documents.remaining();
+        final var droppedDatums = encoder.getDroppedDatums();
+        if (droppedDatums > 0) {
+            log.warn("Dropped {} HiveMQ metrics, their EMF document exceeds the maximum document size of the target",
+                    droppedDatums);
+            if (pipelineMetrics != null) {
+                pipelineMetrics.dropped(droppedDatums);
+            }
+        }
+        try {
+            target.write(documents);
+            if (pipelineMetrics != null) {
+                pipelineMetrics.sent(bytes);
+            }
+        } catch (final Exception e) {
+            // besides I/O errors, e.g. an agent host that could not be resolved
+            log.error("Could not write {} HiveMQ metrics as EMF, reason: {}", metricData.size(), e.getMessage());
+            log.debug("Original exception", e);
+            if (pipelineMetrics != null) {
+                pipelineMetrics.failed(e);
+            }
+        }
+        if (pipelineMetrics != null) {
+            final var latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            pipelineMetrics.flushed(latencyMillis, metricData.size(), encoder.getDocuments());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized void close() {
+        target.close();
+    }
+}
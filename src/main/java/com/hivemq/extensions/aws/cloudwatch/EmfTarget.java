@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes Embedded Metric Format documents to a file, a stream or a CloudWatch agent.
+ * <p>
+ * Resources are opened on the first write and opened again after a failed write, so a target that is not available
+ * on startup, e.g. a CloudWatch agent that is started later, is used as soon as it is available.
+ */
+interface EmfTarget {
+
+    /**
+     * @param documents the newline terminated documents, backed by an array
+     */
+    void write(@NotNull ByteBuffer documents) throws IOException;
+
+    /**
+     * @return the maximum size of a single document in bytes, including its line break
+     */
+    default int getMaxDocumentSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    void close();
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Registers the metrics of the extension itself in the HiveMQ metric registry.
+ * <p>
+ * All metrics share the prefix {@value #PREFIX}, so they can be removed together when the extension stops and can be
+ * enabled for the CloudWatch report like any other HiveMQ metric.
+ */
+@ThreadSafe
+class ExtensionMetrics {
+
+    static final @NotNull String PREFIX = "com.hivemq.extensions.aws.cloudwatch.";
+
+    private final @NotNull MetricRegistry metricRegistry;
+
+    ExtensionMetrics(final @NotNull MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @NotNull Counter counter(final @NotNull String name) {
+        return metricRegistry.counter(PREFIX + name);
+    }
+
+    @NotNull Histogram histogram(final @NotNull String name) {
+        return metricRegistry.histogram(PREFIX + name);
+    }
+
+    void gauge(final @NotNull String name, final @NotNull Gauge<?> gauge) {
+        // a gauge of a previous extension start would prevent the registration
+        metricRegistry.remove(PREFIX + name);
+        metricRegistry.register(PREFIX + name, gauge);
+    }
+
+    void remove() {
+        metricRegistry.removeMatching(MetricFilter.startsWith(PREFIX));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes each report to several sinks.
+ * <p>
+ * The metric data of a report is collected once and shared read-only by all sinks, so an additional sink does not
+ * walk the metric registry again. The sinks should be {@link QueuedSink}s, so a slow sink does not delay the others.
+ */
+@ThreadSafe
+class FanOutSink implements MetricSink {
+
+    private final @NotNull List<MetricSink> sinks;
+
+    FanOutSink(final @NotNull List<MetricSink> sinks) {
+        this.sinks = List.copyOf(sinks);
+    }
+
+    @Override
+    public void start() {
+        sinks.forEach(MetricSink::start);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+        final var snapshot = Collections.unmodifiableList(metricData);
+        final var published = new CompletableFuture<?>[sinks.size()];
+        for (var i = 0; i < sinks.size(); i++) {
+            published[i] = sinks.get(i).publish(snapshot);
+        }
+        return CompletableFuture.allOf(published);
+    }
+
+    @Override
+    public void close() {
+        sinks.forEach(MetricSink::close);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the documents to a file that is rotated when it would exceed its maximum size.
+ * <p>
+ * The rotated files get the suffixes {@code .1} (newest) to {@code .<max files - 1>} (oldest), older files are
+ * deleted.
+ */
+class FileEmfTarget implements EmfTarget {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(FileEmfTarget.class);
+
+    private final @NotNull Path file;
+    private final long maxFileSize;
+    private final int maxFiles;
+
+    private @Nullable FileChannel channel;
+    private long fileSize;
+
+    FileEmfTarget(final @NotNull Path file, final long maxFileSize, final int maxFiles) {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+    }
+
+    @Override
+    public synchronized void write(final @NotNull ByteBuffer documents) throws IOException {
+        try {
+            if (channel == null) {
+                open();
+            }
+            if (fileSize > 0 && fileSize + documents.remaining() > maxFileSize) {
+                rotate();
+            }
+            while (documents.hasRemaining()) {
+                fileSize += channel.write(documents);
+            }
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void open() throws IOException {
+        final var parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel =
+                FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    private void rotate() throws IOException {
+        close();
+        if (maxFiles == 1) {
+            Files.deleteIfExists(file);
+        } else {
+            for (var i = maxFiles - 1; i > 0; i--) {
+                final var source = i == 1 ? file : rotated(i - 1);
+                if (Files.exists(source)) {
+                    Files.move(source, rotated(i), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        open();
+    }
+
+    @NotNull Path rotated(final int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            log.debug("Could not close EMF file {}, reason: {}", file, e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClient;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClientType;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.http.Protocol;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+
+import java.time.Duration;
+
+/**
+ * Creates the builder of the configured async HTTP client of the CloudWatch client.
+ * <p>
+ * The CloudWatch client builds the HTTP client from the builder, so it also closes the HTTP client when it is closed.
+ * <p>
+ * The CRT client is not part of the extension, as its native libraries are large. Its classes are only referenced by
+ * the nested {@link Crt} class, so the extension runs without them and falls back to the Netty client.
+ */
+final class HttpClientFactory {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(HttpClientFactory.class);
+
+    private static final @NotNull String CRT_CLIENT_CLASS = "software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient";
+
+    // the CRT client needs explicit keep-alive probes, the Netty client uses the settings of the operating system
+    static final @NotNull Duration CRT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(30);
+    static final @NotNull Duration CRT_KEEP_ALIVE_TIMEOUT = Duration.ofSeconds(10);
+
+    private HttpClientFactory() {
+    }
+
+    static @NotNull SdkAsyncHttpClient.Builder<?> builder(final @NotNull HttpClient httpClient) {
+        if (httpClient.getType() == HttpClientType.CRT) {
+            if (isCrtAvailable()) {
+                return Crt.builder(httpClient);
+            }
+            log.warn("The AWS CRT HTTP client is not in the extension folder, using the Netty HTTP client instead");
+        }
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(httpClient.getMaxConcurrency())
+                .maxPendingConnectionAcquires(httpClient.getMaxPendingAcquires())
+                .connectionAcquisitionTimeout(Duration.ofMillis(httpClient.getConnectionAcquireTimeout()))
+                .connectionMaxIdleTime(Duration.ofMillis(httpClient.getConnectionMaxIdleTime()))
+                .useIdleConnectionReaper(httpClient.isIdleConnectionReaper())
+                .tcpKeepAlive(httpClient.isTcpKeepAlive())
+                .protocol(httpClient.isHttp2() ? Protocol.HTTP2 : Protocol.HTTP1_1);
+    }
+
+    private static boolean isCrtAvailable() {
+        try {
+            Class.forName(CRT_CLIENT_CLASS, false, HttpClientFactory.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static final class Crt {
+
+        private static @NotNull SdkAsyncHttpClient.Builder<?> builder(final @NotNull HttpClient httpClient) {
+            final var crtBuilder = AwsCrtAsyncHttpClient.builder()
+                    .maxConcurrency(httpClient.getMaxConcurrency())
+                    .connectionAcquisitionTimeout(Duration.ofMillis(httpClient.getConnectionAcquireTimeout()))
+                    .connectionMaxIdleTime(Duration.ofMillis(httpClient.getConnectionMaxIdleTime()));
+            if (httpClient.isTcpKeepAlive()) {
+                crtBuilder.tcpKeepAliveConfiguration(TcpKeepAliveConfiguration.builder()
+                        .keepAliveInterval(CRT_KEEP_ALIVE_INTERVAL)
+                        .keepAliveTimeout(CRT_KEEP_ALIVE_TIMEOUT)
+                        .build());
+            }
+            return crtBuilder;
+        }
+    }
+}
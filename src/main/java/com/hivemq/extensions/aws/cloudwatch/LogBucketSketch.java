@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.NotThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A distribution sketch with logarithmic buckets, similar to DDSketch.
+ * <p>
+ * The bucket {@code i} holds the values in {@code (MIN_VALUE * gamma^(i-1), MIN_VALUE * gamma^i]} and is represented
+ * by a value with a relative error of at most the relative accuracy to all values of the bucket. The buckets cover
+ * {@value #MIN_VALUE} to {@value #MAX_VALUE}, smaller positive values are counted in the first bucket and larger ones
+ * in the last bucket, zero and negative values are counted as zero. So the memory of a sketch is fixed by its relative
+ * accuracy, and two sketches with the same relative accuracy always have the same buckets, which makes their bucket
+ * values and counts mergeable by simply adding the counts, e.g. by CloudWatch for the datums of several nodes.
+ */
+@NotThreadSafe
+class LogBucketSketch {
+
+    static final double MIN_VALUE = 1e-3;
+    static final double MAX_VALUE = 1e12;
+
+    private final double logGamma;
+    private final double representativeFactor;
+    private final double @NotNull [] counts;
+    private double zeroCount;
+    private double count;
+
+    /**
+     * @param relativeAccuracy the maximum relative error of the bucket values, between 0 and 1 (exclusive)
+     */
+    LogBucketSketch(final double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        final var gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+        representativeFactor = 2 / (1 + gamma);
+        counts = new double[bucketCount(relativeAccuracy)];
+    }
+
+    /**
+     * @return the number of buckets of a sketch with the given relative accuracy
+     */
+    static int bucketCount(final double relativeAccuracy) {
+        final var logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+        return (int) Math.ceil(Math.log(MAX_VALUE / MIN_VALUE) / logGamma) + 1;
+    }
+
+    /**
+     * @param value  the recorded value
+     * @param weight the number of times the value was recorded, may be fractional
+     */
+    void add(final double value, final double weight) {
+        if (weight <= 0 || Double.isNaN(value)) {
+            return;
+        }
+        if (value <= 0) {
+            zeroCount += weight;
+        } else {
+            counts[index(value)] += weight;
+        }
+        count += weight;
+    }
+
+    int index(final double value) {
+        if (value <= MIN_VALUE) {
+            return 0;
+        }
+        final var index = Math.ceil(Math.log(value / MIN_VALUE) / logGamma);
+        return (int) Math.min(index, counts.length - 1);
+    }
+
+    /**
+     * @return the value that represents the values of the bucket
+     */
+    double value(final int index) {
+        return MIN_VALUE * Math.exp(index * logGamma) * representativeFactor;
+    }
+
+    double getCount() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * Passes the value and count of all buckets with values in ascending order, starting with zero.
+     */
+    void forEachBucket(final @NotNull BucketConsumer consumer) {
+        if (zeroCount > 0) {
+            consumer.accept(0, zeroCount);
+        }
+        for (var i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                consumer.accept(value(i), counts[i]);
+            }
+        }
+    }
+
+    void reset() {
+        if (count == 0) {
+            return;
+        }
+        Arrays.fill(counts, 0);
+        zeroCount = 0;
+        count = 0;
+    }
+
+    @FunctionalInterface
+    interface BucketConsumer {
+
+        void accept(double value, double count);
+    }
+}
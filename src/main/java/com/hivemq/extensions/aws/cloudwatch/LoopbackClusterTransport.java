@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A transport between nodes in the same JVM, e.g. in tests.
+ * <p>
+ * All nodes share the same map. The summaries are encoded like for other transports.
+ */
+@ThreadSafe
+class LoopbackClusterTransport implements ClusterTransport {
+
+    private final @NotNull Map<String, byte[]> summaries;
+
+    /**
+     * @param summaries the encoded summaries by node ID, shared by all nodes, must be thread-safe
+     */
+    LoopbackClusterTransport(final @NotNull Map<String, byte[]> summaries) {
+        this.summaries = summaries;
+    }
+
+    @Override
+    public void publish(final @NotNull NodeSummary summary) {
+        summaries.put(summary.getNodeId(), summary.encode());
+    }
+
+    @Override
+    public @NotNull Collection<NodeSummary> receive() throws IOException {
+        final var received = new ArrayList<NodeSummary>(summaries.size());
+        for (final var summary : summaries.values()) {
+            received.add(NodeSummary.decode(summary));
+        }
+        return received;
+    }
+
+    @Override
+    public void leave(final @NotNull String nodeId) {
+        summaries.remove(nodeId);
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Sampling;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.AggregationMode;
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Aggregates the enabled metrics locally, so each metric is sent as a single datum per report.
+ * <p>
+ * Gauges and counts are sampled in the configured sample interval into primitive arrays. Histograms and timers are
+ * not sampled, as their reservoir already holds the recorded values, which are read once per report. As the reservoir
+ * is owned by the metric and not reset, the values of the whole reservoir are weighted by the increase of the count
+ * since the previous report, like with {@link MetricSketches}. So the sample count of a report is the number of values
+ * recorded since the previous one and the sum is estimated from the reservoir, while the minimum, maximum and distinct
+ * values are the ones of the whole reservoir, which may still hold values of earlier reports. On each report the
+ * samples of a metric are sent either as one statistic set or as one datum with the distinct values and their counts.
+ * With raw count values, only the last sample of a count is sent, as the sum of cumulative counts is meaningless.
+ * The buffers for snapshot values and distinct values are reused across reports.
+ */
+@ThreadSafe
+class MetricAggregator {
+
+    // CloudWatch accepts up to 150 values per datum
+    static final int MAXIMUM_VALUES_PER_DATUM = 150;
+
+    private final @NotNull ReportedMetrics reportedMetrics;
+    private final @NotNull AggregationMode mode;
+    private final long sampleIntervalMillis;
+    private volatile int samplesPerReport;
+    private final boolean zeroValuesSubmission;
+    private final boolean reportRawCountValue;
+
+    // only accessed while holding the lock of the aggregator
+    private @NotNull Samples snapshotSamples = new Samples(0);
+    private final @NotNull List<Double> distinctValues = new ArrayList<>();
+    private final @NotNull List<Double> distinctCounts = new ArrayList<>();
+
+    MetricAggregator(
+            final @NotNull ReportedMetrics reportedMetrics,
+            final @NotNull AggregationMode mode,
+            final long sampleIntervalMillis,
+            final long reportIntervalMillis,
+            final boolean zeroValuesSubmission,
+            final boolean reportRawCountValue) {
+        this.reportedMetrics = reportedMetrics;
+        this.mode = mode;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.samplesPerReport = samplesPerReport(sampleIntervalMillis, reportIntervalMillis);
+        this.zeroValuesSubmission = zeroValuesSubmission;
+        this.reportRawCountValue = reportRawCountValue;
+    }
+
+    long getSampleIntervalMillis() {
+        return sampleIntervalMillis;
+    }
+
+    /**
+     * Changes the number of samples kept per report, the samples of a metric are resized after its next report.
+     */
+    void setReportIntervalMillis(final long reportIntervalMillis) {
+        samplesPerReport = samplesPerReport(sampleIntervalMillis, reportIntervalMillis);
+    }
+
+    private static int samplesPerReport(final long sampleIntervalMillis, final long reportIntervalMillis) {
+        // one additional slot for a sample taken while the report is delayed
+        return (int) Math.max(1, reportIntervalMillis / sampleIntervalMillis) + 1;
+    }
+
+    /**
+     * Samples the current values of all enabled gauges and counts.
+     */
+    synchronized void sample() {
+        for (final var metric : reportedMetrics.get()) {
+            // histograms and timers are read from their reservoir on flush
+            if (metric.getKind() != ReportedMetric.Kind.HISTOGRAM && metric.getKind() != ReportedMetric.Kind.TIMER) {
+                sample(metric);
+            }
+        }
+    }
+
+    /**
+     * Adds one aggregated datum per metric with samples to the metric data and resets the samples.
+     */
+    void flush(final @NotNull Instant timestamp, final @NotNull List<MetricDatum> metricData) {
+        flush(timestamp, metricData, true);
+    }
+
+    /**
+     * @param snapshots whether histograms and timers are flushed, e.g. not if they are reported by their sketches
+     */
+    synchronized void flush(
+            final @NotNull Instant timestamp,
+            final @NotNull List<MetricDatum> metricData,
+            final boolean snapshots) {
+        for (final var metric : reportedMetrics.get()) {
+            if (!snapshots && MetricSketches.isSketched(metric)) {
+                continue;
+            }
+            switch (metric.getKind()) {
+                case GAUGE:
+                    flushSamples(timestamp, metricData, metric, StandardUnit.NONE, CloudWatchReporter.GAUGE_DIMENSION);
+                    break;
+                case COUNTER:
+                case METER:
+                    if (reportRawCountValue) {
+                        flushLastSample(timestamp, metricData, metric);
+                    } else {
+                        flushSamples(timestamp,
+                                metricData,
+                                metric,
+                                StandardUnit.COUNT,
+                                CloudWatchReporter.COUNT_DIMENSION);
+                    }
+                    break;
+                case HISTOGRAM:
+                    flushSnapshot(timestamp,
+                            metricData,
+                            metric,
+                            1,
+                            StandardUnit.NONE,
+                            CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION);
+                    break;
+                case TIMER:
+                    flushSnapshot(timestamp,
+                            metricData,
+                            metric,
+                            CloudWatchReporter.NANOS_PER_MILLI,
+                            StandardUnit.MILLISECONDS,
+                            CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION);
+                    break;
+            }
+        }
+    }
+
+    private void flushSamples(
+            final @NotNull Instant timestamp,
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric,
+            final @NotNull StandardUnit unit,
+            final @NotNull Dimension typeDimension) {
+        var samples = metric.getSamples();
+        if (samples == null || samples.count == 0) {
+            // the sample interval is not shorter than the report interval, so the report is the only sample
+            sample(metric);
+            samples = metric.getSamples();
+            if (samples == null || samples.count == 0) {
+                return;
+            }
+        }
+        stage(timestamp, metricData, metric, samples, unit, typeDimension);
+        samples.reset();
+    }
+
+    private void flushLastSample(
+            final @NotNull Instant timestamp,
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric) {
+        // the report itself is the latest sample of the raw count
+        sample(metric);
+        final var samples = Objects.requireNonNull(metric.getSamples());
+        samples.keepLast();
+        stage(timestamp, metricData, metric, samples, StandardUnit.COUNT, CloudWatchReporter.COUNT_DIMENSION);
+        samples.reset();
+    }
+
+    private void sample(final @NotNull ReportedMetric metric) {
+        if (metric.getKind() == ReportedMetric.Kind.GAUGE) {
+            final var value = ((Gauge<?>) metric.getMetric()).getValue();
+            if (value instanceof Number) {
+                samples(metric).add(((Number) value).doubleValue());
+            }
+        } else {
+            final var currentCount = ((Counting) metric.getMetric()).getCount();
+            final var delta = metric.countDelta(currentCount);
+            samples(metric).add(reportRawCountValue ? currentCount : delta);
+        }
+    }
+
+    private void flushSnapshot(
+            final @NotNull Instant timestamp,
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric,
+            final double divisor,
+            final @NotNull StandardUnit unit,
+            final @NotNull Dimension typeDimension) {
+        // the reservoir keeps values of previous reports, which can not be told apart from the new ones, so its values
+        // are weighted to the increase of the count
+        final var delta = metric.countDelta(((Counting) metric.getMetric()).getCount());
+        if (delta <= 0) {
+            return;
+        }
+        final var values = ((Sampling) metric.getMetric()).getSnapshot().getValues();
+        if (values.length == 0) {
+            return;
+        }
+        if (snapshotSamples.values.length < values.length) {
+            snapshotSamples = new Samples(values.length);
+        }
+        final var samples = snapshotSamples;
+        samples.reset();
+        for (final var value : values) {
+            samples.add(value / divisor);
+        }
+        samples.setWeight((double) delta / values.length);
+        stage(timestamp, metricData, metric, samples, unit, typeDimension);
+    }
+
+    private void stage(
+            final @NotNull Instant timestamp,
+            final @NotNull List<MetricDatum> metricData,
+            final @NotNull ReportedMetric metric,
+            final @NotNull Samples samples,
+            final @NotNull StandardUnit unit,
+            final @NotNull Dimension typeDimension) {
+        // only submit metrics that show some data to save costs
+        if (!zeroValuesSubmission && samples.max <= 0) {
+            return;
+        }
+        final var datum = metric.datumBuilder(0, unit, typeDimension).timestamp(timestamp);
+        if (mode == AggregationMode.VALUES && samples.distinctValues(distinctValues, distinctCounts)) {
+            datum.statisticValues(null).values(distinctValues).counts(distinctCounts);
+        } else {
+            datum.values((List<Double>) null).counts((List<Double>) null).statisticValues(StatisticSet.builder()
+                    .sampleCount(samples.count * samples.weight)
+                    .sum(CloudWatchReporter.sendableValue(samples.sum * samples.weight))
+                    .minimum(CloudWatchReporter.sendableValue(samples.min))
+                    .maximum(CloudWatchReporter.sendableValue(samples.max))
+                    .build());
+        }
+        metricData.add(datum.build());
+    }
+
+    private @NotNull Samples samples(final @NotNull ReportedMetric metric) {
+        var samples = metric.getSamples();
+        if (samples == null || (samples.isEmpty() && samples.capacity() != samplesPerReport)) {
+            samples = new Samples(samplesPerReport);
+            metric.setSamples(samples);
+        }
+        return samples;
+    }
+
+    /**
+     * The samples of a metric since the last report.
+     * <p>
+     * The running statistics cover all samples, the values are only kept up to the capacity of the array. Each sample
+     * stands for {@code weight} recorded values, e.g. for the values of a reservoir that are weighted by the increase
+     * of the count.
+     */
+    static final class Samples {
+
+        private final double @NotNull [] values;
+        private int size;
+        private long count;
+        private double sum;
+        private double min;
+        private double max;
+        private double last;
+        private double weight;
+
+        Samples(final int capacity) {
+            values = new double[capacity];
+            reset();
+        }
+
+        void add(final double value) {
+            if (size < values.length) {
+                values[size++] = value;
+            }
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            last = value;
+        }
+
+        void setWeight(final double weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Keeps only the latest sample.
+         */
+        void keepLast() {
+            final var last = this.last;
+            final var empty = isEmpty();
+            reset();
+            if (!empty) {
+                add(last);
+            }
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        int capacity() {
+            return values.length;
+        }
+
+        void reset() {
+            size = 0;
+            count = 0;
+            sum = 0;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            weight = 1;
+        }
+
+        /**
+         * @param  distinctValues the list to fill with the distinct values
+         * @param  counts         the list to fill with the counts of the distinct values
+         * @return                {@code false} if the values can not be represented as values and counts of a single
+         *                        datum
+         */
+        boolean distinctValues(final @NotNull List<Double> distinctValues, final @NotNull List<Double> counts) {
+            distinctValues.clear();
+            counts.clear();
+            if (size < count) {
+                return false;
+            }
+            Arrays.sort(values, 0, size);
+            for (var i = 0; i < size; i++) {
+                if (i > 0 && values[i] == values[i - 1]) {
+                    final var lastIndex = counts.size() - 1;
+                    counts.set(lastIndex, counts.get(lastIndex) + weight);
+                } else if (distinctValues.size() == MAXIMUM_VALUES_PER_DATUM) {
+                    return false;
+                } else {
+                    distinctValues.add(CloudWatchReporter.sendableValue(values[i]));
+                    counts.add(weight);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs metric data into as few PutMetricData requests as possible.
+ * <p>
+ * The serialized size of each datum is estimated with the form encoding of the AWS query protocol, which is the
+ * largest encoding CloudWatch supports. Requests are filled in order until either the datum limit or the payload
+ * limit of a request would be exceeded.
+ */
+final class MetricDataBatcher {
+
+    // CloudWatch accepts up to 1000 datums and 1 MB per PutMetricData request
+    static final int MAXIMUM_DATUMS_PER_REQUEST = 1000;
+    static final int MAXIMUM_REQUEST_BYTES = 1_000_000;
+
+    // "&MetricData.member.1000." prefixes every field of a datum
+    private static final int MEMBER_PREFIX_LENGTH = 24;
+    // "&Dimensions.member.30." or "&Values.member.150." prefix the fields of list members
+    private static final int LIST_MEMBER_PREFIX_LENGTH = 22;
+    // the longest string representation of a double, e.g. -1.7976931348623157E308
+    private static final int NUMBER_LENGTH = 24;
+    // an URL encoded ISO-8601 timestamp, e.g. 2019-01-01T00%3A00%3A00.000Z
+    private static final int TIMESTAMP_LENGTH = 30;
+    private static final int STORAGE_RESOLUTION_LENGTH = 2;
+
+    private MetricDataBatcher() {
+    }
+
+    /**
+     * @param  namespace  the namespace of the requests
+     * @param  metricData the metric data to pack
+     * @return            the batches of metric data, each fits into a single PutMetricData request, the batches are
+     *                    views of the metric data
+     */
+    static @NotNull List<List<MetricDatum>> pack(
+            final @NotNull String namespace,
+            final @NotNull List<MetricDatum> metricData) {
+        return pack(namespace, metricData, null);
+    }
+
+    /**
+     * @param  namespace  the namespace of the requests
+     * @param  metricData the metric data to pack
+     * @param  batchBytes if not null, receives the estimated request size of each batch
+     * @return            the batches of metric data, each fits into a single PutMetricData request, the batches are
+     *                    views of the metric data
+     */
+    static @NotNull List<List<MetricDatum>> pack(
+            final @NotNull String namespace,
+            final @NotNull List<MetricDatum> metricData,
+            final @Nullable List<Integer> batchBytes) {
+        final var batches = new ArrayList<List<MetricDatum>>();
+        final var requestOverhead = requestOverhead(namespace);
+        var batchStart = 0;
+        var requestBytes = requestOverhead;
+        for (var i = 0; i < metricData.size(); i++) {
+            final var datumBytes = estimateSize(metricData.get(i));
+            final var batchSize = i - batchStart;
+            if (batchSize > 0 &&
+                    (batchSize == MAXIMUM_DATUMS_PER_REQUEST || requestBytes + datumBytes > MAXIMUM_REQUEST_BYTES)) {
+                batches.add(metricData.subList(batchStart, i));
+                if (batchBytes != null) {
+                    batchBytes.add(requestBytes);
+                }
+                batchStart = i;
+                requestBytes = requestOverhead;
+            }
+            requestBytes += datumBytes;
+        }
+        if (batchStart < metricData.size()) {
+            batches.add(metricData.subList(batchStart, metricData.size()));
+            if (batchBytes != null) {
+                batchBytes.add(requestBytes);
+            }
+        }
+        return batches;
+    }
+
+    static int requestOverhead(final @NotNull String namespace) {
+        return "Action=PutMetricData&Version=2010-08-01&Namespace=".length() + encodedLength(namespace);
+    }
+
+    /**
+     * @return the estimated number of bytes the datum adds to a PutMetricData request
+     */
+    static int estimateSize(final @NotNull MetricDatum datum) {
+        var size = field("MetricName", encodedLength(datum.metricName()));
+        if (datum.value() != null) {
+            size += field("Value", NUMBER_LENGTH);
+        }
+        if (datum.unit() != null) {
+            size += field("Unit", datum.unitAsString().length());
+        }
+        if (datum.storageResolution() != null) {
+            size += field("StorageResolution", STORAGE_RESOLUTION_LENGTH);
+        }
+        if (datum.timestamp() != null) {
+            size += field("Timestamp", TIMESTAMP_LENGTH);
+        }
+        for (final var dimension : datum.dimensions()) {
+            size += listField("Dimensions", "Name", encodedLength(dimension.name()));
+            size += listField("Dimensions", "Value", encodedLength(dimension.value()));
+        }
+        if (datum.statisticValues() != null) {
+            size += field("StatisticValues.SampleCount", NUMBER_LENGTH);
+            size += field("StatisticValues.Sum", NUMBER_LENGTH);
+            size += field("StatisticValues.Minimum", NUMBER_LENGTH);
+            size += field("StatisticValues.Maximum", NUMBER_LENGTH);
+        }
+        size += datum.values().size() * listField("Values", "", NUMBER_LENGTH);
+        size += datum.counts().size() * listField("Counts", "", NUMBER_LENGTH);
+        return size;
+    }
+
+    private static int field(final @NotNull String name, final int valueLength) {
+        // prefix, name, '=' and value
+        return MEMBER_PREFIX_LENGTH + name.length() + 1 + valueLength;
+    }
+
+    private static int listField(final @NotNull String list, final @NotNull String name, final int valueLength) {
+        return MEMBER_PREFIX_LENGTH + list.length() + LIST_MEMBER_PREFIX_LENGTH + name.length() + 1 + valueLength;
+    }
+
+    static int encodedLength(final @NotNull String value) {
+        var length = 0;
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') ||
+                    (c >= 'A' && c <= 'Z') ||
+                    (c >= '0' && c <= '9') ||
+                    c == '-' ||
+                    c == '_' ||
+                    c == '.' ||
+                    c == '~') {
+                length++;
+            } else if (c < 0x80) {
+                length += 3;
+            } else {
+                // percent encoding of all UTF-8 bytes of the remaining characters
+                return length + value.substring(i).getBytes(StandardCharsets.UTF_8).length * 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.ListMetricsRequest;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends metric data to CloudWatch, packed into as few PutMetricData requests as possible.
+ * <p>
+ * The requests of a report are pipelined over the async client with up to the configured number of requests in
+ * flight: whenever a request completes, the next batch is sent.
+ * <p>
+ * With a retry buffer, batches that failed because of throttling, timeouts or server errors are buffered and retried
+ * in order. While the retry buffer backs off, new batches are queued behind the buffered ones instead of being sent.
+ * <p>
+ * With a spool, batches that can not be buffered are written to disk. The spool is replayed when the publisher starts
+ * and drained after each successful report, one request at a time.
+ * <p>
+ * With a rate limiter, all requests, including retries and spooled metric data, share one adaptive token bucket.
+ * Requests without a token are delayed on the executor, which spreads the requests of a report over time.
+ * <p>
+ * The publishers of other namespaces that are derived with {@link #forNamespace(String)} share the client, and with it
+ * its HTTP connection pool, and the rate limiter of this publisher.
+ */
+@ThreadSafe
+class MetricDataPublisher implements MetricSink {
+
+    static final @NotNull String PREWARM_METRIC_NAME = "hivemq-cloudwatch-prewarm";
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(MetricDataPublisher.class);
+
+    private final @NotNull CloudWatchAsyncClient client;
+    private final @NotNull String namespace;
+    private final int maxInFlightRequests;
+    private final @Nullable RetryBuffer retryBuffer;
+    private final @Nullable MetricSpool spool;
+    private final @NotNull ScheduledExecutorService executorService;
+    private final @Nullable PipelineMetrics pipelineMetrics;
+    private final @Nullable AdaptiveRateLimiter rateLimiter;
+    private final boolean closeClient;
+    private final @NotNull AtomicBoolean draining = new AtomicBoolean();
+    private final @NotNull AtomicBoolean drainingSpool = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    private MetricDataPublisher(final @NotNull Builder builder) {
+        this.client = builder.client;
+        this.namespace = builder.namespace;
+        this.maxInFlightRequests = builder.maxInFlightRequests;
+        this.retryBuffer = builder.retryBuffer;
+        this.spool = builder.spool;
+        this.executorService = builder.executorService;
+        this.pipelineMetrics = builder.pipelineMetrics;
+        this.rateLimiter = builder.rateLimiter;
+        this.closeClient = builder.closeClient;
+    }
+
+    /**
+     * @return a builder of a publisher without retry buffer, spool, pipeline metrics and rate limiter, which sends one
+     *         request at a time
+     */
+    static @NotNull Builder builder(
+            final @NotNull CloudWatchAsyncClient client,
+            final @NotNull String namespace,
+            final @NotNull ScheduledExecutorService executorService) {
+        return new Builder(client, namespace, executorService);
+    }
+
+    /**
+     * Derives a publisher to another namespace, which shares the client, the pipeline metrics and the rate limiter of
+     * this publisher. The derived publisher neither retries nor spools failed batches, and closing it leaves the
+     * client open, it is closed with this publisher.
+     */
+    @NotNull MetricDataPublisher forNamespace(final @NotNull String namespace) {
+        final var builder = builder(client, namespace, executorService).maxInFlightRequests(maxInFlightRequests)
+                .pipelineMetrics(pipelineMetrics)
+                .rateLimiter(rateLimiter);
+        builder.closeClient = false;
+        return builder.build();
+    }
+
+    /**
+     * Replays the spooled metric data of previous runs.
+     */
+    @Override
+    public void start() {
+        drainSpool();
+    }
+
+    /**
+     * Opens the given number of connections to CloudWatch, so the first report does not wait for DNS resolution and
+     * TLS handshakes. Each connection is opened with a ListMetrics request for the {@link #PREWARM_METRIC_NAME} of the
+     * namespace, a read that returns no metrics, so no PutMetricData request is rejected or counted towards its quota.
+     *
+     * @return a future that completes when all requests completed
+     */
+    @NotNull CompletableFuture<Void> prewarm(final int connections) {
+        final var requests = new CompletableFuture<?>[connections];
+        for (var i = 0; i < connections; i++) {
+            requests[i] = listMetrics().handle((response, throwable) -> {
+                if (throwable != null && !(unwrap(throwable) instanceof AwsServiceException)) {
+                    // any response from CloudWatch, e.g. without the ListMetrics permission, shows that the
+                    // connection was opened
+                    log.debug("Could not prewarm a connection to AWS CloudWatch, reason: {}", throwable.getMessage());
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(requests);
+    }
+
+    /**
+     * @return a future that completes when all requests for the metric data completed, failed requests are logged
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+        final var startNanos = System.nanoTime();
+        final var batchBytes = pipelineMetrics != null ? new ArrayList<Integer>() : null;
+        final var batches = MetricDataBatcher.pack(namespace, metricData, batchBytes);
+        if (batches.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (retryBuffer != null && retryBuffer.isBackingOff(System.currentTimeMillis())) {
+            // CloudWatch is throttling or unavailable, so the new batches are queued behind the buffered ones
+            batches.forEach(retryBuffer::add);
+            return CompletableFuture.completedFuture(null);
+        }
+        final var nextBatch = new AtomicInteger();
+        final var inFlight = new CompletableFuture<?>[Math.min(maxInFlightRequests, batches.size())];
+        for (var i = 0; i < inFlight.length; i++) {
+            inFlight[i] = sendNext(batches, batchBytes, nextBatch);
+        }
+        final var published = CompletableFuture.allOf(inFlight);
+        final var pipelineMetrics = this.pipelineMetrics;
+        if (pipelineMetrics != null) {
+            published.thenRun(() -> {
+                final var latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                pipelineMetrics.flushed(latencyMillis, metricData.size(), batches.size());
+            });
+        }
+        if (retryBuffer != null || spool != null) {
+            published.thenRun(() -> {
+                drain();
+                drainSpool();
+            });
+        }
+        return published;
+    }
+
+    private @NotNull CompletableFuture<Void> sendNext(
+            final @NotNull List<List<MetricDatum>> batches,
+            final @Nullable List<Integer> batchBytes,
+            final @NotNull AtomicInteger nextBatch) {
+        final var index = nextBatch.getAndIncrement();
+        if (index >= batches.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final var batch = batches.get(index);
+        return send(batch).handle((response, throwable) -> {
+            if (pipelineMetrics != null) {
+                if (throwable != null) {
+                    pipelineMetrics.failed(unwrap(throwable));
+                } else if (batchBytes != null) {
+                    pipelineMetrics.sent(batchBytes.get(index));
+                }
+            }
+            if (throwable != null) {
+                if (retryBuffer != null && isRetryable(throwable)) {
+                    log.warn("Could not send {} HiveMQ metrics to AWS CloudWatch, retrying later, reason: {}",
+                            batch.size(),
+                            throwable.getMessage());
+                    retryBuffer.add(batch);
+                    retryBuffer.failed(System.currentTimeMillis());
+                } else if (spool != null && isRetryable(throwable) && spool.append(batch)) {
+                    log.warn("Could not send {} HiveMQ metrics to AWS CloudWatch, spooled for later, reason: {}",
+                            batch.size(),
+                            throwable.getMessage());
+                } else {
+                    log.error("Could not send {} HiveMQ metrics to AWS CloudWatch, reason: {}",
+                            batch.size(),
+                            throwable.getMessage());
+                }
+                log.debug("Original exception", throwable);
+            } else if (retryBuffer != null) {
+                retryBuffer.succeeded();
+            }
+            return null;
+        }).thenCompose(ignored -> sendNext(batches, batchBytes, nextBatch));
+    }
+
+    /**
+     * Retries the buffered batches one after another, until the buffer is empty or a retry fails.
+     */
+    private void drain() {
+        if (retryBuffer == null || closed || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        drainNext(retryBuffer);
+    }
+
+    private void drainNext(final @NotNull RetryBuffer retryBuffer) {
+        final var batch = retryBuffer.poll(System.currentTimeMillis());
+        if (batch == null || closed) {
+            draining.set(false);
+            if (retryBuffer.size() > 0) {
+                scheduleDrain(retryBuffer.remainingBackoffMillis(System.currentTimeMillis()));
+            }
+            return;
+        }
+        send(batch).whenComplete((response, throwable) -> {
+            recordResend(batch, throwable);
+            if (throwable == null) {
+                retryBuffer.succeeded();
+                drainNext(retryBuffer);
+            } else if (isRetryable(throwable)) {
+                log.debug("Could not resend {} HiveMQ metrics to AWS CloudWatch, reason: {}",
+                        batch.size(),
+                        throwable.getMessage());
+                retryBuffer.retryFailed(batch, System.currentTimeMillis());
+                draining.set(false);
+                scheduleDrain(retryBuffer.remainingBackoffMillis(System.currentTimeMillis()));
+            } else {
+                log.error("Could not resend {} HiveMQ metrics to AWS CloudWatch, reason: {}",
+                        batch.size(),
+                        throwable.getMessage());
+                retryBuffer.drop(batch);
+                drainNext(retryBuffer);
+            }
+        });
+    }
+
+    /**
+     * Sends the spooled metric data one request at a time, until the spool is empty or a request fails.
+     */
+    private void drainSpool() {
+        if (spool == null ||
+                closed ||
+                (retryBuffer != null && retryBuffer.isBackingOff(System.currentTimeMillis())) ||
+                !drainingSpool.compareAndSet(false, true)) {
+            return;
+        }
+        drainSpoolNext(spool);
+    }
+
+    private void drainSpoolNext(final @NotNull MetricSpool spool) {
+        final var read = closed ?
+                null :
+                spool.read(MetricDataBatcher.MAXIMUM_DATUMS_PER_REQUEST,
+                        MetricDataBatcher.MAXIMUM_REQUEST_BYTES - MetricDataBatcher.requestOverhead(namespace),
+                        System.currentTimeMillis());
+        if (read == null) {
+            drainingSpool.set(false);
+            return;
+        }
+        send(read.getMetricData()).whenComplete((response, throwable) -> {
+            recordResend(read.getMetricData(), throwable);
+            if (throwable == null) {
+                spool.commit(read);
+                drainSpoolNext(spool);
+            } else if (isRetryable(throwable)) {
+                // the spooled metric data is sent again after the next successful report
+                log.debug("Could not send {} spooled HiveMQ metrics to AWS CloudWatch, reason: {}",
+                        read.getMetricData().size(),
+                        throwable.getMessage());
+                drainingSpool.set(false);
+            } else {
+                log.error("Could not send {} spooled HiveMQ metrics to AWS CloudWatch, reason: {}",
+                        read.getMetricData().size(),
+                        throwable.getMessage());
+                spool.commit(read);
+                spool.drop(read.getMetricData());
+                drainSpoolNext(spool);
+            }
+        });
+    }
+
+    private void recordResend(final @NotNull List<MetricDatum> batch, final @Nullable Throwable throwable) {
+        if (pipelineMetrics == null) {
+            return;
+        }
+        if (throwable != null) {
+            pipelineMetrics.failed(unwrap(throwable));
+            return;
+        }
+        // resends are rare, so their size is estimated again instead of being kept with the buffered batch
+        var bytes = MetricDataBatcher.requestOverhead(namespace);
+        for (final var datum : batch) {
+            bytes += MetricDataBatcher.estimateSize(datum);
+        }
+        pipelineMetrics.sent(bytes);
+    }
+
+    private void scheduleDrain(final long delayMillis) {
+        if (closed) {
+            return;
+        }
+        try {
+            executorService.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            log.debug("Could not schedule the retry of buffered HiveMQ metrics", e);
+        }
+    }
+
+    /**
+     * @return {@code true} if the request failed because of throttling, a timeout, an I/O error or a server error
+     */
+    static boolean isRetryable(final @NotNull Throwable throwable) {
+        final var cause = unwrap(throwable);
+        if (cause instanceof AwsServiceException) {
+            final var serviceException = (AwsServiceException) cause;
+            return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+        }
+        return cause instanceof SdkClientException;
+    }
+
+    private static boolean isThrottling(final @NotNull Throwable throwable) {
+        final var cause = unwrap(throwable);
+        return cause instanceof AwsServiceException && ((AwsServiceException) cause).isThrottlingException();
+    }
+
+    private static @NotNull Throwable unwrap(final @NotNull Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() :
+                throwable;
+    }
+
+    private @NotNull CompletableFuture<?> send(final @NotNull List<MetricDatum> batch) {
+        final var rateLimiter = this.rateLimiter;
+        if (rateLimiter == null) {
+            return sendNow(batch);
+        }
+        final var delayNanos = rateLimiter.reserve(System.nanoTime());
+        if (delayNanos == 0) {
+            return sendLimited(batch, rateLimiter);
+        }
+        final var sent = new CompletableFuture<>();
+        try {
+            executorService.schedule(() -> {
+                sendLimited(batch, rateLimiter).whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        sent.completeExceptionally(throwable);
+                    } else {
+                        sent.complete(response);
+                    }
+                });
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (final RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return sent;
+    }
+
+    private @NotNull CompletableFuture<?> sendLimited(
+            final @NotNull List<MetricDatum> batch,
+            final @NotNull AdaptiveRateLimiter rateLimiter) {
+        final var startNanos = System.nanoTime();
+        return sendNow(batch).whenComplete((response, throwable) -> {
+            final var nowNanos = System.nanoTime();
+            if (throwable == null) {
+                rateLimiter.succeeded(nowNanos, nowNanos - startNanos);
+            } else if (isThrottling(throwable)) {
+                rateLimiter.throttled(nowNanos);
+            }
+        });
+    }
+
+    private @NotNull CompletableFuture<?> listMetrics() {
+        try {
+            return client.listMetrics(ListMetricsRequest.builder()
+                    .namespace(namespace)
+                    .metricName(PREWARM_METRIC_NAME)
+                    .build());
+        } catch (final Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private @NotNull CompletableFuture<?> sendNow(final @NotNull List<MetricDatum> batch) {
+        try {
+            return client.putMetricData(PutMetricDataRequest.builder().namespace(namespace).metricData(batch).build());
+        } catch (final Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (retryBuffer != null) {
+            retryBuffer.spoolAll();
+        }
+        if (spool != null) {
+            spool.close();
+        }
+        if (closeClient) {
+            client.close();
+        }
+    }
+
+    static final class Builder {
+
+        private final @NotNull CloudWatchAsyncClient client;
+        private final @NotNull String namespace;
+        private final @NotNull ScheduledExecutorService executorService;
+        private int maxInFlightRequests = 1;
+        private @Nullable RetryBuffer retryBuffer;
+        private @Nullable MetricSpool spool;
+        private @Nullable PipelineMetrics pipelineMetrics;
+        private @Nullable AdaptiveRateLimiter rateLimiter;
+        private boolean closeClient = true;
+
+        private Builder(
+                final @NotNull CloudWatchAsyncClient client,
+                final @NotNull String namespace,
+                final @NotNull ScheduledExecutorService executorService) {
+            this.client = client;
+            this.namespace = namespace;
+            this.executorService = executorService;
+        }
+
+        @NotNull Builder maxInFlightRequests(final int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        @NotNull Builder retryBuffer(final @Nullable RetryBuffer retryBuffer) {
+            this.retryBuffer = retryBuffer;
+            return this;
+        }
+
+        @NotNull Builder spool(final @Nullable MetricSpool spool) {
+            this.spool = spool;
+            return this;
+        }
+
+        @NotNull Builder pipelineMetrics(final @Nullable PipelineMetrics pipelineMetrics) {
+            this.pipelineMetrics = pipelineMetrics;
+            return this;
+        }
+
+        @NotNull Builder rateLimiter(final @Nullable AdaptiveRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        @NotNull MetricDataPublisher build() {
+            return new MetricDataPublisher(this);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary encoding of {@link MetricDatum}s for the spool.
+ * <p>
+ * Encoding writes the fields directly into the target buffer, strings are written char by char in modified UTF-8, so
+ * spooling does not allocate intermediate arrays. Decoding is only done on replay and allocates freely.
+ */
+final class MetricDatumCodec {
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final byte HAS_VALUE = 1;
+    private static final byte HAS_STATISTIC_VALUES = 1 << 1;
+
+    private MetricDatumCodec() {
+    }
+
+    /**
+     * @return the number of bytes {@link #encode(MetricDatum, ByteBuffer)} writes for the datum
+     */
+    static int encodedSize(final @NotNull MetricDatum datum) {
+        // timestamp, storage resolution and flags
+        var size = Long.BYTES + Byte.BYTES + Byte.BYTES;
+        size += stringSize(datum.metricName());
+        size += stringSize(unit(datum));
+        if (datum.value() != null) {
+            size += Double.BYTES;
+        }
+        if (datum.statisticValues() != null) {
+            size += 4 * Double.BYTES;
+        }
+        size += Byte.BYTES;
+        final var dimensions = datum.dimensions();
+        for (var i = 0; i < dimensions.size(); i++) {
+            size += stringSize(dimensions.get(i).name()) + stringSize(dimensions.get(i).value());
+        }
+        size += Short.BYTES + datum.values().size() * Double.BYTES;
+        size += Short.BYTES + datum.counts().size() * Double.BYTES;
+        return size;
+    }
+
+    static void encode(final @NotNull MetricDatum datum, final @NotNull ByteBuffer buffer) {
+        final var timestamp = datum.timestamp();
+        buffer.putLong(timestamp != null ? timestamp.toEpochMilli() : NO_TIMESTAMP);
+        final var storageResolution = datum.storageResolution();
+        buffer.put(storageResolution != null ? storageResolution.byteValue() : (byte) 0);
+        final var value = datum.value();
+        final var statisticValues = datum.statisticValues();
+        buffer.put((byte) ((value != null ? HAS_VALUE : 0) | (statisticValues != null ? HAS_STATISTIC_VALUES : 0)));
+        putString(buffer, datum.metricName());
+        putString(buffer, unit(datum));
+        if (value != null) {
+            buffer.putDouble(value);
+        }
+        if (statisticValues != null) {
+            buffer.putDouble(statisticValues.sampleCount());
+            buffer.putDouble(statisticValues.sum());
+            buffer.putDouble(statisticValues.minimum());
+            buffer.putDouble(statisticValues.maximum());
+        }
+        final var dimensions = datum.dimensions();
+        buffer.put((byte) dimensions.size());
+        for (var i = 0; i < dimensions.size(); i++) {
+            putString(buffer, dimensions.get(i).name());
+            putString(buffer, dimensions.get(i).value());
+        }
+        putDoubles(buffer, datum.values());
+        putDoubles(buffer, datum.counts());
+    }
+
+    static @NotNull MetricDatum decode(final @NotNull ByteBuffer buffer) {
+        final var datum = MetricDatum.builder();
+        final var timestamp = buffer.getLong();
+        if (timestamp != NO_TIMESTAMP) {
+            datum.timestamp(Instant.ofEpochMilli(timestamp));
+        }
+        final var storageResolution = buffer.get();
+        if (storageResolution != 0) {
+            datum.storageResolution((int) storageResolution);
+        }
+        final var flags = buffer.get();
+        datum.metricName(getString(buffer));
+        final var unit = getString(buffer);
+        if (!unit.isEmpty()) {
+            datum.unit(unit);
+        }
+        if ((flags & HAS_VALUE) != 0) {
+            datum.value(buffer.getDouble());
+        }
+        if ((flags & HAS_STATISTIC_VALUES) != 0) {
+            datum.statisticValues(StatisticSet.builder()
+                    .sampleCount(buffer.getDouble())
+                    .sum(buffer.getDouble())
+                    .minimum(buffer.getDouble())
+                    .maximum(buffer.getDouble())
+                    .build());
+        }
+        final var dimensionCount = buffer.get() & 0xFF;
+        if (dimensionCount > 0) {
+            final var dimensions = new ArrayList<Dimension>(dimensionCount);
+            for (var i = 0; i < dimensionCount; i++) {
+                dimensions.add(Dimension.builder().name(getString(buffer)).value(getString(buffer)).build());
+            }
+            datum.dimensions(dimensions);
+        }
+        final var values = getDoubles(buffer);
+        if (!values.isEmpty()) {
+            datum.values(values);
+        }
+        final var counts = getDoubles(buffer);
+        if (!counts.isEmpty()) {
+            datum.counts(counts);
+        }
+        return datum.build();
+    }
+
+    private static @NotNull String unit(final @NotNull MetricDatum datum) {
+        final var unit = datum.unitAsString();
+        return unit != null ? unit : "";
+    }
+
+    private static int stringSize(final @NotNull String value) {
+        var size = Short.BYTES;
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                size++;
+            } else if (c <= 0x07FF) {
+                size += 2;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    private static void putString(final @NotNull ByteBuffer buffer, final @NotNull String value) {
+        buffer.putShort((short) (stringSize(value) - Short.BYTES));
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                buffer.put((byte) c);
+            } else if (c <= 0x07FF) {
+                buffer.put((byte) (0xC0 | ((c >> 6) & 0x1F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | ((c >> 12) & 0x0F)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static @NotNull String getString(final @NotNull ByteBuffer buffer) {
+        final var length = buffer.getShort() & 0xFFFF;
+        final var chars = new char[length];
+        var count = 0;
+        final var end = buffer.position() + length;
+        while (buffer.position() < end) {
+            final var b = buffer.get() & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static void putDoubles(final @NotNull ByteBuffer buffer, final @NotNull List<Double> values) {
+        buffer.putShort((short) values.size());
+        for (var i = 0; i < values.size(); i++) {
+            buffer.putDouble(values.get(i));
+        }
+    }
+
+    private static @NotNull List<Double> getDoubles(final @NotNull ByteBuffer buffer) {
+        final var size = buffer.getShort() & 0xFFFF;
+        final var values = new ArrayList<Double>(size);
+        for (var i = 0; i < size; i++) {
+            values.add(buffer.getDouble());
+        }
+        return values;
+    }
+}
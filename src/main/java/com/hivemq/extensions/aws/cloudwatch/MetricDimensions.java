@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configured dimensions of the reported metrics, in addition to the type dimension.
+ * <p>
+ * The placeholders of the dimensions are resolved once, when the reporter is started. Placeholders that require a
+ * lookup, see {@link DimensionPlaceholders#requiresLookUp(String)}, are looked up in advance in the background, so
+ * the start of the extension does not wait for them. A metric gets the global
+ * dimensions and the dimensions of the first enabled metric definition with dimensions that matches its name, which
+ * replace global dimensions with the same name. The dimensions of a metric are looked up once when the metric is
+ * registered and then kept in its pooled datum builders, so they do not add any work to a report tick.
+ * <p>
+ * The cluster-wide metrics of the {@link ClusterAggregator} get the same dimensions, except the ones with a
+ * node-specific placeholder, see {@link #createClusterWide(Config, List, DimensionPlaceholders)}.
+ */
+class MetricDimensions {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(MetricDimensions.class);
+
+    static final @NotNull MetricDimensions NONE = new MetricDimensions(List.of(), List.of());
+
+    // CloudWatch accepts up to 30 dimensions per metric, one is the type dimension
+    static final int MAXIMUM_DIMENSIONS = 29;
+    static final int MAXIMUM_NAME_LENGTH = 255;
+    static final int MAXIMUM_VALUE_LENGTH = 1024;
+
+    private final @NotNull List<Dimension> globalDimensions;
+    private final @NotNull List<MetricEntry> metricEntries;
+
+    private MetricDimensions(
+            final @NotNull List<Dimension> globalDimensions,
+            final @NotNull List<MetricEntry> metricEntries) {
+        this.globalDimensions = globalDimensions;
+        this.metricEntries = metricEntries;
+    }
+
+    static @NotNull MetricDimensions create(
+            final @NotNull Config config,
+            final @NotNull List<Metric> enabledMetrics,
+            final @NotNull DimensionPlaceholders placeholders) {
+        return create(config, enabledMetrics, placeholders, false);
+    }
+
+    /**
+     * Creates the dimensions of the cluster-wide metrics, which are sent by a single node for all nodes. They omit
+     * the dimensions with a node-specific placeholder like {@code ${node-id}}, but keep the ones that are the same on
+     * all nodes like {@code ${cluster-id}}, and leave room for the scope dimension.
+     */
+    static @NotNull MetricDimensions createClusterWide(
+            final @NotNull Config config,
+            final @NotNull List<Metric> enabledMetrics,
+            final @NotNull DimensionPlaceholders placeholders) {
+        return create(config, enabledMetrics, placeholders, true);
+    }
+
+    /**
+     * @return the configured values of the global dimensions and the dimensions of the enabled metrics, with their
+     *         placeholders
+     */
+    static @NotNull List<String> values(final @NotNull Config config, final @NotNull List<Metric> enabledMetrics) {
+        final var values = new ArrayList<String>();
+        config.getDimensions().forEach(dimension -> values.add(dimension.getValue()));
+        for (final var metric : enabledMetrics) {
+            metric.getDimensionList().forEach(dimension -> values.add(dimension.getValue()));
+        }
+        return values;
+    }
+
+    private static @NotNull MetricDimensions create(
+            final @NotNull Config config,
+            final @NotNull List<Metric> enabledMetrics,
+            final @NotNull DimensionPlaceholders placeholders,
+            final boolean clusterWide) {
+        final var maximumDimensions = clusterWide ? MAXIMUM_DIMENSIONS - 1 : MAXIMUM_DIMENSIONS;
+        final var globalDimensions =
+                resolve(config.getDimensions(), new LinkedHashMap<>(), placeholders, clusterWide);
+        final var metricEntries = new ArrayList<MetricEntry>();
+        for (final var metric : enabledMetrics) {
+            final var metricDimensions = metric.getDimensionList();
+            if (metricDimensions.isEmpty()) {
+                continue;
+            }
+            final var dimensions =
+                    resolve(metricDimensions, new LinkedHashMap<>(globalDimensions), placeholders, clusterWide);
+            metricEntries.add(new MetricEntry(metric,
+                    new ConfiguredMetricsFilter(List.of(metric)),
+                    limit(dimensions, maximumDimensions)));
+        }
+        if (globalDimensions.isEmpty() && metricEntries.isEmpty()) {
+            return NONE;
+        }
+        return new MetricDimensions(limit(globalDimensions, maximumDimensions), List.copyOf(metricEntries));
+    }
+
+    private static @NotNull Map<String, String> resolve(
+            final @NotNull List<com.hivemq.extensions.aws.cloudwatch.configuration.entities.Dimension> dimensions,
+            final @NotNull Map<String, String> resolved,
+            final @NotNull DimensionPlaceholders placeholders,
+            final boolean clusterWide) {
+        for (final var dimension : dimensions) {
+            if (clusterWide && DimensionPlaceholders.isNodeSpecific(dimension.getValue())) {
+                continue;
+            }
+            final var value = placeholders.resolve(dimension.getValue());
+            if (value == null || value.isEmpty()) {
+                log.warn("Ignoring dimension {} of the HiveMQ metrics, its value could not be resolved",
+                        dimension.getName());
+            } else if (dimension.getName().length() > MAXIMUM_NAME_LENGTH || value.length() > MAXIMUM_VALUE_LENGTH) {
+                log.warn("Ignoring dimension {} of the HiveMQ metrics, names must not be longer than {} and " +
+                                "values not longer than {} characters",
+                        dimension.getName(),
+                        MAXIMUM_NAME_LENGTH,
+                        MAXIMUM_VALUE_LENGTH);
+            } else {
+                resolved.put(dimension.getName(), value);
+            }
+        }
+        return resolved;
+    }
+
+    private static @NotNull List<Dimension> limit(
+            final @NotNull Map<String, String> dimensions,
+            final int maximumDimensions) {
+        if (dimensions.size() > maximumDimensions) {
+            log.warn("HiveMQ metrics can have at most {} dimensions, ignoring {} dimensions",
+                    maximumDimensions,
+                    dimensions.size() - maximumDimensions);
+        }
+        final var limited = new ArrayList<Dimension>(Math.min(dimensions.size(), maximumDimensions));
+        for (final var dimension : dimensions.entrySet()) {
+            if (limited.size() == maximumDimensions) {
+                break;
+            }
+            limited.add(Dimension.builder().name(dimension.getKey()).value(dimension.getValue()).build());
+        }
+        return List.copyOf(limited);
+    }
+
+    /**
+     * @return the dimensions of the metric, without the type dimension
+     */
+    @NotNull List<Dimension> get(final @NotNull String name) {
+        for (final var metricEntry : metricEntries) {
+            if (metricEntry.filter.evaluate(name)) {
+                return metricEntry.dimensions;
+            }
+        }
+        return globalDimensions;
+    }
+
+    /**
+     * @return the dimensions of the metric definition itself, e.g. for the metric that a definition with a limit
+     *         folds its other metrics into, without the type dimension
+     */
+    @NotNull List<Dimension> get(final @NotNull Metric definition) {
+        for (final var metricEntry : metricEntries) {
+            if (metricEntry.definition == definition) {
+                return metricEntry.dimensions;
+            }
+        }
+        return globalDimensions;
+    }
+
+    private static final class MetricEntry {
+
+        private final @NotNull Metric definition;
+        private final @NotNull ConfiguredMetricsFilter filter;
+        private final @NotNull List<Dimension> dimensions;
+
+        private MetricEntry(
+                final @NotNull Metric definition,
+                final @NotNull ConfiguredMetricsFilter filter,
+                final @NotNull List<Dimension> dimensions) {
+            this.definition = definition;
+            this.filter = filter;
+            this.dimensions = dimensions;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Receives the metric data of each report, e.g. sends it to CloudWatch or writes it as Embedded Metric Format.
+ */
+interface MetricSink {
+
+    /**
+     * Called once before the first report.
+     */
+    default void start() {
+    }
+
+    /**
+     * @param  metricData the metric data of a report, must not be modified
+     * @return            a future that completes when the metric data was handled, failures are logged by the sink
+     */
+    @NotNull CompletableFuture<Void> publish(@NotNull List<MetricDatum> metricData);
+
+    void close();
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Sampling;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the enabled histograms and timers into distribution sketches of a fixed size and reports each sketch as
+ * the values and counts of its buckets, so CloudWatch computes the percentiles of the report period server-side,
+ * also across the datums of several nodes.
+ * <p>
+ * The recorded values of a HiveMQ histogram or timer are only accessible through its reservoir, which is sampled and
+ * reset independently of the reports. So the reservoir is read in the sample interval and the values that were
+ * recorded since the previous sample are approximated by the values of the reservoir, weighted by the increase of
+ * the count of the metric.
+ */
+@ThreadSafe
+class MetricSketches {
+
+    // the percentile datums of a metric are not sent with sketches, so the builder of the first one is reused
+    private static final int DATUM_INDEX = 1;
+
+    private final @NotNull ReportedMetrics reportedMetrics;
+    private final double relativeAccuracy;
+    private final long sampleIntervalMillis;
+
+    // only accessed while holding the lock of the sketches
+    private final @NotNull List<Double> values = new ArrayList<>();
+    private final @NotNull List<Double> counts = new ArrayList<>();
+
+    MetricSketches(
+            final @NotNull ReportedMetrics reportedMetrics,
+            final double relativeAccuracy,
+            final long sampleIntervalMillis) {
+        this.reportedMetrics = reportedMetrics;
+        this.relativeAccuracy = relativeAccuracy;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+    }
+
+    long getSampleIntervalMillis() {
+        return sampleIntervalMillis;
+    }
+
+    /**
+     * Records the values of all enabled histograms and timers since the previous sample.
+     */
+    synchronized void sample() {
+        for (final var metric : reportedMetrics.get()) {
+            if (isSketched(metric)) {
+                sample(metric);
+            }
+        }
+    }
+
+    private void sample(final @NotNull ReportedMetric metric) {
+        final var currentCount = ((Counting) metric.getMetric()).getCount();
+        var state = metric.getSketchState();
+        if (state == null) {
+            // the values recorded before the first sample do not belong to a report period
+            state = new State(new LogBucketSketch(relativeAccuracy), currentCount);
+            metric.setSketchState(state);
+            return;
+        }
+        final var delta = currentCount - state.lastCount;
+        state.lastCount = currentCount;
+        if (delta <= 0) {
+            return;
+        }
+        final var snapshotValues = ((Sampling) metric.getMetric()).getSnapshot().getValues();
+        if (snapshotValues.length == 0) {
+            return;
+        }
+        final var divisor = metric.getKind() == ReportedMetric.Kind.TIMER ? CloudWatchReporter.NANOS_PER_MILLI : 1;
+        final var weight = (double) delta / snapshotValues.length;
+        for (final var value : snapshotValues) {
+            state.sketch.add(value / divisor, weight);
+        }
+    }
+
+    /**
+     * Records the values of the metric since the previous sample, adds the datums of its sketch to the metric data
+     * and resets the sketch. A sketch with more buckets than CloudWatch accepts values per datum is split into several
+     * datums, which CloudWatch combines as they share the name, dimensions and timestamp.
+     */
+    synchronized void flush(
+            final @NotNull ReportedMetric metric,
+            final @NotNull Instant timestamp,
+            final @NotNull List<MetricDatum> metricData) {
+        sample(metric);
+        final var state = metric.getSketchState();
+        if (state == null || state.sketch.isEmpty()) {
+            return;
+        }
+        final var unit = metric.getKind() == ReportedMetric.Kind.TIMER ? StandardUnit.MILLISECONDS : StandardUnit.NONE;
+        final var datum = metric.datumBuilder(DATUM_INDEX, unit, CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION)
+                .timestamp(timestamp)
+                .value(null)
+                .statisticValues(null);
+        values.clear();
+        counts.clear();
+        state.sketch.forEachBucket((value, count) -> {
+            values.add(CloudWatchReporter.sendableValue(value));
+            counts.add(count);
+            if (values.size() == MetricAggregator.MAXIMUM_VALUES_PER_DATUM) {
+                metricData.add(datum.values(values).counts(counts).build());
+                values.clear();
+                counts.clear();
+            }
+        });
+        if (!values.isEmpty()) {
+            metricData.add(datum.values(values).counts(counts).build());
+        }
+        state.sketch.reset();
+    }
+
+    static boolean isSketched(final @NotNull ReportedMetric metric) {
+        return metric.getKind() == ReportedMetric.Kind.HISTOGRAM || metric.getKind() == ReportedMetric.Kind.TIMER;
+    }
+
+    /**
+     * The sketch of a metric and the count of the metric at the previous sample.
+     */
+    static final class State {
+
+        private final @NotNull LogBucketSketch sketch;
+        private long lastCount;
+
+        private State(final @NotNull LogBucketSketch sketch, final long lastCount) {
+            this.sketch = sketch;
+            this.lastCount = lastCount;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A durable spool for metric data that could not be sent to CloudWatch.
+ * <p>
+ * The spool is an append-only log of memory-mapped segment files. Each record is an encoded datum prefixed with its
+ * length, which is written after the datum, so a record that was not completely written is never read. The header of
+ * each segment holds the offset up to which the records were sent, so the spool is replayed from there after a
+ * restart. Segments are deleted once they were sent completely. When the spool exceeds its maximum size, the oldest
+ * segment is dropped.
+ */
+@ThreadSafe
+class MetricSpool {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(MetricSpool.class);
+
+    static final int MAGIC = 0x48435753;
+    private static final int READ_OFFSET_POSITION = Integer.BYTES;
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+    private static final @NotNull String SEGMENT_SUFFIX = ".spool";
+    // CloudWatch rejects data points that are older than two weeks
+    static final long MAXIMUM_AGE_MILLIS = TimeUnit.DAYS.toMillis(14);
+
+    private final @NotNull Path directory;
+    private final long maxSize;
+    private final int segmentSize;
+    private final @NotNull ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final @NotNull Counter dropped;
+
+    private long nextSequence;
+    private boolean closed;
+
+    MetricSpool(
+            final @NotNull Path directory,
+            final long maxSize,
+            final int segmentSize,
+            final @NotNull ExtensionMetrics extensionMetrics) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = segmentSize;
+        this.dropped = extensionMetrics.counter("spool.dropped");
+        Files.createDirectories(directory);
+        final List<Path> paths;
+        try (final var files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (final var path : paths) {
+            try {
+                final var segment = Segment.open(path);
+                segments.addLast(segment);
+                nextSequence = segment.sequence + 1;
+            } catch (final IOException | RuntimeException e) {
+                log.warn("Could not open AWS CloudWatch spool segment {}, reason: {}", path, e.getMessage());
+            }
+        }
+        if (!segments.isEmpty()) {
+            log.info("Replaying {} spooled HiveMQ metrics from {}", pendingDatums(), directory);
+        }
+        extensionMetrics.gauge("spool.size", (Gauge<Long>) this::pendingBytes);
+    }
+
+    /**
+     * Appends the datums to the spool.
+     *
+     * @return {@code false} if the datums could not be written
+     */
+    synchronized boolean append(final @NotNull List<MetricDatum> metricData) {
+        if (closed) {
+            return false;
+        }
+        try {
+            for (var i = 0; i < metricData.size(); i++) {
+                final var datum = metricData.get(i);
+                final var recordSize = RECORD_HEADER_SIZE + MetricDatumCodec.encodedSize(datum);
+                if (recordSize > segmentSize - HEADER_SIZE) {
+                    dropped.inc();
+                    continue;
+                }
+                var segment = segments.peekLast();
+                if (segment == null || segment.remaining() < recordSize) {
+                    segment = rotate();
+                }
+                segment.append(datum, recordSize);
+            }
+            return true;
+        } catch (final IOException e) {
+            log.warn("Could not spool HiveMQ metrics to {}, reason: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the oldest unsent datums. The datums are sent again by the next read, until the read is committed.
+     *
+     * @param  maxDatums the maximum number of datums to read
+     * @param  maxBytes  the maximum estimated request size of the read datums
+     * @param  nowMillis the current time, datums older than CloudWatch accepts are skipped
+     * @return           the read datums or {@code null} if the spool is empty
+     */
+    synchronized @Nullable Read read(final int maxDatums, final int maxBytes, final long nowMillis) {
+        while (!segments.isEmpty()) {
+            final var segment = segments.peekFirst();
+            final var read = segment.read(maxDatums, maxBytes, nowMillis - MAXIMUM_AGE_MILLIS);
+            if (!read.metricData.isEmpty()) {
+                return read;
+            }
+            if (read.endOffset != segment.readOffset) {
+                // only expired datums were read
+                advance(segment, read);
+            } else if (segments.size() > 1) {
+                // the segment was sent completely and is not written to anymore
+                segments.removeFirst();
+                segment.delete();
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the datums of the read as sent.
+     */
+    synchronized void commit(final @NotNull Read read) {
+        // the segment is gone if it was dropped while the datums were sent
+        if (segments.contains(read.segment)) {
+            advance(read.segment, read);
+            if (read.segment.unread == 0 && segments.size() > 1 && segments.peekFirst() == read.segment) {
+                segments.removeFirst();
+                read.segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Advances the read offset of the segment past the read datums. The expired datums of the read are only counted
+     * as dropped here, as a read that is not committed is read again.
+     */
+    private void advance(final @NotNull Segment segment, final @NotNull Read read) {
+        segment.commit(read);
+        if (read.expired > 0) {
+            dropped.inc(read.expired);
+        }
+    }
+
+    synchronized void drop(final @NotNull List<MetricDatum> metricData) {
+        dropped.inc(metricData.size());
+    }
+
+    synchronized long pendingBytes() {
+        var pendingBytes = 0L;
+        for (final var segment : segments) {
+            pendingBytes += segment.writePosition - segment.readOffset;
+        }
+        return pendingBytes;
+    }
+
+    synchronized long pendingDatums() {
+        var pendingDatums = 0L;
+        for (final var segment : segments) {
+            pendingDatums += segment.unread;
+        }
+        return pendingDatums;
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (final var segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private @NotNull Segment rotate() throws IOException {
+        final var last = segments.peekLast();
+        if (last != null) {
+            last.buffer.force();
+        }
+        while (!segments.isEmpty() && (segments.size() + 1L) * segmentSize > maxSize) {
+            final var oldest = segments.removeFirst();
+            log.warn("AWS CloudWatch spool exceeds {} bytes, dropping {} spooled HiveMQ metrics",
+                    maxSize,
+                    oldest.unread);
+            dropped.inc(oldest.unread);
+            oldest.delete();
+        }
+        final var segment =
+                Segment.create(directory.resolve(String.format("%019d%s", nextSequence, SEGMENT_SUFFIX)),
+                        nextSequence,
+                        segmentSize);
+        nextSequence++;
+        segments.addLast(segment);
+        return segment;
+    }
+
+    /**
+     * Datums read from a segment, which are committed by advancing the read offset of the segment to the end offset.
+     */
+    static final class Read {
+
+        private final @NotNull Segment segment;
+        private final @NotNull List<MetricDatum> metricData;
+        private final int records;
+        private final int expired;
+        private final int endOffset;
+
+        private Read(
+                final @NotNull Segment segment,
+                final @NotNull List<MetricDatum> metricData,
+                final int records,
+                final int expired,
+                final int endOffset) {
+            this.segment = segment;
+            this.metricData = metricData;
+            this.records = records;
+            this.expired = expired;
+            this.endOffset = endOffset;
+        }
+
+        @NotNull List<MetricDatum> getMetricData() {
+            return metricData;
+        }
+    }
+
+    private static final class Segment {
+
+        private final @NotNull Path path;
+        private final long sequence;
+        private final @NotNull FileChannel channel;
+        private final @NotNull MappedByteBuffer buffer;
+        private int writePosition;
+        private int readOffset;
+        private int unread;
+
+        private Segment(
+                final @NotNull Path path,
+                final long sequence,
+                final @NotNull FileChannel channel,
+                final @NotNull MappedByteBuffer buffer) {
+            this.path = path;
+            this.sequence = sequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static @NotNull Segment create(final @NotNull Path path, final long sequence, final int size)
+                throws IOException {
+            final var channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                // mapping beyond the end of the file extends the file with zeros
+                final var segment =
+                        new Segment(path, sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+                segment.buffer.putInt(0, MAGIC);
+                segment.buffer.putInt(READ_OFFSET_POSITION, HEADER_SIZE);
+                segment.writePosition = HEADER_SIZE;
+                segment.readOffset = HEADER_SIZE;
+                return segment;
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        static @NotNull Segment open(final @NotNull Path path) throws IOException {
+            final var fileName = path.getFileName().toString();
+            final var sequence = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+            final var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                final var size = (int) channel.size();
+                final var segment =
+                        new Segment(path, sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+                if (size < HEADER_SIZE || segment.buffer.getInt(0) != MAGIC) {
+                    throw new IOException("not a spool segment");
+                }
+                segment.readOffset = segment.buffer.getInt(READ_OFFSET_POSITION);
+                if (segment.readOffset < HEADER_SIZE || segment.readOffset > size) {
+                    throw new IOException("invalid read offset " + segment.readOffset);
+                }
+                // the first record without length was not completely written
+                var position = segment.readOffset;
+                while (position + RECORD_HEADER_SIZE <= size) {
+                    final var length = segment.buffer.getInt(position);
+                    if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                        break;
+                    }
+                    position += RECORD_HEADER_SIZE + length;
+                    segment.unread++;
+                }
+                segment.writePosition = position;
+                return segment;
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        void append(final @NotNull MetricDatum datum, final int recordSize) {
+            buffer.position(writePosition + RECORD_HEADER_SIZE);
+            MetricDatumCodec.encode(datum, buffer);
+            // the length is written last, so an incomplete record is not read
+            buffer.putInt(writePosition, recordSize - RECORD_HEADER_SIZE);
+            writePosition += recordSize;
+            unread++;
+        }
+
+        @NotNull Read read(final int maxDatums, final int maxBytes, final long minTimestampMillis) {
+            final var metricData = new ArrayList<MetricDatum>();
+            final var reader = buffer.duplicate();
+            var position = readOffset;
+            var records = 0;
+            var expired = 0;
+            var bytes = 0;
+            while (position < writePosition && metricData.size() < maxDatums) {
+                final var length = reader.getInt(position);
+                reader.position(position + RECORD_HEADER_SIZE);
+                final var datum = MetricDatumCodec.decode(reader);
+                if (datum.timestamp() != null && datum.timestamp().toEpochMilli() < minTimestampMillis) {
+                    expired++;
+                } else {
+                    final var datumBytes = MetricDataBatcher.estimateSize(datum);
+                    if (!metricData.isEmpty() && bytes + datumBytes > maxBytes) {
+                        break;
+                    }
+                    metricData.add(datum);
+                    bytes += datumBytes;
+                }
+                position += RECORD_HEADER_SIZE + length;
+                records++;
+            }
+            return new Read(this, metricData, records, expired, position);
+        }
+
+        void commit(final @NotNull Read read) {
+            readOffset = read.endOffset;
+            unread -= read.records;
+            buffer.putInt(READ_OFFSET_POSITION, readOffset);
+        }
+
+        void close() {
+            buffer.force();
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                log.debug("Could not close AWS CloudWatch spool segment {}", path, e);
+            }
+        }
+
+        /**
+         * Deletes the segment file. The segment must not be accessed afterwards, as its buffer is unmapped.
+         */
+        void delete() {
+            try {
+                channel.close();
+                unmap(buffer);
+                Files.deleteIfExists(path);
+            } catch (final IOException e) {
+                log.debug("Could not delete AWS CloudWatch spool segment {}", path, e);
+            }
+        }
+
+        /**
+         * Releases the mapping of the buffer immediately. Closing the channel does not release it and there is no
+         * public API for it before Java 19, so it would stay alive until the buffer is garbage collected.
+         */
+        private static void unmap(final @NotNull MappedByteBuffer buffer) {
+            try {
+                final var unsafeClass = Class.forName("sun.misc.Unsafe");
+                final var unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+                unsafeField.setAccessible(true);
+                unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafeField.get(null), buffer);
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                log.debug("Could not unmap AWS CloudWatch spool segment", e);
+            }
+        }
+    }
+}
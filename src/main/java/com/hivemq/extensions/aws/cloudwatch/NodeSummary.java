@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Sampling;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compact summary of the enabled metrics of one node, which the nodes of a cluster exchange.
+ * <p>
+ * Counts are cumulative, so a missed or late summary does not lose any counts: the leader computes the deltas
+ * between the summaries of a node. Histograms and timers are summarized with the minimum, maximum and mean of their
+ * snapshot, timers in milliseconds.
+ */
+final class NodeSummary {
+
+    private static final int MAGIC = 0x484D4353;
+    private static final int VERSION = 1;
+
+    private final @NotNull String nodeId;
+    private final long timestamp;
+    private final @NotNull List<Entry> entries;
+
+    NodeSummary(final @NotNull String nodeId, final long timestamp, final @NotNull List<Entry> entries) {
+        this.nodeId = nodeId;
+        this.timestamp = timestamp;
+        this.entries = entries;
+    }
+
+    static @NotNull NodeSummary of(
+            final @NotNull String nodeId,
+            final long timestamp,
+            final @NotNull ReportedMetric @NotNull [] metrics) {
+        final var entries = new ArrayList<Entry>(metrics.length);
+        for (final var metric : metrics) {
+            switch (metric.getKind()) {
+                case GAUGE:
+                    final var value = ((Gauge<?>) metric.getMetric()).getValue();
+                    if (value instanceof Number) {
+                        final var number = ((Number) value).doubleValue();
+                        entries.add(new Entry(metric, number, number, number, number));
+                    }
+                    break;
+                case COUNTER:
+                case METER:
+                    final var count = ((Counting) metric.getMetric()).getCount();
+                    entries.add(new Entry(metric, count, 0, 0, 0));
+                    break;
+                case HISTOGRAM:
+                case TIMER:
+                    final var divisor = metric.getKind() == ReportedMetric.Kind.TIMER ?
+                            CloudWatchReporter.NANOS_PER_MILLI :
+                            1;
+                    final var snapshot = ((Sampling) metric.getMetric()).getSnapshot();
+                    entries.add(new Entry(metric,
+                            ((Counting) metric.getMetric()).getCount(),
+                            snapshot.getMin() / divisor,
+                            snapshot.getMax() / divisor,
+                            snapshot.getMean() / divisor));
+                    break;
+            }
+        }
+        return new NodeSummary(nodeId, timestamp, entries);
+    }
+
+    @NotNull String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the epoch millis of the report the summary was created for
+     */
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    @NotNull List<Entry> getEntries() {
+        return entries;
+    }
+
+    byte @NotNull [] encode() {
+        final var bytes = new ByteArrayOutputStream(64 + entries.size() * 64);
+        try (final var output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeUTF(nodeId);
+            output.writeLong(timestamp);
+            output.writeInt(entries.size());
+            for (final var entry : entries) {
+                output.writeUTF(entry.name);
+                output.writeByte(entry.kind.ordinal());
+                output.writeBoolean(entry.highResolution);
+                output.writeDouble(entry.value);
+                output.writeDouble(entry.min);
+                output.writeDouble(entry.max);
+                output.writeDouble(entry.mean);
+            }
+        } catch (final IOException e) {
+            // not thrown by a byte array output stream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the bytes are not a summary of this version
+     */
+    static @NotNull NodeSummary decode(final byte @NotNull [] bytes) throws IOException {
+        try (final var input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+                throw new IOException("Not a node summary of version " + VERSION);
+            }
+            final var nodeId = input.readUTF();
+            final var timestamp = input.readLong();
+            final var size = input.readInt();
+            final var kinds = ReportedMetric.Kind.values();
+            final var entries = new ArrayList<Entry>(Math.min(size, 1 << 16));
+            for (var i = 0; i < size; i++) {
+                final var name = input.readUTF();
+                final var kind = input.readByte();
+                if (kind < 0 || kind >= kinds.length) {
+                    throw new IOException("Unknown metric kind " + kind);
+                }
+                entries.add(new Entry(name,
+                        kinds[kind],
+                        input.readBoolean(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble()));
+            }
+            return new NodeSummary(nodeId, timestamp, entries);
+        }
+    }
+
+    /**
+     * The summary of a single metric.
+     */
+    static final class Entry {
+
+        private final @NotNull String name;
+        private final ReportedMetric.@NotNull Kind kind;
+        private final boolean highResolution;
+        private final double value;
+        private final double min;
+        private final double max;
+        private final double mean;
+
+        private Entry(
+                final @NotNull ReportedMetric metric,
+                final double value,
+                final double min,
+                final double max,
+                final double mean) {
+            this(metric.getName(), metric.getKind(), metric.isHighResolution(), value, min, max, mean);
+        }
+
+        Entry(
+                final @NotNull String name,
+                final ReportedMetric.@NotNull Kind kind,
+                final boolean highResolution,
+                final double value,
+                final double min,
+                final double max,
+                final double mean) {
+            this.name = name;
+            this.kind = kind;
+            this.highResolution = highResolution;
+            this.value = value;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        @NotNull String getName() {
+            return name;
+        }
+
+        ReportedMetric.@NotNull Kind getKind() {
+            return kind;
+        }
+
+        boolean isHighResolution() {
+            return highResolution;
+        }
+
+        /**
+         * @return the value of a gauge or the cumulative count of all other metrics
+         */
+        double getValue() {
+            return value;
+        }
+
+        double getMin() {
+            return min;
+        }
+
+        double getMax() {
+            return max;
+        }
+
+        double getMean() {
+            return mean;
+        }
+    }
+}
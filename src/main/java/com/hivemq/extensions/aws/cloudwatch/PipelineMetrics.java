@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+/**
+ * The metrics of the reporting pipeline itself, so a pipeline that falls behind can be detected and alarmed on.
+ */
+@ThreadSafe
+class PipelineMetrics {
+
+    private final @NotNull Histogram flushLatency;
+    private final @NotNull Histogram flushDatums;
+    private final @NotNull Histogram flushRequests;
+    private final @NotNull Counter sentBytes;
+    private final @NotNull Counter failedRequests;
+    private final @NotNull Counter throttledRequests;
+    private final @NotNull Counter timedOutRequests;
+    private final @NotNull Counter droppedDatums;
+    private final @NotNull Histogram filterMatchTime;
+
+    PipelineMetrics(final @NotNull ExtensionMetrics extensionMetrics) {
+        flushLatency = extensionMetrics.histogram("publish.latency");
+        flushDatums = extensionMetrics.histogram("publish.datums");
+        flushRequests = extensionMetrics.histogram("publish.requests");
+        sentBytes = extensionMetrics.counter("publish.bytes");
+        failedRequests = extensionMetrics.counter("publish.failed");
+        throttledRequests = extensionMetrics.counter("publish.throttled");
+        timedOutRequests = extensionMetrics.counter("publish.timeouts");
+        droppedDatums = extensionMetrics.counter("publish.dropped");
+        filterMatchTime = extensionMetrics.histogram("filter.match-time");
+    }
+
+    /**
+     * @param latencyMillis the time until all requests of the report completed
+     */
+    void flushed(final long latencyMillis, final int datums, final int requests) {
+        flushLatency.update(latencyMillis);
+        flushDatums.update(datums);
+        flushRequests.update(requests);
+    }
+
+    /**
+     * @param bytes the estimated size of a successful request
+     */
+    void sent(final int bytes) {
+        sentBytes.inc(bytes);
+    }
+
+    /**
+     * @param cause the cause of a failed request, unwrapped from the completion exception
+     */
+    void failed(final @NotNull Throwable cause) {
+        failedRequests.inc();
+        if (cause instanceof SdkServiceException && ((SdkServiceException) cause).isThrottlingException()) {
+            throttledRequests.inc();
+        } else if (cause instanceof ApiCallTimeoutException || cause instanceof ApiCallAttemptTimeoutException) {
+            timedOutRequests.inc();
+        }
+    }
+
+    /**
+     * @param datums the number of datums that could not be sent at all, e.g. as they exceed a size limit
+     */
+    void dropped(final int datums) {
+        droppedDatums.inc(datums);
+    }
+
+    /**
+     * @param nanos the time the filters took to decide whether a metric is reported
+     */
+    void filterMatched(final long nanos) {
+        filterMatchTime.update(nanos);
+    }
+}
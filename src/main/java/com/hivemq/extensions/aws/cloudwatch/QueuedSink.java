@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Publishes the reports to a sink on an executor, one report after the other, so a slow sink neither delays the
+ * reports nor the other sinks.
+ * <p>
+ * At most {@code queueSize} reports wait for the sink, a further report replaces the oldest waiting one, so a sink
+ * that falls behind publishes the most recent metric data once it caught up.
+ */
+@ThreadSafe
+class QueuedSink implements MetricSink {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(QueuedSink.class);
+
+    private final @NotNull String name;
+    private final @NotNull MetricSink sink;
+    private final int queueSize;
+    private final @NotNull Executor executor;
+    private final @NotNull ArrayDeque<Report> queue = new ArrayDeque<>();
+    private final @Nullable Counter droppedReports;
+
+    private boolean publishing;
+    private boolean closed;
+
+    QueuedSink(
+            final @NotNull String name,
+            final @NotNull MetricSink sink,
+            final int queueSize,
+            final @NotNull Executor executor,
+            final @Nullable ExtensionMetrics extensionMetrics) {
+        this.name = name;
+        this.sink = sink;
+        this.queueSize = queueSize;
+        this.executor = executor;
+        if (extensionMetrics != null) {
+            droppedReports = extensionMetrics.counter("sink." + name + ".dropped");
+            extensionMetrics.gauge("sink." + name + ".queue-size", (Gauge<Integer>) this::queueSize);
+        } else {
+            droppedReports = null;
+        }
+    }
+
+    @Override
+    public void start() {
+        sink.start();
+    }
+
+    /**
+     * @return a future that completes when the sink handled the metric data or the report was dropped
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+        final var report = new Report(metricData);
+        final Report droppedReport;
+        final boolean startPublishing;
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            droppedReport = queue.size() == queueSize ? queue.poll() : null;
+            queue.add(report);
+            startPublishing = !publishing;
+            publishing = true;
+        }
+        if (droppedReport != null) {
+            log.warn("Sink {} is too slow, dropped a report of {} HiveMQ metrics",
+                    name,
+                    droppedReport.metricData.size());
+            if (droppedReports != null) {
+                droppedReports.inc();
+            }
+            droppedReport.future.complete(null);
+        }
+        if (startPublishing) {
+            publishNextLater();
+        }
+        return report.future;
+    }
+
+    private void publishNextLater() {
+        try {
+            executor.execute(this::publishNext);
+        } catch (final RejectedExecutionException e) {
+            // the executor was shut down, so the extension stops
+            final List<Report> reports;
+            synchronized (this) {
+                publishing = false;
+                reports = new ArrayList<>(queue);
+                queue.clear();
+            }
+            reports.forEach(report -> report.future.complete(null));
+        }
+    }
+
+    private void publishNext() {
+        final Report report;
+        synchronized (this) {
+            report = queue.poll();
+            if (report == null) {
+                publishing = false;
+                return;
+            }
+        }
+        CompletableFuture<Void> published;
+        try {
+            published = sink.publish(report.metricData);
+        } catch (final Throwable t) {
+            log.error("Error while publishing HiveMQ metrics to sink {}", name, t);
+            published = CompletableFuture.completedFuture(null);
+        }
+        published.whenComplete((result, throwable) -> {
+            report.future.complete(null);
+            publishNextLater();
+        });
+    }
+
+    synchronized int queueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        final List<Report> reports;
+        synchronized (this) {
+            closed = true;
+            reports = new ArrayList<>(queue);
+            queue.clear();
+        }
+        reports.forEach(report -> report.future.complete(null));
+        sink.close();
+    }
+
+    private static final class Report {
+
+        private final @NotNull List<MetricDatum> metricData;
+        private final @NotNull CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Report(final @NotNull List<MetricDatum> metricData) {
+            this.metricData = metricData;
+        }
+    }
+}
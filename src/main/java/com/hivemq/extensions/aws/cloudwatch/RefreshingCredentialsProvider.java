@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.time.Clock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caches the credentials of a credentials provider and refreshes them in the background ahead of their expiry, so the
+ * requests of a report never wait for STS or the instance metadata service.
+ * <p>
+ * The credentials are only resolved inline if none are cached yet or the cached ones expired, e.g. because the
+ * background refreshes failed. A failed background refresh is retried after {@link #RETRY_INTERVAL_MILLIS} while the
+ * cached credentials are still used. Credentials without an expiry are never refreshed.
+ * <p>
+ * The scheduler only triggers the background refreshes, they are run on the refresh executor, as the calls to STS or
+ * the instance metadata service block and would otherwise delay the reports that share the scheduler.
+ */
+@ThreadSafe
+class RefreshingCredentialsProvider implements AwsCredentialsProvider, SdkAutoCloseable {
+
+    static final long RETRY_INTERVAL_MILLIS = 10_000;
+    static final long MIN_REFRESH_DELAY_MILLIS = 1000;
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(RefreshingCredentialsProvider.class);
+
+    private final @NotNull Supplier<AwsCredentialsProvider> delegateFactory;
+    private final @NotNull ScheduledExecutorService scheduler;
+    private final @NotNull Executor refreshExecutor;
+    private final long refreshAheadMillis;
+    private final @NotNull Clock clock;
+    private final @Nullable Counter refreshFailures;
+
+    private volatile @Nullable AwsCredentials credentials;
+    private volatile long resolvedAtMillis;
+    private @Nullable AwsCredentialsProvider delegate;
+    private @Nullable ScheduledFuture<?> refreshFuture;
+    private boolean closed;
+
+    /**
+     * @param delegateFactory creates the credentials provider with the first resolution, so creating it, e.g. the STS
+     *                        client, does not block the caller of the constructor
+     * @param scheduler       triggers the background refreshes
+     * @param refreshExecutor runs the background refreshes
+     */
+    RefreshingCredentialsProvider(
+            final @NotNull Supplier<AwsCredentialsProvider> delegateFactory,
+            final @NotNull ScheduledExecutorService scheduler,
+            final @NotNull Executor refreshExecutor,
+            final long refreshAheadMillis,
+            final @NotNull Clock clock,
+            final @Nullable ExtensionMetrics extensionMetrics) {
+        this.delegateFactory = delegateFactory;
+        this.scheduler = scheduler;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.clock = clock;
+        if (extensionMetrics != null) {
+            refreshFailures = extensionMetrics.counter("credentials.refresh-failures");
+            extensionMetrics.gauge("credentials.age", (Gauge<Long>) this::ageMillis);
+        } else {
+            refreshFailures = null;
+        }
+    }
+
+    @Override
+    public @NotNull AwsCredentials resolveCredentials() {
+        final var cached = credentials;
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+        synchronized (this) {
+            // another thread may have resolved the credentials in the meantime
+            final var current = credentials;
+            if (current != null && !isExpired(current)) {
+                return current;
+            }
+            try {
+                return refresh();
+            } catch (final RuntimeException e) {
+                if (refreshFailures != null) {
+                    refreshFailures.inc();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private synchronized @NotNull AwsCredentials refresh() {
+        if (delegate == null) {
+            delegate = delegateFactory.get();
+        }
+        final var refreshed = delegate.resolveCredentials();
+        credentials = refreshed;
+        resolvedAtMillis = clock.millis();
+        final var expiry = refreshed.expirationTime().orElse(null);
+        if (expiry != null) {
+            final var expiresInMillis = expiry.toEpochMilli() - resolvedAtMillis;
+            var delayMillis = expiresInMillis - refreshAheadMillis;
+            if (delayMillis < MIN_REFRESH_DELAY_MILLIS) {
+                // the delegate returned credentials it cached itself, asks again before they expire
+                delayMillis = Math.max(Math.min(RETRY_INTERVAL_MILLIS, expiresInMillis / 2), MIN_REFRESH_DELAY_MILLIS);
+            }
+            log.debug("Resolved AWS credentials that expire at {}, refreshing them in {} ms", expiry, delayMillis);
+            scheduleRefresh(delayMillis);
+        }
+        return refreshed;
+    }
+
+    private void triggerRefresh() {
+        try {
+            refreshExecutor.execute(this::refreshInBackground);
+        } catch (final RejectedExecutionException e) {
+            // the refresh executor was shut down, so the extension stops
+            log.debug("Could not refresh AWS credentials, the refresh executor was shut down");
+        }
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (final RuntimeException e) {
+            log.warn("Could not refresh AWS credentials, retrying in {} ms, reason: {}",
+                    RETRY_INTERVAL_MILLIS,
+                    e.getMessage());
+            if (refreshFailures != null) {
+                refreshFailures.inc();
+            }
+            scheduleRefresh(RETRY_INTERVAL_MILLIS);
+        }
+    }
+
+    private synchronized void scheduleRefresh(final long delayMillis) {
+        if (closed) {
+            return;
+        }
+        if (refreshFuture != null) {
+            refreshFuture.cancel(false);
+        }
+        try {
+            refreshFuture = scheduler.schedule(this::triggerRefresh, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // the scheduler was shut down, so the extension stops
+            refreshFuture = null;
+        }
+    }
+
+    private boolean isExpired(final @NotNull AwsCredentials credentials) {
+        final var expiry = credentials.expirationTime().orElse(null);
+        return expiry != null && !expiry.isAfter(clock.instant());
+    }
+
+    /**
+     * @return the time in milliseconds since the cached credentials were resolved or 0 if none are cached
+     */
+    long ageMillis() {
+        return credentials != null ? clock.millis() - resolvedAtMillis : 0;
+    }
+
+    @Override
+    public void close() {
+        final AwsCredentialsProvider delegateToClose;
+        synchronized (this) {
+            closed = true;
+            if (refreshFuture != null) {
+                refreshFuture.cancel(false);
+            }
+            delegateToClose = delegate;
+        }
+        if (delegateToClose instanceof SdkAutoCloseable) {
+            ((SdkAutoCloseable) delegateToClose).close();
+        }
+    }
+}
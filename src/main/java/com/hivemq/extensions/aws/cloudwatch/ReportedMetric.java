@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A HiveMQ metric that was resolved from the metric registry as enabled for reporting.
+ * <p>
+ * Everything that can be derived from the configuration is resolved once when the metric is registered, so the
+ * report tick only has to read the current value. The datums of the metric are built from pooled builders, which
+ * already hold the name, unit, type and configured dimensions and storage resolution.
+ */
+final class ReportedMetric {
+
+    enum Kind {
+        GAUGE,
+        COUNTER,
+        HISTOGRAM,
+        METER,
+        TIMER
+    }
+
+    private final @NotNull String name;
+    private final @NotNull Metric metric;
+    private final @NotNull Kind kind;
+    private final boolean highResolution;
+    private final @NotNull List<Dimension> dimensions;
+
+    // only accessed by the reporting thread
+    private final MetricDatum.@Nullable Builder @NotNull [] datumBuilders;
+    private final @NotNull ReportState state;
+
+    ReportedMetric(
+            final @NotNull String name,
+            final @NotNull Metric metric,
+            final @NotNull Kind kind,
+            final boolean highResolution) {
+        this(name, metric, kind, highResolution, List.of());
+    }
+
+    ReportedMetric(
+            final @NotNull String name,
+            final @NotNull Metric metric,
+            final @NotNull Kind kind,
+            final boolean highResolution,
+            final @NotNull List<Dimension> dimensions) {
+        this.name = name;
+        this.metric = metric;
+        this.kind = kind;
+        this.highResolution = highResolution;
+        this.dimensions = dimensions;
+        // histograms and timers are reported with their count and percentiles
+        datumBuilders = new MetricDatum.Builder[kind == Kind.HISTOGRAM || kind == Kind.TIMER ? 4 : 1];
+        state = new ReportState();
+    }
+
+    /**
+     * Creates the metric with a new storage resolution or new dimensions. Only the datum builders are created anew,
+     * the state of the previous reports, e.g. the last reported count, is shared with the given metric, so a report
+     * tick that still reads the given metric updates the same state.
+     */
+    ReportedMetric(
+            final @NotNull ReportedMetric metric,
+            final boolean highResolution,
+            final @NotNull List<Dimension> dimensions) {
+        this.name = metric.name;
+        this.metric = metric.metric;
+        this.kind = metric.kind;
+        this.highResolution = highResolution;
+        this.dimensions = dimensions;
+        datumBuilders = new MetricDatum.Builder[metric.datumBuilders.length];
+        state = metric.state;
+    }
+
+    @NotNull String getName() {
+        return name;
+    }
+
+    @NotNull Metric getMetric() {
+        return metric;
+    }
+
+    @NotNull Kind getKind() {
+        return kind;
+    }
+
+    boolean isHighResolution() {
+        return highResolution;
+    }
+
+    /**
+     * @return the configured dimensions of the metric, without the type dimension
+     */
+    @NotNull List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the number of datums of the metric when it is not aggregated
+     */
+    int getDatumCount() {
+        return datumBuilders.length;
+    }
+
+    /**
+     * @return the count of the previous call of {@link #countDelta(long)}
+     */
+    long getLastCount() {
+        return state.lastCount;
+    }
+
+    /**
+     * @param  currentCount the current count of the metric
+     * @return              the difference to the count of the previous call
+     */
+    long countDelta(final long currentCount) {
+        final var delta = currentCount - state.lastCount;
+        state.lastCount = currentCount;
+        return delta;
+    }
+
+    /**
+     * The builder sets the fields of each datum by replacing them, so datums that were built before are not changed.
+     *
+     * @param  index         the index of the datum of the metric
+     * @param  unit          the unit of the datum, only used when the builder is created
+     * @param  typeDimension the type dimension of the datum, only used when the builder is created
+     * @return               the pooled builder for the datum
+     */
+    MetricDatum.@NotNull Builder datumBuilder(
+            final int index,
+            final @NotNull StandardUnit unit,
+            final @NotNull Dimension typeDimension) {
+        var builder = datumBuilders[index];
+        if (builder == null) {
+            final var datumDimensions = new ArrayList<Dimension>(dimensions.size() + 1);
+            datumDimensions.add(typeDimension);
+            datumDimensions.addAll(dimensions);
+            builder = MetricDatum.builder()
+                    .metricName(name)
+                    .unit(unit)
+                    .dimensions(datumDimensions)
+                    .storageResolution(highResolution ?
+                            CloudWatchReporter.HIGH_RESOLUTION :
+                            CloudWatchReporter.STANDARD_RESOLUTION);
+            datumBuilders[index] = builder;
+        }
+        return builder;
+    }
+
+    @Nullable MetricAggregator.Samples getSamples() {
+        return state.samples;
+    }
+
+    void setSamples(final @NotNull MetricAggregator.Samples samples) {
+        state.samples = samples;
+    }
+
+    ChangeDetector.@Nullable State getChangeState() {
+        return state.changeState;
+    }
+
+    void setChangeState(final ChangeDetector.@NotNull State changeState) {
+        state.changeState = changeState;
+    }
+
+    CardinalityLimiter.@Nullable State getLimiterState() {
+        return state.limiterState;
+    }
+
+    void setLimiterState(final CardinalityLimiter.@NotNull State limiterState) {
+        state.limiterState = limiterState;
+    }
+
+    MetricSketches.@Nullable State getSketchState() {
+        return state.sketchState;
+    }
+
+    void setSketchState(final MetricSketches.@NotNull State sketchState) {
+        state.sketchState = sketchState;
+    }
+
+    /**
+     * The state of the metric across report ticks, which stays with the metric when its configuration changes.
+     */
+    private static final class ReportState {
+
+        private long lastCount;
+        private @Nullable MetricAggregator.Samples samples;
+        private ChangeDetector.@Nullable State changeState;
+        private CardinalityLimiter.@Nullable State limiterState;
+        private MetricSketches.@Nullable State sketchState;
+    }
+}
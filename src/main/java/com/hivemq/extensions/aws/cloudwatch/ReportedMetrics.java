@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The set of enabled metrics, kept in sync with the metric registry.
+ * <p>
+ * The configured filters are only evaluated when a metric is added to the registry. A report tick reads the
+ * immutable array returned by {@link #get()}, which is rebuilt only when an enabled metric is added or removed, or
+ * when the filters are replaced.
+ */
+@ThreadSafe
+class ReportedMetrics implements MetricRegistryListener {
+
+    private static final @NotNull ReportedMetric[] EMPTY = new ReportedMetric[0];
+
+    private final @NotNull Map<String, ReportedMetric> metrics = new ConcurrentHashMap<>();
+
+    // only accessed while holding the lock of the reported metrics
+    private @NotNull MetricFilter filter;
+    private @NotNull MetricFilter highResolutionFilter;
+    private @NotNull MetricDimensions dimensions;
+
+    private final @Nullable PipelineMetrics pipelineMetrics;
+    private volatile @NotNull ReportedMetric[] snapshot = EMPTY;
+
+    ReportedMetrics(final @NotNull MetricFilter filter, final @NotNull MetricFilter highResolutionFilter) {
+        this(filter, highResolutionFilter, MetricDimensions.NONE);
+    }
+
+    ReportedMetrics(
+            final @NotNull MetricFilter filter,
+            final @NotNull MetricFilter highResolutionFilter,
+            final @NotNull MetricDimensions dimensions) {
+        this(filter, highResolutionFilter, dimensions, null);
+    }
+
+    ReportedMetrics(
+            final @NotNull MetricFilter filter,
+            final @NotNull MetricFilter highResolutionFilter,
+            final @NotNull MetricDimensions dimensions,
+            final @Nullable PipelineMetrics pipelineMetrics) {
+        this.filter = filter;
+        this.highResolutionFilter = highResolutionFilter;
+        this.dimensions = dimensions;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * @return the enabled metrics sorted by name, the returned array must not be modified
+     */
+    @NotNull ReportedMetric[] get() {
+        return snapshot;
+    }
+
+    /**
+     * Replaces the filters and resolves the enabled metrics again from the given registered metrics.
+     * <p>
+     * Metrics that stay enabled keep their state, e.g. the last reported count of a counter, also when their resolution
+     * or dimensions changed, so the next report only sends the increase since the previous one.
+     *
+     * @param registeredMetrics the metrics of the registry, by name
+     */
+    synchronized void setFilters(
+            final @NotNull MetricFilter filter,
+            final @NotNull MetricFilter highResolutionFilter,
+            final @NotNull MetricDimensions dimensions,
+            final @NotNull Map<String, Metric> registeredMetrics) {
+        this.filter = filter;
+        this.highResolutionFilter = highResolutionFilter;
+        this.dimensions = dimensions;
+        metrics.keySet().retainAll(registeredMetrics.keySet());
+        registeredMetrics.forEach((name, metric) -> {
+            final var kind = kind(metric);
+            if (kind == null) {
+                metrics.remove(name);
+                return;
+            }
+            final var startNanos = System.nanoTime();
+            final var matches = filter.matches(name, metric);
+            final var highResolution = matches && highResolutionFilter.matches(name, metric);
+            recordMatchTime(startNanos);
+            if (!matches) {
+                metrics.remove(name);
+                return;
+            }
+            final var metricDimensions = dimensions.get(name);
+            final var reportedMetric = metrics.get(name);
+            if (reportedMetric == null || reportedMetric.getMetric() != metric) {
+                metrics.put(name, new ReportedMetric(name, metric, kind, highResolution, metricDimensions));
+            } else if (reportedMetric.isHighResolution() != highResolution ||
+                    !reportedMetric.getDimensions().equals(metricDimensions)) {
+                metrics.put(name, new ReportedMetric(reportedMetric, highResolution, metricDimensions));
+            }
+        });
+        rebuild();
+    }
+
+    private static ReportedMetric.@Nullable Kind kind(final @NotNull Metric metric) {
+        if (metric instanceof Gauge) {
+            return ReportedMetric.Kind.GAUGE;
+        } else if (metric instanceof Counter) {
+            return ReportedMetric.Kind.COUNTER;
+        } else if (metric instanceof Histogram) {
+            return ReportedMetric.Kind.HISTOGRAM;
+        } else if (metric instanceof Meter) {
+            return ReportedMetric.Kind.METER;
+        } else if (metric instanceof Timer) {
+            return ReportedMetric.Kind.TIMER;
+        }
+        return null;
+    }
+
+    @Override
+    public void onGaugeAdded(final @NotNull String name, final @NotNull Gauge<?> gauge) {
+        add(name, gauge, ReportedMetric.Kind.GAUGE);
+    }
+
+    @Override
+    public void onGaugeRemoved(final @NotNull String name) {
+        remove(name);
+    }
+
+    @Override
+    public void onCounterAdded(final @NotNull String name, final @NotNull Counter counter) {
+        add(name, counter, ReportedMetric.Kind.COUNTER);
+    }
+
+    @Override
+    public void onCounterRemoved(final @NotNull String name) {
+        remove(name);
+    }
+
+    @Override
+    public void onHistogramAdded(final @NotNull String name, final @NotNull Histogram histogram) {
+        add(name, histogram, ReportedMetric.Kind.HISTOGRAM);
+    }
+
+    @Override
+    public void onHistogramRemoved(final @NotNull String name) {
+        remove(name);
+    }
+
+    @Override
+    public void onMeterAdded(final @NotNull String name, final @NotNull Meter meter) {
+        add(name, meter, ReportedMetric.Kind.METER);
+    }
+
+    @Override
+    public void onMeterRemoved(final @NotNull String name) {
+        remove(name);
+    }
+
+    @Override
+    public void onTimerAdded(final @NotNull String name, final @NotNull Timer timer) {
+        add(name, timer, ReportedMetric.Kind.TIMER);
+    }
+
+    @Override
+    public void onTimerRemoved(final @NotNull String name) {
+        remove(name);
+    }
+
+    private synchronized void add(
+            final @NotNull String name,
+            final @NotNull Metric metric,
+            final @NotNull ReportedMetric.Kind kind) {
+        final var startNanos = System.nanoTime();
+        final var matches = filter.matches(name, metric);
+        final var highResolution = matches && highResolutionFilter.matches(name, metric);
+        recordMatchTime(startNanos);
+        if (matches) {
+            metrics.put(name, new ReportedMetric(name, metric, kind, highResolution, dimensions.get(name)));
+            rebuild();
+        }
+    }
+
+    private void recordMatchTime(final long startNanos) {
+        if (pipelineMetrics != null) {
+            pipelineMetrics.filterMatched(System.nanoTime() - startNanos);
+        }
+    }
+
+    private synchronized void remove(final @NotNull String name) {
+        if (metrics.remove(name) != null) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        final var newSnapshot = metrics.values().toArray(EMPTY);
+        Arrays.sort(newSnapshot, Comparator.comparing(ReportedMetric::getName));
+        snapshot = newSnapshot;
+    }
+}
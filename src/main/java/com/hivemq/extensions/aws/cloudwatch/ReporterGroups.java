@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the reporter groups, each to its own namespace at its own interval.
+ * <p>
+ * All groups are reported by one scheduled tick at the greatest common divisor of their intervals. The intervals are
+ * whole seconds, so the tick is at least one second also for co-prime intervals. A tick reports every group whose
+ * interval elapsed with the same timestamp, so the registry is walked once per tick and every
+ * metric is read only by the group it is routed to. If aligned, the ticks are scheduled at multiples of the tick
+ * interval since the epoch and each group is reported at multiples of its own interval.
+ */
+@ThreadSafe
+class ReporterGroups {
+
+    static final long MIN_TICK_MILLIS = 1000;
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ReporterGroups.class);
+
+    private final @NotNull List<Group> groups;
+    private final long tickMillis;
+
+    private @Nullable ScheduledFuture<?> scheduledTick;
+    private long originMillis;
+    private long nextTickMillis;
+
+    ReporterGroups(final @NotNull List<Group> groups) {
+        if (groups.isEmpty()) {
+            throw new IllegalArgumentException("At least one reporter group is required");
+        }
+        this.groups = List.copyOf(groups);
+        var tickMillis = 0L;
+        for (final var group : groups) {
+            tickMillis = gcd(tickMillis, group.periodMillis);
+        }
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * @return the interval of the shared tick
+     */
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    synchronized void start(final @NotNull ScheduledExecutorService scheduler, final boolean aligned) {
+        if (scheduledTick != null) {
+            throw new IllegalStateException("ReporterGroups already started");
+        }
+        groups.forEach(group -> group.sink.start());
+        final var now = System.currentTimeMillis();
+        final var initialDelay = aligned ? tickMillis - Math.floorMod(now, tickMillis) : tickMillis;
+        originMillis = aligned ? 0 : now;
+        nextTickMillis = now + initialDelay;
+        scheduledTick = scheduler.scheduleAtFixedRate(this::tick, initialDelay, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (scheduledTick != null) {
+            scheduledTick.cancel(false);
+            scheduledTick = null;
+        }
+        groups.forEach(group -> group.reporter.stop());
+    }
+
+    /**
+     * Reports the groups that are due at the current tick.
+     */
+    void tick() {
+        final long tick;
+        synchronized (this) {
+            // a late tick of a fixed rate schedule is followed by the next one, so the ticks are counted, not measured
+            tick = nextTickMillis;
+            nextTickMillis += tickMillis;
+        }
+        final var timestamp = Instant.now();
+        for (final var group : groups) {
+            if (!isDue(group, tick)) {
+                continue;
+            }
+            // an exception would cancel all subsequent ticks of the scheduled executor
+            try {
+                group.reporter.report(timestamp);
+            } catch (final Throwable t) {
+                log.error("Error while reporting HiveMQ metrics of namespace {} to AWS CloudWatch",
+                        group.namespace,
+                        t);
+            }
+        }
+    }
+
+    private boolean isDue(final @NotNull Group group, final long tick) {
+        return Math.floorMod(tick - originMillis, group.periodMillis) == 0;
+    }
+
+    static long gcd(final long a, final long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    static final class Group {
+
+        private final @NotNull String namespace;
+        private final long periodMillis;
+        private final @NotNull MetricSink sink;
+        private final @NotNull CloudWatchReporter reporter;
+
+        Group(
+                final @NotNull String namespace,
+                final long periodMillis,
+                final @NotNull MetricSink sink,
+                final @NotNull CloudWatchReporter reporter) {
+            if (periodMillis < MIN_TICK_MILLIS || periodMillis % MIN_TICK_MILLIS != 0) {
+                throw new IllegalArgumentException("The report interval must be a multiple of " + MIN_TICK_MILLIS +
+                        " ms");
+            }
+            this.namespace = namespace;
+            this.periodMillis = periodMillis;
+            this.sink = sink;
+            this.reporter = reporter;
+        }
+
+        @NotNull String getNamespace() {
+            return namespace;
+        }
+
+        long getPeriodMillis() {
+            return periodMillis;
+        }
+    }
+}
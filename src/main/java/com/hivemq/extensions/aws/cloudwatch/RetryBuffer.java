@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.EvictionPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A bounded buffer of PutMetricData batches that could not be sent to CloudWatch.
+ * <p>
+ * The batches are retried in the order they failed. After a failure the buffer backs off exponentially with jitter,
+ * so a throttled or unavailable CloudWatch is not flooded with retries. When the buffer is full, either the oldest or
+ * the new batch is evicted, depending on the eviction policy. Evicted batches are written to the spool, if one is
+ * configured, otherwise they are dropped.
+ */
+@ThreadSafe
+class RetryBuffer {
+
+    private final @NotNull ArrayDeque<List<MetricDatum>> batches = new ArrayDeque<>();
+    private final int capacity;
+    private final @NotNull EvictionPolicy eviction;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final @Nullable MetricSpool spool;
+    private final @NotNull Counter dropped;
+    private final @NotNull Counter retries;
+
+    private int failedAttempts;
+    private long retryAtMillis;
+
+    RetryBuffer(
+            final int capacity,
+            final @NotNull EvictionPolicy eviction,
+            final long initialBackoffMillis,
+            final long maxBackoffMillis,
+            final @Nullable MetricSpool spool,
+            final @NotNull ExtensionMetrics extensionMetrics) {
+        this.capacity = capacity;
+        this.eviction = eviction;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.spool = spool;
+        this.dropped = extensionMetrics.counter("retry-buffer.dropped");
+        this.retries = extensionMetrics.counter("retry-buffer.retries");
+        extensionMetrics.gauge("retry-buffer.size", (Gauge<Integer>) this::size);
+    }
+
+    /**
+     * Adds a failed batch to the end of the buffer.
+     */
+    synchronized void add(final @NotNull List<MetricDatum> batch) {
+        if (batches.size() == capacity) {
+            if (eviction == EvictionPolicy.NEWEST) {
+                evict(batch);
+                return;
+            }
+            evict(batches.pollFirst());
+        }
+        batches.addLast(batch);
+    }
+
+    /**
+     * Records a failed request and backs off, unless the buffer is already backing off.
+     */
+    synchronized void failed(final long nowMillis) {
+        if (retryAtMillis <= nowMillis) {
+            failedAttempts++;
+            retryAtMillis = nowMillis + backoffMillis(failedAttempts);
+        }
+    }
+
+    /**
+     * Puts a batch that failed again back to the head of the buffer and backs off.
+     */
+    synchronized void retryFailed(final @NotNull List<MetricDatum> batch, final long nowMillis) {
+        if (batches.size() == capacity) {
+            // the buffer filled up during the retry, the batch is the oldest one
+            evict(batch);
+        } else {
+            batches.addFirst(batch);
+        }
+        failed(nowMillis);
+    }
+
+    /**
+     * Records a successful request, which ends the backoff.
+     */
+    synchronized void succeeded() {
+        failedAttempts = 0;
+        retryAtMillis = 0;
+    }
+
+    /**
+     * @return the oldest batch to retry or {@code null} if the buffer is empty or backing off
+     */
+    synchronized @Nullable List<MetricDatum> poll(final long nowMillis) {
+        if (isBackingOff(nowMillis)) {
+            return null;
+        }
+        final var batch = batches.pollFirst();
+        if (batch != null) {
+            retries.inc();
+        }
+        return batch;
+    }
+
+    synchronized boolean isBackingOff(final long nowMillis) {
+        return retryAtMillis > nowMillis;
+    }
+
+    /**
+     * @return the milliseconds until the backoff ends
+     */
+    synchronized long remainingBackoffMillis(final long nowMillis) {
+        return Math.max(0, retryAtMillis - nowMillis);
+    }
+
+    synchronized int size() {
+        return batches.size();
+    }
+
+    synchronized void drop(final @NotNull List<MetricDatum> batch) {
+        dropped.inc(batch.size());
+    }
+
+    /**
+     * Writes all buffered batches to the spool, so they survive a restart.
+     */
+    synchronized void spoolAll() {
+        if (spool != null) {
+            while (!batches.isEmpty()) {
+                evict(batches.pollFirst());
+            }
+        }
+    }
+
+    private void evict(final @NotNull List<MetricDatum> batch) {
+        if (spool == null || !spool.append(batch)) {
+            drop(batch);
+        }
+    }
+
+    private long backoffMillis(final int attempts) {
+        // the shift is limited, so the backoff does not overflow
+        final var shift = Math.min(attempts - 1, Long.numberOfLeadingZeros(initialBackoffMillis) - 1);
+        final var backoff = Math.min(maxBackoffMillis, initialBackoffMillis << shift);
+        // equal jitter: half of the backoff is fixed, so concurrent brokers do not retry in lockstep
+        return backoff - backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the documents to a stream, e.g. the standard output. The stream is not closed.
+ */
+class StreamEmfTarget implements EmfTarget {
+
+    private final @NotNull OutputStream out;
+
+    StreamEmfTarget(final @NotNull OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(final @NotNull ByteBuffer documents) throws IOException {
+        // one write per report, so the documents are not interleaved with other output of the stream
+        synchronized (out) {
+            out.write(documents.array(), documents.arrayOffset() + documents.position(), documents.remaining());
+            out.flush();
+        }
+        documents.position(documents.limit());
+    }
+
+    @Override
+    public void close() {
+    }
+}
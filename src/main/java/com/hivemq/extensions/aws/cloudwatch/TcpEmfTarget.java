@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Writes the documents over a TCP connection to the EMF endpoint of a CloudWatch agent. A broken connection is
+ * established again on the next write.
+ */
+class TcpEmfTarget implements EmfTarget {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(TcpEmfTarget.class);
+
+    static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final @NotNull InetSocketAddress address;
+
+    private @Nullable SocketChannel channel;
+
+    TcpEmfTarget(final @NotNull InetSocketAddress address) {
+        this.address = address;
+    }
+
+    @Override
+    public synchronized void write(final @NotNull ByteBuffer documents) throws IOException {
+        try {
+            if (channel == null) {
+                channel = SocketChannel.open();
+                channel.socket().connect(address, CONNECT_TIMEOUT_MILLIS);
+            }
+            while (documents.hasRemaining()) {
+                channel.write(documents);
+            }
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            log.debug("Could not close EMF TCP connection to {}, reason: {}", address, e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends each document as a single UDP datagram to the EMF endpoint of a CloudWatch agent. Documents are limited to the
+ * maximum payload of a UDP datagram, see {@link #getMaxDocumentSize()}.
+ */
+class UdpEmfTarget implements EmfTarget {
+
+    // the maximum payload of a UDP datagram over IPv4: 65535 bytes minus the 8 bytes UDP and 20 bytes IP header
+    static final int MAX_DATAGRAM_SIZE = 65_507;
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(UdpEmfTarget.class);
+
+    private final @NotNull InetSocketAddress address;
+
+    private @Nullable DatagramChannel channel;
+
+    UdpEmfTarget(final @NotNull InetSocketAddress address) {
+        this.address = address;
+    }
+
+    @Override
+    public synchronized void write(final @NotNull ByteBuffer documents) throws IOException {
+        try {
+            if (channel == null) {
+                channel = DatagramChannel.open();
+            }
+            final var limit = documents.limit();
+            for (var i = documents.position(); i < limit; i++) {
+                // JSON escapes line breaks in strings, so a line break always ends a document
+                if (documents.get(i) == '\n') {
+                    documents.limit(i + 1);
+                    channel.send(documents, address);
+                    documents.limit(limit);
+                    documents.position(i + 1);
+                }
+            }
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getMaxDocumentSize() {
+        return MAX_DATAGRAM_SIZE;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            log.debug("Could not close EMF UDP channel to {}, reason: {}", address, e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The XML binding of a configuration entity, compiled once from its JAXB annotations.
+ * <p>
+ * The binding maps the element and attribute names of an entity to its fields, so the configuration can be parsed
+ * with StAX and cached in a binary form without bootstrapping a JAXB context. The annotations of the entities stay the
+ * only description of the schema, so new configuration elements need no changes here.
+ */
+@ThreadSafe
+final class ConfigurationBinding {
+
+    // the value JAXB uses for annotation attributes that are not set
+    private static final @NotNull String JAXB_DEFAULT = "##default";
+    private static final @NotNull String JAXB_NO_DEFAULT_VALUE = "\u0000";
+
+    private static final @NotNull ConfigurationBinding CONFIG = new ConfigurationBinding(Config.class);
+
+    private final @NotNull Class<?> type;
+    private final @NotNull Constructor<?> constructor;
+    private final @NotNull String rootName;
+    private final @NotNull List<Property> properties = new ArrayList<>();
+    private final @NotNull Map<String, Property> elements = new HashMap<>();
+    private final @NotNull Map<String, Property> attributes = new HashMap<>();
+    private final @Nullable Property value;
+    private final int fingerprint;
+
+    private ConfigurationBinding(final @NotNull Class<?> type) {
+        this.type = type;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalStateException("Configuration entity " + type.getName() + " has no default constructor",
+                    e);
+        }
+        final var rootElement = type.getAnnotation(XmlRootElement.class);
+        rootName = rootElement != null ? rootElement.name() : "";
+        Property value = null;
+        for (final var field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            final var element = field.getAnnotation(XmlElement.class);
+            final var attribute = field.getAnnotation(XmlAttribute.class);
+            final Property property;
+            if (element != null) {
+                property = new Property(field, name(element.name(), field), element.defaultValue());
+                final var wrapper = field.getAnnotation(XmlElementWrapper.class);
+                elements.put(wrapper != null ? name(wrapper.name(), field) : property.name, property);
+            } else if (attribute != null) {
+                property = new Property(field, name(attribute.name(), field), JAXB_NO_DEFAULT_VALUE);
+                attributes.put(property.name, property);
+            } else if (field.isAnnotationPresent(XmlValue.class)) {
+                property = new Property(field, field.getName(), JAXB_NO_DEFAULT_VALUE);
+                value = property;
+            } else {
+                continue;
+            }
+            properties.add(property);
+        }
+        this.value = value;
+        // the order of the declared fields is not specified, but the binary form needs a stable order
+        properties.sort(Comparator.comparing(property -> property.field.getName()));
+        // the cache also holds the defaults of the elements that are not set, so a changed default invalidates it
+        final var defaults = newInstance();
+        var fingerprint = type.getName().hashCode();
+        for (final var property : properties) {
+            fingerprint = 31 * fingerprint + property.fingerprint(defaults);
+        }
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return the binding of the root entity of the configuration
+     */
+    static @NotNull ConfigurationBinding config() {
+        return CONFIG;
+    }
+
+    /**
+     * @return the name of the root element of the entity, empty if the entity can not be a root element
+     */
+    @NotNull String getRootName() {
+        return rootName;
+    }
+
+    /**
+     * @return the properties of the entity, in the order of their field names
+     */
+    @NotNull List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return the property of the child element or element wrapper with the given name
+     */
+    @Nullable Property element(final @NotNull String name) {
+        return elements.get(name);
+    }
+
+    @Nullable Property attribute(final @NotNull String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * @return the property that holds the text content of the element
+     */
+    @Nullable Property value() {
+        return value;
+    }
+
+    /**
+     * @return a hash of the names, types and defaults of all properties, including the ones of nested entities and the
+     *         values of enums, which changes with the schema and the defaults of the configuration
+     */
+    int fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return a new entity with the defaults of its field initializers
+     */
+    @NotNull Object newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create configuration entity " + type.getName(), e);
+        }
+    }
+
+    private static @NotNull String name(final @NotNull String name, final @NotNull Field field) {
+        return JAXB_DEFAULT.equals(name) ? field.getName() : name;
+    }
+
+    enum Kind {
+        STRING,
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        NULLABLE_INT,
+        NULLABLE_DOUBLE,
+        ENUM,
+        ENTITY,
+        LIST
+    }
+
+    /**
+     * A field of an entity that is bound to an element, an attribute or the text content.
+     */
+    @ThreadSafe
+    static final class Property {
+
+        private final @NotNull Field field;
+        private final @NotNull String name;
+        private final @NotNull Kind kind;
+        private final @Nullable String defaultValue;
+        private final @NotNull List<Object> enumConstants = new ArrayList<>();
+        private final @NotNull Map<String, Object> enumValues = new HashMap<>();
+        private final @Nullable ConfigurationBinding binding;
+
+        private Property(final @NotNull Field field, final @NotNull String name, final @NotNull String defaultValue) {
+            this.field = field;
+            this.name = name;
+            this.defaultValue = JAXB_NO_DEFAULT_VALUE.equals(defaultValue) ? null : defaultValue;
+            field.setAccessible(true);
+            final var type = field.getType();
+            if (List.class.isAssignableFrom(type)) {
+                kind = Kind.LIST;
+                final var listType = (ParameterizedType) field.getGenericType();
+                binding = new ConfigurationBinding((Class<?>) listType.getActualTypeArguments()[0]);
+                return;
+            }
+            if (type == String.class) {
+                kind = Kind.STRING;
+            } else if (type == int.class) {
+                kind = Kind.INT;
+            } else if (type == long.class) {
+                kind = Kind.LONG;
+            } else if (type == double.class) {
+                kind = Kind.DOUBLE;
+            } else if (type == boolean.class) {
+                kind = Kind.BOOLEAN;
+            } else if (type == Integer.class) {
+                kind = Kind.NULLABLE_INT;
+            } else if (type == Double.class) {
+                kind = Kind.NULLABLE_DOUBLE;
+            } else if (type.isEnum()) {
+                kind = Kind.ENUM;
+                for (final var constant : type.getEnumConstants()) {
+                    final var enumName = ((Enum<?>) constant).name();
+                    try {
+                        final var enumValue = type.getField(enumName).getAnnotation(XmlEnumValue.class);
+                        enumValues.put(enumValue != null ? enumValue.value() : enumName, constant);
+                    } catch (final NoSuchFieldException e) {
+                        throw new IllegalStateException("Enum constant " + enumName + " has no field", e);
+                    }
+                    enumConstants.add(constant);
+                }
+            } else {
+                kind = Kind.ENTITY;
+                binding = new ConfigurationBinding(type);
+                return;
+            }
+            binding = null;
+        }
+
+        /**
+         * @return the name of the element or attribute, for lists the name of the items
+         */
+        @NotNull String getName() {
+            return name;
+        }
+
+        @NotNull Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the binding of the nested entity or of the list items
+         */
+        @NotNull ConfigurationBinding getBinding() {
+            if (binding == null) {
+                throw new IllegalStateException(name + " is not an entity or a list");
+            }
+            return binding;
+        }
+
+        /**
+         * @return the enum constants in the order of their declaration
+         */
+        @NotNull List<Object> getEnumConstants() {
+            return enumConstants;
+        }
+
+        @Nullable Object get(final @NotNull Object entity) {
+            try {
+                return field.get(entity);
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException("Could not read configuration property " + name, e);
+            }
+        }
+
+        void set(final @NotNull Object entity, final @Nullable Object value) {
+            try {
+                field.set(entity, value);
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException("Could not write configuration property " + name, e);
+            }
+        }
+
+        /**
+         * Converts the text of an element or attribute like JAXB does: an empty element has the default value of its
+         * annotation, whitespace around numbers, booleans and enums is ignored and unknown enum values are
+         * {@code null}.
+         *
+         * @throws IllegalArgumentException if the text is not a valid number or boolean
+         */
+        @Nullable Object parse(final @NotNull String text) {
+            final var value = text.isEmpty() && defaultValue != null ? defaultValue : text;
+            switch (kind) {
+                case STRING:
+                    return value;
+                case INT:
+                case NULLABLE_INT:
+                    return Integer.parseInt(value.strip());
+                case LONG:
+                    return Long.parseLong(value.strip());
+                case DOUBLE:
+                case NULLABLE_DOUBLE:
+                    return parseDouble(value.strip());
+                case BOOLEAN:
+                    return parseBoolean(value.strip());
+                case ENUM:
+                    return enumValues.get(value.strip());
+                default:
+                    throw new IllegalStateException(name + " is not a text property");
+            }
+        }
+
+        private int fingerprint(final @NotNull Object defaults) {
+            var fingerprint = 31 * field.getName().hashCode() + kind.ordinal();
+            fingerprint = 31 * fingerprint + Objects.hashCode(defaultValue);
+            fingerprint = 31 * fingerprint + defaultFingerprint(get(defaults));
+            for (final var enumValue : enumValues.keySet()) {
+                // the keys of a hash map have no order, so their hashes are summed up
+                fingerprint += enumValue.hashCode();
+            }
+            for (final var constant : enumConstants) {
+                fingerprint = 31 * fingerprint + ((Enum<?>) constant).name().hashCode();
+            }
+            return binding != null ? 31 * fingerprint + binding.fingerprint : fingerprint;
+        }
+
+        /**
+         * @return a hash of the default value of the field, the defaults of nested entities are part of the fingerprint
+         *         of their binding
+         */
+        private int defaultFingerprint(final @Nullable Object value) {
+            if (value == null) {
+                return 0;
+            }
+            switch (kind) {
+                case ENUM:
+                    // the hash code of an enum constant is not stable across runs
+                    return ((Enum<?>) value).name().hashCode();
+                case ENTITY:
+                    return 1;
+                case LIST:
+                    return 31 + ((List<?>) value).size();
+                default:
+                    // the hash codes of strings, boxed numbers and booleans are specified
+                    return value.hashCode();
+            }
+        }
+
+        private static double parseDouble(final @NotNull String value) {
+            // the XML schema spelling of infinity, which Double.parseDouble does not accept
+            if ("INF".equals(value)) {
+                return Double.POSITIVE_INFINITY;
+            } else if ("-INF".equals(value)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return Double.parseDouble(value);
+        }
+
+        private static boolean parseBoolean(final @NotNull String value) {
+            switch (value) {
+                case "true":
+                case "1":
+                    return true;
+                case "false":
+                case "0":
+                    return false;
+                default:
+                    throw new IllegalArgumentException("Invalid boolean " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A binary form of the parsed configuration, which is reused on the next start while the config file is unchanged.
+ * <p>
+ * The cache is keyed by the SHA-256 hash of the config file and by the fingerprint of the {@link ConfigurationBinding},
+ * so a changed config file or an extension update with a changed schema falls back to parsing the XML. The cached
+ * configuration is the one before validation, so it is validated and its warnings are logged on every start.
+ */
+@ThreadSafe
+class ConfigurationCache {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ConfigurationCache.class);
+
+    private static final int MAGIC = 0x43574343;
+    private static final int VERSION = 1;
+
+    private final @NotNull Path file;
+
+    ConfigurationCache(final @NotNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the cache file next to the given config file, with the extension {@code .cache} instead of {@code .xml}
+     */
+    static @NotNull Path of(final @NotNull Path configFile) {
+        final var name = configFile.getFileName().toString();
+        final var baseName = name.endsWith(".xml") ? name.substring(0, name.length() - 4) : name;
+        return configFile.resolveSibling(baseName + ".cache");
+    }
+
+    static byte @NotNull [] hash(final byte @NotNull [] xml) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(xml);
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the cached configuration or {@code null} if there is no cache for the given hash of the config file
+     */
+    synchronized @Nullable Config read(final byte @NotNull [] hash) {
+        final byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException e) {
+            log.debug("Could not read the configuration cache {}", file, e);
+            return null;
+        }
+        final var binding = ConfigurationBinding.config();
+        try (final var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != binding.fingerprint()) {
+                log.debug("Configuration cache {} was written by another extension version", file);
+                return null;
+            }
+            final var cachedHash = new byte[in.readUnsignedByte()];
+            in.readFully(cachedHash);
+            if (!Arrays.equals(cachedHash, hash)) {
+                return null;
+            }
+            return (Config) readEntity(in, binding);
+        } catch (final IOException | RuntimeException e) {
+            log.debug("Could not read the configuration cache {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the configuration to the cache, replacing the cache of a previous config file.
+     */
+    synchronized void write(final byte @NotNull [] hash, final @NotNull Config config) {
+        final var binding = ConfigurationBinding.config();
+        final var tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(binding.fingerprint());
+                out.writeByte(hash.length);
+                out.write(hash);
+                writeEntity(out, binding, config);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            log.warn("Could not write the configuration cache {}, reason: {}", file, e.getMessage());
+            log.debug("Original exception", e);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (final IOException deleteException) {
+                log.debug("Could not delete the temporary configuration cache {}", tempFile, deleteException);
+            }
+        }
+    }
+
+    /**
+     * Deletes the cache, so a config file that disabled the cache is not replaced by an older cached one.
+     */
+    synchronized void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            log.warn("Could not delete the configuration cache {}, reason: {}", file, e.getMessage());
+        }
+    }
+
+    private static void writeEntity(
+            final @NotNull DataOutputStream out,
+            final @NotNull ConfigurationBinding binding,
+            final @NotNull Object entity) throws IOException {
+        for (final var property : binding.getProperties()) {
+            final var value = property.get(entity);
+            switch (property.getKind()) {
+                case INT:
+                    out.writeInt((Integer) value);
+                    break;
+                case LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case ENUM:
+                    out.writeInt(value != null ? ((Enum<?>) value).ordinal() : -1);
+                    break;
+                case LIST:
+                    final var list = (List<?>) value;
+                    out.writeInt(list != null ? list.size() : -1);
+                    if (list != null) {
+                        for (final var item : list) {
+                            writeEntity(out, property.getBinding(), item);
+                        }
+                    }
+                    break;
+                default:
+                    out.writeBoolean(value != null);
+                    if (value != null) {
+                        writeNullable(out, property, value);
+                    }
+            }
+        }
+    }
+
+    private static void writeNullable(
+            final @NotNull DataOutputStream out,
+            final @NotNull ConfigurationBinding.Property property,
+            final @NotNull Object value) throws IOException {
+        switch (property.getKind()) {
+            case STRING:
+                out.writeUTF((String) value);
+                break;
+            case NULLABLE_INT:
+                out.writeInt((Integer) value);
+                break;
+            case NULLABLE_DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case ENTITY:
+            default:
+                writeEntity(out, property.getBinding(), value);
+        }
+    }
+
+    private static @NotNull Object readEntity(
+            final @NotNull DataInputStream in,
+            final @NotNull ConfigurationBinding binding) throws IOException {
+        final var entity = binding.newInstance();
+        for (final var property : binding.getProperties()) {
+            switch (property.getKind()) {
+                case INT:
+                    property.set(entity, in.readInt());
+                    break;
+                case LONG:
+                    property.set(entity, in.readLong());
+                    break;
+                case DOUBLE:
+                    property.set(entity, in.readDouble());
+                    break;
+                case BOOLEAN:
+                    property.set(entity, in.readBoolean());
+                    break;
+                case ENUM:
+                    final var ordinal = in.readInt();
+                    property.set(entity, ordinal >= 0 ? property.getEnumConstants().get(ordinal) : null);
+                    break;
+                case LIST:
+                    final var size = in.readInt();
+                    if (size < 0) {
+                        property.set(entity, null);
+                        break;
+                    }
+                    final var list = new ArrayList<>();
+                    for (var i = 0; i < size; i++) {
+                        list.add(readEntity(in, property.getBinding()));
+                    }
+                    property.set(entity, list);
+                    break;
+                default:
+                    property.set(entity, in.readBoolean() ? readNullable(in, property) : null);
+            }
+        }
+        return entity;
+    }
+
+    private static @NotNull Object readNullable(
+            final @NotNull DataInputStream in,
+            final @NotNull ConfigurationBinding.Property property) throws IOException {
+        switch (property.getKind()) {
+            case STRING:
+                return in.readUTF();
+            case NULLABLE_INT:
+                return in.readInt();
+            case NULLABLE_DOUBLE:
+                return in.readDouble();
+            case ENTITY:
+            default:
+                return readEntity(in, property.getBinding());
+        }
+    }
+}
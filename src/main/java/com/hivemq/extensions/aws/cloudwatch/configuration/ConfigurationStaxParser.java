@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extension.sdk.api.annotations.ThreadSafe;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Parses the configuration with StAX into the same entities as {@link ConfigurationXmlParser}, without the bootstrap
+ * of a JAXB context.
+ * <p>
+ * Elements and attributes are mapped with the {@link ConfigurationBinding} of the entities. Like JAXB, unknown
+ * elements and attributes are ignored and unknown enum values are {@code null}. Invalid numbers and booleans keep
+ * their default and are logged, JAXB ignores them silently.
+ */
+@ThreadSafe
+class ConfigurationStaxParser {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ConfigurationStaxParser.class);
+
+    // the factory is only configured here, creating readers is thread safe
+    private final @NotNull XMLInputFactory factory = XMLInputFactory.newFactory();
+
+    ConfigurationStaxParser() {
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    final @NotNull Config unmarshalExtensionConfig(final @NotNull File file) throws IOException {
+        return unmarshalExtensionConfig(Files.readAllBytes(file.toPath()));
+    }
+
+    final @NotNull Config unmarshalExtensionConfig(final byte @NotNull [] xml) throws IOException {
+        final var binding = ConfigurationBinding.config();
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(new ByteArrayInputStream(xml));
+            reader.nextTag();
+            if (!binding.getRootName().equals(reader.getLocalName())) {
+                throw new IOException("Unexpected root element " + reader.getLocalName() + ", expected " +
+                        binding.getRootName());
+            }
+            final var config = (Config) readEntity(reader, binding);
+            // malformed content after the root element fails like with JAXB
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            return config;
+        } catch (final XMLStreamException e) {
+            log.error("Error in the AWS CloudWatch Extension. Could not parse XML configuration", e);
+            throw new IOException("Could not parse XML configuration Error", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final XMLStreamException e) {
+                    log.debug("Could not close XML configuration reader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the entity of the current start element up to and including its end element.
+     */
+    private static @NotNull Object readEntity(
+            final @NotNull XMLStreamReader reader,
+            final @NotNull ConfigurationBinding binding) throws XMLStreamException {
+        final var entity = binding.newInstance();
+        for (var i = 0; i < reader.getAttributeCount(); i++) {
+            final var property = binding.attribute(reader.getAttributeLocalName(i));
+            if (property != null) {
+                set(entity, property, reader.getAttributeValue(i));
+            }
+        }
+        final var valueProperty = binding.value();
+        final var value = valueProperty != null ? new StringBuilder() : null;
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.isStartElement()) {
+                final var property = binding.element(reader.getLocalName());
+                if (property == null) {
+                    skipElement(reader);
+                } else if (property.getKind() == ConfigurationBinding.Kind.ENTITY) {
+                    property.set(entity, readEntity(reader, property.getBinding()));
+                } else if (property.getKind() == ConfigurationBinding.Kind.LIST) {
+                    property.set(entity, readList(reader, property));
+                } else {
+                    set(entity, property, readText(reader));
+                }
+            } else if (value != null && isText(reader.getEventType())) {
+                value.append(reader.getText());
+            }
+        }
+        if (valueProperty != null) {
+            set(entity, valueProperty, value.toString());
+        }
+        return entity;
+    }
+
+    /**
+     * Reads the items of the current element wrapper, a wrapper that occurs again replaces the list like with JAXB.
+     */
+    private static @NotNull ArrayList<Object> readList(
+            final @NotNull XMLStreamReader reader,
+            final @NotNull ConfigurationBinding.Property property) throws XMLStreamException {
+        final var list = new ArrayList<>();
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.isStartElement()) {
+                if (property.getName().equals(reader.getLocalName())) {
+                    list.add(readEntity(reader, property.getBinding()));
+                } else {
+                    skipElement(reader);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the text content of the current element, without the content of child elements
+     */
+    private static @NotNull String readText(final @NotNull XMLStreamReader reader) throws XMLStreamException {
+        final var text = new StringBuilder();
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.isStartElement()) {
+                skipElement(reader);
+            } else if (isText(reader.getEventType())) {
+                text.append(reader.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    private static void skipElement(final @NotNull XMLStreamReader reader) throws XMLStreamException {
+        var depth = 1;
+        while (depth > 0) {
+            final var event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isText(final int event) {
+        return event == XMLStreamConstants.CHARACTERS ||
+                event == XMLStreamConstants.CDATA ||
+                event == XMLStreamConstants.SPACE;
+    }
+
+    private static void set(
+            final @NotNull Object entity,
+            final @NotNull ConfigurationBinding.Property property,
+            final @NotNull String text) {
+        final Object value;
+        try {
+            value = property.parse(text);
+        } catch (final IllegalArgumentException e) {
+            log.warn("Invalid value '{}' for '{}' in the extension configuration, using the default",
+                    text,
+                    property.getName());
+            return;
+        }
+        property.set(entity, value);
+    }
+}
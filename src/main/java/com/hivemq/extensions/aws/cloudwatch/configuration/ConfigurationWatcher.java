@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the configuration when the config file changes.
+ * <p>
+ * The folder of the config file is watched with a {@link WatchService}, which is polled on the given executor instead
+ * of blocking a thread. The changes are debounced: editors often write a file in several steps, so the configuration
+ * is only reloaded once no further change was seen for a whole poll interval.
+ */
+public class ConfigurationWatcher {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ConfigurationWatcher.class);
+
+    static final long DEBOUNCE_MILLIS = 500;
+
+    private final @NotNull ExtensionConfiguration configuration;
+    private final @NotNull ScheduledExecutorService executorService;
+    private final @NotNull Runnable onReload;
+
+    // only accessed while holding the lock of the watcher
+    private @Nullable WatchService watchService;
+    private @Nullable ScheduledFuture<?> scheduledPoll;
+    private boolean changed;
+
+    /**
+     * @param onReload called after the configuration was reloaded
+     */
+    public ConfigurationWatcher(
+            final @NotNull ExtensionConfiguration configuration,
+            final @NotNull ScheduledExecutorService executorService,
+            final @NotNull Runnable onReload) {
+        this.configuration = configuration;
+        this.executorService = executorService;
+        this.onReload = onReload;
+    }
+
+    public synchronized void start() {
+        if (watchService != null) {
+            throw new IllegalStateException("ConfigurationWatcher already started");
+        }
+        final var folder = configuration.getConfigFile().toAbsolutePath().getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (final IOException e) {
+            log.warn("Could not watch AWS CloudWatch extension configuration folder {}, changes of the " +
+                            "configuration are not reloaded, reason: {}",
+                    folder,
+                    e.getMessage());
+            stop();
+            return;
+        }
+        scheduledPoll = executorService.scheduleWithFixedDelay(this::pollSafely,
+                DEBOUNCE_MILLIS,
+                DEBOUNCE_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduledPoll != null) {
+            scheduledPoll.cancel(false);
+            scheduledPoll = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (final IOException e) {
+                log.debug("Could not close the AWS CloudWatch extension configuration watcher", e);
+            }
+            watchService = null;
+        }
+    }
+
+    private void pollSafely() {
+        // an exception would cancel all subsequent polls of the scheduled executor
+        try {
+            poll();
+        } catch (final Throwable t) {
+            log.error("Error while watching the AWS CloudWatch extension configuration", t);
+        }
+    }
+
+    synchronized void poll() {
+        if (watchService == null) {
+            return;
+        }
+        if (configFileChanged(watchService)) {
+            // wait until the config file was not changed for a whole poll interval
+            changed = true;
+            return;
+        }
+        if (changed) {
+            changed = false;
+            log.info("AWS CloudWatch extension configuration file {} changed, reloading",
+                    configuration.getConfigFile());
+            if (configuration.reload()) {
+                onReload.run();
+            }
+        }
+    }
+
+    private boolean configFileChanged(final @NotNull WatchService watchService) {
+        final var fileName = configuration.getConfigFile().getFileName();
+        var changed = false;
+        for (var key = watchService.poll(); key != null; key = watchService.poll()) {
+            for (final var event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            key.reset();
+        }
+        return changed;
+    }
+}
@@ -29,6 +29,9 @@ import java.io.File;
 import java.io.IOException;
 
 /**
+ * Parses the configuration with JAXB. The extension reads its configuration with {@link ConfigurationStaxParser},
+ * this parser is the reference it is tested and benchmarked against.
+ *
  * @author David Sondermann
  */
 @ThreadSafe
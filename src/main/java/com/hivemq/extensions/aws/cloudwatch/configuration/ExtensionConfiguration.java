@@ -16,20 +16,48 @@
 
 package com.hivemq.extensions.aws.cloudwatch.configuration;
 
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Aggregation;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.AssumeRole;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.ChangeDetection;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.ClusterTransportType;
 import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Credentials;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Emf;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClient;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClientType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.IntervalUnit;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.RateLimit;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.ReportingExecutor;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.RequestCompression;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Retry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Sink;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.SinkType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Sketches;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Spool;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Startup;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
+ * The configuration of the extension.
+ * <p>
+ * The config and its enabled metrics are held as an immutable snapshot, which is replaced as a whole when the config
+ * file is reloaded, so readers never see a partially reloaded configuration.
+ *
  * @author David Sondermann
  */
 public class ExtensionConfiguration {
@@ -38,23 +66,92 @@ public class ExtensionConfiguration {
 
     static final @NotNull String CONFIG_PATH = "conf/config.xml";
     static final @NotNull String LEGACY_CONFIG_PATH = "extension-config.xml";
+    // CloudWatch stores high resolution metrics with a granularity of 1 second
+    static final long MIN_REPORT_INTERVAL_MILLIS = 1000;
+    static final long MIN_SAMPLE_INTERVAL_MILLIS = 100;
+    // bounds the memory of a sketch to a few thousand buckets
+    static final double MIN_RELATIVE_ACCURACY = 0.005;
+    static final double MAX_RELATIVE_ACCURACY = 0.5;
+    static final int MIN_SPOOL_SEGMENT_SIZE = 64 * 1024;
+    // the AWS SDK considers assumed role credentials stale one minute before their expiry
+    static final long MIN_REFRESH_AHEAD = 60_000;
+    static final int MAX_NAMESPACE_LENGTH = 255;
+    // namespaces starting with AWS/ are reserved for AWS services
+    static final @NotNull String RESERVED_NAMESPACE_PREFIX = "AWS/";
 
-    private final @NotNull ConfigurationXmlParser configurationXmlParser = new ConfigurationXmlParser();
-    private final @NotNull ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final @NotNull Config config;
+    private final @NotNull ConfigurationStaxParser configurationParser = new ConfigurationStaxParser();
+    private final @NotNull Path extensionHome;
+    private final @NotNull Path configFile;
+    private final @NotNull ConfigurationCache configurationCache;
 
-    private @NotNull List<String> enabledMetrics = new ArrayList<>();
+    private volatile @NotNull Snapshot snapshot;
 
     public ExtensionConfiguration(final @NotNull File extensionHomeFolder) {
+        extensionHome = extensionHomeFolder.toPath();
         final var configResolver = new ConfigResolver(extensionHomeFolder.toPath(),
                 "AWS CloudWatch Extension",
                 CONFIG_PATH,
                 LEGACY_CONFIG_PATH);
-        config = read(configResolver.get().toFile());
+        configFile = configResolver.get();
+        configurationCache = new ConfigurationCache(ConfigurationCache.of(configFile));
+        snapshot = new Snapshot(read(configFile.toFile()));
     }
 
     public @NotNull Config getConfig() {
-        return config;
+        return snapshot.config;
+    }
+
+    /**
+     * @return the config file that was resolved in the extension home folder
+     */
+    public @NotNull Path getConfigFile() {
+        return configFile;
+    }
+
+    /**
+     * @return the spool directory, resolved against the extension home folder like the config file
+     */
+    public @NotNull Optional<Path> getSpoolDirectory() {
+        return getConfig().getSpool().map(spool -> extensionHome.resolve(spool.getDirectory()));
+    }
+
+    /**
+     * @return the directory shared by the nodes of the cluster, resolved against the extension home folder
+     */
+    public @NotNull Optional<Path> getClusterDirectory() {
+        return getConfig().getCluster().map(cluster -> extensionHome.resolve(cluster.getDirectory()));
+    }
+
+    /**
+     * @return the file of the EMF file target, resolved against the extension home folder
+     */
+    public @NotNull Optional<Path> getEmfFile() {
+        return getConfig().getEmf().map(emf -> extensionHome.resolve(emf.getFile()));
+    }
+
+    /**
+     * Reads the config file again and replaces the current configuration.
+     * <p>
+     * Unlike on startup, a config file that can not be read or parsed does not reset the configuration to the
+     * defaults, the current configuration is kept instead.
+     *
+     * @return {@code true} if the configuration was replaced
+     */
+    public boolean reload() {
+        final var file = configFile.toFile();
+        if (!file.exists() || !file.canRead() || file.length() == 0) {
+            log.warn("Unable to reload AWS CloudWatch metric extension configuration file {}, keeping the " +
+                    "current configuration", file.getAbsolutePath());
+            return false;
+        }
+        try {
+            snapshot = new Snapshot(parse(file, new Config()));
+            return true;
+        } catch (final IOException e) {
+            log.warn("Could not reload extension configuration file, reason: {}, keeping the current configuration",
+                    e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -74,17 +171,7 @@ public class ExtensionConfiguration {
 
     private @NotNull Config doRead(final @NotNull File file, final @NotNull Config defaultConfig) {
         try {
-            final var newConfig = configurationXmlParser.unmarshalExtensionConfig(file);
-            if (newConfig.getApiTimeout().isPresent() && newConfig.getApiTimeout().get() < 1) {
-                log.warn("Connection timeout must be greater than 0, using default timeout");
-                newConfig.setApiTimeout(defaultConfig.getApiTimeout().orElse(null));
-            }
-            if (newConfig.getReportInterval() < 1) {
-                log.warn("Report interval must be greater than 0, using default interval {}",
-                        defaultConfig.getReportInterval());
-                newConfig.setReportInterval(defaultConfig.getReportInterval());
-            }
-            return newConfig;
+            return parse(file, defaultConfig);
         } catch (final IOException e) {
             log.warn("Could not read extension configuration file, reason: {}, using defaults {} ",
                     e.getMessage(),
@@ -93,38 +180,472 @@ public class ExtensionConfiguration {
         }
     }
 
-    public @NotNull List<String> getEnabledMetrics() {
-        if (enabledMetrics.isEmpty()) {
-            final var writeLock = lock.writeLock();
-            writeLock.lock();
-            try {
-                enabledMetrics = readEnabledMetrics();
-                log.debug("Enabled metrics loaded.");
-            } finally {
-                writeLock.unlock();
+    /**
+     * Reads the config from the configuration cache if the config file is unchanged since it was cached, otherwise
+     * parses the config file and caches it if the cache is enabled.
+     */
+    private @NotNull Config unmarshal(final @NotNull File file) throws IOException {
+        final var xml = Files.readAllBytes(file.toPath());
+        final var hash = ConfigurationCache.hash(xml);
+        final var cachedConfig = configurationCache.read(hash);
+        if (cachedConfig != null) {
+            log.debug("Read extension configuration from cache {}", configurationCache.getFile());
+            return cachedConfig;
+        }
+        final var newConfig = configurationParser.unmarshalExtensionConfig(xml);
+        if (newConfig.isConfigCache()) {
+            configurationCache.write(hash, newConfig);
+        } else {
+            configurationCache.delete();
+        }
+        return newConfig;
+    }
+
+    /**
+     * Parses the config file and resets invalid values to their defaults.
+     */
+    private @NotNull Config parse(final @NotNull File file, final @NotNull Config defaultConfig) throws IOException {
+        final var newConfig = unmarshal(file);
+        if (newConfig.getApiTimeout().isPresent() && newConfig.getApiTimeout().get() < 1) {
+            log.warn("Connection timeout must be greater than 0, using default timeout");
+            newConfig.setApiTimeout(defaultConfig.getApiTimeout().orElse(null));
+        }
+        if (newConfig.getReportInterval() < 1) {
+            log.warn("Report interval must be greater than 0, using default interval {}",
+                    defaultConfig.getReportInterval());
+            newConfig.setReportInterval(defaultConfig.getReportInterval());
+            newConfig.setReportIntervalUnit(defaultConfig.getReportIntervalUnit());
+        } else if (newConfig.getReportIntervalMillis() < MIN_REPORT_INTERVAL_MILLIS) {
+            log.warn("Report interval must be at least {} ms, using default interval {} {}",
+                    MIN_REPORT_INTERVAL_MILLIS,
+                    defaultConfig.getReportInterval(),
+                    defaultConfig.getReportIntervalUnit());
+            newConfig.setReportInterval(defaultConfig.getReportInterval());
+            newConfig.setReportIntervalUnit(defaultConfig.getReportIntervalUnit());
+        }
+        if (newConfig.getNamespace().isBlank() ||
+                newConfig.getNamespace().length() > MAX_NAMESPACE_LENGTH ||
+                newConfig.getNamespace().startsWith(RESERVED_NAMESPACE_PREFIX)) {
+            log.warn("Namespace must not be empty, longer than {} characters or start with '{}', " +
+                            "using default namespace {}",
+                    MAX_NAMESPACE_LENGTH,
+                    RESERVED_NAMESPACE_PREFIX,
+                    Config.DEF_NAMESPACE);
+            newConfig.setNamespace(Config.DEF_NAMESPACE);
+        }
+        newConfig.getDimensions().removeIf(dimension -> {
+            if (dimension.getName().isBlank() || dimension.getValue().isBlank()) {
+                log.warn("Dimension must have a name and a value, ignoring {}", dimension);
+                return true;
+            }
+            return false;
+        });
+        validateMetrics(newConfig.getMetrics());
+        if (newConfig.getMaxInFlightRequests() < 1) {
+            log.warn("Max in-flight requests must be greater than 0, using default {}",
+                    defaultConfig.getMaxInFlightRequests());
+            newConfig.setMaxInFlightRequests(defaultConfig.getMaxInFlightRequests());
+        }
+        if (newConfig.getAggregation().isPresent()) {
+            final var aggregation = newConfig.getAggregation().get();
+            if (aggregation.getSampleInterval() < MIN_SAMPLE_INTERVAL_MILLIS) {
+                log.warn("Aggregation sample interval must be at least {} ms, using default sample interval {} ms",
+                        MIN_SAMPLE_INTERVAL_MILLIS,
+                        Aggregation.DEF_SAMPLE_INTERVAL);
+                aggregation.setSampleInterval(Aggregation.DEF_SAMPLE_INTERVAL);
+            }
+            if (aggregation.getSampleInterval() > newConfig.getReportIntervalMillis()) {
+                log.warn("Aggregation sample interval must not be greater than the report interval, " +
+                        "using the report interval as sample interval");
+                aggregation.setSampleInterval(newConfig.getReportIntervalMillis());
+            }
+        }
+        if (newConfig.getSketches().isPresent()) {
+            final var sketches = newConfig.getSketches().get();
+            // also rejects NaN
+            if (!(sketches.getRelativeAccuracy() >= MIN_RELATIVE_ACCURACY &&
+                    sketches.getRelativeAccuracy() <= MAX_RELATIVE_ACCURACY)) {
+                log.warn("Sketch relative accuracy must be between {} and {}, using default relative accuracy {}",
+                        MIN_RELATIVE_ACCURACY,
+                        MAX_RELATIVE_ACCURACY,
+                        Sketches.DEF_RELATIVE_ACCURACY);
+                sketches.setRelativeAccuracy(Sketches.DEF_RELATIVE_ACCURACY);
+            }
+            if (sketches.getSampleInterval() < MIN_SAMPLE_INTERVAL_MILLIS) {
+                log.warn("Sketch sample interval must be at least {} ms, using default sample interval {} ms",
+                        MIN_SAMPLE_INTERVAL_MILLIS,
+                        Sketches.DEF_SAMPLE_INTERVAL);
+                sketches.setSampleInterval(Sketches.DEF_SAMPLE_INTERVAL);
+            }
+            if (sketches.getSampleInterval() > newConfig.getReportIntervalMillis()) {
+                log.warn("Sketch sample interval must not be greater than the report interval, " +
+                        "using the report interval as sample interval");
+                sketches.setSampleInterval(newConfig.getReportIntervalMillis());
+            }
+        }
+        if (newConfig.getRetry().isPresent()) {
+            final var retry = newConfig.getRetry().get();
+            if (retry.getBufferSize() < 1) {
+                log.warn("Retry buffer size must be greater than 0, using default buffer size {}",
+                        Retry.DEF_BUFFER_SIZE);
+                retry.setBufferSize(Retry.DEF_BUFFER_SIZE);
+            }
+            if (retry.getInitialBackoff() < 1) {
+                log.warn("Retry initial backoff must be greater than 0, using default initial backoff {} ms",
+                        Retry.DEF_INITIAL_BACKOFF);
+                retry.setInitialBackoff(Retry.DEF_INITIAL_BACKOFF);
+            }
+            if (retry.getMaxBackoff() < retry.getInitialBackoff()) {
+                log.warn("Retry max backoff must not be less than the initial backoff, " +
+                        "using the initial backoff as max backoff");
+                retry.setMaxBackoff(retry.getInitialBackoff());
+            }
+        }
+        if (newConfig.getRateLimit().isPresent()) {
+            final var rateLimit = newConfig.getRateLimit().get();
+            if (!(rateLimit.getMinRate() > 0)) {
+                log.warn("Rate limit min rate must be greater than 0, using default min rate {} requests per second",
+                        RateLimit.DEF_MIN_RATE);
+                rateLimit.setMinRate(RateLimit.DEF_MIN_RATE);
+            }
+            if (!(rateLimit.getMaxRate() >= rateLimit.getMinRate())) {
+                log.warn("Rate limit max rate must not be less than the min rate, using the min rate as max rate");
+                rateLimit.setMaxRate(rateLimit.getMinRate());
+            }
+            if (!(rateLimit.getInitialRate() >= rateLimit.getMinRate() &&
+                    rateLimit.getInitialRate() <= rateLimit.getMaxRate())) {
+                log.warn("Rate limit initial rate must be between the min rate and the max rate, " +
+                        "using the max rate as initial rate");
+                rateLimit.setInitialRate(rateLimit.getMaxRate());
+            }
+            if (rateLimit.getBurst() < 1) {
+                log.warn("Rate limit burst must be greater than 0, using default burst {}", RateLimit.DEF_BURST);
+                rateLimit.setBurst(RateLimit.DEF_BURST);
+            }
+            if (rateLimit.getLatencyThreshold() < 1) {
+                log.warn("Rate limit latency threshold must be greater than 0, using default latency threshold {} ms",
+                        RateLimit.DEF_LATENCY_THRESHOLD);
+                rateLimit.setLatencyThreshold(RateLimit.DEF_LATENCY_THRESHOLD);
+            }
+        }
+        if (newConfig.getStartup().isPresent()) {
+            final var startup = newConfig.getStartup().get();
+            if (startup.getBufferSize() < 0) {
+                log.warn("Startup buffer size must not be negative, using default buffer size {}",
+                        Startup.DEF_BUFFER_SIZE);
+                startup.setBufferSize(Startup.DEF_BUFFER_SIZE);
+            }
+            if (startup.getTimeout() < 1) {
+                log.warn("Startup timeout must be greater than 0, using default timeout {} ms", Startup.DEF_TIMEOUT);
+                startup.setTimeout(Startup.DEF_TIMEOUT);
+            }
+        }
+        if (newConfig.getCredentials().isPresent()) {
+            final var credentials = newConfig.getCredentials().get();
+            if (credentials.getStaticCredentials().isPresent()) {
+                final var staticCredentials = credentials.getStaticCredentials().get();
+                if (isBlank(staticCredentials.getAccessKeyId()) || isBlank(staticCredentials.getSecretAccessKey())) {
+                    log.warn("Static credentials need an access key id and a secret access key, using the default " +
+                            "credentials provider chain");
+                    credentials.setStaticCredentials(null);
+                }
+            }
+            if (credentials.getAssumeRole().isPresent()) {
+                final var assumeRole = credentials.getAssumeRole().get();
+                if (isBlank(assumeRole.getRoleArn())) {
+                    log.warn("Assume role needs a role ARN, no role is assumed");
+                    credentials.setAssumeRole(null);
+                } else if (assumeRole.getDuration() < AssumeRole.MIN_DURATION ||
+                        assumeRole.getDuration() > AssumeRole.MAX_DURATION) {
+                    log.warn("Assume role duration must be between {} and {} seconds, using default duration {}",
+                            AssumeRole.MIN_DURATION,
+                            AssumeRole.MAX_DURATION,
+                            AssumeRole.DEF_DURATION);
+                    assumeRole.setDuration(AssumeRole.DEF_DURATION);
+                }
+            }
+            if (credentials.getRefreshAhead() < MIN_REFRESH_AHEAD) {
+                log.warn("Credentials refresh ahead must be at least {} ms, using default refresh ahead {} ms",
+                        MIN_REFRESH_AHEAD,
+                        Credentials.DEF_REFRESH_AHEAD);
+                credentials.setRefreshAhead(Credentials.DEF_REFRESH_AHEAD);
+            }
+        }
+        if (newConfig.getRequestCompression().isPresent()) {
+            final var requestCompression = newConfig.getRequestCompression().get();
+            if (requestCompression.getThreshold() < 0 ||
+                    requestCompression.getThreshold() > RequestCompression.MAX_THRESHOLD) {
+                log.warn("Request compression threshold must be between 0 and {} bytes, using default threshold {}",
+                        RequestCompression.MAX_THRESHOLD,
+                        RequestCompression.DEF_THRESHOLD);
+                requestCompression.setThreshold(RequestCompression.DEF_THRESHOLD);
             }
         }
-        return Collections.unmodifiableList(enabledMetrics);
+        if (newConfig.getSpool().isPresent()) {
+            final var spool = newConfig.getSpool().get();
+            if (spool.getSegmentSize() < MIN_SPOOL_SEGMENT_SIZE) {
+                log.warn("Spool segment size must be at least {} bytes, using default segment size {} bytes",
+                        MIN_SPOOL_SEGMENT_SIZE,
+                        Spool.DEF_SEGMENT_SIZE);
+                spool.setSegmentSize(Spool.DEF_SEGMENT_SIZE);
+            }
+            if (spool.getMaxSize() < spool.getSegmentSize()) {
+                log.warn("Spool max size must not be less than the segment size, " +
+                        "using the segment size as max size");
+                spool.setMaxSize(spool.getSegmentSize());
+            }
+        }
+        if (newConfig.getChangeDetection().isPresent()) {
+            final var changeDetection = newConfig.getChangeDetection().get();
+            if (changeDetection.getAbsoluteThreshold().filter(threshold -> !(threshold >= 0)).isPresent()) {
+                log.warn("Change detection absolute threshold must not be negative, ignoring the absolute threshold");
+                changeDetection.setAbsoluteThreshold(null);
+            }
+            if (changeDetection.getRelativeThreshold().filter(threshold -> !(threshold >= 0)).isPresent()) {
+                log.warn("Change detection relative threshold must not be negative, ignoring the relative threshold");
+                changeDetection.setRelativeThreshold(null);
+            }
+            if (changeDetection.getHeartbeat() < 1) {
+                log.warn("Change detection heartbeat must be greater than 0, using default heartbeat {}",
+                        ChangeDetection.DEF_HEARTBEAT);
+                changeDetection.setHeartbeat(ChangeDetection.DEF_HEARTBEAT);
+            }
+        }
+        if (newConfig.getHttpClient().isPresent()) {
+            final var httpClient = newConfig.getHttpClient().get();
+            if (httpClient.getMaxConcurrency() < 1) {
+                log.warn("HTTP client max concurrency must be greater than 0, using default max concurrency {}",
+                        HttpClient.DEF_MAX_CONCURRENCY);
+                httpClient.setMaxConcurrency(HttpClient.DEF_MAX_CONCURRENCY);
+            }
+            if (httpClient.getMaxPendingAcquires() < 1) {
+                log.warn("HTTP client max pending acquires must be greater than 0, using default {}",
+                        HttpClient.DEF_MAX_PENDING_ACQUIRES);
+                httpClient.setMaxPendingAcquires(HttpClient.DEF_MAX_PENDING_ACQUIRES);
+            }
+            if (httpClient.getConnectionAcquireTimeout() < 1) {
+                log.warn("HTTP client connection acquire timeout must be greater than 0, using default {} ms",
+                        HttpClient.DEF_CONNECTION_ACQUIRE_TIMEOUT);
+                httpClient.setConnectionAcquireTimeout(HttpClient.DEF_CONNECTION_ACQUIRE_TIMEOUT);
+            }
+            if (httpClient.getConnectionMaxIdleTime() < 1) {
+                log.warn("HTTP client connection max idle time must be greater than 0, using default {} ms",
+                        HttpClient.DEF_CONNECTION_MAX_IDLE_TIME);
+                httpClient.setConnectionMaxIdleTime(HttpClient.DEF_CONNECTION_MAX_IDLE_TIME);
+            }
+            if (httpClient.isHttp2() && httpClient.getType() != HttpClientType.NETTY) {
+                log.warn("HTTP/2 is only supported by the netty HTTP client, using HTTP/1.1");
+                httpClient.setHttp2(false);
+            }
+            if (httpClient.getPrewarmConnections() < 0) {
+                log.warn("HTTP client prewarm connections must not be negative, no connections are prewarmed");
+                httpClient.setPrewarmConnections(0);
+            } else if (httpClient.getPrewarmConnections() > httpClient.getMaxConcurrency()) {
+                log.warn("HTTP client prewarm connections must not be greater than the max concurrency, " +
+                        "using the max concurrency");
+                httpClient.setPrewarmConnections(httpClient.getMaxConcurrency());
+            }
+        }
+        if (newConfig.getReportingExecutor().isPresent()) {
+            final var reportingExecutor = newConfig.getReportingExecutor().get();
+            if (reportingExecutor.getCompletionThreads() < 1) {
+                log.warn("Reporting executor completion threads must be greater than 0, using default {}",
+                        ReportingExecutor.DEF_COMPLETION_THREADS);
+                reportingExecutor.setCompletionThreads(ReportingExecutor.DEF_COMPLETION_THREADS);
+            }
+            if (reportingExecutor.getCompletionQueueSize() < 1) {
+                log.warn("Reporting executor completion queue size must be greater than 0, using default {}",
+                        ReportingExecutor.DEF_COMPLETION_QUEUE_SIZE);
+                reportingExecutor.setCompletionQueueSize(ReportingExecutor.DEF_COMPLETION_QUEUE_SIZE);
+            }
+        }
+        final var sinks = new ArrayList<Sink>();
+        final var sinkTypes = EnumSet.noneOf(SinkType.class);
+        for (final var sink : newConfig.getSinks()) {
+            if (sink.getType() == null) {
+                log.warn("Unknown sink type, ignoring the sink");
+            } else if (!sinkTypes.add(sink.getType())) {
+                log.warn("Sink {} is configured more than once, ignoring the duplicate", sink.getType());
+            } else {
+                if (sink.getQueueSize() < 1) {
+                    log.warn("Sink queue size must be greater than 0, using default queue size {}",
+                            Sink.DEF_QUEUE_SIZE);
+                    sink.setQueueSize(Sink.DEF_QUEUE_SIZE);
+                }
+                sinks.add(sink);
+            }
+        }
+        // without valid sinks the default sink is used
+        newConfig.setSinks(sinks);
+        if (newConfig.hasSink(SinkType.EMF)) {
+            if (newConfig.getEmf().isEmpty()) {
+                newConfig.setEmf(new Emf());
+            }
+            if (newConfig.getAggregation().isPresent()) {
+                log.warn("Local aggregation is not supported with EMF output, ignoring the local aggregation");
+                newConfig.setAggregation(null);
+            }
+            if (newConfig.getSketches().isPresent()) {
+                // EMF has a limit of 100 values per metric, so the buckets of a sketch would be truncated
+                log.warn("Sketches are not supported with EMF output, ignoring the sketches");
+                newConfig.setSketches(null);
+            }
+        }
+        if (newConfig.getEmf().isPresent()) {
+            final var emf = newConfig.getEmf().get();
+            if (emf.getMaxFileSize() < 1) {
+                log.warn("EMF max file size must be greater than 0, using default max file size {} bytes",
+                        Emf.DEF_MAX_FILE_SIZE);
+                emf.setMaxFileSize(Emf.DEF_MAX_FILE_SIZE);
+            }
+            if (emf.getMaxFiles() < 1) {
+                log.warn("EMF max files must be greater than 0, using default max files {}", Emf.DEF_MAX_FILES);
+                emf.setMaxFiles(Emf.DEF_MAX_FILES);
+            }
+            if (emf.getPort() < 1 || emf.getPort() > 65535) {
+                log.warn("EMF port must be between 1 and 65535, using default port {}", Emf.DEF_PORT);
+                emf.setPort(Emf.DEF_PORT);
+            }
+        }
+        if (newConfig.getCluster().isPresent()) {
+            final var cluster = newConfig.getCluster().get();
+            if (cluster.getTransport() == ClusterTransportType.DIRECTORY && cluster.getDirectory().isBlank()) {
+                log.warn("Cluster directory must be set for the directory transport, cluster aggregation is disabled");
+                newConfig.setCluster(null);
+            } else if (cluster.getNodeTimeout() < newConfig.getReportIntervalMillis()) {
+                log.warn("Cluster node timeout must not be less than the report interval, " +
+                        "using three times the report interval as node timeout");
+                cluster.setNodeTimeout(3 * newConfig.getReportIntervalMillis());
+            }
+            if (newConfig.getCluster().isPresent() && newConfig.getAggregation().isPresent()) {
+                log.warn("Local aggregation is not supported with cluster aggregation, ignoring the local aggregation");
+                newConfig.setAggregation(null);
+            }
+        }
+        if (newConfig.getAggregation().isPresent()) {
+            for (final var metric : newConfig.getMetrics()) {
+                if (metric.getLimit().isPresent()) {
+                    log.warn("Limit of HiveMQ metric {} is not supported with local aggregation, ignoring its limit",
+                            metric.getValue());
+                    metric.setLimit(null);
+                }
+            }
+        }
+        newConfig.getReporters().removeIf(reporter -> {
+            if (reporter.getNamespace().isBlank() ||
+                    reporter.getNamespace().length() > MAX_NAMESPACE_LENGTH ||
+                    reporter.getNamespace().startsWith(RESERVED_NAMESPACE_PREFIX)) {
+                log.warn("Reporter namespace must be set, not longer than {} characters and not start with '{}', " +
+                                "ignoring {}",
+                        MAX_NAMESPACE_LENGTH,
+                        RESERVED_NAMESPACE_PREFIX,
+                        reporter);
+                return true;
+            }
+            if (enabledMetrics(reporter.getMetrics()).isEmpty()) {
+                log.warn("Reporter of namespace {} has no enabled HiveMQ metrics, ignoring it",
+                        reporter.getNamespace());
+                return true;
+            }
+            if (reporter.getReportInterval() < 1 || reporter.getReportIntervalMillis() < MIN_REPORT_INTERVAL_MILLIS) {
+                log.warn("Report interval of reporter of namespace {} must be at least {} ms, " +
+                                "using default interval {} {}",
+                        reporter.getNamespace(),
+                        MIN_REPORT_INTERVAL_MILLIS,
+                        Config.DEF_REPORT_INTERVAL,
+                        Config.DEF_REPORT_INTERVAL_UNIT);
+                reporter.setReportInterval(Config.DEF_REPORT_INTERVAL);
+                reporter.setReportIntervalUnit(Config.DEF_REPORT_INTERVAL_UNIT);
+            } else if (reporter.getReportIntervalMillis() % MIN_REPORT_INTERVAL_MILLIS != 0) {
+                // the reporter groups share a tick at the greatest common divisor of their intervals
+                final var seconds = Math.round(reporter.getReportIntervalMillis() / 1000.0);
+                log.warn("Report interval of reporter of namespace {} must be a multiple of {} ms, using {} seconds",
+                        reporter.getNamespace(),
+                        MIN_REPORT_INTERVAL_MILLIS,
+                        seconds);
+                reporter.setReportInterval((int) seconds);
+                reporter.setReportIntervalUnit(IntervalUnit.SECONDS);
+            }
+            validateMetrics(reporter.getMetrics());
+            return false;
+        });
+        return newConfig;
     }
 
-    private @NotNull List<String> readEnabledMetrics() {
-        final var readLock = lock.readLock();
-        readLock.lock();
-        try {
-            final var newMetrics = new ArrayList<String>();
-            if (config.getMetrics().isEmpty()) {
-                log.error("Could not find any enabled HiveMQ metrics in configuration, no metrics were reported. ");
-                return List.of();
+    /**
+     * Ignores unknown match types and invalid dimensions and limits of the given metric definitions.
+     */
+    private static void validateMetrics(final @NotNull List<Metric> metrics) {
+        for (final var metric : metrics) {
+            if (metric.isUnknownMatch()) {
+                log.warn("Unknown match type of HiveMQ metric {}, matching it exactly", metric.getValue());
+                metric.setMatch(MatchType.EXACT);
             }
-            for (final var metric : config.getMetrics()) {
-                if (metric.isEnabled() && !metric.getValue().isEmpty()) {
-                    newMetrics.add(metric.getValue());
-                    log.trace("Added HiveMQ metric {} ", metric.getValue());
+            if (metric.getDimensions() != null) {
+                try {
+                    metric.getDimensionList();
+                } catch (final IllegalArgumentException e) {
+                    log.warn("Invalid dimensions of HiveMQ metric {}, ignoring its dimensions, reason: {}",
+                            metric.getValue(),
+                            e.getMessage());
+                    metric.setDimensions(null);
                 }
             }
-            return List.copyOf(newMetrics);
-        } finally {
-            readLock.unlock();
+            if (metric.getLimit().filter(limit -> limit < 1).isPresent()) {
+                log.warn("Limit of HiveMQ metric {} must be greater than 0, ignoring its limit", metric.getValue());
+                metric.setLimit(null);
+            }
+        }
+    }
+
+    /**
+     * @return the enabled metric definitions of the given metric definitions, e.g. those of a reporter group
+     */
+    public static @NotNull List<Metric> enabledMetrics(final @NotNull List<Metric> metrics) {
+        final var enabledMetrics = new ArrayList<Metric>();
+        for (final var metric : metrics) {
+            if (metric.isEnabled() && !metric.getValue().isEmpty()) {
+                enabledMetrics.add(metric);
+                log.trace("Added HiveMQ metric {} ({})", metric.getValue(), metric.getMatch());
+            }
+        }
+        return List.copyOf(enabledMetrics);
+    }
+
+    public @NotNull List<String> getEnabledMetrics() {
+        return getEnabledMetricDefinitions().stream().map(Metric::getValue).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @return the enabled metric definitions, including how their values are matched against the metric names
+     */
+    public @NotNull List<Metric> getEnabledMetricDefinitions() {
+        return snapshot.enabledMetrics;
+    }
+
+    private static @NotNull List<Metric> readEnabledMetrics(final @NotNull Config config) {
+        if (config.getMetrics().isEmpty()) {
+            // the metrics of reporter groups are reported even without top level metrics
+            if (config.getReporters().isEmpty()) {
+                log.error("Could not find any enabled HiveMQ metrics in configuration, no metrics were reported. ");
+            }
+            return List.of();
+        }
+        return enabledMetrics(config.getMetrics());
+    }
+
+    private static boolean isBlank(final @Nullable String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class Snapshot {
+
+        private final @NotNull Config config;
+        private final @NotNull List<Metric> enabledMetrics;
+
+        private Snapshot(final @NotNull Config config) {
+            this.config = config;
+            this.enabledMetrics = readEnabledMetrics(config);
         }
     }
 }
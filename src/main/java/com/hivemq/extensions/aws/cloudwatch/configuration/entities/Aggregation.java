@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Configuration of the local pre-aggregation of metric samples.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Aggregation {
+
+    public static final @NotNull AggregationMode DEF_MODE = AggregationMode.STATISTIC_SET;
+    public static final long DEF_SAMPLE_INTERVAL = 1000;
+
+    @XmlElement(name = "mode", defaultValue = "statistic-set")
+    private @Nullable AggregationMode mode = DEF_MODE;
+
+    @XmlElement(name = "sample-interval", defaultValue = "" + DEF_SAMPLE_INTERVAL)
+    private long sampleInterval = DEF_SAMPLE_INTERVAL;
+
+    public @NotNull AggregationMode getMode() {
+        // JAXB sets unknown enum values to null
+        return mode != null ? mode : DEF_MODE;
+    }
+
+    /**
+     * @return the interval in milliseconds in which gauges and counts are sampled
+     */
+    public long getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public void setSampleInterval(final long sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Aggregation{" + "mode=" + mode + ", sampleInterval=" + sampleInterval + '}';
+    }
+}
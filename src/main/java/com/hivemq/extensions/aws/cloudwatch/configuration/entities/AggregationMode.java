@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Defines how locally aggregated samples of a metric are sent to CloudWatch.
+ */
+@XmlType(name = "aggregation-mode")
+@XmlEnum
+public enum AggregationMode {
+
+    /**
+     * One datum with a statistic set (sample count, sum, minimum and maximum) per metric.
+     */
+    @XmlEnumValue("statistic-set")
+    STATISTIC_SET,
+
+    /**
+     * One datum with the distinct sampled values and their counts per metric. Falls back to a statistic set if the
+     * samples contain more distinct values than CloudWatch accepts per datum.
+     */
+    @XmlEnumValue("values")
+    VALUES
+}
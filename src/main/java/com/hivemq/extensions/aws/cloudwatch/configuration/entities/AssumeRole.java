@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Configuration of an IAM role that is assumed with AWS STS.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class AssumeRole {
+
+    public static final @NotNull String DEF_SESSION_NAME = "hivemq-cloudwatch-extension";
+    public static final int DEF_DURATION = 3600;
+    public static final int MIN_DURATION = 900;
+    public static final int MAX_DURATION = 43_200;
+
+    @XmlElement(name = "role-arn")
+    private @Nullable String roleArn = null;
+
+    @XmlElement(name = "session-name", defaultValue = DEF_SESSION_NAME)
+    private @NotNull String sessionName = DEF_SESSION_NAME;
+
+    @XmlElement(name = "external-id")
+    private @Nullable String externalId = null;
+
+    @XmlElement(name = "duration", defaultValue = "" + DEF_DURATION)
+    private int duration = DEF_DURATION;
+
+    @XmlElement(name = "sts-endpoint-override")
+    private @Nullable String stsEndpointOverride = null;
+
+    public @Nullable String getRoleArn() {
+        return roleArn;
+    }
+
+    public @NotNull String getSessionName() {
+        return sessionName;
+    }
+
+    public @Nullable String getExternalId() {
+        return externalId;
+    }
+
+    /**
+     * @return the lifetime in seconds of the assumed role credentials
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(final int duration) {
+        this.duration = duration;
+    }
+
+    public @Nullable String getStsEndpointOverride() {
+        return stsEndpointOverride;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "AssumeRole{" + "roleArn='" + roleArn + '\'' + ", sessionName='" + sessionName + '\'' +
+                ", externalId='" + externalId + '\'' + ", duration=" + duration + ", stsEndpointOverride='" +
+                stsEndpointOverride + '\'' + '}';
+    }
+}
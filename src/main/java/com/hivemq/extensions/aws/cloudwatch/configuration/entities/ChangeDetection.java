@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * Configuration of the change detection, which only sends values that changed since they were last sent.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class ChangeDetection {
+
+    public static final int DEF_HEARTBEAT = 10;
+
+    @XmlElement(name = "absolute-threshold")
+    private @Nullable Double absoluteThreshold = null;
+
+    @XmlElement(name = "relative-threshold")
+    private @Nullable Double relativeThreshold = null;
+
+    @XmlElement(name = "heartbeat", defaultValue = "" + DEF_HEARTBEAT)
+    private int heartbeat = DEF_HEARTBEAT;
+
+    /**
+     * @return the minimum absolute difference to the last sent value
+     */
+    public @NotNull Optional<Double> getAbsoluteThreshold() {
+        return Optional.ofNullable(absoluteThreshold);
+    }
+
+    public void setAbsoluteThreshold(final @Nullable Double absoluteThreshold) {
+        this.absoluteThreshold = absoluteThreshold;
+    }
+
+    /**
+     * @return the minimum difference to the last sent value relative to the last sent value, e.g. 0.05 for 5%
+     */
+    public @NotNull Optional<Double> getRelativeThreshold() {
+        return Optional.ofNullable(relativeThreshold);
+    }
+
+    public void setRelativeThreshold(final @Nullable Double relativeThreshold) {
+        this.relativeThreshold = relativeThreshold;
+    }
+
+    /**
+     * @return the number of reports after which an unchanged value is sent again
+     */
+    public int getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(final int heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ChangeDetection{" + "absoluteThreshold=" + absoluteThreshold + ", relativeThreshold=" +
+                relativeThreshold + ", heartbeat=" + heartbeat + '}';
+    }
+}
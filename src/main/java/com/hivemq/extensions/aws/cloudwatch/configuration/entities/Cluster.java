@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the cluster-wide aggregation, in which only one node publishes the metrics of all nodes.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Cluster {
+
+    public static final @NotNull ClusterTransportType DEF_TRANSPORT = ClusterTransportType.DIRECTORY;
+    public static final long DEF_NODE_TIMEOUT = 180_000;
+
+    @XmlElement(name = "transport", defaultValue = "directory")
+    private @Nullable ClusterTransportType transport = DEF_TRANSPORT;
+
+    @XmlElement(name = "directory")
+    private @NotNull String directory = "";
+
+    @XmlElement(name = "node-timeout", defaultValue = "" + DEF_NODE_TIMEOUT)
+    private long nodeTimeout = DEF_NODE_TIMEOUT;
+
+    @XmlElementWrapper(name = "node-metrics")
+    @XmlElement(name = "metric")
+    private @NotNull List<Metric> nodeMetrics = new ArrayList<>();
+
+    public @NotNull ClusterTransportType getTransport() {
+        // JAXB sets unknown enum values to null
+        return transport != null ? transport : DEF_TRANSPORT;
+    }
+
+    /**
+     * @return the directory shared by all nodes, relative paths are resolved against the extension home folder
+     */
+    public @NotNull String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the time in milliseconds after which a node that did not publish a summary is considered gone
+     */
+    public long getNodeTimeout() {
+        return nodeTimeout;
+    }
+
+    public void setNodeTimeout(final long nodeTimeout) {
+        this.nodeTimeout = nodeTimeout;
+    }
+
+    /**
+     * @return the metrics that each node still reports with its own values, in addition to the cluster-wide values
+     */
+    public @NotNull List<Metric> getNodeMetrics() {
+        return nodeMetrics;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Cluster{" + "transport=" + transport + ", directory='" + directory + '\'' + ", nodeTimeout=" +
+                nodeTimeout + ", nodeMetrics=" + nodeMetrics + '}';
+    }
+}
@@ -39,11 +39,17 @@ import java.util.Optional;
 public class Config {
 
     public static final int DEF_REPORT_INTERVAL = 1;
+    public static final @NotNull IntervalUnit DEF_REPORT_INTERVAL_UNIT = IntervalUnit.MINUTES;
     public static final @Nullable Integer DEF_API_TIMEOUT = null;
+    public static final int DEF_MAX_IN_FLIGHT_REQUESTS = 4;
+    public static final @NotNull String DEF_NAMESPACE = "hivemq-metrics";
 
     @XmlElement(name = "report-interval", required = true, defaultValue = "" + DEF_REPORT_INTERVAL)
     private int reportInterval = DEF_REPORT_INTERVAL;
 
+    @XmlElement(name = "report-interval-unit", defaultValue = "minutes")
+    private @Nullable IntervalUnit reportIntervalUnit = DEF_REPORT_INTERVAL_UNIT;
+
     @XmlElement(name = "api-timeout")
     private @Nullable Integer apiTimeout = DEF_API_TIMEOUT;
 
@@ -51,6 +57,13 @@ public class Config {
     @XmlElement(name = "metric")
     private @NotNull List<Metric> metrics = new ArrayList<>();
 
+    @XmlElement(name = "namespace", defaultValue = DEF_NAMESPACE)
+    private @NotNull String namespace = DEF_NAMESPACE;
+
+    @XmlElementWrapper(name = "dimensions")
+    @XmlElement(name = "dimension")
+    private @NotNull List<Dimension> dimensions = new ArrayList<>();
+
     @XmlElement(name = "zero-values-submission", defaultValue = "false")
     private boolean zeroValuesSubmission = false;
 
@@ -60,10 +73,84 @@ public class Config {
     @XmlElement(name = "cloudwatch-endpoint-override")
     private final @Nullable String cloudWatchEndpointOverride = null;
 
+    @XmlElement(name = "max-in-flight-requests", defaultValue = "" + DEF_MAX_IN_FLIGHT_REQUESTS)
+    private int maxInFlightRequests = DEF_MAX_IN_FLIGHT_REQUESTS;
+
+    @XmlElement(name = "aggregation")
+    private @Nullable Aggregation aggregation = null;
+
+    @XmlElement(name = "retry")
+    private @Nullable Retry retry = null;
+
+    @XmlElement(name = "rate-limit")
+    private @Nullable RateLimit rateLimit = null;
+
+    @XmlElement(name = "spool")
+    private @Nullable Spool spool = null;
+
+    @XmlElement(name = "cluster")
+    private @Nullable Cluster cluster = null;
+
+    @XmlElement(name = "change-detection")
+    private @Nullable ChangeDetection changeDetection = null;
+
+    @XmlElement(name = "http-client")
+    private @Nullable HttpClient httpClient = null;
+
+    @XmlElement(name = "reporting-executor")
+    private @Nullable ReportingExecutor reportingExecutor = null;
+
+    @XmlElement(name = "align-report-interval", defaultValue = "false")
+    private boolean alignReportInterval = false;
+
+    @XmlElement(name = "report-extension-metrics", defaultValue = "false")
+    private boolean reportExtensionMetrics = false;
+
+    @XmlElement(name = "emf")
+    private @Nullable Emf emf = null;
+
+    @XmlElement(name = "sketches")
+    private @Nullable Sketches sketches = null;
+
+    @XmlElement(name = "startup")
+    private @Nullable Startup startup = null;
+
+    @XmlElement(name = "credentials")
+    private @Nullable Credentials credentials = null;
+
+    @XmlElement(name = "request-compression")
+    private @Nullable RequestCompression requestCompression = null;
+
+    @XmlElement(name = "config-cache", defaultValue = "false")
+    private boolean configCache = false;
+
+    @XmlElementWrapper(name = "sinks")
+    @XmlElement(name = "sink")
+    private @NotNull List<Sink> sinks = new ArrayList<>();
+
+    @XmlElementWrapper(name = "reporters")
+    @XmlElement(name = "reporter")
+    private @NotNull List<Reporter> reporters = new ArrayList<>();
+
     public final @NotNull List<Metric> getMetrics() {
         return metrics;
     }
 
+    public @NotNull String getNamespace() {
+        return namespace;
+    }
+
+    public void setNamespace(final @NotNull String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * @return the dimensions that are added to all reported metrics
+     */
+    public @NotNull List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
     public final int getReportInterval() {
         return reportInterval;
     }
@@ -72,6 +159,19 @@ public class Config {
         this.reportInterval = reportInterval;
     }
 
+    public final @NotNull IntervalUnit getReportIntervalUnit() {
+        // JAXB sets unknown enum values to null
+        return reportIntervalUnit != null ? reportIntervalUnit : DEF_REPORT_INTERVAL_UNIT;
+    }
+
+    public final void setReportIntervalUnit(final @NotNull IntervalUnit reportIntervalUnit) {
+        this.reportIntervalUnit = reportIntervalUnit;
+    }
+
+    public final long getReportIntervalMillis() {
+        return getReportIntervalUnit().getTimeUnit().toMillis(reportInterval);
+    }
+
     public final @NotNull Optional<Integer> getApiTimeout() {
         return Optional.ofNullable(apiTimeout);
     }
@@ -92,9 +192,167 @@ public class Config {
         return cloudWatchEndpointOverride;
     }
 
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public void setMaxInFlightRequests(final int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public @NotNull Optional<Aggregation> getAggregation() {
+        return Optional.ofNullable(aggregation);
+    }
+
+    public void setAggregation(final @Nullable Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public @NotNull Optional<Retry> getRetry() {
+        return Optional.ofNullable(retry);
+    }
+
+    /**
+     * @return the adaptive rate limit, if set the PutMetricData requests are paced at a rate that adapts to throttling
+     *         and latency
+     */
+    public @NotNull Optional<RateLimit> getRateLimit() {
+        return Optional.ofNullable(rateLimit);
+    }
+
+    public @NotNull Optional<Spool> getSpool() {
+        return Optional.ofNullable(spool);
+    }
+
+    public @NotNull Optional<Cluster> getCluster() {
+        return Optional.ofNullable(cluster);
+    }
+
+    public void setCluster(final @Nullable Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public @NotNull Optional<ChangeDetection> getChangeDetection() {
+        return Optional.ofNullable(changeDetection);
+    }
+
+    public @NotNull Optional<HttpClient> getHttpClient() {
+        return Optional.ofNullable(httpClient);
+    }
+
+    public @NotNull Optional<ReportingExecutor> getReportingExecutor() {
+        return Optional.ofNullable(reportingExecutor);
+    }
+
+    /**
+     * @return whether the reports are aligned to multiples of the report interval since the epoch
+     */
+    public boolean isAlignReportInterval() {
+        return alignReportInterval;
+    }
+
+    /**
+     * @return whether the metrics of the extension itself are reported to CloudWatch
+     */
+    public boolean isReportExtensionMetrics() {
+        return reportExtensionMetrics;
+    }
+
+    /**
+     * @return the distribution sketches, if set histograms and timers are reported as values and counts of their
+     *         sketch instead of percentiles
+     */
+    public @NotNull Optional<Sketches> getSketches() {
+        return Optional.ofNullable(sketches);
+    }
+
+    public void setSketches(final @Nullable Sketches sketches) {
+        this.sketches = sketches;
+    }
+
+    /**
+     * @return the Embedded Metric Format output, if set the metrics are written as EMF documents instead of being
+     *         sent with PutMetricData requests
+     */
+    public @NotNull Optional<Emf> getEmf() {
+        return Optional.ofNullable(emf);
+    }
+
+    public void setEmf(final @Nullable Emf emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * @return the configured sinks, without a {@code sinks} element the metrics are written as EMF if the {@code emf}
+     *         element is set and sent to CloudWatch otherwise
+     */
+    public @NotNull List<Sink> getSinks() {
+        if (!sinks.isEmpty()) {
+            return sinks;
+        }
+        return List.of(new Sink(emf != null ? SinkType.EMF : SinkType.CLOUDWATCH));
+    }
+
+    public void setSinks(final @NotNull List<Sink> sinks) {
+        this.sinks = sinks;
+    }
+
+    /**
+     * @return whether the metrics are published to a sink of the given type
+     */
+    public boolean hasSink(final @NotNull SinkType type) {
+        return getSinks().stream().anyMatch(sink -> sink.getType() == type);
+    }
+
+    /**
+     * @return the background initialization of the CloudWatch client, without a {@code startup} element the defaults
+     *         of {@link Startup} apply
+     */
+    public @NotNull Optional<Startup> getStartup() {
+        return Optional.ofNullable(startup);
+    }
+
+    /**
+     * @return the credentials and region of the CloudWatch client, without a {@code credentials} element the default
+     *         credentials provider chain of the AWS SDK is used
+     */
+    public @NotNull Optional<Credentials> getCredentials() {
+        return Optional.ofNullable(credentials);
+    }
+
+    /**
+     * @return the compression of the PutMetricData requests, without a {@code request-compression} element the
+     *         defaults of the AWS SDK apply
+     */
+    public @NotNull Optional<RequestCompression> getRequestCompression() {
+        return Optional.ofNullable(requestCompression);
+    }
+
+    /**
+     * @return the reporter groups, each reports the metrics it selects to its own namespace at its own interval instead
+     *         of the metrics being reported with the top level settings
+     */
+    public @NotNull List<Reporter> getReporters() {
+        return reporters;
+    }
+
+    /**
+     * @return whether the parsed config file is cached in a binary form and reused while the file is unchanged
+     */
+    public boolean isConfigCache() {
+        return configCache;
+    }
+
     @Override
     public final @NotNull String toString() {
-        return "Config{" + "reportInterval=" + reportInterval + ", apiTimeout=" + apiTimeout + ", metrics=" + metrics +
-                '}';
+        return "Config{" + "reportInterval=" + reportInterval + ", reportIntervalUnit=" + reportIntervalUnit +
+                ", apiTimeout=" + apiTimeout + ", namespace='" + namespace + '\'' + ", dimensions=" + dimensions +
+                ", aggregation=" + aggregation + ", retry=" + retry + ", rateLimit=" + rateLimit + ", spool=" + spool +
+                ", cluster=" + cluster + ", changeDetection=" + changeDetection + ", httpClient=" + httpClient +
+                ", reportingExecutor=" + reportingExecutor + ", alignReportInterval=" + alignReportInterval +
+                ", reportExtensionMetrics=" + reportExtensionMetrics + ", emf=" + emf + ", sinks=" + sinks +
+                ", sketches=" + sketches + ", startup=" + startup + ", credentials=" + credentials +
+                ", requestCompression=" + requestCompression + ", configCache=" + configCache + ", metrics=" + metrics +
+                ", reporters=" + reporters + '}';
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * Configuration of the AWS credentials and region of the CloudWatch client.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Credentials {
+
+    public static final long DEF_REFRESH_AHEAD = 300_000;
+
+    @XmlElement(name = "region")
+    private @Nullable String region = null;
+
+    @XmlElement(name = "static")
+    private @Nullable StaticCredentials staticCredentials = null;
+
+    @XmlElement(name = "assume-role")
+    private @Nullable AssumeRole assumeRole = null;
+
+    @XmlElement(name = "refresh-ahead", defaultValue = "" + DEF_REFRESH_AHEAD)
+    private long refreshAhead = DEF_REFRESH_AHEAD;
+
+    /**
+     * @return the AWS region, without a region it is resolved once with the default region provider chain
+     */
+    public @Nullable String getRegion() {
+        return region;
+    }
+
+    /**
+     * @return the static credentials, without static credentials the default credentials provider chain is used
+     */
+    public @NotNull Optional<StaticCredentials> getStaticCredentials() {
+        return Optional.ofNullable(staticCredentials);
+    }
+
+    public void setStaticCredentials(final @Nullable StaticCredentials staticCredentials) {
+        this.staticCredentials = staticCredentials;
+    }
+
+    /**
+     * @return the role that is assumed with the static or default credentials
+     */
+    public @NotNull Optional<AssumeRole> getAssumeRole() {
+        return Optional.ofNullable(assumeRole);
+    }
+
+    public void setAssumeRole(final @Nullable AssumeRole assumeRole) {
+        this.assumeRole = assumeRole;
+    }
+
+    /**
+     * @return the time in milliseconds before their expiry the credentials are refreshed in the background
+     */
+    public long getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public void setRefreshAhead(final long refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Credentials{" + "region='" + region + '\'' + ", staticCredentials=" + staticCredentials +
+                ", assumeRole=" + assumeRole + ", refreshAhead=" + refreshAhead + '}';
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.XmlValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A CloudWatch dimension that is added to the reported metrics.
+ * <p>
+ * The value can contain placeholders, e.g. {@code ${hostname}}, which are resolved once when the reporter starts.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlRootElement(name = "dimension")
+@SuppressWarnings("FieldMayBeFinal")
+public class Dimension {
+
+    @XmlAttribute(name = "name", required = true)
+    private @NotNull String name = "";
+
+    @XmlValue()
+    private @NotNull String value = "";
+
+    public Dimension() {
+    }
+
+    public Dimension(final @NotNull String name, final @NotNull String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public @NotNull String getName() {
+        return name;
+    }
+
+    public @NotNull String getValue() {
+        return value;
+    }
+
+    /**
+     * @param  dimensions a comma separated list of dimensions, e.g. {@code Node=${node-id},Team=iot}
+     * @return            the parsed dimensions
+     * @throws IllegalArgumentException if a dimension has no name or no value
+     */
+    public static @NotNull List<Dimension> parseList(final @NotNull String dimensions) {
+        final var parsed = new ArrayList<Dimension>();
+        for (final var dimension : dimensions.split(",")) {
+            if (dimension.isBlank()) {
+                continue;
+            }
+            final var separator = dimension.indexOf('=');
+            final var name = separator < 0 ? "" : dimension.substring(0, separator).trim();
+            final var value = separator < 0 ? "" : dimension.substring(separator + 1).trim();
+            if (name.isEmpty() || value.isEmpty()) {
+                throw new IllegalArgumentException("Dimension '" +
+                        dimension.trim() +
+                        "' must be of the form name=value");
+            }
+            parsed.add(new Dimension(name, value));
+        }
+        return parsed;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Dimension{" + "name='" + name + '\'' + ", value='" + value + '\'' + '}';
+    }
+}
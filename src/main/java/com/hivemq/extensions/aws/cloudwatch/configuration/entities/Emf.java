@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * Configuration of the Embedded Metric Format output that replaces the PutMetricData requests.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Emf {
+
+    public static final @NotNull EmfTargetType DEF_TARGET = EmfTargetType.FILE;
+    public static final @NotNull String DEF_FILE = "emf/metrics.log";
+    public static final long DEF_MAX_FILE_SIZE = 10 * 1024 * 1024;
+    public static final int DEF_MAX_FILES = 5;
+    public static final @NotNull String DEF_HOST = "127.0.0.1";
+    public static final int DEF_PORT = 25888;
+
+    @XmlElement(name = "target", defaultValue = "file")
+    private @Nullable EmfTargetType target = DEF_TARGET;
+
+    @XmlElement(name = "file", defaultValue = DEF_FILE)
+    private @NotNull String file = DEF_FILE;
+
+    @XmlElement(name = "max-file-size", defaultValue = "" + DEF_MAX_FILE_SIZE)
+    private long maxFileSize = DEF_MAX_FILE_SIZE;
+
+    @XmlElement(name = "max-files", defaultValue = "" + DEF_MAX_FILES)
+    private int maxFiles = DEF_MAX_FILES;
+
+    @XmlElement(name = "host", defaultValue = DEF_HOST)
+    private @NotNull String host = DEF_HOST;
+
+    @XmlElement(name = "port", defaultValue = "" + DEF_PORT)
+    private int port = DEF_PORT;
+
+    @XmlElement(name = "log-group")
+    private @Nullable String logGroup = null;
+
+    public @NotNull EmfTargetType getTarget() {
+        // JAXB sets unknown enum values to null
+        return target != null ? target : DEF_TARGET;
+    }
+
+    /**
+     * @return the file of the file target, relative paths are resolved against the extension home folder
+     */
+    public @NotNull String getFile() {
+        return file;
+    }
+
+    /**
+     * @return the size in bytes after which the file is rotated
+     */
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(final long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * @return the number of files that are kept, including the current one
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    public void setMaxFiles(final int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * @return the host of the CloudWatch agent for the UDP and TCP targets
+     */
+    public @NotNull String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * @return the log group the CloudWatch agent writes the documents to, instead of its configured one
+     */
+    public @NotNull Optional<String> getLogGroup() {
+        return Optional.ofNullable(logGroup).filter(logGroup -> !logGroup.isBlank());
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Emf{" + "target=" + target + ", file='" + file + '\'' + ", maxFileSize=" + maxFileSize +
+                ", maxFiles=" + maxFiles + ", host='" + host + '\'' + ", port=" + port + ", logGroup='" + logGroup +
+                '\'' + '}';
+    }
+}
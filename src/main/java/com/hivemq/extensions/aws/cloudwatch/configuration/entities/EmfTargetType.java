@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Defines where the Embedded Metric Format documents are written to.
+ */
+@XmlType(name = "emf-target")
+@XmlEnum
+public enum EmfTargetType {
+
+    /**
+     * A local file with size based rotation, e.g. collected by the CloudWatch agent or Fluent Bit.
+     */
+    @XmlEnumValue("file")
+    FILE,
+
+    /**
+     * The standard output of the HiveMQ process, e.g. collected by the awslogs driver of Amazon ECS.
+     */
+    @XmlEnumValue("stdout")
+    STDOUT,
+
+    /**
+     * UDP datagrams to the EMF endpoint of a local CloudWatch agent.
+     */
+    @XmlEnumValue("udp")
+    UDP,
+
+    /**
+     * A TCP connection to the EMF endpoint of a local CloudWatch agent.
+     */
+    @XmlEnumValue("tcp")
+    TCP
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Configuration of the async HTTP client and its connection pool.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class HttpClient {
+
+    public static final @NotNull HttpClientType DEF_TYPE = HttpClientType.NETTY;
+    public static final int DEF_MAX_CONCURRENCY = 50;
+    public static final int DEF_MAX_PENDING_ACQUIRES = 10_000;
+    public static final long DEF_CONNECTION_ACQUIRE_TIMEOUT = 10_000;
+    public static final long DEF_CONNECTION_MAX_IDLE_TIME = 60_000;
+
+    @XmlElement(name = "type", defaultValue = "netty")
+    private @Nullable HttpClientType type = DEF_TYPE;
+
+    @XmlElement(name = "max-concurrency", defaultValue = "" + DEF_MAX_CONCURRENCY)
+    private int maxConcurrency = DEF_MAX_CONCURRENCY;
+
+    @XmlElement(name = "max-pending-acquires", defaultValue = "" + DEF_MAX_PENDING_ACQUIRES)
+    private int maxPendingAcquires = DEF_MAX_PENDING_ACQUIRES;
+
+    @XmlElement(name = "connection-acquire-timeout", defaultValue = "" + DEF_CONNECTION_ACQUIRE_TIMEOUT)
+    private long connectionAcquireTimeout = DEF_CONNECTION_ACQUIRE_TIMEOUT;
+
+    @XmlElement(name = "connection-max-idle-time", defaultValue = "" + DEF_CONNECTION_MAX_IDLE_TIME)
+    private long connectionMaxIdleTime = DEF_CONNECTION_MAX_IDLE_TIME;
+
+    @XmlElement(name = "idle-connection-reaper", defaultValue = "true")
+    private boolean idleConnectionReaper = true;
+
+    @XmlElement(name = "tcp-keep-alive", defaultValue = "false")
+    private boolean tcpKeepAlive = false;
+
+    @XmlElement(name = "http2", defaultValue = "false")
+    private boolean http2 = false;
+
+    @XmlElement(name = "prewarm-connections", defaultValue = "0")
+    private int prewarmConnections = 0;
+
+    public @NotNull HttpClientType getType() {
+        // JAXB sets unknown enum values to null
+        return type != null ? type : DEF_TYPE;
+    }
+
+    public void setType(final @NotNull HttpClientType type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the maximum number of open connections
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @return the maximum number of requests that wait for a connection, only supported by the Netty client
+     */
+    public int getMaxPendingAcquires() {
+        return maxPendingAcquires;
+    }
+
+    public void setMaxPendingAcquires(final int maxPendingAcquires) {
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    /**
+     * @return the time in milliseconds a request waits for a connection
+     */
+    public long getConnectionAcquireTimeout() {
+        return connectionAcquireTimeout;
+    }
+
+    public void setConnectionAcquireTimeout(final long connectionAcquireTimeout) {
+        this.connectionAcquireTimeout = connectionAcquireTimeout;
+    }
+
+    /**
+     * @return the time in milliseconds after which an idle connection is closed
+     */
+    public long getConnectionMaxIdleTime() {
+        return connectionMaxIdleTime;
+    }
+
+    public void setConnectionMaxIdleTime(final long connectionMaxIdleTime) {
+        this.connectionMaxIdleTime = connectionMaxIdleTime;
+    }
+
+    /**
+     * @return whether idle connections are closed in the background, only supported by the Netty client
+     */
+    public boolean isIdleConnectionReaper() {
+        return idleConnectionReaper;
+    }
+
+    public boolean isTcpKeepAlive() {
+        return tcpKeepAlive;
+    }
+
+    public void setTcpKeepAlive(final boolean tcpKeepAlive) {
+        this.tcpKeepAlive = tcpKeepAlive;
+    }
+
+    /**
+     * @return whether HTTP/2 is used, only supported by the Netty client
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(final boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * @return the number of connections that are opened when the reporter starts
+     */
+    public int getPrewarmConnections() {
+        return prewarmConnections;
+    }
+
+    public void setPrewarmConnections(final int prewarmConnections) {
+        this.prewarmConnections = prewarmConnections;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "HttpClient{" + "type=" + type + ", maxConcurrency=" + maxConcurrency + ", maxPendingAcquires=" +
+                maxPendingAcquires + ", connectionAcquireTimeout=" + connectionAcquireTimeout +
+                ", connectionMaxIdleTime=" + connectionMaxIdleTime + ", idleConnectionReaper=" +
+                idleConnectionReaper + ", tcpKeepAlive=" + tcpKeepAlive + ", http2=" + http2 +
+                ", prewarmConnections=" + prewarmConnections + '}';
+    }
+}
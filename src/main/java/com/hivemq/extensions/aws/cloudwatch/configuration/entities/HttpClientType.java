@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Defines the async HTTP client of the CloudWatch client.
+ */
+@XmlType(name = "http-client-type")
+@XmlEnum
+public enum HttpClientType {
+
+    /**
+     * The Netty based HTTP client, the default of the AWS SDK.
+     */
+    @XmlEnumValue("netty")
+    NETTY,
+
+    /**
+     * The HTTP client based on the AWS Common Runtime.
+     */
+    @XmlEnumValue("crt")
+    CRT
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Defines how the value of a configured {@link Metric} is matched against the names in the metric registry.
+ */
+@XmlType(name = "match")
+@XmlEnum
+public enum MatchType {
+
+    /**
+     * The metric name must be equal to the configured value.
+     */
+    @XmlEnumValue("exact")
+    EXACT,
+
+    /**
+     * The metric name must start with the configured value.
+     */
+    @XmlEnumValue("prefix")
+    PREFIX,
+
+    /**
+     * The metric name must match the configured glob, where {@code *} matches any characters except {@code .},
+     * {@code **} matches any characters and {@code ?} matches a single character.
+     */
+    @XmlEnumValue("glob")
+    GLOB,
+
+    /**
+     * The metric name must match the configured regular expression.
+     */
+    @XmlEnumValue("regex")
+    REGEX
+}
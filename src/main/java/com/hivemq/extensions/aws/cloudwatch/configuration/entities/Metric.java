@@ -23,6 +23,10 @@ import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlType;
 import jakarta.xml.bind.annotation.XmlValue;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * @author David Sondermann
@@ -36,9 +40,34 @@ public class Metric {
     @XmlAttribute(name = "enabled")
     private boolean enabled = true;
 
+    @XmlAttribute(name = "match")
+    private @Nullable MatchType match = MatchType.EXACT;
+
+    @XmlAttribute(name = "high-resolution")
+    private boolean highResolution = false;
+
+    @XmlAttribute(name = "dimensions")
+    private @Nullable String dimensions = null;
+
+    @XmlAttribute(name = "limit")
+    private @Nullable Integer limit = null;
+
     @XmlValue()
     private @NotNull String value = "";
 
+    public Metric() {
+    }
+
+    public Metric(final @NotNull String value, final @NotNull MatchType match) {
+        this(value, match, false);
+    }
+
+    public Metric(final @NotNull String value, final @NotNull MatchType match, final boolean highResolution) {
+        this.value = value;
+        this.match = match;
+        this.highResolution = highResolution;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -47,8 +76,64 @@ public class Metric {
         return value;
     }
 
+    public @NotNull MatchType getMatch() {
+        // JAXB sets unknown enum values to null
+        return match != null ? match : MatchType.EXACT;
+    }
+
+    public void setMatch(final @NotNull MatchType match) {
+        this.match = match;
+    }
+
+    /**
+     * @return whether the {@code match} attribute has an unknown value, the metric is then matched exactly
+     */
+    public boolean isUnknownMatch() {
+        return match == null;
+    }
+
+    /**
+     * @return whether the metric is sent with a storage resolution of 1 second instead of 60 seconds
+     */
+    public boolean isHighResolution() {
+        return highResolution;
+    }
+
+    /**
+     * @return the comma separated dimensions of the metric in addition to the global dimensions
+     * @see Dimension#parseList(String)
+     */
+    public @Nullable String getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(final @Nullable String dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * @return the parsed dimensions of the metric
+     * @throws IllegalArgumentException if the dimensions are invalid
+     */
+    public @NotNull List<Dimension> getDimensionList() {
+        return dimensions == null ? List.of() : Dimension.parseList(dimensions);
+    }
+
+    /**
+     * @return the maximum number of matching metrics that are sent individually, the others are folded into a
+     *         single metric
+     */
+    public @NotNull Optional<Integer> getLimit() {
+        return Optional.ofNullable(limit);
+    }
+
+    public void setLimit(final @Nullable Integer limit) {
+        this.limit = limit;
+    }
+
     @Override
     public @NotNull String toString() {
-        return "Metric{" + "enabled=" + enabled + ", value='" + value + '\'' + '}';
+        return "Metric{" + "enabled=" + enabled + ", match=" + match + ", highResolution=" + highResolution +
+                ", dimensions=" + dimensions + ", limit=" + limit + ", value='" + value + '\'' + '}';
     }
 }
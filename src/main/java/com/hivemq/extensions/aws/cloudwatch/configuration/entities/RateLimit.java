@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Configuration of the adaptive rate limit of the PutMetricData requests.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class RateLimit {
+
+    public static final double DEF_INITIAL_RATE = 50;
+    public static final double DEF_MIN_RATE = 1;
+    public static final double DEF_MAX_RATE = 150;
+    public static final int DEF_BURST = 10;
+    public static final long DEF_LATENCY_THRESHOLD = 2000;
+
+    @XmlElement(name = "initial-rate", defaultValue = "" + DEF_INITIAL_RATE)
+    private double initialRate = DEF_INITIAL_RATE;
+
+    @XmlElement(name = "min-rate", defaultValue = "" + DEF_MIN_RATE)
+    private double minRate = DEF_MIN_RATE;
+
+    @XmlElement(name = "max-rate", defaultValue = "" + DEF_MAX_RATE)
+    private double maxRate = DEF_MAX_RATE;
+
+    @XmlElement(name = "burst", defaultValue = "" + DEF_BURST)
+    private int burst = DEF_BURST;
+
+    @XmlElement(name = "latency-threshold", defaultValue = "" + DEF_LATENCY_THRESHOLD)
+    private long latencyThreshold = DEF_LATENCY_THRESHOLD;
+
+    /**
+     * @return the requests per second that are allowed before the first request completed
+     */
+    public double getInitialRate() {
+        return initialRate;
+    }
+
+    public void setInitialRate(final double initialRate) {
+        this.initialRate = initialRate;
+    }
+
+    /**
+     * @return the lower bound of the requests per second, the rate is not decreased below it
+     */
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public void setMinRate(final double minRate) {
+        this.minRate = minRate;
+    }
+
+    /**
+     * @return the upper bound of the requests per second, the rate is not increased above it
+     */
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    public void setMaxRate(final double maxRate) {
+        this.maxRate = maxRate;
+    }
+
+    /**
+     * @return the number of requests that may be sent at once after the publisher was idle
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(final int burst) {
+        this.burst = burst;
+    }
+
+    /**
+     * @return the latency in milliseconds above which a successful request decreases the rate like a throttled one
+     */
+    public long getLatencyThreshold() {
+        return latencyThreshold;
+    }
+
+    public void setLatencyThreshold(final long latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "RateLimit{" + "initialRate=" + initialRate + ", minRate=" + minRate + ", maxRate=" + maxRate +
+                ", burst=" + burst + ", latencyThreshold=" + latencyThreshold + '}';
+    }
+}
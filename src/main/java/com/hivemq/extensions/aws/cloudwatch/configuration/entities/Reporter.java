@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of a reporter group, which reports its metrics to a namespace of its own at its own interval.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Reporter {
+
+    @XmlElement(name = "namespace")
+    private @NotNull String namespace = "";
+
+    @XmlElement(name = "report-interval", defaultValue = "" + Config.DEF_REPORT_INTERVAL)
+    private int reportInterval = Config.DEF_REPORT_INTERVAL;
+
+    @XmlElement(name = "report-interval-unit", defaultValue = "minutes")
+    private @Nullable IntervalUnit reportIntervalUnit = Config.DEF_REPORT_INTERVAL_UNIT;
+
+    @XmlElementWrapper(name = "metrics")
+    @XmlElement(name = "metric")
+    private @NotNull List<Metric> metrics = new ArrayList<>();
+
+    @XmlElement(name = "zero-values-submission", defaultValue = "false")
+    private boolean zeroValuesSubmission = false;
+
+    @XmlElement(name = "report-raw-count-value", defaultValue = "false")
+    private boolean reportRawCountValue = false;
+
+    public @NotNull String getNamespace() {
+        return namespace;
+    }
+
+    public int getReportInterval() {
+        return reportInterval;
+    }
+
+    public void setReportInterval(final int reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    public @NotNull IntervalUnit getReportIntervalUnit() {
+        // JAXB sets unknown enum values to null
+        return reportIntervalUnit != null ? reportIntervalUnit : Config.DEF_REPORT_INTERVAL_UNIT;
+    }
+
+    public void setReportIntervalUnit(final @NotNull IntervalUnit reportIntervalUnit) {
+        this.reportIntervalUnit = reportIntervalUnit;
+    }
+
+    public long getReportIntervalMillis() {
+        return getReportIntervalUnit().getTimeUnit().toMillis(reportInterval);
+    }
+
+    public @NotNull List<Metric> getMetrics() {
+        return metrics;
+    }
+
+    public boolean getZeroValuesSubmission() {
+        return zeroValuesSubmission;
+    }
+
+    public boolean getReportRawCountValue() {
+        return reportRawCountValue;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Reporter{" + "namespace='" + namespace + '\'' + ", reportInterval=" + reportInterval +
+                ", reportIntervalUnit=" + reportIntervalUnit + ", zeroValuesSubmission=" + zeroValuesSubmission +
+                ", reportRawCountValue=" + reportRawCountValue + ", metrics=" + metrics + '}';
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Configuration of the executors that are dedicated to the CloudWatch report instead of the shared extension
+ * executor.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class ReportingExecutor {
+
+    public static final int DEF_COMPLETION_THREADS = 2;
+    public static final int DEF_COMPLETION_QUEUE_SIZE = 1000;
+
+    @XmlElement(name = "completion-threads", defaultValue = "" + DEF_COMPLETION_THREADS)
+    private int completionThreads = DEF_COMPLETION_THREADS;
+
+    @XmlElement(name = "completion-queue-size", defaultValue = "" + DEF_COMPLETION_QUEUE_SIZE)
+    private int completionQueueSize = DEF_COMPLETION_QUEUE_SIZE;
+
+    @XmlElement(name = "virtual-threads", defaultValue = "true")
+    private boolean virtualThreads = true;
+
+    /**
+     * @return the number of platform threads that complete the CloudWatch requests
+     */
+    public int getCompletionThreads() {
+        return completionThreads;
+    }
+
+    public void setCompletionThreads(final int completionThreads) {
+        this.completionThreads = completionThreads;
+    }
+
+    /**
+     * @return the maximum number of request completions that wait for a platform thread
+     */
+    public int getCompletionQueueSize() {
+        return completionQueueSize;
+    }
+
+    public void setCompletionQueueSize(final int completionQueueSize) {
+        this.completionQueueSize = completionQueueSize;
+    }
+
+    /**
+     * @return whether the requests are completed on virtual threads if the JVM supports them (Java 21+)
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ReportingExecutor{" + "completionThreads=" + completionThreads + ", completionQueueSize=" +
+                completionQueueSize + ", virtualThreads=" + virtualThreads + '}';
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Configuration of the gzip compression of the PutMetricData request bodies.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class RequestCompression {
+
+    public static final int DEF_THRESHOLD = 10_240;
+    // the AWS SDK does not accept a higher threshold
+    public static final int MAX_THRESHOLD = 10_485_760;
+
+    @XmlElement(name = "enabled", defaultValue = "true")
+    private boolean enabled = true;
+
+    @XmlElement(name = "threshold", defaultValue = "" + DEF_THRESHOLD)
+    private int threshold = DEF_THRESHOLD;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the size in bytes below which request bodies are sent uncompressed
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(final int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "RequestCompression{" + "enabled=" + enabled + ", threshold=" + threshold + '}';
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Configuration of the buffer for metric data that could not be sent to CloudWatch.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Retry {
+
+    public static final int DEF_BUFFER_SIZE = 100;
+    public static final @NotNull EvictionPolicy DEF_EVICTION = EvictionPolicy.OLDEST;
+    public static final long DEF_INITIAL_BACKOFF = 1000;
+    public static final long DEF_MAX_BACKOFF = 60_000;
+
+    @XmlElement(name = "buffer-size", defaultValue = "" + DEF_BUFFER_SIZE)
+    private int bufferSize = DEF_BUFFER_SIZE;
+
+    @XmlElement(name = "eviction", defaultValue = "oldest")
+    private @Nullable EvictionPolicy eviction = DEF_EVICTION;
+
+    @XmlElement(name = "initial-backoff", defaultValue = "" + DEF_INITIAL_BACKOFF)
+    private long initialBackoff = DEF_INITIAL_BACKOFF;
+
+    @XmlElement(name = "max-backoff", defaultValue = "" + DEF_MAX_BACKOFF)
+    private long maxBackoff = DEF_MAX_BACKOFF;
+
+    /**
+     * @return the maximum number of buffered PutMetricData requests
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public @NotNull EvictionPolicy getEviction() {
+        // JAXB sets unknown enum values to null
+        return eviction != null ? eviction : DEF_EVICTION;
+    }
+
+    /**
+     * @return the backoff in milliseconds after the first failed request
+     */
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(final long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * @return the upper bound in milliseconds of the exponentially growing backoff
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(final long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Retry{" + "bufferSize=" + bufferSize + ", eviction=" + eviction + ", initialBackoff=" +
+                initialBackoff + ", maxBackoff=" + maxBackoff + '}';
+    }
+}
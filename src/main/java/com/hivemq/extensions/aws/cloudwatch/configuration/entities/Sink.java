@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.XmlValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlRootElement(name = "sink")
+@SuppressWarnings("FieldMayBeFinal")
+public class Sink {
+
+    public static final int DEF_QUEUE_SIZE = 2;
+
+    @XmlAttribute(name = "queue-size")
+    private int queueSize = DEF_QUEUE_SIZE;
+
+    @XmlValue()
+    private @Nullable SinkType type = null;
+
+    public Sink() {
+    }
+
+    public Sink(final @NotNull SinkType type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the type of the sink, or {@code null} if it is unknown
+     */
+    public @Nullable SinkType getType() {
+        // JAXB sets unknown enum values to null
+        return type;
+    }
+
+    /**
+     * @return the maximum number of reports that wait for the sink, further reports replace the oldest waiting one
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Sink{" + "type=" + type + ", queueSize=" + queueSize + '}';
+    }
+}
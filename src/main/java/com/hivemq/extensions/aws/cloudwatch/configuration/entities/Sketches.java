@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Configuration of the distribution sketches of the reported histograms and timers.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Sketches {
+
+    public static final double DEF_RELATIVE_ACCURACY = 0.02;
+    public static final long DEF_SAMPLE_INTERVAL = 1000;
+
+    @XmlElement(name = "relative-accuracy", defaultValue = "" + DEF_RELATIVE_ACCURACY)
+    private double relativeAccuracy = DEF_RELATIVE_ACCURACY;
+
+    @XmlElement(name = "sample-interval", defaultValue = "" + DEF_SAMPLE_INTERVAL)
+    private long sampleInterval = DEF_SAMPLE_INTERVAL;
+
+    /**
+     * @return the maximum relative error of the reported values, e.g. 0.02 for 2%
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public void setRelativeAccuracy(final double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    /**
+     * @return the interval in milliseconds in which the histograms and timers are recorded into their sketches
+     */
+    public long getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public void setSampleInterval(final long sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Sketches{" + "relativeAccuracy=" + relativeAccuracy + ", sampleInterval=" + sampleInterval + '}';
+    }
+}
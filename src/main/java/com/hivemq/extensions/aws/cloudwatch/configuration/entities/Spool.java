@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Configuration of the on-disk spool for metric data that could not be sent to CloudWatch.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Spool {
+
+    public static final @NotNull String DEF_DIRECTORY = "spool";
+    public static final long DEF_MAX_SIZE = 64 * 1024 * 1024;
+    public static final int DEF_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    @XmlElement(name = "directory", defaultValue = DEF_DIRECTORY)
+    private @NotNull String directory = DEF_DIRECTORY;
+
+    @XmlElement(name = "max-size", defaultValue = "" + DEF_MAX_SIZE)
+    private long maxSize = DEF_MAX_SIZE;
+
+    @XmlElement(name = "segment-size", defaultValue = "" + DEF_SEGMENT_SIZE)
+    private int segmentSize = DEF_SEGMENT_SIZE;
+
+    /**
+     * @return the spool directory, relative paths are resolved against the extension home folder
+     */
+    public @NotNull String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the maximum size in bytes of all spool segments
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the size in bytes of a single memory-mapped spool segment
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(final int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Spool{" + "directory='" + directory + '\'' + ", maxSize=" + maxSize + ", segmentSize=" +
+                segmentSize + '}';
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Configuration of the background initialization of the CloudWatch client.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class Startup {
+
+    public static final int DEF_BUFFER_SIZE = 5;
+    public static final long DEF_TIMEOUT = 60_000;
+    public static final @NotNull StartupTimeoutPolicy DEF_TIMEOUT_POLICY = StartupTimeoutPolicy.DROP;
+
+    @XmlElement(name = "buffer-size", defaultValue = "" + DEF_BUFFER_SIZE)
+    private int bufferSize = DEF_BUFFER_SIZE;
+
+    @XmlElement(name = "timeout", defaultValue = "" + DEF_TIMEOUT)
+    private long timeout = DEF_TIMEOUT;
+
+    @XmlElement(name = "timeout-policy", defaultValue = "drop")
+    private @Nullable StartupTimeoutPolicy timeoutPolicy = DEF_TIMEOUT_POLICY;
+
+    /**
+     * @return the maximum number of reports that are buffered until the client is initialized
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return the time in milliseconds the client may take to initialize
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(final long timeout) {
+        this.timeout = timeout;
+    }
+
+    public @NotNull StartupTimeoutPolicy getTimeoutPolicy() {
+        // JAXB sets unknown enum values to null
+        return timeoutPolicy != null ? timeoutPolicy : DEF_TIMEOUT_POLICY;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Startup{" + "bufferSize=" + bufferSize + ", timeout=" + timeout + ", timeoutPolicy=" + timeoutPolicy +
+                '}';
+    }
+}
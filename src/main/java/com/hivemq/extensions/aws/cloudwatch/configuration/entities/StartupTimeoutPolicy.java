@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Defines what happens when the CloudWatch client is not initialized within the startup timeout.
+ */
+@XmlType(name = "startup-timeout-policy")
+@XmlEnum
+public enum StartupTimeoutPolicy {
+
+    /**
+     * The buffered metric data is dropped, as is further metric data until the client is initialized.
+     */
+    @XmlEnumValue("drop")
+    DROP,
+
+    /**
+     * The initialization is given up, no metric data is sent to CloudWatch until the extension is restarted.
+     */
+    @XmlEnumValue("fail")
+    FAIL
+}
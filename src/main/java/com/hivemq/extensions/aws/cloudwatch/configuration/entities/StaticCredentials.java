@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration.entities;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Configuration of static AWS credentials.
+ */
+@XmlType(propOrder = {})
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings("FieldMayBeFinal")
+public class StaticCredentials {
+
+    @XmlElement(name = "access-key-id")
+    private @Nullable String accessKeyId = null;
+
+    @XmlElement(name = "secret-access-key")
+    private @Nullable String secretAccessKey = null;
+
+    @XmlElement(name = "session-token")
+    private @Nullable String sessionToken = null;
+
+    public @Nullable String getAccessKeyId() {
+        return accessKeyId;
+    }
+
+    public @Nullable String getSecretAccessKey() {
+        return secretAccessKey;
+    }
+
+    /**
+     * @return the session token of temporary credentials or {@code null} for long-term credentials
+     */
+    public @Nullable String getSessionToken() {
+        return sessionToken;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        // the secrets are not logged
+        return "StaticCredentials{" + "accessKeyId='" + accessKeyId + '\'' + '}';
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveRateLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+
+    @Test
+    void reserve_whenBurstUsed_thenDelayedOneAfterAnother() {
+        final var rateLimiter = createRateLimiter(10, 2);
+
+        assertThat(rateLimiter.reserve(0)).isZero();
+        assertThat(rateLimiter.reserve(0)).isZero();
+        assertThat(rateLimiter.reserve(0)).isEqualTo(100 * MILLI);
+        assertThat(rateLimiter.reserve(0)).isEqualTo(200 * MILLI);
+    }
+
+    @Test
+    void reserve_whenIdle_thenRefilledUpToBurst() {
+        final var rateLimiter = createRateLimiter(10, 2);
+        rateLimiter.reserve(0);
+        rateLimiter.reserve(0);
+
+        final var now = 10_000 * MILLI;
+        assertThat(rateLimiter.reserve(now)).isZero();
+        assertThat(rateLimiter.reserve(now)).isZero();
+        assertThat(rateLimiter.reserve(now)).isEqualTo(100 * MILLI);
+    }
+
+    @Test
+    void succeeded_whenFast_thenRateIncreasedUpToMaxRate() {
+        final var rateLimiter = createRateLimiter(4, 1);
+
+        rateLimiter.succeeded(0, MILLI);
+        assertThat(rateLimiter.getRate()).isEqualTo(4.25);
+
+        for (var i = 0; i < 10_000; i++) {
+            rateLimiter.succeeded(0, MILLI);
+        }
+        assertThat(rateLimiter.getRate()).isEqualTo(100);
+    }
+
+    @Test
+    void succeeded_whenSlowerThanLatencyThreshold_thenRateDecreased() {
+        final var rateLimiter = createRateLimiter(10, 1);
+
+        rateLimiter.succeeded(0, 2000 * MILLI);
+
+        assertThat(rateLimiter.getRate()).isEqualTo(5);
+    }
+
+    @Test
+    void throttled_whenRepeatedWithinCooldown_thenDecreasedOnce() {
+        final var rateLimiter = createRateLimiter(40, 1);
+
+        rateLimiter.throttled(0);
+        rateLimiter.throttled(10 * MILLI);
+        assertThat(rateLimiter.getRate()).isEqualTo(20);
+
+        rateLimiter.throttled(AdaptiveRateLimiter.DECREASE_COOLDOWN_MILLIS * MILLI);
+        assertThat(rateLimiter.getRate()).isEqualTo(10);
+    }
+
+    @Test
+    void throttled_whenAtMinRate_thenNotDecreasedBelow() {
+        final var rateLimiter = createRateLimiter(3, 1);
+
+        for (var i = 0; i < 5; i++) {
+            rateLimiter.throttled(i * AdaptiveRateLimiter.DECREASE_COOLDOWN_MILLIS * MILLI);
+        }
+
+        assertThat(rateLimiter.getRate()).isEqualTo(2);
+        final var gauge = metricRegistry.getGauges().get(ExtensionMetrics.PREFIX + "publish.rate-limit");
+        assertThat(((Gauge<?>) gauge).getValue()).isEqualTo(2.0);
+    }
+
+    private @NotNull AdaptiveRateLimiter createRateLimiter(final double initialRate, final int burst) {
+        return new AdaptiveRateLimiter(initialRate, 2, 100, burst, 1000, 0, new ExtensionMetrics(metricRegistry));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.regions.Region;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachedRegionProviderTest {
+
+    @Test
+    void getRegion_whenConfigured_thenConfiguredRegion() {
+        assertThat(new CachedRegionProvider("eu-central-1").getRegion()).isEqualTo(Region.EU_CENTRAL_1);
+    }
+
+    @Test
+    void getRegion_whenResolved_thenResolvedOnce() {
+        final var resolutions = new AtomicInteger();
+        final var regionProvider = new CachedRegionProvider(() -> {
+            resolutions.incrementAndGet();
+            return Region.US_EAST_1;
+        });
+
+        assertThat(regionProvider.getRegion()).isEqualTo(Region.US_EAST_1);
+        assertThat(regionProvider.getRegion()).isEqualTo(Region.US_EAST_1);
+        assertThat(resolutions).hasValue(1);
+    }
+
+    @Test
+    void getRegion_whenResolutionFails_thenRetried() {
+        final var resolutions = new AtomicInteger();
+        final var regionProvider = new CachedRegionProvider(() -> {
+            if (resolutions.incrementAndGet() == 1) {
+                throw SdkClientException.create("no region");
+            }
+            return Region.US_EAST_1;
+        });
+
+        assertThatThrownBy(regionProvider::getRegion).isInstanceOf(SdkClientException.class);
+        assertThat(regionProvider.getRegion()).isEqualTo(Region.US_EAST_1);
+    }
+}
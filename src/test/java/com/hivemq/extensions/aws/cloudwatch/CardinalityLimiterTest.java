@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Dimension;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CardinalityLimiterTest {
+
+    @Test
+    void create_whenNoLimit_thenNull() {
+        assertThat(CardinalityLimiter.create(List.of(new Metric("client.", MatchType.PREFIX)),
+                MetricDimensions.NONE,
+                false)).isNull();
+    }
+
+    @Test
+    void fold_whenMoreMetricsThanLimit_thenLeastActiveFolded() {
+        final var limiter = createLimiter(2);
+        final var metrics = new ReportedMetric[]{gauge("client.a", 1), gauge("client.b", 5), gauge("client.c", 3),
+                gauge("client.d", 10), gauge("other", 0)};
+
+        limiter.update(metrics);
+
+        assertThat(Arrays.stream(metrics).filter(limiter::fold)).extracting(ReportedMetric::getName)
+                .containsExactly("client.a", "client.c");
+        final var metricData = new ArrayList<MetricDatum>();
+        limiter.stageOther(metricData, Instant.now());
+        assertThat(metricData).singleElement().satisfies(datum -> {
+            assertThat(datum.metricName()).isEqualTo("client.");
+            assertThat(datum.unit()).isEqualTo(StandardUnit.NONE);
+            assertThat(datum.dimensions()).containsExactly(CloudWatchReporter.GAUGE_DIMENSION,
+                    CardinalityLimiter.OTHER_DIMENSION);
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(2);
+            assertThat(datum.statisticValues().sum()).isEqualTo(4);
+            assertThat(datum.statisticValues().minimum()).isEqualTo(1);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(3);
+        });
+
+        // the folded values are reset after each report
+        metricData.clear();
+        limiter.stageOther(metricData, Instant.now());
+        assertThat(metricData).isEmpty();
+    }
+
+    @Test
+    void fold_whenCounterFolded_thenIncreaseConsumed() {
+        final var limiter = createLimiter(1);
+        final var active = new Counter();
+        final var idle = new Counter();
+        final var metrics = new ReportedMetric[]{counter("client.active", active), counter("client.idle", idle)};
+        active.inc(100);
+        idle.inc(3);
+
+        limiter.update(metrics);
+
+        assertThat(limiter.fold(metrics[0])).isFalse();
+        assertThat(limiter.fold(metrics[1])).isTrue();
+        assertThat(metrics[1].getLastCount()).isEqualTo(3);
+        final var metricData = new ArrayList<MetricDatum>();
+        limiter.stageOther(metricData, Instant.now());
+        assertThat(metricData).singleElement().satisfies(datum -> {
+            assertThat(datum.unit()).isEqualTo(StandardUnit.COUNT);
+            assertThat(datum.dimensions()).first().isEqualTo(CloudWatchReporter.COUNT_DIMENSION);
+            assertThat(datum.statisticValues().sum()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void fold_whenActivityChanges_thenTopMetricsFollow() {
+        final var limiter = createLimiter(1);
+        final var valueA = new AtomicInteger(10);
+        final var valueB = new AtomicInteger(0);
+        final var metrics = new ReportedMetric[]{
+                new ReportedMetric("client.a", (Gauge<Integer>) valueA::get, ReportedMetric.Kind.GAUGE, false),
+                new ReportedMetric("client.b", (Gauge<Integer>) valueB::get, ReportedMetric.Kind.GAUGE, false)};
+        limiter.update(metrics);
+        assertThat(limiter.fold(metrics[1])).isTrue();
+
+        valueA.set(0);
+        valueB.set(10);
+        // the activity decays, so the now active metric takes over after a few reports
+        for (var i = 0; i < 5; i++) {
+            limiter.update(metrics);
+        }
+        assertThat(limiter.fold(metrics[0])).isTrue();
+        assertThat(limiter.fold(metrics[1])).isFalse();
+    }
+
+    @Test
+    void fold_whenManyMetrics_thenMostActiveSent() {
+        // only 6 metrics are monitored, but metrics with more than 1/6 of the total activity are always monitored
+        final var limiter = createLimiter(3);
+        final var metrics = new ReportedMetric[1000];
+        for (var i = 0; i < metrics.length; i++) {
+            metrics[i] = gauge("client." + i, i == 300 || i == 600 || i == 900 ? 100_000 : i % 10);
+        }
+
+        for (var i = 0; i < 3; i++) {
+            limiter.update(metrics);
+        }
+
+        assertThat(Arrays.stream(metrics).filter(metric -> !limiter.fold(metric))).extracting(ReportedMetric::getName)
+                .containsExactlyInAnyOrder("client.300", "client.600", "client.900");
+    }
+
+    @Test
+    void nthSmallest_whenRandomValues_thenSameAsSorted() {
+        final var random = new Random(42);
+        for (var i = 0; i < 1000; i++) {
+            final var values = new double[1 + random.nextInt(50)];
+            for (var j = 0; j < values.length; j++) {
+                values[j] = random.nextInt(10);
+            }
+            final var sorted = values.clone();
+            Arrays.sort(sorted);
+            final var rank = random.nextInt(values.length);
+
+            assertThat(CardinalityLimiter.nthSmallest(values, values.length, rank)).isEqualTo(sorted[rank]);
+        }
+    }
+
+    @Test
+    void stageOther_whenConfiguredDimensions_thenDimensionsOfDefinition() {
+        final var config = new Config();
+        config.getDimensions().add(new Dimension("Env", "prod"));
+        final var metric = new Metric("client.", MatchType.PREFIX);
+        metric.setLimit(1);
+        metric.setDimensions("Team=clients");
+        final var enabledMetrics = List.of(metric);
+        final var limiter = CardinalityLimiter.create(enabledMetrics,
+                MetricDimensions.create(config, enabledMetrics, new DimensionPlaceholders(Map.of(), "node1", mock())),
+                false);
+        assertThat(limiter).isNotNull();
+        final var metrics = new ReportedMetric[]{gauge("client.a", 1), gauge("client.b", 5)};
+
+        limiter.update(metrics);
+        Arrays.stream(metrics).forEach(limiter::fold);
+
+        final var metricData = new ArrayList<MetricDatum>();
+        limiter.stageOther(metricData, Instant.now());
+        assertThat(metricData).singleElement()
+                .satisfies(datum -> assertThat(datum.dimensions()).map(dimension -> dimension.name() + "=" +
+                                dimension.value())
+                        .containsExactly("Type=gauge", "Limit=other", "Env=prod", "Team=clients"));
+    }
+
+    private static @NotNull CardinalityLimiter createLimiter(final int limit) {
+        final var metric = new Metric("client.", MatchType.PREFIX);
+        metric.setLimit(limit);
+        final var limiter = CardinalityLimiter.create(List.of(metric, new Metric("other", MatchType.EXACT)),
+                MetricDimensions.NONE,
+                false);
+        assertThat(limiter).isNotNull();
+        return limiter;
+    }
+
+    private static @NotNull ReportedMetric gauge(final @NotNull String name, final int value) {
+        return new ReportedMetric(name, (Gauge<Integer>) () -> value, ReportedMetric.Kind.GAUGE, false);
+    }
+
+    private static @NotNull ReportedMetric counter(final @NotNull String name, final @NotNull Counter counter) {
+        return new ReportedMetric(name, counter, ReportedMetric.Kind.COUNTER, false);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeDetectorTest {
+
+    private final @NotNull ReportedMetric metric =
+            new ReportedMetric("gauge", (Gauge<Integer>) () -> 0, ReportedMetric.Kind.GAUGE, false);
+
+    @Test
+    void shouldSend_whenNoThreshold_thenOnlyChangedValuesSent() {
+        final var changeDetector = new ChangeDetector(null, null, 10);
+
+        assertThat(changeDetector.shouldSend(metric, 0, 5)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 5)).isFalse();
+        assertThat(changeDetector.shouldSend(metric, 0, 5.5)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 5.5)).isFalse();
+    }
+
+    @Test
+    void shouldSend_whenAbsoluteThreshold_thenComparedToLastSentValue() {
+        final var changeDetector = new ChangeDetector(10.0, null, 10);
+
+        assertThat(changeDetector.shouldSend(metric, 0, 100)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 106)).isFalse();
+        // the difference accumulates, as it is compared to the last sent value
+        assertThat(changeDetector.shouldSend(metric, 0, 111)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 101)).isFalse();
+        assertThat(changeDetector.shouldSend(metric, 0, 100.5)).isTrue();
+    }
+
+    @Test
+    void shouldSend_whenRelativeThreshold_thenComparedToLastSentValue() {
+        final var changeDetector = new ChangeDetector(null, 0.1, 10);
+
+        assertThat(changeDetector.shouldSend(metric, 0, 1000)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 1050)).isFalse();
+        assertThat(changeDetector.shouldSend(metric, 0, 899)).isTrue();
+    }
+
+    @Test
+    void shouldSend_whenBothThresholds_thenEitherTriggers() {
+        final var changeDetector = new ChangeDetector(100.0, 0.5, 10);
+
+        assertThat(changeDetector.shouldSend(metric, 0, 10)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 14)).isFalse();
+        assertThat(changeDetector.shouldSend(metric, 0, 16)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 10_000)).isTrue();
+    }
+
+    @Test
+    void shouldSend_whenUnchangedForHeartbeat_thenSentAgain() {
+        final var changeDetector = new ChangeDetector(null, null, 3);
+
+        assertThat(changeDetector.shouldSend(metric, 0, 1)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 1)).isFalse();
+        assertThat(changeDetector.shouldSend(metric, 0, 1)).isFalse();
+        assertThat(changeDetector.shouldSend(metric, 0, 1)).isTrue();
+        assertThat(changeDetector.shouldSend(metric, 0, 1)).isFalse();
+    }
+
+    @Test
+    void shouldSend_whenSeveralDatums_thenTrackedPerDatum() {
+        final var timer = new ReportedMetric("timer", new Timer(), ReportedMetric.Kind.TIMER, false);
+        final var changeDetector = new ChangeDetector(null, null, 10);
+
+        assertThat(changeDetector.shouldSend(timer, 1, 5)).isTrue();
+        assertThat(changeDetector.shouldSend(timer, 2, 5)).isTrue();
+        assertThat(changeDetector.shouldSend(timer, 1, 5)).isFalse();
+        assertThat(changeDetector.shouldSend(timer, 3, 5)).isTrue();
+    }
+}
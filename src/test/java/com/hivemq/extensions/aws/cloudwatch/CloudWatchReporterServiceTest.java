@@ -20,13 +20,29 @@ import com.codahale.metrics.MetricRegistry;
 import com.hivemq.extension.sdk.api.services.ManagedExtensionExecutorService;
 import com.hivemq.extensions.aws.cloudwatch.configuration.ExtensionConfiguration;
 import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.sun.net.httpserver.HttpServer;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
@@ -39,18 +55,36 @@ class CloudWatchReporterServiceTest {
     private final @NotNull MetricRegistry metricRegistry = mock();
 
     private final @NotNull CloudWatchReporterService reporterService = new CloudWatchReporterService();
+    private final @NotNull ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final @NotNull List<String> contentEncodings = new CopyOnWriteArrayList<>();
+
+    private @NotNull HttpServer server;
+    private @NotNull String endpoint;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         final var config = new Config();
         when(extensionConfiguration.getConfig()).thenReturn(config);
 
         System.setProperty("aws.region", "us-east-1");
+
+        // a local stub of CloudWatch that records the content encoding of the requests
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            contentEncodings.add(String.valueOf(exchange.getRequestHeaders().getFirst("Content-Encoding")));
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        endpoint = "http://localhost:" + server.getAddress().getPort();
     }
 
     @AfterEach
     void tearDown() {
         System.clearProperty("aws.region");
+        server.stop(0);
+        scheduler.shutdownNow();
     }
 
     @Test
@@ -67,4 +101,54 @@ class CloudWatchReporterServiceTest {
         reporterService.startCloudWatchReporter(extensionConfiguration, extensionExecutorService, metricRegistry);
         assertNull(reporterService.getCloudWatchReporter(), "CloudWatchReporter not started");
     }
+
+    @Test
+    void createPublisher_whenNoRequestCompression_thenLargeRequestsGzipCompressedBySdk(
+            final @NotNull @TempDir Path tempDir) throws IOException {
+        final var publisher = createPublisher(tempDir, "");
+
+        publisher.publish(metricData(10)).join();
+        publisher.publish(metricData(1000)).join();
+        publisher.close();
+
+        // the SDK compresses request bodies of at least 10240 bytes by default
+        assertThat(contentEncodings).first().isEqualTo("null");
+        assertThat(contentEncodings).last().isEqualTo("gzip");
+    }
+
+    @Test
+    void createPublisher_whenRequestCompressionDisabled_thenRequestsNotCompressed(final @NotNull @TempDir Path tempDir)
+            throws IOException {
+        final var publisher =
+                createPublisher(tempDir, "<request-compression><enabled>false</enabled></request-compression>");
+
+        publisher.publish(metricData(1000)).join();
+        publisher.close();
+
+        assertThat(contentEncodings).isNotEmpty().containsOnly("null");
+    }
+
+    private @NotNull MetricDataPublisher createPublisher(final @NotNull Path tempDir, final @NotNull String elements)
+            throws IOException {
+        Files.writeString(tempDir.resolve("extension-config.xml"), """
+                <cloudwatch-extension-configuration>
+                    <cloudwatch-endpoint-override>%s</cloudwatch-endpoint-override>
+                    %s
+                </cloudwatch-extension-configuration>""".formatted(endpoint, elements));
+        final var configuration = new ExtensionConfiguration(tempDir.toFile());
+        final var extensionMetrics = new ExtensionMetrics(new MetricRegistry());
+        return CloudWatchReporterService.createPublisher(configuration,
+                scheduler,
+                Runnable::run,
+                extensionMetrics,
+                new PipelineMetrics(extensionMetrics),
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIATEST", "secret")),
+                () -> Region.EU_CENTRAL_1);
+    }
+
+    private static @NotNull List<MetricDatum> metricData(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> MetricDatum.builder().metricName("metric." + i).value(1.0).build())
+                .toList();
+    }
 }
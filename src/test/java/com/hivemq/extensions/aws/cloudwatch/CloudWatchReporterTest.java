@@ -0,0 +1,375 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CloudWatchReporterTest {
+
+    private final @NotNull CloudWatchAsyncClient client = mock();
+    private final @NotNull ScheduledExecutorService executorService = mock();
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                PutMetricDataResponse.builder().build()));
+    }
+
+    @Test
+    void collect_whenCounter_thenDeltaReported() {
+        final var reporter = createReporter(List.of(new Metric("counter", MatchType.EXACT)), false, false);
+        final var counter = metricRegistry.counter("counter");
+        metricRegistry.counter("other").inc(5);
+
+        counter.inc(3);
+        assertThat(reporter.collect(Instant.now())).singleElement().satisfies(datum -> {
+            assertThat(datum.metricName()).isEqualTo("counter");
+            assertThat(datum.value()).isEqualTo(3);
+            assertThat(datum.unit()).isEqualTo(StandardUnit.COUNT);
+            assertThat(datum.storageResolution()).isEqualTo(CloudWatchReporter.STANDARD_RESOLUTION);
+            assertThat(datum.dimensions()).singleElement().satisfies(dimension -> {
+                assertThat(dimension.name()).isEqualTo("Type");
+                assertThat(dimension.value()).isEqualTo("count");
+            });
+        });
+
+        counter.inc(2);
+        assertThat(reporter.collect(Instant.now())).singleElement().extracting(MetricDatum::value).isEqualTo(2.0);
+
+        // unchanged counters are not submitted without zero values submission
+        assertThat(reporter.collect(Instant.now())).isEmpty();
+    }
+
+    @Test
+    void collect_whenRawCountValue_thenTotalReported() {
+        final var reporter = createReporter(List.of(new Metric("counter", MatchType.EXACT)), true, true);
+        final var counter = metricRegistry.counter("counter");
+
+        counter.inc(3);
+        assertThat(reporter.collect(Instant.now())).singleElement().extracting(MetricDatum::value).isEqualTo(3.0);
+        assertThat(reporter.collect(Instant.now())).singleElement().extracting(MetricDatum::value).isEqualTo(3.0);
+    }
+
+    @Test
+    void collect_whenHighResolutionMetric_thenStorageResolutionIsOneSecond() {
+        final var reporter = createReporter(List.of(new Metric("gauge.", MatchType.PREFIX, true),
+                new Metric("standard", MatchType.EXACT)), false, false);
+        metricRegistry.register("gauge.connections", (Gauge<Integer>) () -> 7);
+        metricRegistry.register("standard", (Gauge<Integer>) () -> 8);
+
+        assertThat(reporter.collect(Instant.now())).satisfiesExactly(datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge.connections");
+            assertThat(datum.value()).isEqualTo(7);
+            assertThat(datum.storageResolution()).isEqualTo(CloudWatchReporter.HIGH_RESOLUTION);
+        }, datum -> {
+            assertThat(datum.metricName()).isEqualTo("standard");
+            assertThat(datum.storageResolution()).isEqualTo(CloudWatchReporter.STANDARD_RESOLUTION);
+        });
+    }
+
+    @Test
+    void collect_whenTimer_thenCountAndPercentilesReported() {
+        final var reporter = createReporter(List.of(new Metric("timer", MatchType.EXACT)), false, false);
+        metricRegistry.timer("timer").update(5, TimeUnit.MILLISECONDS);
+
+        final var metricData = reporter.collect(Instant.now());
+        assertThat(metricData).extracting(datum -> datum.dimensions().getFirst().value())
+                .containsExactly("count", "75%", "95%", "99.9%");
+        assertThat(metricData.subList(1, 4)).allSatisfy(datum -> {
+            assertThat(datum.value()).isEqualTo(5.0);
+            assertThat(datum.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+        });
+    }
+
+    @Test
+    void collect_whenDimensionsConfigured_thenAddedAfterTypeDimension() {
+        final var metric = new Metric("gauge", MatchType.EXACT);
+        metric.setDimensions("Node=${hostname}");
+        final var metrics = List.of(metric);
+        final var placeholders = new DimensionPlaceholders(Map.of(), "node1", mock());
+        final var reportedMetrics = new ReportedMetrics(new ConfiguredMetricsFilter(metrics),
+                new ConfiguredMetricsFilter(List.of()),
+                MetricDimensions.create(new Config(), metrics, placeholders));
+        metricRegistry.addListener(reportedMetrics);
+        final var publisher = createPublisher();
+        final var reporter = CloudWatchReporter.builder(publisher, reportedMetrics).build();
+        metricRegistry.register("gauge", (Gauge<Integer>) () -> 7);
+
+        assertThat(reporter.collect(Instant.now())).singleElement()
+                .extracting(MetricDatum::dimensions)
+                .isEqualTo(List.of(Dimension.builder().name("Type").value("gauge").build(),
+                        Dimension.builder().name("Node").value("node1").build()));
+    }
+
+    @Test
+    void collect_whenClusterAggregator_thenOnlyNodeMetricsReportedPerNode() {
+        final var metrics = List.of(new Metric("gauge.", MatchType.PREFIX));
+        final var reportedMetrics = new ReportedMetrics(new ConfiguredMetricsFilter(metrics),
+                new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        final var clusterAggregator = new ClusterAggregator("node1",
+                new LoopbackClusterTransport(new ConcurrentHashMap<>()),
+                new ConfiguredMetricsFilter(List.of(new Metric("gauge.node", MatchType.EXACT))),
+                MetricDimensions.NONE,
+                180_000,
+                false);
+        final var publisher = createPublisher();
+        final var reporter =
+                CloudWatchReporter.builder(publisher, reportedMetrics).clusterAggregator(clusterAggregator).build();
+        metricRegistry.register("gauge.cluster", (Gauge<Integer>) () -> 7);
+        metricRegistry.register("gauge.node", (Gauge<Integer>) () -> 8);
+
+        assertThat(reporter.collect(Instant.now())).satisfiesExactly(datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge.cluster");
+            assertThat(datum.dimensions()).contains(ClusterAggregator.CLUSTER_SCOPE_DIMENSION);
+        }, datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge.node");
+            assertThat(datum.dimensions()).contains(ClusterAggregator.CLUSTER_SCOPE_DIMENSION);
+        }, datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge.node");
+            assertThat(datum.value()).isEqualTo(8);
+            assertThat(datum.dimensions()).containsExactly(CloudWatchReporter.GAUGE_DIMENSION);
+        });
+    }
+
+    @Test
+    void collect_whenChangeDetection_thenUnchangedLevelsSkipped() {
+        final var metrics = List.of(new Metric("gauge", MatchType.EXACT), new Metric("counter", MatchType.EXACT));
+        final var reportedMetrics = new ReportedMetrics(new ConfiguredMetricsFilter(metrics),
+                new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        final var publisher = createPublisher();
+        final var reporter = CloudWatchReporter.builder(publisher, reportedMetrics)
+                .changeDetector(new ChangeDetector(null, null, 10))
+                .build();
+        final var value = new AtomicInteger(7);
+        metricRegistry.register("gauge", (Gauge<Integer>) value::get);
+        final var counter = metricRegistry.counter("counter");
+
+        counter.inc(2);
+        assertThat(reporter.collect(Instant.now())).extracting(MetricDatum::metricName)
+                .containsExactly("counter", "gauge");
+
+        // count differences are not levels, so an equal difference is sent again
+        counter.inc(2);
+        assertThat(reporter.collect(Instant.now())).extracting(MetricDatum::metricName).containsExactly("counter");
+
+        value.set(8);
+        assertThat(reporter.collect(Instant.now())).singleElement().extracting(MetricDatum::value).isEqualTo(8.0);
+    }
+
+    @Test
+    void collect_whenSketches_thenHistogramCountAndSketchInsteadOfPercentiles() {
+        final var metrics = List.of(new Metric("histogram", MatchType.EXACT));
+        final var reportedMetrics =
+                new ReportedMetrics(new ConfiguredMetricsFilter(metrics), new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        final var publisher = createPublisher();
+        final var reporter = CloudWatchReporter.builder(publisher, reportedMetrics)
+                .sketches(new MetricSketches(reportedMetrics, 0.02, 1000))
+                .build();
+        final var histogram = metricRegistry.histogram("histogram");
+        assertThat(reporter.collect(Instant.now())).isEmpty();
+
+        histogram.update(20);
+        histogram.update(20);
+
+        assertThat(reporter.collect(Instant.now())).satisfiesExactly(count -> {
+            assertThat(count.dimensions()).containsExactly(CloudWatchReporter.COUNT_DIMENSION);
+            assertThat(count.value()).isEqualTo(2);
+        }, sketch -> {
+            assertThat(sketch.dimensions()).containsExactly(CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION);
+            assertThat(sketch.values()).hasSize(1);
+            assertThat(sketch.counts()).containsExactly(2.0);
+        });
+    }
+
+    @Test
+    void collect_whenMetricRemoved_thenNotReported() {
+        final var reporter = createReporter(List.of(new Metric("gauge", MatchType.EXACT)), true, false);
+        metricRegistry.register("gauge", (Gauge<Integer>) () -> 0);
+        assertThat(reporter.collect(Instant.now())).hasSize(1);
+
+        metricRegistry.remove("gauge");
+        assertThat(reporter.collect(Instant.now())).isEmpty();
+    }
+
+    @Test
+    void collect_whenFiltersReplaced_thenEnabledMetricsKeepTheirState() {
+        final var metrics = List.of(new Metric("counter", MatchType.EXACT));
+        final var reportedMetrics =
+                new ReportedMetrics(new ConfiguredMetricsFilter(metrics), new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        final var publisher = createPublisher();
+        final var reporter = CloudWatchReporter.builder(publisher, reportedMetrics).build();
+        final var counter = metricRegistry.counter("counter");
+        metricRegistry.register("gauge", (Gauge<Integer>) () -> 7);
+        counter.inc(3);
+        assertThat(reporter.collect(Instant.now())).singleElement().extracting(MetricDatum::value).isEqualTo(3.0);
+
+        final var newMetrics = List.of(new Metric("counter", MatchType.EXACT), new Metric("gauge", MatchType.EXACT));
+        reportedMetrics.setFilters(new ConfiguredMetricsFilter(newMetrics),
+                new ConfiguredMetricsFilter(List.of(new Metric("gauge", MatchType.EXACT))),
+                MetricDimensions.NONE,
+                metricRegistry.getMetrics());
+        counter.inc(2);
+
+        assertThat(reporter.collect(Instant.now())).satisfiesExactly(datum -> {
+            assertThat(datum.metricName()).isEqualTo("counter");
+            // the delta to the count before the filters were replaced
+            assertThat(datum.value()).isEqualTo(2.0);
+        }, datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge");
+            assertThat(datum.storageResolution()).isEqualTo(CloudWatchReporter.HIGH_RESOLUTION);
+        });
+
+        reportedMetrics.setFilters(new ConfiguredMetricsFilter(List.of(new Metric("gauge", MatchType.EXACT))),
+                new ConfiguredMetricsFilter(List.of()),
+                MetricDimensions.NONE,
+                metricRegistry.getMetrics());
+        counter.inc(2);
+        assertThat(reporter.collect(Instant.now())).singleElement().satisfies(datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge");
+            assertThat(datum.storageResolution()).isEqualTo(CloudWatchReporter.STANDARD_RESOLUTION);
+        });
+    }
+
+    @Test
+    void collect_whenDimensionsReloaded_thenOnlyIncreaseReportedWithNewDimensions() {
+        final var metrics = List.of(new Metric("counter", MatchType.EXACT));
+        final var reportedMetrics =
+                new ReportedMetrics(new ConfiguredMetricsFilter(metrics), new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        final var reporter = CloudWatchReporter.builder(createPublisher(), reportedMetrics).build();
+        final var counter = metricRegistry.counter("counter");
+        counter.inc(5);
+        assertThat(reporter.collect(Instant.now())).singleElement().extracting(MetricDatum::value).isEqualTo(5.0);
+
+        final var metric = new Metric("counter", MatchType.EXACT);
+        metric.setDimensions("Team=iot");
+        final var newMetrics = List.of(metric);
+        reportedMetrics.setFilters(new ConfiguredMetricsFilter(newMetrics),
+                new ConfiguredMetricsFilter(newMetrics),
+                MetricDimensions.create(new Config(), newMetrics, new DimensionPlaceholders(Map.of(), "node1", mock())),
+                metricRegistry.getMetrics());
+        counter.inc(2);
+
+        assertThat(reporter.collect(Instant.now())).singleElement().satisfies(datum -> {
+            assertThat(datum.value()).isEqualTo(2.0);
+            assertThat(datum.storageResolution()).isEqualTo(CloudWatchReporter.HIGH_RESOLUTION);
+            assertThat(datum.dimensions()).containsExactly(CloudWatchReporter.COUNT_DIMENSION,
+                    Dimension.builder().name("Team").value("iot").build());
+        });
+    }
+
+    @Test
+    void report_whenManyMetrics_thenPackedRequests() {
+        final var reporter = createReporter(List.of(new Metric("gauge.", MatchType.PREFIX)), true, false);
+        for (var i = 0; i < 2500; i++) {
+            metricRegistry.register("gauge." + i, (Gauge<Integer>) () -> 1);
+        }
+
+        reporter.report();
+
+        final var captor = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        verify(client, times(3)).putMetricData(captor.capture());
+        assertThat(captor.getAllValues()).extracting(request -> request.metricData().size())
+                .containsExactly(1000, 1000, 500);
+        assertThat(captor.getAllValues()).allSatisfy(request -> assertThat(request.namespace()).isEqualTo("test"));
+    }
+
+    @Test
+    void start_whenAligned_thenFirstReportAtIntervalBoundaryAndTickMetricsRecorded() {
+        final var reporter = createReporter(List.of(new Metric("gauge", MatchType.EXACT)), false, false);
+
+        final var before = System.currentTimeMillis();
+        reporter.start(executorService, 1, TimeUnit.MINUTES, true, new ExtensionMetrics(metricRegistry));
+        final var after = System.currentTimeMillis();
+
+        final var report = ArgumentCaptor.forClass(Runnable.class);
+        final var initialDelay = ArgumentCaptor.forClass(Long.class);
+        verify(executorService).scheduleAtFixedRate(report.capture(),
+                initialDelay.capture(),
+                eq(60_000L),
+                eq(TimeUnit.MILLISECONDS));
+        assertThat(initialDelay.getValue()).isBetween(1L, 60_000L);
+        // the first report is due at a full minute
+        assertThat((after + initialDelay.getValue()) / 60_000 * 60_000).isGreaterThanOrEqualTo(before +
+                initialDelay.getValue());
+
+        report.getValue().run();
+        assertThat(metricRegistry.histogram(ExtensionMetrics.PREFIX + "report.tick-drift").getCount()).isOne();
+        assertThat(metricRegistry.histogram(ExtensionMetrics.PREFIX + "report.tick-duration").getCount()).isOne();
+    }
+
+    @Test
+    void sendableValue_whenOutOfRange_thenClamped() {
+        assertThat(CloudWatchReporter.sendableValue(Double.NaN)).isEqualTo(0);
+        assertThat(CloudWatchReporter.sendableValue(1e-200)).isEqualTo(8.515920e-109);
+        assertThat(CloudWatchReporter.sendableValue(-1e200)).isEqualTo(-1.174271e+108);
+        assertThat(CloudWatchReporter.sendableValue(42)).isEqualTo(42);
+    }
+
+    private @NotNull CloudWatchReporter createReporter(
+            final @NotNull List<Metric> metrics,
+            final boolean zeroValuesSubmission,
+            final boolean reportRawCountValue) {
+        final var reportedMetrics = new ReportedMetrics(new ConfiguredMetricsFilter(metrics),
+                new ConfiguredMetricsFilter(metrics.stream().filter(Metric::isHighResolution).toList()));
+        metricRegistry.addListener(reportedMetrics);
+        return CloudWatchReporter.builder(createPublisher(), reportedMetrics)
+                .zeroValuesSubmission(zeroValuesSubmission)
+                .reportRawCountValue(reportRawCountValue)
+                .build();
+    }
+
+    private @NotNull MetricDataPublisher createPublisher() {
+        return MetricDataPublisher.builder(client, "test", executorService).maxInFlightRequests(4).build();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.UniformReservoir;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Dimension;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ClusterAggregatorTest {
+
+    private static final long NODE_TIMEOUT = 180_000;
+
+    private final @NotNull Map<String, byte[]> summaries = new ConcurrentHashMap<>();
+
+    @Test
+    void collect_whenGauges_thenOnlyLeaderSendsSum() {
+        final var node1 = createAggregator("node1");
+        final var node2 = createAggregator("node2");
+        final var metrics1 = new ReportedMetric[]{gauge(3)};
+        final var metrics2 = new ReportedMetric[]{gauge(5)};
+        final var timestamp = Instant.ofEpochMilli(1_000_000);
+
+        collect(node1, timestamp, metrics1);
+        assertThat(collect(node2, timestamp, metrics2)).isEmpty();
+        assertThat(collect(node1, timestamp, metrics1)).singleElement().satisfies(datum -> {
+            assertThat(datum.metricName()).isEqualTo("gauge");
+            assertThat(datum.unit()).isEqualTo(StandardUnit.NONE);
+            assertThat(datum.dimensions()).containsExactly(CloudWatchReporter.GAUGE_DIMENSION,
+                    ClusterAggregator.CLUSTER_SCOPE_DIMENSION);
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(2);
+            assertThat(datum.statisticValues().sum()).isEqualTo(8);
+            assertThat(datum.statisticValues().minimum()).isEqualTo(3);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(5);
+        });
+        assertThat(collect(node2, timestamp, metrics2)).isEmpty();
+    }
+
+    @Test
+    void collect_whenCounters_thenIncreasesOfAllNodesSummed() {
+        final var node1 = createAggregator("node1");
+        final var node2 = createAggregator("node2");
+        final var counter1 = new Counter();
+        final var counter2 = new Counter();
+        final var metrics1 = new ReportedMetric[]{counter(counter1)};
+        final var metrics2 = new ReportedMetric[]{counter(counter2)};
+        counter1.inc(10);
+        counter2.inc(20);
+        collect(node2, Instant.ofEpochMilli(1_000_000), metrics2);
+
+        // the first summary of each node only sets the base of the increases
+        assertThat(collect(node1, Instant.ofEpochMilli(1_000_000), metrics1)).isEmpty();
+
+        counter1.inc(1);
+        counter2.inc(2);
+        collect(node2, Instant.ofEpochMilli(1_060_000), metrics2);
+        assertThat(collect(node1, Instant.ofEpochMilli(1_060_000), metrics1)).singleElement().satisfies(datum -> {
+            assertThat(datum.unit()).isEqualTo(StandardUnit.COUNT);
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(2);
+            assertThat(datum.statisticValues().sum()).isEqualTo(3);
+            assertThat(datum.statisticValues().minimum()).isEqualTo(1);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(2);
+        });
+
+        // a restarted node starts counting from zero
+        final var restartedCounter = new Counter();
+        restartedCounter.inc(4);
+        collect(node2, Instant.ofEpochMilli(1_120_000), new ReportedMetric[]{counter(restartedCounter)});
+        assertThat(collect(node1, Instant.ofEpochMilli(1_120_000), metrics1)).singleElement()
+                .satisfies(datum -> assertThat(datum.statisticValues().sum()).isEqualTo(4));
+    }
+
+    @Test
+    void collect_whenHistograms_thenSnapshotsMerged() {
+        final var node1 = createAggregator("node1");
+        final var node2 = createAggregator("node2");
+        final var histogram1 = new Histogram(new UniformReservoir());
+        final var histogram2 = new Histogram(new UniformReservoir());
+        final var metrics1 = new ReportedMetric[]{histogram(histogram1)};
+        final var metrics2 = new ReportedMetric[]{histogram(histogram2)};
+        collect(node2, Instant.ofEpochMilli(1_000_000), metrics2);
+        collect(node1, Instant.ofEpochMilli(1_000_000), metrics1);
+
+        histogram1.update(2);
+        histogram1.update(4);
+        histogram2.update(10);
+        collect(node2, Instant.ofEpochMilli(1_060_000), metrics2);
+
+        assertThat(collect(node1, Instant.ofEpochMilli(1_060_000), metrics1)).singleElement().satisfies(datum -> {
+            assertThat(datum.dimensions()).first().isEqualTo(CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION);
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(3);
+            assertThat(datum.statisticValues().sum()).isEqualTo(16);
+            assertThat(datum.statisticValues().minimum()).isEqualTo(2);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(10);
+        });
+    }
+
+    @Test
+    void collect_whenLeaderTimedOut_thenNextNodeTakesOver() {
+        final var node1 = createAggregator("node1");
+        final var node2 = createAggregator("node2");
+        final var metrics = new ReportedMetric[]{gauge(1)};
+        collect(node1, Instant.ofEpochMilli(1_000_000), metrics);
+        assertThat(collect(node2, Instant.ofEpochMilli(1_000_000), metrics)).isEmpty();
+
+        assertThat(collect(node2, Instant.ofEpochMilli(1_000_000 + NODE_TIMEOUT + 1), metrics)).singleElement()
+                .satisfies(datum -> assertThat(datum.statisticValues().sampleCount()).isEqualTo(1));
+    }
+
+    @Test
+    void close_whenLeader_thenNextNodeTakesOver() {
+        final var node1 = createAggregator("node1");
+        final var node2 = createAggregator("node2");
+        final var metrics = new ReportedMetric[]{gauge(1)};
+        collect(node1, Instant.ofEpochMilli(1_000_000), metrics);
+
+        node1.close();
+
+        assertThat(collect(node2, Instant.ofEpochMilli(1_000_000), metrics)).hasSize(1);
+    }
+
+    @Test
+    void collect_whenConfiguredDimensions_thenOnlyClusterWideDimensionsSent() {
+        final var config = new Config();
+        config.getDimensions().add(new Dimension("Node", "${node-id}"));
+        config.getDimensions().add(new Dimension("Cluster", "${cluster-id}"));
+        config.getDimensions().add(new Dimension("Env", "prod"));
+        final var dimensions = MetricDimensions.createClusterWide(config,
+                List.of(new Metric("gauge", MatchType.EXACT)),
+                new DimensionPlaceholders(Map.of("HIVEMQ_CLUSTER_ID", "cluster1"), "node1", mock()));
+        final var node1 = createAggregator("node1", dimensions);
+        final var metrics = new ReportedMetric[]{gauge(3)};
+        final var timestamp = Instant.ofEpochMilli(1_000_000);
+
+        collect(node1, timestamp, metrics);
+        assertThat(collect(node1, timestamp, metrics)).singleElement()
+                .satisfies(datum -> assertThat(datum.dimensions()).map(dimension -> dimension.name() + "=" +
+                                dimension.value())
+                        .containsExactly("Type=gauge", "Scope=cluster", "Cluster=cluster1", "Env=prod"));
+    }
+
+    @Test
+    void isNodeMetric_whenInNodeMetrics_thenTrue() {
+        final var aggregator = createAggregator("node1");
+
+        assertThat(aggregator.isNodeMetric(gauge(1))).isFalse();
+        assertThat(aggregator.isNodeMetric(new ReportedMetric("node.gauge",
+                (Gauge<Integer>) () -> 1,
+                ReportedMetric.Kind.GAUGE,
+                false))).isTrue();
+    }
+
+    private @NotNull ClusterAggregator createAggregator(final @NotNull String nodeId) {
+        return createAggregator(nodeId, MetricDimensions.NONE);
+    }
+
+    private @NotNull ClusterAggregator createAggregator(
+            final @NotNull String nodeId,
+            final @NotNull MetricDimensions dimensions) {
+        return new ClusterAggregator(nodeId,
+                new LoopbackClusterTransport(summaries),
+                new ConfiguredMetricsFilter(List.of(new Metric("node.", MatchType.PREFIX))),
+                dimensions,
+                NODE_TIMEOUT,
+                false);
+    }
+
+    private static @NotNull List<MetricDatum> collect(
+            final @NotNull ClusterAggregator aggregator,
+            final @NotNull Instant timestamp,
+            final @NotNull ReportedMetric @NotNull [] metrics) {
+        final var metricData = new ArrayList<MetricDatum>();
+        aggregator.collect(timestamp, metrics, metricData);
+        return metricData;
+    }
+
+    private static @NotNull ReportedMetric gauge(final int value) {
+        return new ReportedMetric("gauge", (Gauge<Integer>) () -> value, ReportedMetric.Kind.GAUGE, false);
+    }
+
+    private static @NotNull ReportedMetric counter(final @NotNull Counter counter) {
+        return new ReportedMetric("counter", counter, ReportedMetric.Kind.COUNTER, false);
+    }
+
+    private static @NotNull ReportedMetric histogram(final @NotNull Histogram histogram) {
+        return new ReportedMetric("histogram", histogram, ReportedMetric.Kind.HISTOGRAM, false);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfiguredMetricsFilterTest {
+
+    @Test
+    void matches_whenExactName_thenOnlyEqualNamesMatch() {
+        final var filter = new ConfiguredMetricsFilter(List.of(new Metric("com.hivemq.messages.incoming.total.count",
+                MatchType.EXACT)));
+
+        assertThat(filter.matches("com.hivemq.messages.incoming.total.count", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages.incoming.total.count.other", null)).isFalse();
+        assertThat(filter.matches("com.hivemq.messages.incoming", null)).isFalse();
+        assertThat(filter.matches(null, null)).isFalse();
+    }
+
+    @Test
+    void matches_whenPrefix_thenAllNamesWithPrefixMatch() {
+        final var filter = new ConfiguredMetricsFilter(List.of(new Metric("com.hivemq.messages.", MatchType.PREFIX),
+                new Metric("com.hivemq.messages.incoming.", MatchType.PREFIX)));
+
+        assertThat(filter.matches("com.hivemq.messages.incoming.total.count", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages.outgoing.total.count", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages.", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages", null)).isFalse();
+        assertThat(filter.matches("com.hivemq.networking.bytes.read.total", null)).isFalse();
+    }
+
+    @Test
+    void matches_whenGlob_thenSingleAndMultiSegmentWildcardsMatch() {
+        final var filter = new ConfiguredMetricsFilter(List.of(new Metric("com.hivemq.messages.*.count",
+                MatchType.GLOB), new Metric("com.hivemq.jvm.**", MatchType.GLOB)));
+
+        assertThat(filter.matches("com.hivemq.messages.dropped.count", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages.incoming.total.count", null)).isFalse();
+        assertThat(filter.matches("com.hivemq.jvm.memory.heap.used", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.jvmx.memory", null)).isFalse();
+    }
+
+    @Test
+    void matches_whenRegex_thenFullNameMustMatch() {
+        final var filter = new ConfiguredMetricsFilter(List.of(
+                new Metric("com\\.hivemq\\.messages\\.(incoming|outgoing)\\.total\\.count", MatchType.REGEX),
+                new Metric("invalid[", MatchType.REGEX)));
+
+        assertThat(filter.matches("com.hivemq.messages.incoming.total.count", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages.outgoing.total.count", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.messages.outgoing.total.count.rate", null)).isFalse();
+        assertThat(filter.matches("invalid[", null)).isFalse();
+    }
+
+    @Test
+    void matches_whenMetricRemovedFromRegistry_thenCachedDecisionDropped() {
+        final var filter = new ConfiguredMetricsFilter(List.of(new Metric("com.hivemq.", MatchType.PREFIX)));
+        final var registry = new MetricRegistry();
+        registry.addListener(filter);
+        registry.register("com.hivemq.test.counter", new Counter());
+
+        assertThat(filter.matches("com.hivemq.test.counter", null)).isTrue();
+        assertThat(filter.matches("com.hivemq.test.counter", null)).isTrue();
+        assertThat(filter.matches("other.counter", null)).isFalse();
+        assertThat(filter.cachedDecisions()).isEqualTo(2);
+
+        registry.remove("com.hivemq.test.counter");
+        assertThat(filter.cachedDecisions()).isEqualTo(1);
+    }
+
+    @Test
+    void globToRegex_whenLiteralCharacters_thenQuoted() {
+        assertThat("com.hivemq.a+b.count").matches(ConfiguredMetricsFilter.globToRegex("com.hivemq.a+b.*"));
+        assertThat("com.hivemq.aab.count").doesNotMatch(ConfiguredMetricsFilter.globToRegex("com.hivemq.a+b.*"));
+        assertThat("com.hivemq.x.count").matches(ConfiguredMetricsFilter.globToRegex("com.hivemq.?.count"));
+    }
+}
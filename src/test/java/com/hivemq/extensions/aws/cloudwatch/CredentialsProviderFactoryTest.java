@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.ExtensionConfiguration;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Credentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CredentialsProviderFactoryTest {
+
+    private static final @NotNull Instant EXPIRATION = Instant.parse("2099-01-01T00:00:00Z");
+
+    private final @NotNull List<String> requests = new ArrayList<>();
+
+    private @NotNull HttpServer server;
+    private @NotNull String endpoint;
+
+    @TempDir
+    private @NotNull Path extensionHome;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // a local stub of STS
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            final var body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requests.add(URLDecoder.decode(body, StandardCharsets.UTF_8));
+            respond(exchange, """
+                    <AssumeRoleResponse xmlns="https://sts.amazonaws.com/doc/2011-06-15/">
+                      <AssumeRoleResult>
+                        <AssumedRoleUser>
+                          <Arn>arn:aws:sts::123456789012:assumed-role/metrics/hivemq</Arn>
+                          <AssumedRoleId>AROA123:hivemq</AssumedRoleId>
+                        </AssumedRoleUser>
+                        <Credentials>
+                          <AccessKeyId>ASIAASSUMED</AccessKeyId>
+                          <SecretAccessKey>assumed-secret</SecretAccessKey>
+                          <SessionToken>assumed-token</SessionToken>
+                          <Expiration>%s</Expiration>
+                        </Credentials>
+                      </AssumeRoleResult>
+                      <ResponseMetadata><RequestId>request-id</RequestId></ResponseMetadata>
+                    </AssumeRoleResponse>""".formatted(EXPIRATION));
+        });
+        server.start();
+        endpoint = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void delegate_whenStatic_thenStaticCredentials() throws IOException {
+        final var credentials = credentials("""
+                <credentials>
+                    <static>
+                        <access-key-id>AKIASTATIC</access-key-id>
+                        <secret-access-key>static-secret</secret-access-key>
+                        <session-token>static-token</session-token>
+                    </static>
+                </credentials>""");
+
+        final var resolved = CredentialsProviderFactory.delegate(credentials, () -> Region.EU_CENTRAL_1)
+                .resolveCredentials();
+
+        assertThat(resolved).isInstanceOfSatisfying(AwsSessionCredentials.class, sessionCredentials -> {
+            assertThat(sessionCredentials.accessKeyId()).isEqualTo("AKIASTATIC");
+            assertThat(sessionCredentials.secretAccessKey()).isEqualTo("static-secret");
+            assertThat(sessionCredentials.sessionToken()).isEqualTo("static-token");
+        });
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void delegate_whenAssumeRole_thenRoleAssumedWithSourceCredentials() throws IOException {
+        final var credentials = credentials("""
+                <credentials>
+                    <region>eu-central-1</region>
+                    <static>
+                        <access-key-id>AKIASTATIC</access-key-id>
+                        <secret-access-key>static-secret</secret-access-key>
+                    </static>
+                    <assume-role>
+                        <role-arn>arn:aws:iam::123456789012:role/metrics</role-arn>
+                        <session-name>hivemq</session-name>
+                        <external-id>external</external-id>
+                        <duration>900</duration>
+                        <sts-endpoint-override>%s</sts-endpoint-override>
+                    </assume-role>
+                </credentials>""".formatted(endpoint));
+
+        final var delegate =
+                CredentialsProviderFactory.delegate(credentials, new CachedRegionProvider(credentials.getRegion()));
+        final var resolved = delegate.resolveCredentials();
+
+        assertThat(resolved).isInstanceOfSatisfying(AwsSessionCredentials.class, sessionCredentials -> {
+            assertThat(sessionCredentials.accessKeyId()).isEqualTo("ASIAASSUMED");
+            assertThat(sessionCredentials.sessionToken()).isEqualTo("assumed-token");
+        });
+        assertThat(resolved.expirationTime()).hasValue(EXPIRATION);
+        assertThat(requests).singleElement()
+                .satisfies(request -> assertThat(request).contains("Action=AssumeRole",
+                        "RoleArn=arn:aws:iam::123456789012:role/metrics",
+                        "RoleSessionName=hivemq",
+                        "ExternalId=external",
+                        "DurationSeconds=900"));
+        ((SdkAutoCloseable) delegate).close();
+    }
+
+    private @NotNull Credentials credentials(final @NotNull String credentials) throws IOException {
+        final var configFile = extensionHome.resolve("conf").resolve("config.xml");
+        Files.createDirectories(configFile.getParent());
+        Files.writeString(configFile,
+                "<cloudwatch-extension-configuration>" + credentials + "</cloudwatch-extension-configuration>");
+        return new ExtensionConfiguration(extensionHome.toFile()).getConfig().getCredentials().orElseThrow();
+    }
+
+    private static void respond(final @NotNull HttpExchange exchange, final @NotNull String body)
+            throws IOException {
+        final var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/xml");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DebugSinkTest {
+
+    @Test
+    void format_whenValue_thenNameDimensionsValueAndUnit() {
+        final var datum = MetricDatum.builder()
+                .metricName("com.hivemq.messages.incoming.total.count")
+                .dimensions(Dimension.builder().name("Type").value("counter").build(),
+                        Dimension.builder().name("Node").value("node-1").build())
+                .value(42.0)
+                .unit(StandardUnit.COUNT)
+                .timestamp(Instant.EPOCH)
+                .build();
+
+        assertThat(DebugSink.format(datum)).isEqualTo("com.hivemq.messages.incoming.total.count " +
+                "{Type=counter, Node=node-1} 42.0 Count @ 1970-01-01T00:00:00Z");
+    }
+
+    @Test
+    void format_whenStatisticSetOrValues_thenAllStatistics() {
+        final var statisticSet = MetricDatum.builder()
+                .metricName("latency")
+                .statisticValues(StatisticSet.builder().sum(10.0).sampleCount(2.0).minimum(4.0).maximum(6.0).build())
+                .timestamp(Instant.EPOCH)
+                .build();
+        final var values = MetricDatum.builder()
+                .metricName("latency")
+                .values(1.0, 2.0)
+                .counts(3.0, 1.0)
+                .timestamp(Instant.EPOCH)
+                .build();
+
+        assertThat(DebugSink.format(statisticSet)).isEqualTo(
+                "latency {} sum=10.0, count=2.0, min=4.0, max=6.0 @ 1970-01-01T00:00:00Z");
+        assertThat(DebugSink.format(values)).isEqualTo(
+                "latency {} values=[1.0, 2.0], counts=[3.0, 1.0] @ 1970-01-01T00:00:00Z");
+    }
+
+    @Test
+    void publish_thenCompleted() {
+        assertThat(new DebugSink().publish(List.of(MetricDatum.builder().metricName("metric").value(1.0).build())))
+                .isCompleted();
+    }
+}
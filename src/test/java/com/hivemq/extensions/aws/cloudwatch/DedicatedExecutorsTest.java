@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DedicatedExecutorsTest {
+
+    private DedicatedExecutors executors;
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void getCompletionExecutor_whenVirtualThreadsDisabled_thenPlatformThreads() throws Exception {
+        executors = new DedicatedExecutors(2, 10, false);
+
+        final var thread = executors.getCompletionExecutor().submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+
+        assertThat(executors.getCompletionExecutor()).isInstanceOf(ThreadPoolExecutor.class);
+        assertThat(thread.getName()).startsWith("hivemq-cloudwatch-completion-");
+        assertThat(thread.isDaemon()).isTrue();
+    }
+
+    @Test
+    void getCompletionExecutor_whenVirtualThreadsSupported_thenVirtualThreads() throws Exception {
+        executors = new DedicatedExecutors(2, 10, true);
+
+        final var thread = executors.getCompletionExecutor().submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+
+        assertThat(executors.getCompletionExecutor()).isNotInstanceOf(ThreadPoolExecutor.class);
+        assertThat(thread.isVirtual()).isTrue();
+    }
+
+    @Test
+    void getScheduler_thenDedicatedDaemonThread() throws Exception {
+        executors = new DedicatedExecutors(2, 10, false);
+
+        final var thread = executors.getScheduler().submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+
+        assertThat(thread.getName()).isEqualTo("hivemq-cloudwatch-scheduler-1");
+        assertThat(thread.isDaemon()).isTrue();
+    }
+
+    @Test
+    void queueSize_whenSchedulerBusy_thenOnlyDueTasksCounted() throws Exception {
+        executors = new DedicatedExecutors(2, 10, false);
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        executors.getScheduler().execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+
+        executors.getScheduler().execute(() -> {});
+        executors.getScheduler().execute(() -> {});
+        executors.getScheduler().schedule(() -> {}, 1, TimeUnit.HOURS);
+
+        assertThat(executors.queueSize()).isEqualTo(2);
+        release.countDown();
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.StartupTimeoutPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DeferredSinkTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull ExtensionMetrics extensionMetrics = new ExtensionMetrics(metricRegistry);
+    private final @NotNull ScheduledExecutorService scheduler = mock();
+    private final @NotNull ManualExecutor executor = new ManualExecutor();
+    private final @NotNull RecordingSink recordingSink = new RecordingSink();
+
+    @Test
+    void start_whenSinkCreatedLater_thenReturnsWithoutCreatingSink() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.DROP);
+
+        deferredSink.start();
+
+        assertThat(recordingSink.started).isFalse();
+        assertThat(gauge("startup.status")).isEqualTo(DeferredSink.STATUS_INITIALIZING);
+        executor.runAll();
+        assertThat(recordingSink.started).isTrue();
+        assertThat(gauge("startup.status")).isEqualTo(DeferredSink.STATUS_READY);
+    }
+
+    @Test
+    void publish_whenInitializing_thenReportsPublishedInOrderOnceReady() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.DROP);
+        deferredSink.start();
+
+        final var first = deferredSink.publish(metricData(1));
+        final var second = deferredSink.publish(metricData(2));
+
+        // buffered reports are completed right away, so a queue in front of the sink does not fill up
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(gauge("startup.buffered")).isEqualTo(2);
+        executor.runAll();
+        assertThat(recordingSink.published).containsExactly(metricData(1), metricData(2));
+        assertThat(gauge("startup.buffered")).isEqualTo(0);
+
+        deferredSink.publish(metricData(3));
+        assertThat(recordingSink.published).containsExactly(metricData(1), metricData(2), metricData(3));
+    }
+
+    @Test
+    void publish_whenBufferFull_thenOldestReportDropped() {
+        final var deferredSink = deferredSink(1, StartupTimeoutPolicy.DROP);
+        deferredSink.start();
+
+        final var dropped = deferredSink.publish(metricData(1));
+        deferredSink.publish(metricData(2));
+
+        assertThat(dropped).isCompleted();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "startup.dropped").getCount()).isOne();
+        executor.runAll();
+        assertThat(recordingSink.published).containsExactly(metricData(2));
+    }
+
+    @Test
+    void publish_whenBehindQueuedSink_thenReportsBufferedInsteadOfQueued() {
+        final var deferredSink = deferredSink(3, StartupTimeoutPolicy.DROP);
+        final var queuedSink = new QueuedSink("recording", deferredSink, 1, Runnable::run, extensionMetrics);
+        queuedSink.start();
+
+        queuedSink.publish(metricData(1));
+        queuedSink.publish(metricData(2));
+        queuedSink.publish(metricData(3));
+
+        assertThat(gauge("startup.buffered")).isEqualTo(3);
+        assertThat(queuedSink.queueSize()).isZero();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "sink.recording.dropped").getCount()).isZero();
+        executor.runAll();
+        assertThat(recordingSink.published).containsExactly(metricData(1), metricData(2), metricData(3));
+    }
+
+    @Test
+    void publish_whenTimedOutWithDropPolicy_thenDroppedUntilReady() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.DROP);
+        deferredSink.start();
+        final var buffered = deferredSink.publish(metricData(1));
+
+        timeout().run();
+
+        assertThat(buffered).isCompleted();
+        assertThat(deferredSink.publish(metricData(2))).isCompleted();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "startup.dropped").getCount()).isEqualTo(2);
+        executor.runAll();
+        assertThat(gauge("startup.status")).isEqualTo(DeferredSink.STATUS_READY);
+        deferredSink.publish(metricData(3));
+        assertThat(recordingSink.published).containsExactly(metricData(3));
+    }
+
+    @Test
+    void publish_whenTimedOutWithFailPolicy_thenFailedAndLateSinkClosed() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.FAIL);
+        deferredSink.start();
+        deferredSink.publish(metricData(1));
+
+        timeout().run();
+        executor.runAll();
+
+        assertThat(gauge("startup.status")).isEqualTo(DeferredSink.STATUS_FAILED);
+        assertThat(recordingSink.closed).isTrue();
+        assertThat(recordingSink.started).isFalse();
+        assertThat(deferredSink.publish(metricData(2))).isCompleted();
+        assertThat(recordingSink.published).isEmpty();
+    }
+
+    @Test
+    void publish_whenSinkCreationFails_thenFailedAndReportsDropped() {
+        final var deferredSink = new DeferredSink("failing", () -> {
+            throw new IllegalStateException("no credentials");
+        }, executor, scheduler, 2, 1_000, StartupTimeoutPolicy.DROP, extensionMetrics);
+        deferredSink.start();
+        final var buffered = deferredSink.publish(metricData(1));
+
+        executor.runAll();
+
+        assertThat(gauge("startup.status")).isEqualTo(DeferredSink.STATUS_FAILED);
+        assertThat(buffered).isCompleted();
+        assertThat(deferredSink.publish(metricData(2))).isCompleted();
+    }
+
+    @Test
+    void publish_whenSinkFutureCompletes_thenBufferedReportsPublished() {
+        final var sinkFuture = new CompletableFuture<RecordingSink>();
+        final var deferredSink = new DeferredSink("derived",
+                () -> sinkFuture,
+                scheduler,
+                2,
+                1_000,
+                StartupTimeoutPolicy.DROP,
+                null);
+        deferredSink.start();
+        deferredSink.publish(metricData(1));
+
+        sinkFuture.complete(recordingSink);
+
+        assertThat(deferredSink.status()).isEqualTo(DeferredSink.STATUS_READY);
+        assertThat(recordingSink.started).isTrue();
+        assertThat(recordingSink.published).containsExactly(metricData(1));
+    }
+
+    @Test
+    void ready_whenInitialized_thenCompleted() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.DROP);
+        deferredSink.start();
+
+        assertThat(deferredSink.ready()).isNotDone();
+        executor.runAll();
+        assertThat(deferredSink.ready()).isCompleted();
+    }
+
+    @Test
+    void ready_whenTimedOutWithFailPolicy_thenDerivedSinkFailsWithIt() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.FAIL);
+        final var derivedRecordingSink = new RecordingSink();
+        final var derivedSink = new DeferredSink("derived",
+                () -> deferredSink.ready().thenApply(ready -> derivedRecordingSink),
+                scheduler,
+                2,
+                2_000,
+                StartupTimeoutPolicy.FAIL,
+                null);
+        deferredSink.start();
+        derivedSink.start();
+        derivedSink.publish(metricData(1));
+
+        timeout().run();
+        executor.runAll();
+
+        assertThat(deferredSink.ready()).isCompletedExceptionally();
+        assertThat(recordingSink.closed).isTrue();
+        assertThat(derivedSink.status()).isEqualTo(DeferredSink.STATUS_FAILED);
+        assertThat(derivedRecordingSink.started).isFalse();
+        assertThat(derivedRecordingSink.published).isEmpty();
+    }
+
+    @Test
+    void close_whenInitializing_thenReportsCompletedAndLateSinkClosed() {
+        final var deferredSink = deferredSink(2, StartupTimeoutPolicy.DROP);
+        deferredSink.start();
+        final var buffered = deferredSink.publish(metricData(1));
+
+        deferredSink.close();
+        executor.runAll();
+
+        assertThat(buffered).isCompleted();
+        assertThat(recordingSink.closed).isTrue();
+        assertThat(recordingSink.started).isFalse();
+        assertThat(recordingSink.published).isEmpty();
+    }
+
+    private @NotNull DeferredSink deferredSink(final int bufferSize, final @NotNull StartupTimeoutPolicy policy) {
+        return new DeferredSink("recording",
+                () -> recordingSink,
+                executor,
+                scheduler,
+                bufferSize,
+                1_000,
+                policy,
+                extensionMetrics);
+    }
+
+    private @NotNull Runnable timeout() {
+        final var timeout = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(timeout.capture(), eq(1_000L), eq(TimeUnit.MILLISECONDS));
+        return timeout.getValue();
+    }
+
+    private @Nullable Object gauge(final @NotNull String name) {
+        return metricRegistry.getGauges().get(ExtensionMetrics.PREFIX + name).getValue();
+    }
+
+    private static @NotNull List<MetricDatum> metricData(final double value) {
+        return List.of(MetricDatum.builder().metricName("metric").value(value).build());
+    }
+
+    private static class RecordingSink implements MetricSink {
+
+        final @NotNull List<List<MetricDatum>> published = new ArrayList<>();
+        boolean started;
+        boolean closed;
+
+        @Override
+        public void start() {
+            started = true;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+            published.add(metricData);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class ManualExecutor implements Executor {
+
+        private final @NotNull List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(final @NotNull Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.removeFirst().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DimensionPlaceholdersTest {
+
+    private final @NotNull Ec2InstanceMetadata ec2InstanceMetadata = mock();
+
+    @Test
+    void resolve_whenNoPlaceholder_thenValue() {
+        final var placeholders = new DimensionPlaceholders(Map.of(), "host", ec2InstanceMetadata);
+        assertThat(placeholders.resolve("production")).isEqualTo("production");
+    }
+
+    @Test
+    void resolve_whenPlaceholders_thenReplaced() {
+        when(ec2InstanceMetadata.get("instance-id")).thenReturn("i-1234");
+        when(ec2InstanceMetadata.get("placement/availability-zone")).thenReturn("eu-central-1a");
+        final var placeholders = new DimensionPlaceholders(Map.of("HIVEMQ_CLUSTER_ID", "cluster", "STAGE", "prod"),
+                "host",
+                ec2InstanceMetadata);
+
+        assertThat(placeholders.resolve("${cluster-id}/${hostname}")).isEqualTo("cluster/host");
+        assertThat(placeholders.resolve("stage-${env:STAGE}")).isEqualTo("stage-prod");
+        assertThat(placeholders.resolve("${ec2:instance-id} in ${ec2:availability-zone}")).isEqualTo(
+                "i-1234 in eu-central-1a");
+    }
+
+    @Test
+    void resolve_whenNodeIdNotSet_thenHostname() {
+        assertThat(new DimensionPlaceholders(Map.of(), "host", ec2InstanceMetadata).resolve("${node-id}")).isEqualTo(
+                "host");
+        assertThat(new DimensionPlaceholders(Map.of("HIVEMQ_NODE_ID", "node1"), "host", ec2InstanceMetadata).resolve(
+                "${node-id}")).isEqualTo("node1");
+    }
+
+    @Test
+    void isNodeIdFromHostname_whenNodeIdNotSet_thenTrue() {
+        assertThat(new DimensionPlaceholders(Map.of(), "host", ec2InstanceMetadata).isNodeIdFromHostname()).isTrue();
+        assertThat(new DimensionPlaceholders(Map.of("HIVEMQ_NODE_ID", "node1"),
+                "host",
+                ec2InstanceMetadata).isNodeIdFromHostname()).isFalse();
+    }
+
+    @Test
+    void resolve_whenUnresolved_thenNull() {
+        final var placeholders = new DimensionPlaceholders(Map.of(), null, ec2InstanceMetadata);
+
+        assertThat(placeholders.resolve("${hostname}")).isNull();
+        assertThat(placeholders.resolve("${cluster-id}")).isNull();
+        assertThat(placeholders.resolve("${env:UNKNOWN}")).isNull();
+        assertThat(placeholders.resolve("${ec2:instance-id}")).isNull();
+        assertThat(placeholders.resolve("${unknown}")).isNull();
+        assertThat(placeholders.resolve("${hostname")).isNull();
+    }
+
+    @Test
+    void requiresLookUp_whenHostnameOrEc2Placeholder_thenTrue() {
+        final var placeholders = new DimensionPlaceholders(Map.of(), "host", ec2InstanceMetadata);
+        final var withNodeId =
+                new DimensionPlaceholders(Map.of("HIVEMQ_NODE_ID", "node1"), "host", ec2InstanceMetadata);
+
+        assertThat(placeholders.requiresLookUp("host-${hostname}")).isTrue();
+        assertThat(placeholders.requiresLookUp("${ec2:instance-id}")).isTrue();
+        assertThat(placeholders.requiresLookUp("${node-id}")).isTrue();
+        assertThat(withNodeId.requiresLookUp("${node-id}")).isFalse();
+        assertThat(placeholders.requiresLookUp("${cluster-id}-${env:STAGE}")).isFalse();
+    }
+
+    @Test
+    void lookUp_whenEc2Placeholders_thenMetadataRead() {
+        final var placeholders = new DimensionPlaceholders(Map.of(), "host", ec2InstanceMetadata);
+
+        placeholders.lookUp("${ec2:instance-id} in ${ec2:availability-zone}");
+
+        verify(ec2InstanceMetadata).get("instance-id");
+        verify(ec2InstanceMetadata).get("placement/availability-zone");
+    }
+
+    @Test
+    void isNodeSpecific_whenNodePlaceholder_thenTrue() {
+        assertThat(DimensionPlaceholders.isNodeSpecific("${node-id}")).isTrue();
+        assertThat(DimensionPlaceholders.isNodeSpecific("host-${hostname}")).isTrue();
+        assertThat(DimensionPlaceholders.isNodeSpecific("${ec2:region}/${ec2:instance-id}")).isTrue();
+        assertThat(DimensionPlaceholders.isNodeSpecific("production")).isFalse();
+        assertThat(DimensionPlaceholders.isNodeSpecific("${cluster-id}-${env:STAGE}")).isFalse();
+        assertThat(DimensionPlaceholders.isNodeSpecific("${ec2:region}")).isFalse();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class DirectoryClusterTransportTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void receive_whenPublishedByNodes_thenLatestSummaryOfEachNode() throws IOException {
+        final var transport1 = new DirectoryClusterTransport(directory);
+        final var transport2 = new DirectoryClusterTransport(directory);
+
+        transport1.publish(new NodeSummary("node1", 1000, List.of()));
+        transport1.publish(new NodeSummary("node1", 2000, List.of()));
+        transport2.publish(new NodeSummary("node/2", 2000, List.of()));
+
+        assertThat(transport1.receive()).extracting(NodeSummary::getNodeId, NodeSummary::getTimestamp)
+                .containsExactlyInAnyOrder(tuple("node1", 2000L), tuple("node/2", 2000L));
+        try (final var files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    // the slash is not allowed in file names
+                    .containsExactlyInAnyOrder("node1.summary", "node_2f2.summary");
+        }
+    }
+
+    @Test
+    void receive_whenInvalidFile_thenSkipped() throws IOException {
+        final var transport = new DirectoryClusterTransport(directory);
+        transport.publish(new NodeSummary("node1", 1000, List.of()));
+        Files.write(directory.resolve("broken.summary"), new byte[]{1, 2, 3});
+
+        assertThat(transport.receive()).extracting(NodeSummary::getNodeId).containsExactly("node1");
+    }
+
+    @Test
+    void leave_whenPublished_thenSummaryRemoved() throws IOException {
+        final var transport = new DirectoryClusterTransport(directory);
+        transport.publish(new NodeSummary("node1", 1000, List.of()));
+
+        transport.leave("node1");
+
+        assertThat(transport.receive()).isEmpty();
+    }
+}
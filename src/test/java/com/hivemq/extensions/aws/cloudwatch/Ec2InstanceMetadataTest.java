@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Ec2InstanceMetadataTest {
+
+    private static final @NotNull String TOKEN = "token";
+
+    private final @NotNull AtomicInteger requests = new AtomicInteger();
+
+    private @NotNull HttpServer server;
+    private @NotNull URI endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // a local stub of the instance metadata service
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/latest/api/token", exchange -> {
+            requests.incrementAndGet();
+            final var ttl = exchange.getRequestHeaders().getFirst("X-aws-ec2-metadata-token-ttl-seconds");
+            respond(exchange, "PUT".equals(exchange.getRequestMethod()) && ttl != null ? 200 : 400, TOKEN);
+        });
+        server.createContext("/latest/meta-data/", exchange -> {
+            requests.incrementAndGet();
+            final var path = exchange.getRequestURI().getPath().substring("/latest/meta-data/".length());
+            if (!TOKEN.equals(exchange.getRequestHeaders().getFirst("X-aws-ec2-metadata-token"))) {
+                respond(exchange, 401, "");
+            } else if (path.equals("instance-id")) {
+                respond(exchange, 200, "i-1234");
+            } else {
+                respond(exchange, 404, "");
+            }
+        });
+        server.start();
+        endpoint = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void get_whenAvailable_thenValueCached() {
+        final var metadata = new Ec2InstanceMetadata(endpoint, false);
+
+        assertThat(metadata.get("instance-id")).isEqualTo("i-1234");
+        assertThat(metadata.get("instance-id")).isEqualTo("i-1234");
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void get_whenNotFound_thenNull() {
+        final var metadata = new Ec2InstanceMetadata(endpoint, false);
+
+        assertThat(metadata.get("unknown")).isNull();
+        assertThat(metadata.get("instance-id")).isEqualTo("i-1234");
+    }
+
+    @Test
+    void get_whenUnreachable_thenNoFurtherRequests() {
+        server.stop(0);
+        final var metadata = new Ec2InstanceMetadata(endpoint, false);
+
+        assertThat(metadata.get("instance-id")).isNull();
+        assertThat(metadata.get("instance-type")).isNull();
+    }
+
+    @Test
+    void get_whenDisabled_thenNoRequests() {
+        final var metadata = new Ec2InstanceMetadata(endpoint, true);
+
+        assertThat(metadata.get("instance-id")).isNull();
+        assertThat(requests).hasValue(0);
+    }
+
+    private static void respond(
+            final @NotNull HttpExchange exchange,
+            final int status,
+            final @NotNull String body) throws IOException {
+        final var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmfEncoderTest {
+
+    private static final @NotNull Instant TIMESTAMP = Instant.ofEpochMilli(1700000000123L);
+    private static final @NotNull Dimension COUNTER = Dimension.builder().name("Type").value("counter").build();
+    private static final @NotNull Dimension GAUGE = Dimension.builder().name("Type").value("gauge").build();
+
+    private final @NotNull EmfEncoder encoder = new EmfEncoder("hivemq-metrics", null);
+
+    @Test
+    void encode_whenSameDimensions_thenOneDocument() {
+        final var documents = encode(List.of(datum("a", COUNTER).value(3.0).unit(StandardUnit.COUNT).build(),
+                datum("b", COUNTER).value(0.25).storageResolution(CloudWatchReporter.HIGH_RESOLUTION).build()));
+
+        assertThat(documents).isEqualTo("{\"_aws\":{\"Timestamp\":1700000000123," +
+                "\"CloudWatchMetrics\":[{\"Namespace\":\"hivemq-metrics\",\"Dimensions\":[[\"Type\"]]," +
+                "\"Metrics\":[{\"Name\":\"a\",\"Unit\":\"Count\"},{\"Name\":\"b\",\"StorageResolution\":1}]}]}," +
+                "\"Type\":\"counter\",\"a\":3,\"b\":0.25}\n");
+        assertThat(encoder.getDocuments()).isOne();
+    }
+
+    @Test
+    void encode_whenDifferentDimensions_thenDocumentPerDimensions() {
+        final var documents = encode(List.of(datum("a", COUNTER).value(1.0).build(),
+                datum("b", GAUGE).value(2.0).build(),
+                datum("c", COUNTER).value(3.0).build()));
+
+        assertThat(documents.split("\n")).hasSize(2)
+                .satisfiesExactly(counter -> assertThat(counter).contains("\"Type\":\"counter\",\"a\":1,\"c\":3}"),
+                        gauge -> assertThat(gauge).contains("\"Type\":\"gauge\",\"b\":2}"));
+        assertThat(encoder.getDocuments()).isEqualTo(2);
+    }
+
+    @Test
+    void encode_whenDuplicateName_thenNewDocument() {
+        final var documents = encode(List.of(datum("a", COUNTER).value(1.0).build(),
+                datum("a", COUNTER).value(2.0).build()));
+
+        assertThat(documents.split("\n")).satisfiesExactly(first -> assertThat(first).endsWith("\"a\":1}"),
+                second -> assertThat(second).endsWith("\"a\":2}"));
+    }
+
+    @Test
+    void encode_whenMoreMetricsThanDocumentLimit_thenSplit() {
+        final var metricData = IntStream.range(0, 250)
+                .mapToObj(i -> datum("metric." + i, COUNTER).value((double) i).build())
+                .toList();
+
+        encode(metricData);
+
+        assertThat(encoder.getDocuments()).isEqualTo(3);
+    }
+
+    @Test
+    void encode_whenLogGroup_thenLogGroupName() {
+        final var encoder = new EmfEncoder("ns", "hivemq");
+
+        final var buffer = encoder.encode(List.of(datum("a", COUNTER).value(1.0).build()));
+
+        final var documents = new String(asBytes(buffer), StandardCharsets.US_ASCII);
+
+        assertThat(documents).startsWith("{\"_aws\":{\"Timestamp\":1700000000123,\"LogGroupName\":\"hivemq\",");
+    }
+
+    @Test
+    void encode_whenSpecialCharacters_thenEscapedAscii() {
+        final var dimension = Dimension.builder().name("Node").value("n\"1\\ä\n").build();
+
+        final var documents = encode(List.of(datum("a", dimension).value(1.0).build()));
+
+        assertThat(documents).contains("\"Node\":\"n\\\"1\\\\\\u00e4\\u000a\"");
+    }
+
+    @Test
+    void encode_whenStatisticSetValuesAndNonFinite_thenEmfValues() {
+        final var statisticSet = StatisticSet.builder().sampleCount(2.0).sum(10.0).minimum(4.0).maximum(6.0).build();
+
+        final var documents = encode(List.of(datum("set", COUNTER).statisticValues(statisticSet).build(),
+                datum("values", COUNTER).values(1.5, 2.0).counts(2.0, 1.0).build(),
+                datum("infinite", COUNTER).value(Double.POSITIVE_INFINITY).build(),
+                datum("negative", COUNTER).value(-12345678.0).build()));
+
+        assertThat(documents).endsWith("\"set\":10,\"values\":[1.5,1.5,2],\"infinite\":0,\"negative\":-12345678}\n");
+    }
+
+    @Test
+    void encode_whenManyValues_thenLimited() {
+        final var documents = encode(List.of(datum("values", COUNTER).values(1.0, 2.0).counts(500.0, 1.0).build()));
+
+        final var values = documents.substring(documents.indexOf("\"values\":[") + 10, documents.lastIndexOf(']'));
+        assertThat(values.split(",")).hasSize(EmfEncoder.MAX_VALUES_PER_METRIC).containsOnly("1");
+    }
+
+    @Test
+    void encode_whenDocumentExceedsMaxSize_thenSplitIntoSmallerDocuments() {
+        final var encoder = new EmfEncoder("hivemq-metrics", null, 1000);
+        final var metricData = IntStream.range(0, 40)
+                .mapToObj(i -> datum("metric." + i, COUNTER).value((double) i).build())
+                .toList();
+
+        final var documents = new String(asBytes(encoder.encode(metricData)), StandardCharsets.US_ASCII);
+
+        assertThat(documents.split("\n")).hasSize(encoder.getDocuments())
+                .allSatisfy(document -> assertThat(document.length() + 1).isLessThanOrEqualTo(1000));
+        assertThat(encoder.getDocuments()).isGreaterThan(1);
+        assertThat(documents).contains("\"metric.0\":0").contains("\"metric.39\":39");
+        assertThat(encoder.getDroppedDatums()).isZero();
+    }
+
+    @Test
+    void encode_whenSingleMetricExceedsMaxSize_thenDropped() {
+        final var encoder = new EmfEncoder("hivemq-metrics", null, 300);
+
+        final var documents = new String(asBytes(encoder.encode(List.of(datum("a", COUNTER).value(1.0).build(),
+                datum("values", COUNTER).values(1.0, 2.0).counts(500.0, 1.0).build()))), StandardCharsets.US_ASCII);
+
+        assertThat(documents).endsWith("\"a\":1}\n");
+        assertThat(encoder.getDocuments()).isOne();
+        assertThat(encoder.getDroppedDatums()).isOne();
+    }
+
+    private @NotNull String encode(final @NotNull List<MetricDatum> metricData) {
+        return new String(asBytes(encoder.encode(metricData)), StandardCharsets.US_ASCII);
+    }
+
+    private static byte @NotNull [] asBytes(final @NotNull ByteBuffer buffer) {
+        final var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static @NotNull MetricDatum.Builder datum(final @NotNull String name, final @NotNull Dimension dimension) {
+        return MetricDatum.builder().metricName(name).dimensions(dimension).timestamp(TIMESTAMP);
+    }
+}
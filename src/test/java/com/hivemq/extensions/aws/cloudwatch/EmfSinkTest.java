@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class EmfSinkTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull PipelineMetrics pipelineMetrics = new PipelineMetrics(new ExtensionMetrics(metricRegistry));
+
+    @Test
+    void publish_whenWritten_thenDocumentsInStreamAndMetricsRecorded() {
+        final var out = new ByteArrayOutputStream();
+        final var sink = new EmfSink(new EmfEncoder("ns", null), new StreamEmfTarget(out), pipelineMetrics);
+
+        assertThat(sink.publish(List.of(datum("a"), datum("b")))).isCompleted();
+
+        final var documents = out.toString(StandardCharsets.US_ASCII);
+        assertThat(documents).endsWith("\"a\":1,\"b\":1}\n");
+        assertThat(counter("publish.bytes")).isEqualTo(out.size());
+        assertThat(histogram("publish.datums")).containsExactly(2);
+        assertThat(histogram("publish.requests")).containsExactly(1);
+        assertThat(counter("publish.failed")).isZero();
+    }
+
+    @Test
+    void publish_whenWriteFails_thenDroppedAndFailureRecorded() throws IOException {
+        final var target = mock(EmfTarget.class);
+        doThrow(new IOException("disk full")).when(target).write(any());
+        final var sink = new EmfSink(new EmfEncoder("ns", null), target, pipelineMetrics);
+
+        assertThat(sink.publish(List.of(datum("a")))).isCompleted();
+
+        assertThat(counter("publish.failed")).isOne();
+        assertThat(counter("publish.bytes")).isZero();
+    }
+
+    @Test
+    void publish_whenDocumentExceedsMaxSize_thenDroppedAndCounted() {
+        final var out = new ByteArrayOutputStream();
+        final var sink = new EmfSink(new EmfEncoder("ns", null, 10), new StreamEmfTarget(out), pipelineMetrics);
+
+        assertThat(sink.publish(List.of(datum("a")))).isCompleted();
+
+        assertThat(out.size()).isZero();
+        assertThat(counter("publish.dropped")).isOne();
+    }
+
+    @Test
+    void publish_whenEmpty_thenNothingWritten() {
+        final var target = mock(EmfTarget.class);
+        final var sink = new EmfSink(new EmfEncoder("ns", null), target, pipelineMetrics);
+
+        assertThat(sink.publish(List.of())).isCompleted();
+
+        verifyNoInteractions(target);
+    }
+
+    @Test
+    void close_thenTargetClosed() {
+        final var target = mock(EmfTarget.class);
+        final var sink = new EmfSink(new EmfEncoder("ns", null), target, null);
+
+        sink.close();
+
+        verify(target).close();
+    }
+
+    private long counter(final @NotNull String name) {
+        return metricRegistry.counter(ExtensionMetrics.PREFIX + name).getCount();
+    }
+
+    private long @NotNull [] histogram(final @NotNull String name) {
+        return metricRegistry.histogram(ExtensionMetrics.PREFIX + name).getSnapshot().getValues();
+    }
+
+    private static @NotNull MetricDatum datum(final @NotNull String name) {
+        return MetricDatum.builder().metricName(name).timestamp(Instant.EPOCH).value(1.0).build();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FanOutSinkTest {
+
+    private final @NotNull MetricSink first = mock(MetricSink.class);
+    private final @NotNull MetricSink second = mock(MetricSink.class);
+    private final @NotNull FanOutSink fanOutSink = new FanOutSink(List.of(first, second));
+
+    @Test
+    void publish_thenSameReadOnlySnapshotForAllSinks() {
+        final var firstPublished = new CompletableFuture<Void>();
+        final var secondPublished = new CompletableFuture<Void>();
+        final var snapshots = new ArrayList<List<MetricDatum>>();
+        when(first.publish(any())).thenAnswer(invocation -> {
+            snapshots.add(invocation.getArgument(0));
+            return firstPublished;
+        });
+        when(second.publish(any())).thenAnswer(invocation -> {
+            snapshots.add(invocation.getArgument(0));
+            return secondPublished;
+        });
+        final var metricData = new ArrayList<>(List.of(MetricDatum.builder().metricName("metric").value(1.0).build()));
+
+        final var published = fanOutSink.publish(metricData);
+
+        assertThat(snapshots).hasSize(2);
+        assertThat(snapshots.get(0)).isSameAs(snapshots.get(1)).containsExactlyElementsOf(metricData);
+        assertThatThrownBy(() -> snapshots.getFirst().clear()).isInstanceOf(UnsupportedOperationException.class);
+        firstPublished.complete(null);
+        assertThat(published).isNotDone();
+        secondPublished.complete(null);
+        assertThat(published).isCompleted();
+    }
+
+    @Test
+    void startAndClose_thenAllSinks() {
+        fanOutSink.start();
+        fanOutSink.close();
+
+        verify(first).start();
+        verify(second).start();
+        verify(first).close();
+        verify(second).close();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileEmfTargetTest {
+
+    @TempDir
+    private @NotNull Path directory;
+
+    private @Nullable FileEmfTarget target;
+
+    @AfterEach
+    void tearDown() {
+        if (target != null) {
+            target.close();
+        }
+    }
+
+    @Test
+    void write_whenParentMissing_thenCreatedAndAppended() throws IOException {
+        final var file = directory.resolve("emf").resolve("metrics.log");
+        target = new FileEmfTarget(file, 1024, 3);
+
+        target.write(documents("first\n"));
+        target.write(documents("second\n"));
+
+        assertThat(file).hasContent("first\nsecond");
+    }
+
+    @Test
+    void write_whenFileExists_thenAppendedAfterRestart() throws IOException {
+        final var file = directory.resolve("metrics.log");
+        Files.writeString(file, "before\n");
+        target = new FileEmfTarget(file, 1024, 3);
+
+        target.write(documents("after\n"));
+
+        assertThat(file).hasContent("before\nafter");
+    }
+
+    @Test
+    void write_whenMaxFileSizeExceeded_thenRotated() throws IOException {
+        final var file = directory.resolve("metrics.log");
+        target = new FileEmfTarget(file, 10, 3);
+
+        target.write(documents("report-1\n"));
+        target.write(documents("report-2\n"));
+        target.write(documents("report-3\n"));
+        target.write(documents("report-4\n"));
+
+        assertThat(file).hasContent("report-4");
+        assertThat(target.rotated(1)).hasContent("report-3");
+        assertThat(target.rotated(2)).hasContent("report-2");
+        assertThat(target.rotated(3)).doesNotExist();
+    }
+
+    @Test
+    void write_whenSingleFile_thenReplaced() throws IOException {
+        final var file = directory.resolve("metrics.log");
+        target = new FileEmfTarget(file, 10, 1);
+
+        target.write(documents("report-1\n"));
+        target.write(documents("report-2\n"));
+
+        assertThat(file).hasContent("report-2");
+        assertThat(target.rotated(1)).doesNotExist();
+    }
+
+    private static @NotNull ByteBuffer documents(final @NotNull String documents) {
+        return ByteBuffer.wrap(documents.getBytes(StandardCharsets.US_ASCII));
+    }
+}
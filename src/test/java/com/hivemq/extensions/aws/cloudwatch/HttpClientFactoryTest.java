@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClient;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClientType;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientFactoryTest {
+
+    @Test
+    void builder_whenDefaultConfiguration_thenNettyClient() {
+        final var httpClient = new HttpClient();
+
+        try (final var client = HttpClientFactory.builder(httpClient).build()) {
+            assertThat(client).isInstanceOf(NettyNioAsyncHttpClient.class);
+        }
+    }
+
+    @Test
+    void builder_whenHttp2_thenNettyClient() {
+        final var httpClient = new HttpClient();
+        httpClient.setHttp2(true);
+
+        try (final var client = HttpClientFactory.builder(httpClient).build()) {
+            assertThat(client).isInstanceOf(NettyNioAsyncHttpClient.class);
+        }
+    }
+
+    @Test
+    void builder_whenCrtType_thenCrtClient() {
+        final var httpClient = new HttpClient();
+        httpClient.setType(HttpClientType.CRT);
+        httpClient.setTcpKeepAlive(true);
+
+        try (final var client = HttpClientFactory.builder(httpClient).build()) {
+            assertThat(client).isInstanceOf(AwsCrtAsyncHttpClient.class);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LogBucketSketchTest {
+
+    @Test
+    void add_whenValues_thenBucketValuesWithinRelativeAccuracy() {
+        final var sketch = new LogBucketSketch(0.02);
+        final var random = new Random(42);
+
+        for (var i = 0; i < 10_000; i++) {
+            final var value = Math.exp(random.nextDouble() * 30 - 6);
+            final var bucketValue = sketch.value(sketch.index(value));
+            assertThat(Math.abs(bucketValue - value) / value).isLessThanOrEqualTo(0.02 + 1e-9);
+            sketch.add(value, 1);
+        }
+
+        assertThat(sketch.getCount()).isEqualTo(10_000);
+    }
+
+    @Test
+    void forEachBucket_thenAscendingValuesWithTheirWeights() {
+        final var sketch = new LogBucketSketch(0.01);
+        sketch.add(100, 1.5);
+        sketch.add(100.1, 0.5);
+        sketch.add(5, 3);
+        sketch.add(0, 1);
+        sketch.add(-7, 1);
+
+        final var buckets = buckets(sketch);
+
+        assertThat(buckets).extracting(bucket -> bucket[0])
+                .satisfiesExactly(zero -> assertThat(zero).isZero(),
+                        five -> assertThat(five).isCloseTo(5, within(0.1)),
+                        hundred -> assertThat(hundred).isCloseTo(100, within(1.0)));
+        assertThat(buckets).extracting(bucket -> bucket[1]).containsExactly(2.0, 3.0, 2.0);
+    }
+
+    @Test
+    void add_whenOutOfRange_thenFirstOrLastBucket() {
+        final var sketch = new LogBucketSketch(0.02);
+
+        assertThat(sketch.index(1e-9)).isZero();
+        assertThat(sketch.index(LogBucketSketch.MIN_VALUE)).isZero();
+        assertThat(sketch.index(1e30)).isEqualTo(sketch.getBucketCount() - 1);
+        // the maximum value is still covered with the relative accuracy
+        final var maxBucketValue = sketch.value(sketch.index(LogBucketSketch.MAX_VALUE));
+        assertThat(maxBucketValue).isCloseTo(LogBucketSketch.MAX_VALUE, within(LogBucketSketch.MAX_VALUE * 0.02));
+    }
+
+    @Test
+    void add_whenNaNOrNoWeight_thenIgnored() {
+        final var sketch = new LogBucketSketch(0.02);
+
+        sketch.add(Double.NaN, 1);
+        sketch.add(10, 0);
+
+        assertThat(sketch.isEmpty()).isTrue();
+    }
+
+    @Test
+    void bucketCount_thenFixedByRelativeAccuracy() {
+        assertThat(new LogBucketSketch(0.02).getBucketCount()).isEqualTo(LogBucketSketch.bucketCount(0.02))
+                .isLessThan(1000);
+        assertThat(LogBucketSketch.bucketCount(0.005)).isLessThan(4000);
+    }
+
+    @Test
+    void forEachBucket_whenSameRelativeAccuracy_thenSameBucketValues() {
+        // the datums of several nodes are combined by CloudWatch, so the same values must map to the same buckets
+        final var first = new LogBucketSketch(0.02);
+        final var second = new LogBucketSketch(0.02);
+        first.add(12.3, 1);
+        second.add(12.4, 1);
+
+        assertThat(buckets(first).getFirst()[0]).isEqualTo(buckets(second).getFirst()[0]);
+    }
+
+    @Test
+    void reset_thenEmpty() {
+        final var sketch = new LogBucketSketch(0.02);
+        sketch.add(10, 1);
+        sketch.add(0, 1);
+
+        sketch.reset();
+
+        assertThat(sketch.isEmpty()).isTrue();
+        assertThat(buckets(sketch)).isEmpty();
+    }
+
+    @Test
+    void constructor_whenInvalidRelativeAccuracy_thenException() {
+        assertThatThrownBy(() -> new LogBucketSketch(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new LogBucketSketch(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static @NotNull List<double[]> buckets(final @NotNull LogBucketSketch sketch) {
+        final var buckets = new ArrayList<double[]>();
+        sketch.forEachBucket((value, count) -> buckets.add(new double[]{value, count}));
+        return buckets;
+    }
+}
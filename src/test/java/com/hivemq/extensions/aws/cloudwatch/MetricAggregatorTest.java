@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.AggregationMode;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetricAggregatorTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+
+    @Test
+    void flush_whenGaugeSampled_thenSingleStatisticSet() {
+        final var aggregator = createAggregator(AggregationMode.STATISTIC_SET);
+        final var value = new AtomicInteger();
+        metricRegistry.register("metric.gauge", (Gauge<Integer>) value::get);
+
+        for (final var sample : List.of(3, 1, 5, 3)) {
+            value.set(sample);
+            aggregator.sample();
+        }
+
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.value()).isNull();
+            assertThat(datum.unit()).isEqualTo(StandardUnit.NONE);
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(4);
+            assertThat(datum.statisticValues().sum()).isEqualTo(12);
+            assertThat(datum.statisticValues().minimum()).isEqualTo(1);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(5);
+        });
+    }
+
+    @Test
+    void flush_whenCounterSampled_thenDeltasAggregated() {
+        final var aggregator = createAggregator(AggregationMode.STATISTIC_SET);
+        final var counter = metricRegistry.counter("metric.counter");
+
+        counter.inc(2);
+        aggregator.sample();
+        counter.inc(4);
+        aggregator.sample();
+
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.unit()).isEqualTo(StandardUnit.COUNT);
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(2);
+            assertThat(datum.statisticValues().sum()).isEqualTo(6);
+        });
+
+        // the samples are reset on flush, so the next flush samples once
+        counter.inc(1);
+        assertThat(flush(aggregator)).singleElement()
+                .satisfies(datum -> assertThat(datum.statisticValues().sampleCount()).isEqualTo(1));
+    }
+
+    @Test
+    void flush_whenValuesMode_thenDistinctValuesWithCounts() {
+        final var aggregator = createAggregator(AggregationMode.VALUES);
+        final var value = new AtomicInteger();
+        metricRegistry.register("metric.gauge", (Gauge<Integer>) value::get);
+
+        for (final var sample : List.of(3, 1, 3, 3)) {
+            value.set(sample);
+            aggregator.sample();
+        }
+
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.statisticValues()).isNull();
+            assertThat(datum.values()).containsExactly(1.0, 3.0);
+            assertThat(datum.counts()).containsExactly(1.0, 3.0);
+        });
+    }
+
+    @Test
+    void flush_whenValuesModeExceedsDatumLimit_thenStatisticSet() {
+        final var aggregator =
+                new MetricAggregator(reportedMetrics(), AggregationMode.VALUES, 100, 60_000, false, false);
+        final var value = new AtomicInteger();
+        metricRegistry.register("metric.gauge", (Gauge<Integer>) value::get);
+
+        for (var i = 1; i <= MetricAggregator.MAXIMUM_VALUES_PER_DATUM + 1; i++) {
+            value.set(i);
+            aggregator.sample();
+        }
+
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.hasValues()).isFalse();
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(MetricAggregator.MAXIMUM_VALUES_PER_DATUM + 1);
+        });
+    }
+
+    @Test
+    void flush_whenTimer_thenSingleDatumInsteadOfPercentiles() {
+        final var aggregator = createAggregator(AggregationMode.STATISTIC_SET);
+        final var timer = metricRegistry.timer("metric.timer");
+        timer.update(2, TimeUnit.MILLISECONDS);
+        timer.update(4, TimeUnit.MILLISECONDS);
+
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+            assertThat(datum.dimensions().getFirst().value()).isEqualTo("snapshot-summary");
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(2);
+            assertThat(datum.statisticValues().sum()).isEqualTo(6);
+        });
+    }
+
+    @Test
+    void flush_whenHistogramNotUpdatedSinceLastFlush_thenReservoirNotSentAgain() {
+        final var aggregator = createAggregator(AggregationMode.STATISTIC_SET);
+        final var histogram = metricRegistry.histogram("metric.histogram");
+        histogram.update(2);
+        histogram.update(4);
+
+        assertThat(flush(aggregator)).singleElement()
+                .satisfies(datum -> assertThat(datum.statisticValues().sampleCount()).isEqualTo(2));
+        assertThat(flush(aggregator)).isEmpty();
+
+        // the reservoir still holds the previous values, they are weighted by the increase of the count
+        histogram.update(6);
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.statisticValues().sampleCount()).isCloseTo(1, within(1e-9));
+            assertThat(datum.statisticValues().sum()).isCloseTo(4, within(1e-9));
+            assertThat(datum.statisticValues().minimum()).isEqualTo(2);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(6);
+        });
+    }
+
+    @Test
+    void flush_whenRawCountValue_thenOnlyLastSampleSent() {
+        final var aggregator =
+                new MetricAggregator(reportedMetrics(), AggregationMode.STATISTIC_SET, 1000, 60_000, false, true);
+        final var counter = metricRegistry.counter("metric.counter");
+
+        counter.inc(2);
+        aggregator.sample();
+        counter.inc(4);
+        aggregator.sample();
+
+        assertThat(flush(aggregator)).singleElement().satisfies(datum -> {
+            assertThat(datum.statisticValues().sampleCount()).isEqualTo(1);
+            assertThat(datum.statisticValues().sum()).isEqualTo(6);
+            assertThat(datum.statisticValues().minimum()).isEqualTo(6);
+            assertThat(datum.statisticValues().maximum()).isEqualTo(6);
+        });
+    }
+
+    @Test
+    void flush_whenOnlyZeroSamples_thenNotSubmitted() {
+        final var aggregator = createAggregator(AggregationMode.STATISTIC_SET);
+        metricRegistry.register("metric.gauge", (Gauge<Integer>) () -> 0);
+        aggregator.sample();
+
+        assertThat(flush(aggregator)).isEmpty();
+    }
+
+    private @NotNull MetricAggregator createAggregator(final @NotNull AggregationMode mode) {
+        return new MetricAggregator(reportedMetrics(), mode, 1000, 60_000, false, false);
+    }
+
+    private @NotNull ReportedMetrics reportedMetrics() {
+        final var metrics = List.of(new Metric("metric.", MatchType.PREFIX));
+        final var reportedMetrics =
+                new ReportedMetrics(new ConfiguredMetricsFilter(metrics), new ConfiguredMetricsFilter(List.of()));
+        metricRegistry.addListener(reportedMetrics);
+        return reportedMetrics;
+    }
+
+    private static @NotNull List<MetricDatum> flush(final @NotNull MetricAggregator aggregator) {
+        final var metricData = new ArrayList<MetricDatum>();
+        aggregator.flush(Instant.now(), metricData);
+        return metricData;
+    }
+}
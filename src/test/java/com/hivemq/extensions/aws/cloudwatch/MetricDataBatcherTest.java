@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricDataBatcherTest {
+
+    @Test
+    void pack_whenEmpty_thenNoBatches() {
+        assertThat(MetricDataBatcher.pack("ns", List.of())).isEmpty();
+    }
+
+    @Test
+    void pack_whenSmallDatums_thenLimitedByDatumCount() {
+        final var metricData = IntStream.range(0, 2001).mapToObj(i -> datum("metric." + i, 1)).toList();
+
+        final var batches = MetricDataBatcher.pack("ns", metricData);
+        assertThat(batches).extracting(List::size).containsExactly(1000, 1000, 1);
+        assertThat(batches.stream().flatMap(List::stream)).containsExactlyElementsOf(metricData);
+    }
+
+    @Test
+    void pack_whenLargeDatums_thenLimitedByPayloadSize() {
+        final var values = new ArrayList<>(Collections.nCopies(150, 1.0));
+        final var metricData = IntStream.range(0, 200)
+                .mapToObj(i -> datum("metric." + i, 30).toBuilder().values(values).counts(values).value(null).build())
+                .toList();
+        final var datumSize = MetricDataBatcher.estimateSize(metricData.getFirst());
+
+        final var batches = MetricDataBatcher.pack("ns", metricData);
+        assertThat(batches.size()).isGreaterThan(1);
+        for (final var batch : batches) {
+            final var batchSize = MetricDataBatcher.requestOverhead("ns") +
+                    batch.stream().mapToInt(MetricDataBatcher::estimateSize).sum();
+            assertThat(batchSize).isLessThanOrEqualTo(MetricDataBatcher.MAXIMUM_REQUEST_BYTES);
+        }
+        // all batches except the last one are filled close to the limit
+        for (final var batch : batches.subList(0, batches.size() - 1)) {
+            assertThat(batch.size() * datumSize).isGreaterThan(MetricDataBatcher.MAXIMUM_REQUEST_BYTES - datumSize * 2);
+        }
+    }
+
+    @Test
+    void pack_whenBatchBytes_thenEstimatedRequestSizePerBatch() {
+        final var metricData = IntStream.range(0, 1500).mapToObj(i -> datum("metric." + i, 1)).toList();
+        final var batchBytes = new ArrayList<Integer>();
+
+        final var batches = MetricDataBatcher.pack("ns", metricData, batchBytes);
+
+        assertThat(batchBytes).hasSize(batches.size());
+        for (var i = 0; i < batches.size(); i++) {
+            assertThat(batchBytes.get(i)).isEqualTo(MetricDataBatcher.requestOverhead("ns") +
+                    batches.get(i).stream().mapToInt(MetricDataBatcher::estimateSize).sum());
+        }
+    }
+
+    @Test
+    void estimateSize_whenMoreDimensions_thenLarger() {
+        assertThat(MetricDataBatcher.estimateSize(datum("metric", 2))).isGreaterThan(MetricDataBatcher.estimateSize(
+                datum("metric", 1)));
+    }
+
+    @Test
+    void encodedLength_whenReservedCharacters_thenPercentEncoded() {
+        assertThat(MetricDataBatcher.encodedLength("com.hivemq-metric_1~")).isEqualTo(20);
+        assertThat(MetricDataBatcher.encodedLength("99.9%")).isEqualTo(7);
+        assertThat(MetricDataBatcher.encodedLength("ä")).isEqualTo(6);
+    }
+
+    private static @NotNull MetricDatum datum(final @NotNull String name, final int dimensions) {
+        return MetricDatum.builder()
+                .metricName(name)
+                .value(1.0)
+                .unit(StandardUnit.COUNT)
+                .storageResolution(60)
+                .timestamp(Instant.now())
+                .dimensions(IntStream.range(0, dimensions)
+                        .mapToObj(i -> Dimension.builder().name("name" + i).value("value" + i).build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.EvictionPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.CloudWatchException;
+import software.amazon.awssdk.services.cloudwatch.model.ListMetricsRequest;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MetricDataPublisherTest {
+
+    private final @NotNull CloudWatchAsyncClient client = mock();
+    private final @NotNull ScheduledExecutorService executorService = mock();
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull List<CompletableFuture<PutMetricDataResponse>> responses = new ArrayList<>();
+
+    @Test
+    void publish_whenMoreBatchesThanInFlightRequests_thenNextBatchSentOnCompletion() {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenAnswer(invocation -> {
+            final var response = new CompletableFuture<PutMetricDataResponse>();
+            responses.add(response);
+            return response;
+        });
+        final var publisher = publisherBuilder().build();
+
+        final var published = publisher.publish(metricData(2500));
+        assertThat(responses).hasSize(2);
+
+        responses.getFirst().complete(PutMetricDataResponse.builder().build());
+        assertThat(responses).hasSize(3);
+        assertThat(published).isNotDone();
+
+        responses.get(1).completeExceptionally(new RuntimeException("throttled"));
+        responses.get(2).complete(PutMetricDataResponse.builder().build());
+        assertThat(published).isCompleted();
+    }
+
+    @Test
+    void publish_whenEmpty_thenNoRequest() {
+        final var publisher = publisherBuilder().build();
+
+        assertThat(publisher.publish(List.of())).isCompleted();
+        assertThat(responses).isEmpty();
+    }
+
+    @Test
+    void publish_whenServerError_thenBufferedAndRetriedAfterBackoff() throws Exception {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                        CloudWatchException.builder().statusCode(503).build()))
+                .thenReturn(CompletableFuture.completedFuture(PutMetricDataResponse.builder().build()));
+        final var retryBuffer =
+                new RetryBuffer(10, EvictionPolicy.OLDEST, 50, 50, null, new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().retryBuffer(retryBuffer).build();
+
+        assertThat(publisher.publish(metricData(10))).isCompleted();
+        assertThat(retryBuffer.size()).isEqualTo(1);
+
+        final var drain = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).schedule(drain.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        Thread.sleep(100);
+        drain.getValue().run();
+
+        verify(client, times(2)).putMetricData(any(PutMetricDataRequest.class));
+        assertThat(retryBuffer.size()).isZero();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "retry-buffer.retries").getCount()).isOne();
+    }
+
+    @Test
+    void publish_whenBackingOff_thenQueuedBehindBufferedBatches() {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                SdkClientException.create("timeout")));
+        final var retryBuffer =
+                new RetryBuffer(10, EvictionPolicy.OLDEST, 60_000, 60_000, null, new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().retryBuffer(retryBuffer).build();
+
+        publisher.publish(metricData(10));
+        publisher.publish(metricData(10));
+
+        verify(client).putMetricData(any(PutMetricDataRequest.class));
+        assertThat(retryBuffer.size()).isEqualTo(2);
+    }
+
+    @Test
+    void publish_whenClientError_thenNotBuffered() {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                CloudWatchException.builder().statusCode(400).build()));
+        final var retryBuffer =
+                new RetryBuffer(10, EvictionPolicy.OLDEST, 1, 1, null, new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().retryBuffer(retryBuffer).build();
+
+        publisher.publish(metricData(10));
+
+        assertThat(retryBuffer.size()).isZero();
+    }
+
+    @Test
+    void publish_whenTimeoutWithSpool_thenSpooledAndReplayedOnStart(final @NotNull @TempDir Path tempDir)
+            throws Exception {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                SdkClientException.create("timeout")));
+        final var spool = new MetricSpool(tempDir, 1024 * 1024, 64 * 1024, new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().spool(spool).build();
+        publisher.publish(metricData(10));
+        publisher.close();
+
+        final var captor = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        when(client.putMetricData(captor.capture())).thenReturn(CompletableFuture.completedFuture(
+                PutMetricDataResponse.builder().build()));
+        final var reopenedSpool =
+                new MetricSpool(tempDir, 1024 * 1024, 64 * 1024, new ExtensionMetrics(new MetricRegistry()));
+        assertThat(reopenedSpool.pendingDatums()).isEqualTo(10);
+
+        publisherBuilder().spool(reopenedSpool).build().start();
+
+        assertThat(captor.getValue().metricData()).containsExactlyElementsOf(metricData(10));
+        assertThat(reopenedSpool.pendingDatums()).isZero();
+    }
+
+    @Test
+    void publish_whenPipelineMetrics_thenFlushAndRequestsRecorded() {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                        PutMetricDataResponse.builder().build()))
+                .thenReturn(CompletableFuture.failedFuture(CloudWatchException.builder().statusCode(429).build()))
+                .thenReturn(CompletableFuture.failedFuture(ApiCallTimeoutException.create("timeout")));
+        final var publisher = MetricDataPublisher.builder(client, "test", executorService)
+                .pipelineMetrics(new PipelineMetrics(new ExtensionMetrics(metricRegistry)))
+                .build();
+
+        assertThat(publisher.publish(metricData(2500))).isCompleted();
+
+        final var latency = metricRegistry.histogram(ExtensionMetrics.PREFIX + "publish.latency");
+        assertThat(latency.getCount()).isOne();
+        final var datums = metricRegistry.histogram(ExtensionMetrics.PREFIX + "publish.datums");
+        assertThat(datums.getSnapshot().getValues()).containsExactly(2500);
+        final var requests = metricRegistry.histogram(ExtensionMetrics.PREFIX + "publish.requests");
+        assertThat(requests.getSnapshot().getValues()).containsExactly(3);
+        final var firstBatchBytes = MetricDataBatcher.requestOverhead("test") +
+                metricData(1000).stream().mapToInt(MetricDataBatcher::estimateSize).sum();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "publish.bytes").getCount()).isEqualTo(
+                firstBatchBytes);
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "publish.failed").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "publish.throttled").getCount()).isOne();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "publish.timeouts").getCount()).isOne();
+    }
+
+    @Test
+    void publish_whenRateLimited_thenRequestWithoutTokenScheduledAndThrottlingDecreasesRate() {
+        when(client.putMetricData(any(PutMetricDataRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                        CloudWatchException.builder().statusCode(429).build()))
+                .thenReturn(CompletableFuture.completedFuture(PutMetricDataResponse.builder().build()));
+        final var rateLimiter =
+                new AdaptiveRateLimiter(10, 1, 100, 1, 1000, System.nanoTime(), new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().rateLimiter(rateLimiter).build();
+
+        final var published = publisher.publish(metricData(2000));
+
+        verify(client).putMetricData(any(PutMetricDataRequest.class));
+        assertThat(rateLimiter.getRate()).isEqualTo(5);
+        final var scheduled = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).schedule(scheduled.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        assertThat(published).isNotDone();
+
+        scheduled.getValue().run();
+        verify(client, times(2)).putMetricData(any(PutMetricDataRequest.class));
+        assertThat(published).isCompleted();
+    }
+
+    @Test
+    void prewarm_whenListMetricsDenied_thenCompletedWithoutPutMetricData() {
+        final var captor = ArgumentCaptor.forClass(ListMetricsRequest.class);
+        when(client.listMetrics(captor.capture())).thenReturn(CompletableFuture.failedFuture(
+                CloudWatchException.builder().statusCode(403).build()));
+        final var retryBuffer =
+                new RetryBuffer(10, EvictionPolicy.OLDEST, 1, 1, null, new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().retryBuffer(retryBuffer).build();
+
+        assertThat(publisher.prewarm(3)).isCompleted();
+
+        assertThat(captor.getAllValues()).hasSize(3).allSatisfy(request -> {
+            assertThat(request.namespace()).isEqualTo("test");
+            assertThat(request.metricName()).isEqualTo(MetricDataPublisher.PREWARM_METRIC_NAME);
+        });
+        verify(client, never()).putMetricData(any(PutMetricDataRequest.class));
+        assertThat(retryBuffer.size()).isZero();
+    }
+
+    @Test
+    void forNamespace_whenPublishedAndClosed_thenSharedClientNotRetriedAndNotClosed() {
+        final var captor = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        when(client.putMetricData(captor.capture())).thenReturn(CompletableFuture.failedFuture(
+                CloudWatchException.builder().statusCode(500).build()));
+        final var retryBuffer =
+                new RetryBuffer(10, EvictionPolicy.OLDEST, 1, 1, null, new ExtensionMetrics(metricRegistry));
+        final var publisher = publisherBuilder().retryBuffer(retryBuffer).build();
+        final var namespacePublisher = publisher.forNamespace("other");
+
+        assertThat(namespacePublisher.publish(metricData(10))).isCompleted();
+        namespacePublisher.close();
+
+        assertThat(captor.getValue().namespace()).isEqualTo("other");
+        assertThat(retryBuffer.size()).isZero();
+        verify(client, never()).close();
+
+        publisher.close();
+        verify(client).close();
+    }
+
+    @Test
+    void isRetryable_whenThrottlingTimeoutOrServerError_thenTrue() {
+        assertThat(MetricDataPublisher.isRetryable(CloudWatchException.builder().statusCode(429).build())).isTrue();
+        assertThat(MetricDataPublisher.isRetryable(CloudWatchException.builder().statusCode(500).build())).isTrue();
+        assertThat(MetricDataPublisher.isRetryable(new CompletionException(SdkClientException.create("timeout"))))
+                .isTrue();
+        assertThat(MetricDataPublisher.isRetryable(CloudWatchException.builder().statusCode(400).build())).isFalse();
+        assertThat(MetricDataPublisher.isRetryable(new IllegalStateException())).isFalse();
+    }
+
+    private @NotNull MetricDataPublisher.Builder publisherBuilder() {
+        return MetricDataPublisher.builder(client, "test", executorService).maxInFlightRequests(2);
+    }
+
+    private static @NotNull List<MetricDatum> metricData(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> MetricDatum.builder().metricName("metric." + i).value(1.0).build())
+                .toList();
+    }
+}
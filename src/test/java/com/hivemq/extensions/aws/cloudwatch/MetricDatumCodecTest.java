@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricDatumCodecTest {
+
+    @Test
+    void decode_whenValueDatum_thenEqual() {
+        assertRoundTrip(MetricDatum.builder()
+                .metricName("com.hivemq.messages.incoming.total.count")
+                .value(42.5)
+                .unit(StandardUnit.COUNT)
+                .storageResolution(60)
+                .timestamp(Instant.ofEpochMilli(1_700_000_000_123L))
+                .dimensions(Dimension.builder().name("Type").value("count").build(),
+                        Dimension.builder().name("Node").value("node-1").build())
+                .build());
+    }
+
+    @Test
+    void decode_whenAggregatedDatum_thenEqual() {
+        assertRoundTrip(MetricDatum.builder()
+                .metricName("com.hivemq.gauge")
+                .statisticValues(StatisticSet.builder().sampleCount(4.0).sum(12.0).minimum(1.0).maximum(5.0).build())
+                .unit(StandardUnit.NONE)
+                .storageResolution(1)
+                .timestamp(Instant.ofEpochMilli(1_700_000_000_000L))
+                .build());
+        assertRoundTrip(MetricDatum.builder()
+                .metricName("com.hivemq.gauge")
+                .values(List.of(1.0, 3.0))
+                .counts(List.of(1.0, 3.0))
+                .build());
+    }
+
+    @Test
+    void decode_whenNonAsciiNames_thenEqual() {
+        assertRoundTrip(MetricDatum.builder()
+                .metricName("metric-ä-€-\u0000")
+                .value(-1.0)
+                .dimensions(Dimension.builder().name("Größe").value("✓").build())
+                .build());
+    }
+
+    private static void assertRoundTrip(final @NotNull MetricDatum datum) {
+        final var size = MetricDatumCodec.encodedSize(datum);
+        final var buffer = ByteBuffer.allocate(size + 8);
+        MetricDatumCodec.encode(datum, buffer);
+        assertThat(buffer.position()).isEqualTo(size);
+
+        buffer.flip();
+        assertThat(MetricDatumCodec.decode(buffer)).isEqualTo(datum);
+        assertThat(buffer.remaining()).isZero();
+    }
+}
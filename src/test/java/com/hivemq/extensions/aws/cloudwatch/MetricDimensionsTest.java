@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MetricDimensionsTest {
+
+    private final @NotNull DimensionPlaceholders placeholders =
+            new DimensionPlaceholders(Map.of("HIVEMQ_CLUSTER_ID", "cluster"), "node1", mock());
+
+    @Test
+    void create_whenNoDimensions_thenNone() {
+        final var metrics = List.of(new Metric("metric", MatchType.EXACT));
+        assertThat(MetricDimensions.create(new Config(), metrics, placeholders)).isSameAs(MetricDimensions.NONE);
+    }
+
+    @Test
+    void get_whenGlobalDimensions_thenAllMetrics() {
+        final var config = new Config();
+        config.getDimensions().add(configured("Node", "${node-id}"));
+        config.getDimensions().add(configured("Cluster", "${cluster-id}"));
+
+        final var dimensions =
+                MetricDimensions.create(config, List.of(new Metric("com.", MatchType.PREFIX)), placeholders);
+
+        assertThat(dimensions.get("com.hivemq.metric")).containsExactly(sdk("Node", "node1"),
+                sdk("Cluster", "cluster"));
+    }
+
+    @Test
+    void get_whenMetricDimensions_thenFirstMatchingMetricOverridesGlobal() {
+        final var config = new Config();
+        config.getDimensions().add(configured("Node", "${node-id}"));
+        config.getDimensions().add(configured("Team", "platform"));
+        final var sessions = new Metric("com.hivemq.sessions.", MatchType.PREFIX);
+        sessions.setDimensions("Team=sessions, Stage=${env:STAGE}, Kind=session");
+        final var all = new Metric("com.hivemq.**", MatchType.GLOB);
+        all.setDimensions("Team=all");
+
+        final var dimensions = MetricDimensions.create(config, List.of(sessions, all), placeholders);
+
+        // the unresolved Stage dimension is ignored
+        assertThat(dimensions.get("com.hivemq.sessions.overall.current")).containsExactly(
+                sdk("Node", "node1"),
+                sdk("Team", "sessions"),
+                sdk("Kind", "session"));
+        assertThat(dimensions.get("com.hivemq.messages.incoming.total.count")).containsExactly(
+                sdk("Node", "node1"),
+                sdk("Team", "all"));
+        assertThat(dimensions.get("other")).containsExactly(sdk("Node", "node1"),
+                sdk("Team", "platform"));
+    }
+
+    @Test
+    void create_whenTooManyDimensions_thenLimited() {
+        final var config = new Config();
+        for (var i = 0; i < 40; i++) {
+            config.getDimensions().add(configured("Dimension" + i, "value"));
+        }
+
+        final var dimensions = MetricDimensions.create(config, List.of(), placeholders);
+
+        assertThat(dimensions.get("metric")).hasSize(MetricDimensions.MAXIMUM_DIMENSIONS);
+    }
+
+    @Test
+    void createClusterWide_whenNodeSpecificPlaceholders_thenOmitted() {
+        final var config = new Config();
+        config.getDimensions().add(configured("Node", "${node-id}"));
+        config.getDimensions().add(configured("Host", "host-${hostname}"));
+        config.getDimensions().add(configured("Instance", "${ec2:instance-id}"));
+        config.getDimensions().add(configured("Cluster", "${cluster-id}"));
+        config.getDimensions().add(configured("Env", "prod"));
+        final var sessions = new Metric("com.hivemq.sessions.", MatchType.PREFIX);
+        sessions.setDimensions("Team=sessions, Node=${node-id}");
+
+        final var dimensions = MetricDimensions.createClusterWide(config, List.of(sessions), placeholders);
+
+        assertThat(dimensions.get("com.hivemq.sessions.overall.current")).containsExactly(sdk("Cluster", "cluster"),
+                sdk("Env", "prod"),
+                sdk("Team", "sessions"));
+        assertThat(dimensions.get("other")).containsExactly(sdk("Cluster", "cluster"), sdk("Env", "prod"));
+    }
+
+    private static com.hivemq.extensions.aws.cloudwatch.configuration.entities.@NotNull Dimension configured(
+            final @NotNull String name,
+            final @NotNull String value) {
+        return new com.hivemq.extensions.aws.cloudwatch.configuration.entities.Dimension(name, value);
+    }
+
+    private static @NotNull Dimension sdk(final @NotNull String name, final @NotNull String value) {
+        return Dimension.builder().name(name).value(value).build();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetricSketchesTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull ReportedMetrics reportedMetrics =
+            new ReportedMetrics(new ConfiguredMetricsFilter(List.of(new Metric("metric.", MatchType.PREFIX))),
+                    new ConfiguredMetricsFilter(List.of()));
+    private final @NotNull MetricSketches sketches = new MetricSketches(reportedMetrics, 0.02, 1000);
+
+    @Test
+    void flush_whenHistogramUpdated_thenValuesAndCountsOfTheNewValues() {
+        metricRegistry.addListener(reportedMetrics);
+        final var histogram = metricRegistry.histogram("metric.histogram");
+        histogram.update(10);
+        // the values before the first sample do not belong to a report
+        sketches.sample();
+
+        histogram.update(10);
+        histogram.update(10);
+        histogram.update(1000);
+        final var metricData = flush();
+
+        assertThat(metricData).singleElement().satisfies(datum -> {
+            assertThat(datum.metricName()).isEqualTo("metric.histogram");
+            assertThat(datum.dimensions()).containsExactly(CloudWatchReporter.SNAPSHOT_SUMMARY_DIMENSION);
+            assertThat(datum.unit()).isEqualTo(StandardUnit.NONE);
+            assertThat(datum.value()).isNull();
+            assertThat(datum.values()).satisfiesExactly(ten -> assertThat(ten).isCloseTo(10, within(0.2)),
+                    thousand -> assertThat(thousand).isCloseTo(1000, within(20.0)));
+            // the reservoir holds all four values, but only three were recorded since the previous sample
+            assertThat(datum.counts().stream().mapToDouble(Double::doubleValue).sum()).isCloseTo(3, within(1e-9));
+        });
+        assertThat(flush()).isEmpty();
+    }
+
+    @Test
+    void flush_whenTimerUpdated_thenMilliseconds() {
+        metricRegistry.addListener(reportedMetrics);
+        final var timer = metricRegistry.timer("metric.timer");
+        sketches.sample();
+
+        timer.update(5, TimeUnit.MILLISECONDS);
+
+        assertThat(flush()).singleElement().satisfies(datum -> {
+            assertThat(datum.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+            assertThat(datum.values()).singleElement().satisfies(value -> assertThat(value).isCloseTo(5, within(0.1)));
+            assertThat(datum.counts()).containsExactly(1.0);
+        });
+    }
+
+    @Test
+    void flush_whenMoreBucketsThanValuesPerDatum_thenSplit() {
+        metricRegistry.addListener(reportedMetrics);
+        final var histogram = metricRegistry.histogram("metric.histogram");
+        sketches.sample();
+
+        // each value is more than the relative accuracy apart from the previous one, so each has a bucket of its own
+        for (var i = 0; i < 400; i++) {
+            histogram.update((long) (1000 * Math.pow(1.05, i)));
+        }
+        final var metricData = flush();
+
+        assertThat(metricData).extracting(datum -> datum.values().size()).containsExactly(150, 150, 100);
+        assertThat(metricData).extracting(MetricDatum::metricName).containsOnly("metric.histogram");
+        assertThat(metricData).flatExtracting(MetricDatum::counts).containsOnly(1.0);
+    }
+
+    @Test
+    void sample_whenGaugeOrCounter_thenNoSketch() {
+        metricRegistry.addListener(reportedMetrics);
+        metricRegistry.counter("metric.counter").inc();
+
+        sketches.sample();
+
+        assertThat(reportedMetrics.get()).singleElement()
+                .satisfies(metric -> assertThat(metric.getSketchState()).isNull());
+    }
+
+    private @NotNull List<MetricDatum> flush() {
+        final var metricData = new ArrayList<MetricDatum>();
+        for (final var metric : reportedMetrics.get()) {
+            sketches.flush(metric, Instant.now(), metricData);
+        }
+        return metricData;
+    }
+}
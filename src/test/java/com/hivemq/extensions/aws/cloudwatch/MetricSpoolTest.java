@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricSpoolTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull List<MetricSpool> spools = new ArrayList<>();
+
+    @TempDir
+    private @NotNull Path spoolDirectory;
+
+    @AfterEach
+    void tearDown() {
+        spools.forEach(MetricSpool::close);
+    }
+
+    @Test
+    void read_whenAppended_thenDatumsInOrder() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var metricData = metricData(0, 10, Instant.now());
+        assertThat(spool.append(metricData)).isTrue();
+
+        final var read = spool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis());
+        assertThat(read).isNotNull();
+        assertThat(read.getMetricData()).containsExactlyElementsOf(metricData);
+
+        // not committed reads are read again
+        assertThat(spool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis())).isNotNull()
+                .satisfies(again -> assertThat(again.getMetricData()).hasSize(10));
+
+        spool.commit(read);
+        assertThat(spool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis())).isNull();
+        assertThat(spool.pendingBytes()).isZero();
+    }
+
+    @Test
+    void read_whenLimited_thenReadUpToLimits() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        spool.append(metricData(0, 10, Instant.now()));
+
+        final var read = spool.read(4, Integer.MAX_VALUE, System.currentTimeMillis());
+        assertThat(read.getMetricData()).hasSize(4);
+        spool.commit(read);
+
+        final var datumBytes = MetricDataBatcher.estimateSize(metricData(4, 1, Instant.now()).getFirst());
+        final var next = spool.read(1000, datumBytes * 3, System.currentTimeMillis());
+        assertThat(next.getMetricData()).extracting(MetricDatum::metricName)
+                .containsExactly("metric.4", "metric.5", "metric.6");
+    }
+
+    @Test
+    void read_whenReopened_thenUncommittedDatumsReplayed() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var timestamp = Instant.ofEpochMilli(System.currentTimeMillis());
+        spool.append(metricData(0, 10, timestamp));
+        spool.commit(spool.read(3, Integer.MAX_VALUE, System.currentTimeMillis()));
+        spool.close();
+
+        final var reopenedSpool = createSpool(1024 * 1024);
+        assertThat(reopenedSpool.pendingDatums()).isEqualTo(7);
+        final var read = reopenedSpool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis());
+        assertThat(read.getMetricData()).containsExactlyElementsOf(metricData(3, 7, timestamp));
+
+        // appending continues after the replayed datums
+        reopenedSpool.append(metricData(10, 1, timestamp));
+        reopenedSpool.commit(read);
+        assertThat(reopenedSpool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis())
+                .getMetricData()).containsExactlyElementsOf(metricData(10, 1, timestamp));
+    }
+
+    @Test
+    void open_whenRecordIncomplete_thenIgnored() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var metricData = metricData(0, 2, Instant.now());
+        spool.append(metricData);
+        spool.close();
+
+        // a record with a length that exceeds the segment is never completely written
+        final var writePosition = MetricSpool.HEADER_SIZE +
+                metricData.stream().mapToInt(datum -> Integer.BYTES + MetricDatumCodec.encodedSize(datum)).sum();
+        try (final var files = Files.list(spoolDirectory);
+             final var channel = FileChannel.open(files.findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, SEGMENT_SIZE), writePosition);
+        }
+
+        assertThat(createSpool(1024 * 1024).pendingDatums()).isEqualTo(2);
+    }
+
+    @Test
+    void append_whenMaxSizeExceeded_thenOldestSegmentDropped() throws IOException {
+        final var spool = createSpool(2 * SEGMENT_SIZE);
+        final var timestamp = Instant.now();
+        final var droppedCounter = metricRegistry.counter(ExtensionMetrics.PREFIX + "spool.dropped");
+        var appended = 0;
+        while (droppedCounter.getCount() == 0) {
+            spool.append(metricData(appended++, 1, timestamp));
+        }
+
+        assertThat(numberOfSegments()).isEqualTo(2);
+        final var dropped = droppedCounter.getCount();
+        assertThat(spool.pendingDatums()).isEqualTo(appended - dropped);
+        assertThat(spool.read(1, Integer.MAX_VALUE, System.currentTimeMillis()).getMetricData()).singleElement()
+                .extracting(MetricDatum::metricName)
+                .isEqualTo("metric." + dropped);
+    }
+
+    @Test
+    void read_whenSegmentCompletelySent_thenDeleted() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var timestamp = Instant.now();
+        var appended = 0;
+        while (numberOfSegments() < 2) {
+            spool.append(metricData(appended++, 1, timestamp));
+        }
+
+        var read = spool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis());
+        while (read != null) {
+            spool.commit(read);
+            read = spool.read(1000, Integer.MAX_VALUE, System.currentTimeMillis());
+        }
+        assertThat(numberOfSegments()).isOne();
+        assertThat(spool.pendingDatums()).isZero();
+    }
+
+    @Test
+    void read_whenDatumsExpired_thenSkipped() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var now = System.currentTimeMillis();
+        spool.append(metricData(0, 2, Instant.ofEpochMilli(now - MetricSpool.MAXIMUM_AGE_MILLIS - 1)));
+        spool.append(metricData(2, 1, Instant.ofEpochMilli(now)));
+
+        assertThat(spool.read(1000, Integer.MAX_VALUE, now).getMetricData()).extracting(MetricDatum::metricName)
+                .containsExactly("metric.2");
+    }
+
+    @Test
+    void read_whenReadAgainBeforeCommit_thenExpiredDatumsDroppedOnce() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var droppedCounter = metricRegistry.counter(ExtensionMetrics.PREFIX + "spool.dropped");
+        final var now = System.currentTimeMillis();
+        spool.append(metricData(0, 2, Instant.ofEpochMilli(now - MetricSpool.MAXIMUM_AGE_MILLIS - 1)));
+        spool.append(metricData(2, 1, Instant.ofEpochMilli(now)));
+
+        // the send of the first read failed, so the datums are read again
+        spool.read(1000, Integer.MAX_VALUE, now);
+        assertThat(droppedCounter.getCount()).isZero();
+        final var read = spool.read(1000, Integer.MAX_VALUE, now);
+        assertThat(droppedCounter.getCount()).isZero();
+
+        spool.commit(read);
+        assertThat(droppedCounter.getCount()).isEqualTo(2);
+        assertThat(spool.read(1000, Integer.MAX_VALUE, now)).isNull();
+        assertThat(droppedCounter.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void read_whenOnlyExpiredDatums_thenDroppedOnce() throws IOException {
+        final var spool = createSpool(1024 * 1024);
+        final var droppedCounter = metricRegistry.counter(ExtensionMetrics.PREFIX + "spool.dropped");
+        final var now = System.currentTimeMillis();
+        spool.append(metricData(0, 2, Instant.ofEpochMilli(now - MetricSpool.MAXIMUM_AGE_MILLIS - 1)));
+
+        assertThat(spool.read(1000, Integer.MAX_VALUE, now)).isNull();
+        assertThat(spool.read(1000, Integer.MAX_VALUE, now)).isNull();
+        assertThat(droppedCounter.getCount()).isEqualTo(2);
+    }
+
+    private @NotNull MetricSpool createSpool(final long maxSize) throws IOException {
+        final var spool = new MetricSpool(spoolDirectory, maxSize, SEGMENT_SIZE, new ExtensionMetrics(metricRegistry));
+        spools.add(spool);
+        return spool;
+    }
+
+    private long numberOfSegments() throws IOException {
+        try (final var files = Files.list(spoolDirectory)) {
+            return files.count();
+        }
+    }
+
+    private static @NotNull List<MetricDatum> metricData(
+            final int from,
+            final int count,
+            final @NotNull Instant timestamp) {
+        return IntStream.range(from, from + count)
+                .mapToObj(i -> MetricDatum.builder()
+                        .metricName("metric." + i)
+                        .value((double) i)
+                        .storageResolution(60)
+                        .timestamp(timestamp.truncatedTo(ChronoUnit.MILLIS))
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeSummaryTest {
+
+    @Test
+    void of_whenMetrics_thenValuesSummarized() {
+        final var counter = new Counter();
+        counter.inc(5);
+        final var timer = new Timer(new UniformReservoir());
+        timer.update(2, TimeUnit.MILLISECONDS);
+        timer.update(4, TimeUnit.MILLISECONDS);
+
+        final var summary = NodeSummary.of("node1", 1000, new ReportedMetric[]{
+                new ReportedMetric("gauge", (Gauge<Double>) () -> 1.5, ReportedMetric.Kind.GAUGE, true),
+                new ReportedMetric("gauge.string", (Gauge<String>) () -> "text", ReportedMetric.Kind.GAUGE, false),
+                new ReportedMetric("counter", counter, ReportedMetric.Kind.COUNTER, false),
+                new ReportedMetric("timer", timer, ReportedMetric.Kind.TIMER, false)});
+
+        assertThat(summary.getNodeId()).isEqualTo("node1");
+        assertThat(summary.getTimestamp()).isEqualTo(1000);
+        assertThat(summary.getEntries()).satisfiesExactly(entry -> {
+            assertThat(entry.getName()).isEqualTo("gauge");
+            assertThat(entry.isHighResolution()).isTrue();
+            assertThat(entry.getValue()).isEqualTo(1.5);
+        }, entry -> {
+            assertThat(entry.getName()).isEqualTo("counter");
+            assertThat(entry.getValue()).isEqualTo(5);
+        }, entry -> {
+            assertThat(entry.getName()).isEqualTo("timer");
+            assertThat(entry.getValue()).isEqualTo(2);
+            assertThat(entry.getMin()).isEqualTo(2);
+            assertThat(entry.getMax()).isEqualTo(4);
+            assertThat(entry.getMean()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void decode_whenEncoded_thenEqualSummary() throws IOException {
+        final var counter = new Counter();
+        counter.inc(7);
+        final var summary = NodeSummary.of("node-ü", 42, new ReportedMetric[]{
+                new ReportedMetric("counter", counter, ReportedMetric.Kind.COUNTER, true)});
+
+        final var decoded = NodeSummary.decode(summary.encode());
+
+        assertThat(decoded.getNodeId()).isEqualTo("node-ü");
+        assertThat(decoded.getTimestamp()).isEqualTo(42);
+        assertThat(decoded.getEntries()).singleElement().satisfies(entry -> {
+            assertThat(entry.getName()).isEqualTo("counter");
+            assertThat(entry.getKind()).isEqualTo(ReportedMetric.Kind.COUNTER);
+            assertThat(entry.isHighResolution()).isTrue();
+            assertThat(entry.getValue()).isEqualTo(7);
+        });
+    }
+
+    @Test
+    void decode_whenInvalid_thenIOException() {
+        assertThatThrownBy(() -> NodeSummary.decode(new byte[]{1, 2, 3, 4, 5})).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> NodeSummary.decode(new byte[0])).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.cloudwatch.model.CloudWatchException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineMetricsTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull PipelineMetrics pipelineMetrics = new PipelineMetrics(new ExtensionMetrics(metricRegistry));
+
+    @Test
+    void failed_whenThrottlingTimeoutOrOtherError_thenClassified() {
+        pipelineMetrics.failed(CloudWatchException.builder().statusCode(429).build());
+        pipelineMetrics.failed(ApiCallAttemptTimeoutException.create("timeout"));
+        pipelineMetrics.failed(SdkClientException.create("connection refused"));
+        pipelineMetrics.failed(CloudWatchException.builder().statusCode(400).build());
+
+        assertThat(count("publish.failed")).isEqualTo(4);
+        assertThat(count("publish.throttled")).isOne();
+        assertThat(count("publish.timeouts")).isOne();
+    }
+
+    @Test
+    void flushed_thenLatencyDatumsAndRequestsRecorded() {
+        pipelineMetrics.flushed(120, 1500, 2);
+
+        assertThat(histogram("publish.latency")).containsExactly(120);
+        assertThat(histogram("publish.datums")).containsExactly(1500);
+        assertThat(histogram("publish.requests")).containsExactly(2);
+    }
+
+    @Test
+    void filterMatched_whenMetricAddedToReportedMetrics_thenMatchTimeRecorded() {
+        final var metrics = List.of(new Metric("enabled", MatchType.EXACT));
+        final var reportedMetrics = new ReportedMetrics(new ConfiguredMetricsFilter(metrics),
+                new ConfiguredMetricsFilter(List.of()),
+                MetricDimensions.NONE,
+                pipelineMetrics);
+        final var matchTime = metricRegistry.histogram(ExtensionMetrics.PREFIX + "filter.match-time");
+        metricRegistry.addListener(reportedMetrics);
+        final var registered = matchTime.getCount();
+
+        metricRegistry.counter("enabled");
+        metricRegistry.counter("disabled");
+
+        assertThat(matchTime.getCount() - registered).isEqualTo(2);
+        assertThat(reportedMetrics.get()).extracting(ReportedMetric::getName).containsExactly("enabled");
+    }
+
+    private long count(final @NotNull String name) {
+        return metricRegistry.counter(ExtensionMetrics.PREFIX + name).getCount();
+    }
+
+    private long @NotNull [] histogram(final @NotNull String name) {
+        return metricRegistry.histogram(ExtensionMetrics.PREFIX + name).getSnapshot().getValues();
+    }
+}
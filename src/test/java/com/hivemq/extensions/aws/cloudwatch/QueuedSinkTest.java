@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueuedSinkTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull ExtensionMetrics extensionMetrics = new ExtensionMetrics(metricRegistry);
+    private final @NotNull SlowSink slowSink = new SlowSink();
+
+    @Test
+    void publish_whenSinkIdle_thenPublishedOnExecutor() {
+        final var executor = new ManualExecutor();
+        final var queuedSink = new QueuedSink("slow", slowSink, 2, executor, extensionMetrics);
+
+        final var published = queuedSink.publish(metricData(1));
+
+        assertThat(slowSink.published).isEmpty();
+        executor.runAll();
+        assertThat(slowSink.published).containsExactly(metricData(1));
+        assertThat(published).isNotDone();
+        slowSink.complete();
+        assertThat(published).isCompleted();
+    }
+
+    @Test
+    void publish_whenSinkBusy_thenReportsQueuedInOrder() {
+        final var queuedSink = new QueuedSink("slow", slowSink, 2, Runnable::run, extensionMetrics);
+
+        queuedSink.publish(metricData(1));
+        queuedSink.publish(metricData(2));
+        queuedSink.publish(metricData(3));
+
+        assertThat(slowSink.published).containsExactly(metricData(1));
+        assertThat(queuedSink.queueSize()).isEqualTo(2);
+        assertThat(gauge("sink.slow.queue-size")).isEqualTo(2);
+        slowSink.complete();
+        slowSink.complete();
+        slowSink.complete();
+        assertThat(slowSink.published).containsExactly(metricData(1), metricData(2), metricData(3));
+        assertThat(queuedSink.queueSize()).isZero();
+    }
+
+    @Test
+    void publish_whenQueueFull_thenOldestWaitingReportDropped() {
+        final var queuedSink = new QueuedSink("slow", slowSink, 1, Runnable::run, extensionMetrics);
+
+        queuedSink.publish(metricData(1));
+        final var dropped = queuedSink.publish(metricData(2));
+        queuedSink.publish(metricData(3));
+
+        assertThat(dropped).isCompleted();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "sink.slow.dropped").getCount()).isOne();
+        slowSink.complete();
+        assertThat(slowSink.published).containsExactly(metricData(1), metricData(3));
+    }
+
+    @Test
+    void publish_whenSinkThrows_thenNextReportPublished() {
+        final var failingSink = new SlowSink() {
+            @Override
+            public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+                if (published.isEmpty()) {
+                    published.add(metricData);
+                    throw new IllegalStateException("failed");
+                }
+                return super.publish(metricData);
+            }
+        };
+        final var queuedSink = new QueuedSink("failing", failingSink, 2, Runnable::run, null);
+
+        assertThat(queuedSink.publish(metricData(1))).isCompleted();
+        queuedSink.publish(metricData(2));
+
+        assertThat(failingSink.published).containsExactly(metricData(1), metricData(2));
+    }
+
+    @Test
+    void close_whenReportsWaiting_thenCompletedAndSinkClosed() {
+        final var queuedSink = new QueuedSink("slow", slowSink, 2, Runnable::run, extensionMetrics);
+        queuedSink.publish(metricData(1));
+        final var waiting = queuedSink.publish(metricData(2));
+
+        queuedSink.close();
+
+        assertThat(waiting).isCompleted();
+        assertThat(slowSink.closed).isTrue();
+        assertThat(queuedSink.publish(metricData(3))).isCompleted();
+        assertThat(slowSink.published).containsExactly(metricData(1));
+    }
+
+    private @NotNull Object gauge(final @NotNull String name) {
+        return metricRegistry.getGauges().get(ExtensionMetrics.PREFIX + name).getValue();
+    }
+
+    private static @NotNull List<MetricDatum> metricData(final double value) {
+        return List.of(MetricDatum.builder().metricName("metric").value(value).build());
+    }
+
+    private static class SlowSink implements MetricSink {
+
+        final @NotNull List<List<MetricDatum>> published = new ArrayList<>();
+        private final @NotNull List<CompletableFuture<Void>> pending = new ArrayList<>();
+        boolean closed;
+
+        @Override
+        public @NotNull CompletableFuture<Void> publish(final @NotNull List<MetricDatum> metricData) {
+            published.add(metricData);
+            final var future = new CompletableFuture<Void>();
+            pending.add(future);
+            return future;
+        }
+
+        void complete() {
+            pending.removeFirst().complete(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class ManualExecutor implements Executor {
+
+        private final @NotNull List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(final @NotNull Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.removeFirst().run();
+            }
+        }
+    }
+}
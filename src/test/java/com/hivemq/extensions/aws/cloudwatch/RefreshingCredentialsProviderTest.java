@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.MetricRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshingCredentialsProviderTest {
+
+    private static final long REFRESH_AHEAD_MILLIS = 300_000;
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull ExtensionMetrics extensionMetrics = new ExtensionMetrics(metricRegistry);
+    private final @NotNull ScheduledExecutorService scheduler = mock();
+    private final @NotNull MutableClock clock = new MutableClock();
+    private final @NotNull Deque<Object> results = new ArrayDeque<>();
+    private final @NotNull AtomicInteger resolutions = new AtomicInteger();
+    private final @NotNull AwsCredentialsProvider delegate = () -> {
+        resolutions.incrementAndGet();
+        final var result = results.isEmpty() ? null : results.poll();
+        if (result instanceof RuntimeException exception) {
+            throw exception;
+        }
+        return (AwsCredentials) result;
+    };
+    private final @NotNull RefreshingCredentialsProvider provider = new RefreshingCredentialsProvider(() -> delegate,
+            scheduler,
+            Runnable::run,
+            REFRESH_AHEAD_MILLIS,
+            clock,
+            extensionMetrics);
+
+    @Test
+    void resolveCredentials_whenCached_thenDelegateResolvedOnce() {
+        final var credentials = sessionCredentials("first", 3_600_000);
+        results.add(credentials);
+
+        assertThat(provider.resolveCredentials()).isSameAs(credentials);
+        assertThat(provider.resolveCredentials()).isSameAs(credentials);
+        assertThat(resolutions).hasValue(1);
+    }
+
+    @Test
+    void resolveCredentials_whenExpiring_thenRefreshedInBackgroundAheadOfExpiry() {
+        results.add(sessionCredentials("first", 3_600_000));
+        final var refreshed = sessionCredentials("second", 7_200_000);
+        results.add(refreshed);
+        provider.resolveCredentials();
+
+        final var refresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(refresh.capture(),
+                eq(3_600_000 - REFRESH_AHEAD_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+        clock.advance(3_600_000 - REFRESH_AHEAD_MILLIS);
+        refresh.getValue().run();
+
+        assertThat(provider.resolveCredentials()).isSameAs(refreshed);
+        assertThat(resolutions).hasValue(2);
+        assertThat(provider.ageMillis()).isZero();
+    }
+
+    @Test
+    void resolveCredentials_whenDelegateReturnsCachedCredentials_thenAskedAgainBeforeExpiry() {
+        results.add(sessionCredentials("first", 60_000));
+
+        provider.resolveCredentials();
+
+        verify(scheduler).schedule(ArgumentCaptor.forClass(Runnable.class).capture(),
+                eq(RefreshingCredentialsProvider.RETRY_INTERVAL_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void refresh_whenFails_thenCachedCredentialsUsedAndRetried() {
+        final var credentials = sessionCredentials("first", 3_600_000);
+        results.add(credentials);
+        results.add(SdkClientException.create("unavailable"));
+        provider.resolveCredentials();
+        final var refresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(refresh.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        clock.advance(3_600_000 - REFRESH_AHEAD_MILLIS);
+
+        refresh.getValue().run();
+
+        assertThat(provider.resolveCredentials()).isSameAs(credentials);
+        assertThat(provider.ageMillis()).isEqualTo(3_600_000 - REFRESH_AHEAD_MILLIS);
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "credentials.refresh-failures").getCount())
+                .isOne();
+        verify(scheduler).schedule(refresh.capture(),
+                eq(RefreshingCredentialsProvider.RETRY_INTERVAL_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void resolveCredentials_whenExpired_thenResolvedInline() {
+        results.add(sessionCredentials("first", 3_600_000));
+        final var refreshed = sessionCredentials("second", 7_200_000);
+        results.add(refreshed);
+        provider.resolveCredentials();
+
+        clock.advance(3_600_000);
+
+        assertThat(provider.resolveCredentials()).isSameAs(refreshed);
+    }
+
+    @Test
+    void resolveCredentials_whenDelegateFails_thenFailureCountedAndThrown() {
+        results.add(SdkClientException.create("unavailable"));
+
+        assertThatThrownBy(provider::resolveCredentials).isInstanceOf(SdkClientException.class);
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "credentials.refresh-failures").getCount())
+                .isOne();
+    }
+
+    @Test
+    void resolveCredentials_whenNoExpiry_thenNotRefreshed() {
+        results.add(AwsBasicCredentials.create("key", "secret"));
+
+        provider.resolveCredentials();
+        clock.advance(REFRESH_AHEAD_MILLIS);
+
+        verify(scheduler, never()).schedule(ArgumentCaptor.forClass(Runnable.class).capture(),
+                anyLong(),
+                eq(TimeUnit.MILLISECONDS));
+        assertThat(metricRegistry.getGauges().get(ExtensionMetrics.PREFIX + "credentials.age").getValue())
+                .isEqualTo(REFRESH_AHEAD_MILLIS);
+    }
+
+    @Test
+    void refresh_whenDelegateSlowWithDedicatedExecutors_thenTicksNotDelayed() throws Exception {
+        final var executors = new DedicatedExecutors(2, 10, false);
+        final var refreshStarted = new CountDownLatch(1);
+        final var releaseRefresh = new CountDownLatch(1);
+        final var refreshThread = new AtomicReference<Thread>();
+        final AwsCredentialsProvider slowDelegate = () -> {
+            if (resolutions.incrementAndGet() > 1) {
+                refreshThread.set(Thread.currentThread());
+                refreshStarted.countDown();
+                try {
+                    releaseRefresh.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // expires right away, so the refresh is scheduled after the minimum delay
+            return AwsSessionCredentials.builder()
+                    .accessKeyId("key")
+                    .secretAccessKey("secret")
+                    .sessionToken("token")
+                    .expirationTime(Instant.now().plusMillis(RefreshingCredentialsProvider.MIN_REFRESH_DELAY_MILLIS))
+                    .build();
+        };
+        final var slowProvider = new RefreshingCredentialsProvider(() -> slowDelegate,
+                executors.getScheduler(),
+                executors.getCompletionExecutor(),
+                0,
+                Clock.systemUTC(),
+                null);
+        try {
+            slowProvider.resolveCredentials();
+            assertThat(refreshStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+            final var tick = new CountDownLatch(1);
+            executors.getScheduler().execute(tick::countDown);
+
+            assertThat(tick.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(refreshThread.get().getName()).startsWith("hivemq-cloudwatch-completion-");
+        } finally {
+            releaseRefresh.countDown();
+            slowProvider.close();
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    void close_whenResolved_thenDelegateClosed() {
+        final var closeableDelegate = mock(CloseableCredentialsProvider.class);
+        when(closeableDelegate.resolveCredentials()).thenReturn(AwsBasicCredentials.create("key", "secret"));
+        final var closeableProvider = new RefreshingCredentialsProvider(() -> closeableDelegate,
+                scheduler,
+                Runnable::run,
+                REFRESH_AHEAD_MILLIS,
+                clock,
+                null);
+        closeableProvider.resolveCredentials();
+
+        closeableProvider.close();
+
+        verify(closeableDelegate).close();
+    }
+
+    private @NotNull AwsCredentials sessionCredentials(final @NotNull String key, final long expiresInMillis) {
+        return AwsSessionCredentials.builder()
+                .accessKeyId(key)
+                .secretAccessKey("secret")
+                .sessionToken("token")
+                .expirationTime(clock.instant().plusMillis(expiresInMillis))
+                .build();
+    }
+
+    private interface CloseableCredentialsProvider extends AwsCredentialsProvider, SdkAutoCloseable {
+    }
+
+    private static class MutableClock extends Clock {
+
+        private @NotNull Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(final long millis) {
+            instant = instant.plusMillis(millis);
+        }
+
+        @Override
+        public @NotNull ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public @NotNull Clock withZone(final @NotNull ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public @NotNull Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ReporterGroupsTest {
+
+    private final @NotNull ScheduledExecutorService scheduler = mock();
+    private final @NotNull MetricSink clientsSink = mock();
+    private final @NotNull MetricSink systemSink = mock();
+    private final @NotNull CloudWatchReporter clientsReporter = mock();
+    private final @NotNull CloudWatchReporter systemReporter = mock();
+    private final @NotNull ReporterGroups reporterGroups = new ReporterGroups(List.of(
+            new ReporterGroups.Group("hivemq-clients", 10_000, clientsSink, clientsReporter),
+            new ReporterGroups.Group("hivemq-system", 15_000, systemSink, systemReporter)));
+
+    @Test
+    void getTickMillis_whenDifferentIntervals_thenGreatestCommonDivisor() {
+        assertThat(reporterGroups.getTickMillis()).isEqualTo(5_000);
+        assertThat(ReporterGroups.gcd(60_000, 1_000)).isEqualTo(1_000);
+        assertThat(ReporterGroups.gcd(7_000, 3_000)).isEqualTo(1_000);
+    }
+
+    @Test
+    void getTickMillis_whenCoPrimeIntervals_thenOneSecond() {
+        final var coPrimeGroups = new ReporterGroups(List.of(
+                new ReporterGroups.Group("hivemq-clients", 7_000, clientsSink, clientsReporter),
+                new ReporterGroups.Group("hivemq-system", 3_000, systemSink, systemReporter)));
+
+        assertThat(coPrimeGroups.getTickMillis()).isEqualTo(ReporterGroups.MIN_TICK_MILLIS);
+    }
+
+    @Test
+    void group_whenIntervalNotWholeSeconds_thenIllegalArgumentException() {
+        // the co-prime intervals 1500 ms and 1001 ms would need a tick of 1 ms
+        assertThatThrownBy(() -> new ReporterGroups.Group("hivemq-clients",
+                1_500,
+                clientsSink,
+                clientsReporter)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ReporterGroups.Group("hivemq-system",
+                1_001,
+                systemSink,
+                systemReporter)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ReporterGroups.Group("hivemq-system",
+                500,
+                systemSink,
+                systemReporter)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void start_whenStarted_thenSinksStartedAndOneTickScheduled() {
+        reporterGroups.start(scheduler, false);
+
+        verify(clientsSink).start();
+        verify(systemSink).start();
+        verify(scheduler).scheduleAtFixedRate(any(), eq(5_000L), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        assertThatThrownBy(() -> reporterGroups.start(scheduler, false)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void tick_whenUnaligned_thenGroupsReportedAtTheirIntervalsWithSharedTimestamp() {
+        reporterGroups.start(scheduler, false);
+        final var tick = tick(false);
+
+        IntStream.range(0, 6).forEach(i -> tick.run());
+
+        final var clientsTimestamps = ArgumentCaptor.forClass(Instant.class);
+        final var systemTimestamps = ArgumentCaptor.forClass(Instant.class);
+        verify(clientsReporter, times(3)).report(clientsTimestamps.capture());
+        verify(systemReporter, times(2)).report(systemTimestamps.capture());
+        // the sixth tick reports both groups
+        assertThat(clientsTimestamps.getAllValues().getLast()).isSameAs(systemTimestamps.getAllValues().getLast());
+    }
+
+    @Test
+    void tick_whenAligned_thenGroupsReportedAtTheirIntervals() {
+        reporterGroups.start(scheduler, true);
+        final var tick = tick(true);
+
+        IntStream.range(0, 6).forEach(i -> tick.run());
+
+        verify(clientsReporter, times(3)).report(any(Instant.class));
+        verify(systemReporter, times(2)).report(any(Instant.class));
+    }
+
+    @Test
+    void tick_whenReportFails_thenOtherGroupsReported() {
+        doThrow(new IllegalStateException("failed")).when(clientsReporter).report(any(Instant.class));
+        reporterGroups.start(scheduler, false);
+        final var tick = tick(false);
+
+        IntStream.range(0, 6).forEach(i -> tick.run());
+
+        verify(clientsReporter, times(3)).report(any(Instant.class));
+        verify(systemReporter, times(2)).report(any(Instant.class));
+    }
+
+    @Test
+    void stop_whenStarted_thenTickCancelledAndReportersStopped() {
+        final ScheduledFuture<?> scheduledTick = mock();
+        doReturn(scheduledTick).when(scheduler)
+                .scheduleAtFixedRate(any(), anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        reporterGroups.start(scheduler, false);
+
+        reporterGroups.stop();
+
+        verify(scheduledTick).cancel(false);
+        verify(clientsReporter).stop();
+        verify(systemReporter).stop();
+    }
+
+    private @NotNull Runnable tick(final boolean aligned) {
+        final var tick = ArgumentCaptor.forClass(Runnable.class);
+        final var initialDelay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler).scheduleAtFixedRate(tick.capture(),
+                initialDelay.capture(),
+                eq(5_000L),
+                eq(TimeUnit.MILLISECONDS));
+        if (aligned) {
+            assertThat(initialDelay.getValue()).isBetween(1L, 5_000L);
+        } else {
+            assertThat(initialDelay.getValue()).isEqualTo(5_000L);
+        }
+        return tick.getValue();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.EvictionPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBufferTest {
+
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private final @NotNull List<MetricDatum> first = batch("first");
+    private final @NotNull List<MetricDatum> second = batch("second");
+    private final @NotNull List<MetricDatum> third = batch("third");
+
+    @Test
+    void add_whenFullWithEvictOldest_thenOldestDropped() {
+        final var retryBuffer = createRetryBuffer(EvictionPolicy.OLDEST, 1000, 1000);
+        retryBuffer.add(first);
+        retryBuffer.add(second);
+        retryBuffer.add(third);
+
+        assertThat(retryBuffer.poll(0)).isSameAs(second);
+        assertThat(retryBuffer.poll(0)).isSameAs(third);
+        assertThat(retryBuffer.poll(0)).isNull();
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "retry-buffer.dropped").getCount()).isOne();
+    }
+
+    @Test
+    void add_whenFullWithEvictNewest_thenNewDropped() {
+        final var retryBuffer = createRetryBuffer(EvictionPolicy.NEWEST, 1000, 1000);
+        retryBuffer.add(first);
+        retryBuffer.add(second);
+        retryBuffer.add(third);
+
+        assertThat(retryBuffer.poll(0)).isSameAs(first);
+        assertThat(retryBuffer.poll(0)).isSameAs(second);
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "retry-buffer.dropped").getCount()).isOne();
+    }
+
+    @Test
+    void poll_whenBackingOff_thenNull() {
+        final var retryBuffer = createRetryBuffer(EvictionPolicy.OLDEST, 1000, 1000);
+        retryBuffer.add(first);
+        retryBuffer.failed(0);
+
+        assertThat(retryBuffer.isBackingOff(0)).isTrue();
+        assertThat(retryBuffer.poll(0)).isNull();
+        assertThat(retryBuffer.remainingBackoffMillis(0)).isBetween(500L, 1000L);
+        assertThat(retryBuffer.poll(1000)).isSameAs(first);
+        assertThat(metricRegistry.counter(ExtensionMetrics.PREFIX + "retry-buffer.retries").getCount()).isOne();
+    }
+
+    @Test
+    void failed_whenRepeated_thenBackoffGrowsUpToMaximum() {
+        final var retryBuffer = createRetryBuffer(EvictionPolicy.OLDEST, 1000, 4000);
+        var now = 0L;
+        for (final var maximum : List.of(1000L, 2000L, 4000L, 4000L)) {
+            retryBuffer.failed(now);
+            final var backoff = retryBuffer.remainingBackoffMillis(now);
+            assertThat(backoff).isBetween(maximum / 2, maximum);
+            now += backoff;
+        }
+
+        retryBuffer.succeeded();
+        retryBuffer.failed(now);
+        assertThat(retryBuffer.remainingBackoffMillis(now)).isBetween(500L, 1000L);
+    }
+
+    @Test
+    void retryFailed_whenRetried_thenBatchStaysHeadOfBuffer() {
+        final var retryBuffer = createRetryBuffer(EvictionPolicy.OLDEST, 1000, 1000);
+        retryBuffer.add(first);
+        retryBuffer.add(second);
+
+        final var batch = retryBuffer.poll(0);
+        assertThat(batch).isSameAs(first);
+        retryBuffer.retryFailed(batch, 0);
+
+        assertThat(retryBuffer.poll(1000)).isSameAs(first);
+    }
+
+    @Test
+    void size_whenBatchesBuffered_thenGaugeReportsSize() {
+        final var retryBuffer = createRetryBuffer(EvictionPolicy.OLDEST, 1000, 1000);
+        retryBuffer.add(first);
+
+        final var gauge = (Gauge<?>) metricRegistry.getMetrics().get(ExtensionMetrics.PREFIX + "retry-buffer.size");
+        assertThat(gauge.getValue()).isEqualTo(1);
+    }
+
+    private @NotNull RetryBuffer createRetryBuffer(
+            final @NotNull EvictionPolicy eviction,
+            final long initialBackoffMillis,
+            final long maxBackoffMillis) {
+        return new RetryBuffer(2,
+                eviction,
+                initialBackoffMillis,
+                maxBackoffMillis,
+                null,
+                new ExtensionMetrics(metricRegistry));
+    }
+
+    private static @NotNull List<MetricDatum> batch(final @NotNull String name) {
+        return List.of(MetricDatum.builder().metricName(name).value(1.0).build());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TcpEmfTargetTest {
+
+    @Test
+    void write_whenAgentListening_thenDocumentsOnConnection() throws IOException {
+        try (final var agent = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final var target = new TcpEmfTarget((InetSocketAddress) agent.getLocalSocketAddress());
+
+            target.write(ByteBuffer.wrap("{\"a\":1}\n".getBytes(StandardCharsets.US_ASCII)));
+            target.write(ByteBuffer.wrap("{\"b\":2}\n".getBytes(StandardCharsets.US_ASCII)));
+            target.close();
+
+            try (final var connection = agent.accept()) {
+                assertThat(connection.getInputStream().readAllBytes()).asString(StandardCharsets.US_ASCII)
+                        .isEqualTo("{\"a\":1}\n{\"b\":2}\n");
+            }
+        }
+    }
+
+    @Test
+    void write_whenAgentNotListening_thenFailsAndConnectsOnNextWrite() throws IOException {
+        final InetSocketAddress address;
+        try (final var closed = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            address = (InetSocketAddress) closed.getLocalSocketAddress();
+        }
+        final var target = new TcpEmfTarget(address);
+
+        assertThatThrownBy(() -> target.write(ByteBuffer.wrap(new byte[]{'\n'}))).isInstanceOf(IOException.class);
+
+        try (final var agent = new ServerSocket(address.getPort(), 1, address.getAddress())) {
+            target.write(ByteBuffer.wrap("{\"a\":1}\n".getBytes(StandardCharsets.US_ASCII)));
+            target.close();
+
+            try (final var connection = agent.accept()) {
+                assertThat(connection.getInputStream().readAllBytes()).asString(StandardCharsets.US_ASCII)
+                        .isEqualTo("{\"a\":1}\n");
+            }
+        }
+    }
+}
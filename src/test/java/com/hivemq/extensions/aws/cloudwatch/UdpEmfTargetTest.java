@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hivemq.extensions.aws.cloudwatch;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UdpEmfTargetTest {
+
+    @Test
+    void write_whenMultipleDocuments_thenDatagramPerDocument() throws IOException {
+        try (final var agent = DatagramChannel.open()) {
+            agent.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final var target = new UdpEmfTarget((InetSocketAddress) agent.getLocalAddress());
+
+            target.write(ByteBuffer.wrap("{\"a\":1}\n{\"b\":2}\n".getBytes(StandardCharsets.US_ASCII)));
+            target.close();
+
+            assertThat(receive(agent)).isEqualTo("{\"a\":1}\n");
+            assertThat(receive(agent)).isEqualTo("{\"b\":2}\n");
+        }
+    }
+
+    @Test
+    void getMaxDocumentSize_thenMaximumUdpPayload() {
+        assertThat(new UdpEmfTarget(new InetSocketAddress(InetAddress.getLoopbackAddress(), 25888))
+                .getMaxDocumentSize()).isEqualTo(65_507);
+    }
+
+    private static @NotNull String receive(final @NotNull DatagramChannel agent) throws IOException {
+        final var buffer = ByteBuffer.allocate(1024);
+        agent.receive(buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigurationCacheTest {
+
+    private final byte @NotNull [] xml = ConfigurationStaxParserTest.FULL_CONFIG.getBytes(StandardCharsets.UTF_8);
+    private final byte @NotNull [] hash = ConfigurationCache.hash(xml);
+
+    private @NotNull ConfigurationCache cache;
+    private @NotNull Config config;
+
+    @BeforeEach
+    void setUp(final @NotNull @TempDir Path tempDir) throws IOException {
+        cache = new ConfigurationCache(ConfigurationCache.of(tempDir.resolve("config.xml")));
+        config = new ConfigurationStaxParser().unmarshalExtensionConfig(xml);
+    }
+
+    @Test
+    void of_whenXmlFile_thenCacheFileNextToIt() {
+        assertThat(ConfigurationCache.of(Path.of("conf", "config.xml"))).isEqualTo(Path.of("conf", "config.cache"));
+        assertThat(ConfigurationCache.of(Path.of("config"))).isEqualTo(Path.of("config.cache"));
+    }
+
+    @Test
+    void read_whenWrittenWithSameHash_thenSameConfig() {
+        cache.write(hash, config);
+
+        assertThat(cache.read(hash)).usingRecursiveComparison().isEqualTo(config);
+    }
+
+    @Test
+    void read_whenConfigFileChanged_thenNull() {
+        cache.write(hash, config);
+
+        final var changedXml = ConfigurationStaxParserTest.FULL_CONFIG.replace("hivemq-test", "hivemq-prod");
+        assertThat(cache.read(ConfigurationCache.hash(changedXml.getBytes(StandardCharsets.UTF_8)))).isNull();
+    }
+
+    @Test
+    void read_whenMissingOrCorrupt_thenNull() throws IOException {
+        assertThat(cache.read(hash)).isNull();
+
+        cache.write(hash, config);
+        final var bytes = Files.readAllBytes(cache.getFile());
+        Files.write(cache.getFile(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertThat(cache.read(hash)).isNull();
+
+        Files.writeString(cache.getFile(), "<cloudwatch-extension-configuration/>");
+        assertThat(cache.read(hash)).isNull();
+    }
+
+    @Test
+    void delete_whenWritten_thenFileRemoved() {
+        cache.write(hash, config);
+        assertThat(cache.getFile()).exists();
+
+        cache.delete();
+
+        assertThat(cache.getFile()).doesNotExist();
+        assertThat(cache.read(hash)).isNull();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Sink;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.SinkType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ConfigurationStaxParserTest {
+
+    static final @NotNull String FULL_CONFIG = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <!-- all elements of the configuration -->
+            <cloudwatch-extension-configuration>
+                <report-interval>10</report-interval>
+                <report-interval-unit>seconds</report-interval-unit>
+                <api-timeout>2000</api-timeout>
+                <namespace>hivemq-test</namespace>
+                <dimensions>
+                    <dimension name="Environment">prod &amp; staging</dimension>
+                </dimensions>
+                <zero-values-submission>true</zero-values-submission>
+                <report-raw-count-value>true</report-raw-count-value>
+                <cloudwatch-endpoint-override>http://localhost:4566</cloudwatch-endpoint-override>
+                <max-in-flight-requests>8</max-in-flight-requests>
+                <aggregation><mode>values</mode><sample-interval>500</sample-interval></aggregation>
+                <retry><buffer-size>10</buffer-size><eviction>newest</eviction></retry>
+                <rate-limit><max-rate>20.5</max-rate><burst>3</burst></rate-limit>
+                <startup><timeout>5000</timeout><timeout-policy>fail</timeout-policy></startup>
+                <request-compression><threshold>2048</threshold></request-compression>
+                <credentials>
+                    <region>eu-west-1</region>
+                    <assume-role><role-arn>arn:aws:iam::123456789012:role/metrics</role-arn></assume-role>
+                </credentials>
+                <spool><directory>spool-dir</directory><segment-size>65536</segment-size></spool>
+                <cluster>
+                    <directory>/mnt/cluster</directory>
+                    <node-metrics><metric match="prefix">com.hivemq.networking.</metric></node-metrics>
+                </cluster>
+                <change-detection>
+                    <relative-threshold>0.1</relative-threshold>
+                    <heartbeat>5</heartbeat>
+                </change-detection>
+                <http-client><type>netty</type><max-concurrency>16</max-concurrency><http2>true</http2></http-client>
+                <reporting-executor><completion-threads>2</completion-threads></reporting-executor>
+                <align-report-interval>true</align-report-interval>
+                <report-extension-metrics>true</report-extension-metrics>
+                <emf><target>tcp</target><host>localhost</host><log-group>hivemq</log-group></emf>
+                <sketches><relative-accuracy>0.01</relative-accuracy></sketches>
+                <sinks><sink queue-size="4">cloudwatch</sink><sink>emf</sink></sinks>
+                <config-cache>true</config-cache>
+                <reporters>
+                    <reporter>
+                        <namespace>hivemq-clients</namespace>
+                        <report-interval>5</report-interval>
+                        <metrics><metric match="prefix">com.hivemq.messages.</metric></metrics>
+                    </reporter>
+                </reporters>
+                <metrics>
+                    <metric>com.hivemq.messages.incoming.total.count</metric>
+                    <metric match="glob" high-resolution="true" limit="10" dimensions="topic"><![CDATA[com.*]]></metric>
+                    <metric enabled="false">com.hivemq.sessions.overall.current</metric>
+                </metrics>
+            </cloudwatch-extension-configuration>
+            """;
+
+    private final @NotNull ConfigurationStaxParser parser = new ConfigurationStaxParser();
+
+    @Test
+    void unmarshalExtensionConfig_whenAllElements_thenSameAsJaxb(final @NotNull @TempDir Path tempDir)
+            throws IOException {
+        final var file = tempDir.resolve("config.xml");
+        Files.writeString(file, FULL_CONFIG);
+
+        final var config = parser.unmarshalExtensionConfig(file.toFile());
+
+        final var jaxbConfig = new ConfigurationXmlParser().unmarshalExtensionConfig(file.toFile());
+        assertThat(config).usingRecursiveComparison().isEqualTo(jaxbConfig);
+        assertThat(config.getNamespace()).isEqualTo("hivemq-test");
+        assertThat(config.getDimensions()).singleElement().satisfies(dimension -> {
+            assertThat(dimension.getName()).isEqualTo("Environment");
+            assertThat(dimension.getValue()).isEqualTo("prod & staging");
+        });
+        assertThat(config.getMetrics()).extracting(Metric::getValue)
+                .containsExactly("com.hivemq.messages.incoming.total.count",
+                        "com.*",
+                        "com.hivemq.sessions.overall.current");
+        assertThat(config.getSinks()).extracting(Sink::getType, Sink::getQueueSize)
+                .containsExactly(tuple(SinkType.CLOUDWATCH, 4), tuple(SinkType.EMF, 2));
+        assertThat(config.getReporters()).singleElement().satisfies(reporter -> {
+            assertThat(reporter.getNamespace()).isEqualTo("hivemq-clients");
+            assertThat(reporter.getReportInterval()).isEqualTo(5);
+            assertThat(reporter.getMetrics()).extracting(Metric::getValue).containsExactly("com.hivemq.messages.");
+        });
+    }
+
+    @Test
+    void unmarshalExtensionConfig_whenEmptyElements_thenAnnotationDefaults() throws IOException {
+        final var config = parse("""
+                <cloudwatch-extension-configuration>
+                    <namespace/>
+                    <report-interval></report-interval>
+                    <metrics><metric/></metrics>
+                </cloudwatch-extension-configuration>""");
+
+        assertThat(config.getNamespace()).isEqualTo(Config.DEF_NAMESPACE);
+        assertThat(config.getReportInterval()).isEqualTo(Config.DEF_REPORT_INTERVAL);
+        assertThat(config.getMetrics()).singleElement().extracting(Metric::getValue).isEqualTo("");
+    }
+
+    @Test
+    void unmarshalExtensionConfig_whenUnknownElementsAndValues_thenIgnored() throws IOException {
+        final var config = parse("""
+                <cloudwatch-extension-configuration>
+                    <unknown><report-interval>20</report-interval></unknown>
+                    <report-interval> 30 </report-interval>
+                    <max-in-flight-requests>many</max-in-flight-requests>
+                    <metrics>
+                        <other>com.hivemq.other</other>
+                        <metric match="unknown" unknown="true">com.hivemq.messages</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        assertThat(config.getReportInterval()).isEqualTo(30);
+        assertThat(config.getMaxInFlightRequests()).isEqualTo(Config.DEF_MAX_IN_FLIGHT_REQUESTS);
+        assertThat(config.getMetrics()).singleElement().satisfies(metric -> {
+            assertThat(metric.isUnknownMatch()).isTrue();
+            assertThat(metric.getMatch()).isEqualTo(MatchType.EXACT);
+            assertThat(metric.getValue()).isEqualTo("com.hivemq.messages");
+        });
+    }
+
+    @Test
+    void unmarshalExtensionConfig_whenMalformedOrOtherRoot_thenIOException() {
+        assertThatThrownBy(() -> parse("<cloudwatch-extension-configuration><metrics>")).isInstanceOf(
+                IOException.class);
+        assertThatThrownBy(() -> parse("<cloudwatch-extension-configuration/><metrics/>")).isInstanceOf(
+                IOException.class);
+        assertThatThrownBy(() -> parse("<configuration/>")).isInstanceOf(IOException.class)
+                .hasMessageContaining("configuration");
+    }
+
+    @Test
+    void unmarshalExtensionConfig_whenExternalEntity_thenNotResolved(final @NotNull @TempDir Path tempDir)
+            throws IOException {
+        final var secret = tempDir.resolve("secret.txt");
+        Files.writeString(secret, "secret");
+
+        assertThatThrownBy(() -> parse("""
+                <!DOCTYPE cloudwatch-extension-configuration [<!ENTITY secret SYSTEM "%s">]>
+                <cloudwatch-extension-configuration>
+                    <namespace>&secret;</namespace>
+                </cloudwatch-extension-configuration>""".formatted(secret.toUri()))).isInstanceOf(IOException.class);
+    }
+
+    private @NotNull Config parse(final @NotNull String xml) throws IOException {
+        return parser.unmarshalExtensionConfig(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
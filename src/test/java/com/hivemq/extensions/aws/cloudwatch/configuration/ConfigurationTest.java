@@ -16,7 +16,32 @@
 
 package com.hivemq.extensions.aws.cloudwatch.configuration;
 
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.AggregationMode;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.ChangeDetection;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.ClusterTransportType;
 import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Credentials;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Dimension;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Emf;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.EmfTargetType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.EvictionPolicy;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClient;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.HttpClientType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.IntervalUnit;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.MatchType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Metric;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.RateLimit;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Reporter;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.ReportingExecutor;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.RequestCompression;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Retry;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Sink;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.SinkType;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Sketches;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Spool;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.Startup;
+import com.hivemq.extensions.aws.cloudwatch.configuration.entities.StartupTimeoutPolicy;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,9 +51,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
+import static com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config.DEF_MAX_IN_FLIGHT_REQUESTS;
 import static com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config.DEF_REPORT_INTERVAL;
+import static com.hivemq.extensions.aws.cloudwatch.configuration.entities.Config.DEF_REPORT_INTERVAL_UNIT;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 class ConfigurationTest {
 
@@ -76,6 +105,31 @@ class ConfigurationTest {
                 "com.hivemq.messages.outgoing.total.count");
     }
 
+    @Test
+    void loadConfiguration_matchTypes() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <metrics>
+                        <metric>com.hivemq.messages.incoming.total.count</metric>
+                        <metric match="prefix">com.hivemq.networking.</metric>
+                        <metric match="glob">com.hivemq.messages.*.count</metric>
+                        <metric match="regex">com\\.hivemq\\.jvm\\..*</metric>
+                        <metric match="unknown">com.hivemq.sessions.overall.current</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).extracting(Metric::getMatch)
+                .containsExactly(MatchType.EXACT, MatchType.PREFIX, MatchType.GLOB, MatchType.REGEX, MatchType.EXACT);
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).noneMatch(Metric::isUnknownMatch);
+        assertThat(extensionConfiguration.getEnabledMetrics()).containsExactly(
+                "com.hivemq.messages.incoming.total.count",
+                "com.hivemq.networking.",
+                "com.hivemq.messages.*.count",
+                "com\\.hivemq\\.jvm\\..*",
+                "com.hivemq.sessions.overall.current");
+    }
+
     @Test
     void intervalConfigurationOK() throws IOException {
         Files.writeString(configFile, """
@@ -102,6 +156,177 @@ class ConfigurationTest {
         assertThat(config.getMetrics()).isEmpty();
     }
 
+    @Test
+    void intervalUnitConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>10</report-interval>
+                    <report-interval-unit>seconds</report-interval-unit>
+                    <metrics>
+                        <metric high-resolution="true">com.hivemq.networking.connections.current</metric>
+                        <metric>com.hivemq.messages.incoming.total.count</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        final var config = extensionConfiguration.getConfig();
+        assertThat(config.getReportInterval()).isEqualTo(10);
+        assertThat(config.getReportIntervalUnit()).isEqualTo(IntervalUnit.SECONDS);
+        assertThat(config.getReportIntervalMillis()).isEqualTo(10_000);
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).extracting(Metric::isHighResolution)
+                .containsExactly(true, false);
+    }
+
+    @Test
+    void intervalUnitConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>500</report-interval>
+                    <report-interval-unit>milliseconds</report-interval-unit>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getReportInterval()).isEqualTo(DEF_REPORT_INTERVAL);
+        assertThat(config.getReportIntervalUnit()).isEqualTo(DEF_REPORT_INTERVAL_UNIT);
+    }
+
+    @Test
+    void aggregationConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <aggregation>
+                        <mode>values</mode>
+                        <sample-interval>5000</sample-interval>
+                    </aggregation>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getAggregation()).hasValueSatisfying(aggregation -> {
+            assertThat(aggregation.getMode()).isEqualTo(AggregationMode.VALUES);
+            assertThat(aggregation.getSampleInterval()).isEqualTo(5000);
+        });
+    }
+
+    @Test
+    void aggregationConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>10</report-interval>
+                    <report-interval-unit>seconds</report-interval-unit>
+                    <aggregation>
+                        <sample-interval>20000</sample-interval>
+                    </aggregation>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getAggregation()).hasValueSatisfying(aggregation -> {
+            assertThat(aggregation.getMode()).isEqualTo(AggregationMode.STATISTIC_SET);
+            assertThat(aggregation.getSampleInterval()).isEqualTo(10_000);
+        });
+    }
+
+    @Test
+    void maxInFlightRequestsConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <max-in-flight-requests>8</max-in-flight-requests>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getMaxInFlightRequests()).isEqualTo(8);
+    }
+
+    @Test
+    void maxInFlightRequestsConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <max-in-flight-requests>0</max-in-flight-requests>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getMaxInFlightRequests()).isEqualTo(DEF_MAX_IN_FLIGHT_REQUESTS);
+    }
+
+    @Test
+    void retryConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <retry>
+                        <buffer-size>10</buffer-size>
+                        <eviction>newest</eviction>
+                        <initial-backoff>500</initial-backoff>
+                        <max-backoff>30000</max-backoff>
+                    </retry>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getRetry()).hasValueSatisfying(retry -> {
+            assertThat(retry.getBufferSize()).isEqualTo(10);
+            assertThat(retry.getEviction()).isEqualTo(EvictionPolicy.NEWEST);
+            assertThat(retry.getInitialBackoff()).isEqualTo(500);
+            assertThat(retry.getMaxBackoff()).isEqualTo(30_000);
+        });
+    }
+
+    @Test
+    void retryConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <retry>
+                        <buffer-size>0</buffer-size>
+                        <eviction>random</eviction>
+                        <initial-backoff>5000</initial-backoff>
+                        <max-backoff>1000</max-backoff>
+                    </retry>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getRetry()).hasValueSatisfying(retry -> {
+            assertThat(retry.getBufferSize()).isEqualTo(Retry.DEF_BUFFER_SIZE);
+            assertThat(retry.getEviction()).isEqualTo(EvictionPolicy.OLDEST);
+            assertThat(retry.getInitialBackoff()).isEqualTo(5000);
+            assertThat(retry.getMaxBackoff()).isEqualTo(5000);
+        });
+    }
+
+    @Test
+    void spoolConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <spool>
+                        <directory>data/spool</directory>
+                        <max-size>1048576</max-size>
+                        <segment-size>65536</segment-size>
+                    </spool>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getConfig().getSpool()).hasValueSatisfying(spool -> {
+            assertThat(spool.getMaxSize()).isEqualTo(1_048_576);
+            assertThat(spool.getSegmentSize()).isEqualTo(65_536);
+        });
+        assertThat(extensionConfiguration.getSpoolDirectory()).hasValue(extensionDir.toPath().resolve("data/spool"));
+    }
+
+    @Test
+    void spoolConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <spool>
+                        <max-size>1024</max-size>
+                        <segment-size>1024</segment-size>
+                    </spool>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getConfig().getSpool()).hasValueSatisfying(spool -> {
+            assertThat(spool.getMaxSize()).isEqualTo(Spool.DEF_SEGMENT_SIZE);
+            assertThat(spool.getSegmentSize()).isEqualTo(Spool.DEF_SEGMENT_SIZE);
+        });
+        assertThat(extensionConfiguration.getSpoolDirectory()).hasValue(extensionDir.toPath()
+                .resolve(Spool.DEF_DIRECTORY));
+    }
+
     @Test
     void timeoutConfigurationOK() throws IOException {
         Files.writeString(configFile, """
@@ -140,4 +365,849 @@ class ConfigurationTest {
         final var config = new ExtensionConfiguration(extensionDir).getConfig();
         assertThat(config.getReportInterval()).isEqualTo(10);
     }
+
+    @Test
+    void dimensionsConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <namespace>hivemq/production</namespace>
+                    <dimensions>
+                        <dimension name="Node">${node-id}</dimension>
+                        <dimension name="Cluster">${cluster-id}</dimension>
+                    </dimensions>
+                    <metrics>
+                        <metric dimensions="Team=sessions,Zone=${ec2:availability-zone}">com.hivemq.sessions.</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        final var config = extensionConfiguration.getConfig();
+        assertThat(config.getNamespace()).isEqualTo("hivemq/production");
+        assertThat(config.getDimensions()).extracting(Dimension::getName, Dimension::getValue)
+                .containsExactly(tuple("Node", "${node-id}"), tuple("Cluster", "${cluster-id}"));
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).singleElement()
+                .extracting(Metric::getDimensionList)
+                .asInstanceOf(InstanceOfAssertFactories.list(Dimension.class))
+                .extracting(Dimension::getName, Dimension::getValue)
+                .containsExactly(tuple("Team", "sessions"), tuple("Zone", "${ec2:availability-zone}"));
+    }
+
+    @Test
+    void dimensionsConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <namespace>AWS/EC2</namespace>
+                    <dimensions>
+                        <dimension name="Node"></dimension>
+                        <dimension name="Cluster">${cluster-id}</dimension>
+                    </dimensions>
+                    <metrics>
+                        <metric dimensions="Team">com.hivemq.sessions.</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        final var config = extensionConfiguration.getConfig();
+        assertThat(config.getNamespace()).isEqualTo(Config.DEF_NAMESPACE);
+        assertThat(config.getDimensions()).extracting(Dimension::getName).containsExactly("Cluster");
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).singleElement()
+                .satisfies(metric -> assertThat(metric.getDimensions()).isNull());
+    }
+
+    @Test
+    void metricLimitConfiguration() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <metrics>
+                        <metric match="prefix" limit="20">com.hivemq.clients.</metric>
+                        <metric match="prefix" limit="0">com.hivemq.topics.</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).extracting(Metric::getLimit)
+                .containsExactly(Optional.of(20), Optional.empty());
+    }
+
+    @Test
+    void metricLimitConfiguration_whenAggregation_thenIgnored() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <aggregation/>
+                    <metrics>
+                        <metric match="prefix" limit="20">com.hivemq.clients.</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getConfig().getAggregation()).isPresent();
+        assertThat(extensionConfiguration.getEnabledMetricDefinitions()).extracting(Metric::getLimit)
+                .containsExactly(Optional.empty());
+    }
+
+    @Test
+    void changeDetectionConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <change-detection>
+                        <absolute-threshold>10</absolute-threshold>
+                        <relative-threshold>0.05</relative-threshold>
+                        <heartbeat>15</heartbeat>
+                    </change-detection>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getChangeDetection()).hasValueSatisfying(changeDetection -> {
+            assertThat(changeDetection.getAbsoluteThreshold()).hasValue(10.0);
+            assertThat(changeDetection.getRelativeThreshold()).hasValue(0.05);
+            assertThat(changeDetection.getHeartbeat()).isEqualTo(15);
+        });
+    }
+
+    @Test
+    void changeDetectionConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <change-detection>
+                        <absolute-threshold>-1</absolute-threshold>
+                        <relative-threshold>-0.5</relative-threshold>
+                        <heartbeat>0</heartbeat>
+                    </change-detection>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getChangeDetection()).hasValueSatisfying(changeDetection -> {
+            assertThat(changeDetection.getAbsoluteThreshold()).isEmpty();
+            assertThat(changeDetection.getRelativeThreshold()).isEmpty();
+            assertThat(changeDetection.getHeartbeat()).isEqualTo(ChangeDetection.DEF_HEARTBEAT);
+        });
+    }
+
+    @Test
+    void httpClientConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <http-client>
+                        <type>netty</type>
+                        <max-concurrency>20</max-concurrency>
+                        <max-pending-acquires>500</max-pending-acquires>
+                        <connection-acquire-timeout>2000</connection-acquire-timeout>
+                        <connection-max-idle-time>30000</connection-max-idle-time>
+                        <idle-connection-reaper>false</idle-connection-reaper>
+                        <tcp-keep-alive>true</tcp-keep-alive>
+                        <http2>true</http2>
+                        <prewarm-connections>4</prewarm-connections>
+                    </http-client>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getHttpClient()).hasValueSatisfying(httpClient -> {
+            assertThat(httpClient.getType()).isEqualTo(HttpClientType.NETTY);
+            assertThat(httpClient.getMaxConcurrency()).isEqualTo(20);
+            assertThat(httpClient.getMaxPendingAcquires()).isEqualTo(500);
+            assertThat(httpClient.getConnectionAcquireTimeout()).isEqualTo(2000);
+            assertThat(httpClient.getConnectionMaxIdleTime()).isEqualTo(30_000);
+            assertThat(httpClient.isIdleConnectionReaper()).isFalse();
+            assertThat(httpClient.isTcpKeepAlive()).isTrue();
+            assertThat(httpClient.isHttp2()).isTrue();
+            assertThat(httpClient.getPrewarmConnections()).isEqualTo(4);
+        });
+    }
+
+    @Test
+    void httpClientConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <http-client>
+                        <type>crt</type>
+                        <max-concurrency>0</max-concurrency>
+                        <max-pending-acquires>-1</max-pending-acquires>
+                        <connection-acquire-timeout>0</connection-acquire-timeout>
+                        <connection-max-idle-time>-5</connection-max-idle-time>
+                        <http2>true</http2>
+                        <prewarm-connections>100</prewarm-connections>
+                    </http-client>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getHttpClient()).hasValueSatisfying(httpClient -> {
+            assertThat(httpClient.getType()).isEqualTo(HttpClientType.CRT);
+            assertThat(httpClient.getMaxConcurrency()).isEqualTo(HttpClient.DEF_MAX_CONCURRENCY);
+            assertThat(httpClient.getMaxPendingAcquires()).isEqualTo(HttpClient.DEF_MAX_PENDING_ACQUIRES);
+            assertThat(httpClient.getConnectionAcquireTimeout()).isEqualTo(HttpClient.DEF_CONNECTION_ACQUIRE_TIMEOUT);
+            assertThat(httpClient.getConnectionMaxIdleTime()).isEqualTo(HttpClient.DEF_CONNECTION_MAX_IDLE_TIME);
+            assertThat(httpClient.isHttp2()).isFalse();
+            assertThat(httpClient.getPrewarmConnections()).isEqualTo(HttpClient.DEF_MAX_CONCURRENCY);
+        });
+    }
+
+    @Test
+    void reportingExecutorConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <reporting-executor>
+                        <completion-threads>4</completion-threads>
+                        <completion-queue-size>200</completion-queue-size>
+                        <virtual-threads>false</virtual-threads>
+                    </reporting-executor>
+                    <align-report-interval>true</align-report-interval>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getReportingExecutor()).hasValueSatisfying(reportingExecutor -> {
+            assertThat(reportingExecutor.getCompletionThreads()).isEqualTo(4);
+            assertThat(reportingExecutor.getCompletionQueueSize()).isEqualTo(200);
+            assertThat(reportingExecutor.isVirtualThreads()).isFalse();
+        });
+        assertThat(config.isAlignReportInterval()).isTrue();
+    }
+
+    @Test
+    void reportExtensionMetricsConfiguration() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-extension-metrics>true</report-extension-metrics>
+                </cloudwatch-extension-configuration>""");
+
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().isReportExtensionMetrics()).isTrue();
+    }
+
+    @Test
+    void reportingExecutorConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <reporting-executor>
+                        <completion-threads>0</completion-threads>
+                        <completion-queue-size>-1</completion-queue-size>
+                    </reporting-executor>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getReportingExecutor()).hasValueSatisfying(reportingExecutor -> {
+            assertThat(reportingExecutor.getCompletionThreads()).isEqualTo(ReportingExecutor.DEF_COMPLETION_THREADS);
+            assertThat(reportingExecutor.getCompletionQueueSize()).isEqualTo(
+                    ReportingExecutor.DEF_COMPLETION_QUEUE_SIZE);
+            assertThat(reportingExecutor.isVirtualThreads()).isTrue();
+        });
+        assertThat(config.isAlignReportInterval()).isFalse();
+    }
+
+    @Test
+    void emfConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <emf>
+                        <target>udp</target>
+                        <file>logs/emf.log</file>
+                        <max-file-size>1024</max-file-size>
+                        <max-files>2</max-files>
+                        <host>agent</host>
+                        <port>25000</port>
+                        <log-group>hivemq</log-group>
+                    </emf>
+                </cloudwatch-extension-configuration>""");
+
+        final var configuration = new ExtensionConfiguration(extensionDir);
+        assertThat(configuration.getConfig().getEmf()).hasValueSatisfying(emf -> {
+            assertThat(emf.getTarget()).isEqualTo(EmfTargetType.UDP);
+            assertThat(emf.getMaxFileSize()).isEqualTo(1024);
+            assertThat(emf.getMaxFiles()).isEqualTo(2);
+            assertThat(emf.getHost()).isEqualTo("agent");
+            assertThat(emf.getPort()).isEqualTo(25000);
+            assertThat(emf.getLogGroup()).hasValue("hivemq");
+        });
+        assertThat(configuration.getEmfFile()).hasValue(extensionDir.toPath().resolve("logs/emf.log"));
+    }
+
+    @Test
+    void emfConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <aggregation/>
+                    <sketches/>
+                    <emf>
+                        <target>syslog</target>
+                        <max-file-size>0</max-file-size>
+                        <max-files>-1</max-files>
+                        <port>70000</port>
+                        <log-group> </log-group>
+                    </emf>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getEmf()).hasValueSatisfying(emf -> {
+            assertThat(emf.getTarget()).isEqualTo(Emf.DEF_TARGET);
+            assertThat(emf.getFile()).isEqualTo(Emf.DEF_FILE);
+            assertThat(emf.getMaxFileSize()).isEqualTo(Emf.DEF_MAX_FILE_SIZE);
+            assertThat(emf.getMaxFiles()).isEqualTo(Emf.DEF_MAX_FILES);
+            assertThat(emf.getPort()).isEqualTo(Emf.DEF_PORT);
+            assertThat(emf.getLogGroup()).isEmpty();
+        });
+        // EMF has no statistic sets, so local aggregation is not supported
+        assertThat(config.getAggregation()).isEmpty();
+        // EMF has a limit of 100 values per metric, so sketches are not supported
+        assertThat(config.getSketches()).isEmpty();
+    }
+
+    @Test
+    void sinksConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <sinks>
+                        <sink>cloudwatch</sink>
+                        <sink queue-size="5">emf</sink>
+                        <sink>debug</sink>
+                    </sinks>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getSinks()).extracting(Sink::getType, Sink::getQueueSize)
+                .containsExactly(tuple(SinkType.CLOUDWATCH, Sink.DEF_QUEUE_SIZE),
+                        tuple(SinkType.EMF, 5),
+                        tuple(SinkType.DEBUG, Sink.DEF_QUEUE_SIZE));
+        // the EMF sink uses the default EMF configuration
+        assertThat(config.getEmf()).hasValueSatisfying(emf -> assertThat(emf.getTarget()).isEqualTo(Emf.DEF_TARGET));
+    }
+
+    @Test
+    void sinksConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <sinks>
+                        <sink>kafka</sink>
+                        <sink queue-size="0">debug</sink>
+                        <sink>debug</sink>
+                    </sinks>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getSinks()).extracting(Sink::getType, Sink::getQueueSize)
+                .containsExactly(tuple(SinkType.DEBUG, Sink.DEF_QUEUE_SIZE));
+    }
+
+    @Test
+    void sinksConfiguration_whenNoSinks_thenCloudWatchOrEmf() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                </cloudwatch-extension-configuration>""");
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().getSinks()).extracting(Sink::getType)
+                .containsExactly(SinkType.CLOUDWATCH);
+
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <emf/>
+                </cloudwatch-extension-configuration>""");
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().getSinks()).extracting(Sink::getType)
+                .containsExactly(SinkType.EMF);
+    }
+
+    @Test
+    void sketchesConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <sketches>
+                        <relative-accuracy>0.01</relative-accuracy>
+                        <sample-interval>500</sample-interval>
+                    </sketches>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getSketches()).hasValueSatisfying(sketches -> {
+            assertThat(sketches.getRelativeAccuracy()).isEqualTo(0.01);
+            assertThat(sketches.getSampleInterval()).isEqualTo(500);
+        });
+    }
+
+    @Test
+    void sketchesConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>1</report-interval>
+                    <report-interval-unit>seconds</report-interval-unit>
+                    <sketches>
+                        <relative-accuracy>0.0001</relative-accuracy>
+                        <sample-interval>5000</sample-interval>
+                    </sketches>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getSketches()).hasValueSatisfying(sketches -> {
+            assertThat(sketches.getRelativeAccuracy()).isEqualTo(Sketches.DEF_RELATIVE_ACCURACY);
+            assertThat(sketches.getSampleInterval()).isEqualTo(1000);
+        });
+    }
+
+    @Test
+    void rateLimitConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <rate-limit>
+                        <initial-rate>20</initial-rate>
+                        <min-rate>0.5</min-rate>
+                        <max-rate>100</max-rate>
+                        <burst>5</burst>
+                        <latency-threshold>1500</latency-threshold>
+                    </rate-limit>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getRateLimit()).hasValueSatisfying(rateLimit -> {
+            assertThat(rateLimit.getInitialRate()).isEqualTo(20);
+            assertThat(rateLimit.getMinRate()).isEqualTo(0.5);
+            assertThat(rateLimit.getMaxRate()).isEqualTo(100);
+            assertThat(rateLimit.getBurst()).isEqualTo(5);
+            assertThat(rateLimit.getLatencyThreshold()).isEqualTo(1500);
+        });
+    }
+
+    @Test
+    void rateLimitConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <rate-limit>
+                        <initial-rate>500</initial-rate>
+                        <min-rate>0</min-rate>
+                        <max-rate>0.5</max-rate>
+                        <burst>0</burst>
+                        <latency-threshold>-1</latency-threshold>
+                    </rate-limit>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getRateLimit()).hasValueSatisfying(rateLimit -> {
+            assertThat(rateLimit.getMinRate()).isEqualTo(RateLimit.DEF_MIN_RATE);
+            assertThat(rateLimit.getMaxRate()).isEqualTo(RateLimit.DEF_MIN_RATE);
+            assertThat(rateLimit.getInitialRate()).isEqualTo(RateLimit.DEF_MIN_RATE);
+            assertThat(rateLimit.getBurst()).isEqualTo(RateLimit.DEF_BURST);
+            assertThat(rateLimit.getLatencyThreshold()).isEqualTo(RateLimit.DEF_LATENCY_THRESHOLD);
+        });
+    }
+
+    @Test
+    void startupConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <startup>
+                        <buffer-size>3</buffer-size>
+                        <timeout>10000</timeout>
+                        <timeout-policy>fail</timeout-policy>
+                    </startup>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getStartup()).hasValueSatisfying(startup -> {
+            assertThat(startup.getBufferSize()).isEqualTo(3);
+            assertThat(startup.getTimeout()).isEqualTo(10000);
+            assertThat(startup.getTimeoutPolicy()).isEqualTo(StartupTimeoutPolicy.FAIL);
+        });
+    }
+
+    @Test
+    void startupConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <startup>
+                        <buffer-size>-1</buffer-size>
+                        <timeout>0</timeout>
+                        <timeout-policy>retry</timeout-policy>
+                    </startup>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getStartup()).hasValueSatisfying(startup -> {
+            assertThat(startup.getBufferSize()).isEqualTo(Startup.DEF_BUFFER_SIZE);
+            assertThat(startup.getTimeout()).isEqualTo(Startup.DEF_TIMEOUT);
+            assertThat(startup.getTimeoutPolicy()).isEqualTo(Startup.DEF_TIMEOUT_POLICY);
+        });
+    }
+
+    @Test
+    void credentialsConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <credentials>
+                        <region>eu-central-1</region>
+                        <static>
+                            <access-key-id>AKIAEXAMPLE</access-key-id>
+                            <secret-access-key>secret</secret-access-key>
+                        </static>
+                        <assume-role>
+                            <role-arn>arn:aws:iam::123456789012:role/metrics</role-arn>
+                            <external-id>external</external-id>
+                            <duration>1800</duration>
+                        </assume-role>
+                        <refresh-ahead>120000</refresh-ahead>
+                    </credentials>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getCredentials()).hasValueSatisfying(credentials -> {
+            assertThat(credentials.getRegion()).isEqualTo("eu-central-1");
+            assertThat(credentials.getStaticCredentials()).hasValueSatisfying(staticCredentials -> {
+                assertThat(staticCredentials.getAccessKeyId()).isEqualTo("AKIAEXAMPLE");
+                assertThat(staticCredentials.getSecretAccessKey()).isEqualTo("secret");
+                assertThat(staticCredentials.getSessionToken()).isNull();
+            });
+            assertThat(credentials.getAssumeRole()).hasValueSatisfying(assumeRole -> {
+                assertThat(assumeRole.getRoleArn()).isEqualTo("arn:aws:iam::123456789012:role/metrics");
+                assertThat(assumeRole.getSessionName()).isEqualTo(AssumeRole.DEF_SESSION_NAME);
+                assertThat(assumeRole.getExternalId()).isEqualTo("external");
+                assertThat(assumeRole.getDuration()).isEqualTo(1800);
+            });
+            assertThat(credentials.getRefreshAhead()).isEqualTo(120000);
+            assertThat(credentials.toString()).doesNotContain("secret");
+        });
+    }
+
+    @Test
+    void credentialsConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <credentials>
+                        <static>
+                            <access-key-id>AKIAEXAMPLE</access-key-id>
+                        </static>
+                        <assume-role>
+                            <duration>60</duration>
+                        </assume-role>
+                        <refresh-ahead>1000</refresh-ahead>
+                    </credentials>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getCredentials()).hasValueSatisfying(credentials -> {
+            assertThat(credentials.getStaticCredentials()).isEmpty();
+            assertThat(credentials.getAssumeRole()).isEmpty();
+            assertThat(credentials.getRefreshAhead()).isEqualTo(Credentials.DEF_REFRESH_AHEAD);
+        });
+    }
+
+    @Test
+    void credentialsConfiguration_whenDurationOutOfRange_thenDefaultDuration() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <credentials>
+                        <assume-role>
+                            <role-arn>arn:aws:iam::123456789012:role/metrics</role-arn>
+                            <duration>86400</duration>
+                        </assume-role>
+                    </credentials>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getCredentials().flatMap(Credentials::getAssumeRole)).hasValueSatisfying(assumeRole -> {
+            assertThat(assumeRole.getDuration()).isEqualTo(AssumeRole.DEF_DURATION);
+        });
+    }
+
+    @Test
+    void requestCompressionConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <request-compression>
+                        <enabled>true</enabled>
+                        <threshold>4096</threshold>
+                    </request-compression>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getRequestCompression()).hasValueSatisfying(requestCompression -> {
+            assertThat(requestCompression.isEnabled()).isTrue();
+            assertThat(requestCompression.getThreshold()).isEqualTo(4096);
+        });
+    }
+
+    @Test
+    void requestCompressionConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <request-compression>
+                        <threshold>20000000</threshold>
+                    </request-compression>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getRequestCompression()).hasValueSatisfying(requestCompression -> {
+            assertThat(requestCompression.isEnabled()).isTrue();
+            assertThat(requestCompression.getThreshold()).isEqualTo(RequestCompression.DEF_THRESHOLD);
+        });
+    }
+
+    @Test
+    void reportersConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <reporters>
+                        <reporter>
+                            <namespace>hivemq-clients</namespace>
+                            <report-interval>10</report-interval>
+                            <report-interval-unit>seconds</report-interval-unit>
+                            <zero-values-submission>true</zero-values-submission>
+                            <report-raw-count-value>true</report-raw-count-value>
+                            <metrics>
+                                <metric match="prefix">com.hivemq.messages.</metric>
+                                <metric enabled="false">com.hivemq.networking.connections.current</metric>
+                            </metrics>
+                        </reporter>
+                        <reporter>
+                            <namespace>hivemq-system</namespace>
+                            <metrics>
+                                <metric match="prefix">com.hivemq.system.</metric>
+                            </metrics>
+                        </reporter>
+                    </reporters>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getEnabledMetrics()).isEmpty();
+        final var reporters = extensionConfiguration.getConfig().getReporters();
+        assertThat(reporters).hasSize(2);
+        assertThat(reporters.get(0).getNamespace()).isEqualTo("hivemq-clients");
+        assertThat(reporters.get(0).getReportIntervalMillis()).isEqualTo(10_000);
+        assertThat(reporters.get(0).getZeroValuesSubmission()).isTrue();
+        assertThat(reporters.get(0).getReportRawCountValue()).isTrue();
+        assertThat(ExtensionConfiguration.enabledMetrics(reporters.get(0).getMetrics())).singleElement()
+                .satisfies(metric -> {
+                    assertThat(metric.getValue()).isEqualTo("com.hivemq.messages.");
+                    assertThat(metric.getMatch()).isEqualTo(MatchType.PREFIX);
+                });
+        assertThat(reporters.get(1).getNamespace()).isEqualTo("hivemq-system");
+        assertThat(reporters.get(1).getReportInterval()).isEqualTo(DEF_REPORT_INTERVAL);
+        assertThat(reporters.get(1).getReportIntervalUnit()).isEqualTo(DEF_REPORT_INTERVAL_UNIT);
+        assertThat(reporters.get(1).getZeroValuesSubmission()).isFalse();
+        assertThat(reporters.get(1).getReportRawCountValue()).isFalse();
+    }
+
+    @Test
+    void reportersConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <reporters>
+                        <reporter>
+                            <metrics>
+                                <metric>com.hivemq.messages.incoming.total.count</metric>
+                            </metrics>
+                        </reporter>
+                        <reporter>
+                            <namespace>AWS/HiveMQ</namespace>
+                            <metrics>
+                                <metric>com.hivemq.messages.incoming.total.count</metric>
+                            </metrics>
+                        </reporter>
+                        <reporter>
+                            <namespace>hivemq-disabled</namespace>
+                            <metrics>
+                                <metric enabled="false">com.hivemq.messages.incoming.total.count</metric>
+                            </metrics>
+                        </reporter>
+                        <reporter>
+                            <namespace>hivemq-fast</namespace>
+                            <report-interval>500</report-interval>
+                            <report-interval-unit>milliseconds</report-interval-unit>
+                            <metrics>
+                                <metric limit="0">com.hivemq.messages.incoming.total.count</metric>
+                            </metrics>
+                        </reporter>
+                    </reporters>
+                </cloudwatch-extension-configuration>""");
+
+        final var reporters = new ExtensionConfiguration(extensionDir).getConfig().getReporters();
+        assertThat(reporters).singleElement().satisfies(reporter -> {
+            assertThat(reporter.getNamespace()).isEqualTo("hivemq-fast");
+            assertThat(reporter.getReportInterval()).isEqualTo(DEF_REPORT_INTERVAL);
+            assertThat(reporter.getReportIntervalUnit()).isEqualTo(DEF_REPORT_INTERVAL_UNIT);
+            assertThat(reporter.getMetrics()).singleElement()
+                    .satisfies(metric -> assertThat(metric.getLimit()).isEmpty());
+        });
+    }
+
+    @Test
+    void reportersConfiguration_whenIntervalNotWholeSeconds_thenRoundedToSeconds() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <reporters>
+                        <reporter>
+                            <namespace>hivemq-clients</namespace>
+                            <report-interval>1500</report-interval>
+                            <report-interval-unit>milliseconds</report-interval-unit>
+                            <metrics><metric>com.hivemq.messages.incoming.total.count</metric></metrics>
+                        </reporter>
+                        <reporter>
+                            <namespace>hivemq-system</namespace>
+                            <report-interval>1001</report-interval>
+                            <report-interval-unit>milliseconds</report-interval-unit>
+                            <metrics><metric>com.hivemq.system.os.file.descriptors.open</metric></metrics>
+                        </reporter>
+                    </reporters>
+                </cloudwatch-extension-configuration>""");
+
+        final var reporters = new ExtensionConfiguration(extensionDir).getConfig().getReporters();
+        assertThat(reporters).extracting(Reporter::getReportIntervalMillis).containsExactly(2_000L, 1_000L);
+        assertThat(reporters).extracting(Reporter::getReportIntervalUnit).containsOnly(IntervalUnit.SECONDS);
+    }
+
+    @Test
+    void clusterConfigurationOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <cluster>
+                        <transport>directory</transport>
+                        <directory>/mnt/efs/cloudwatch</directory>
+                        <node-timeout>300000</node-timeout>
+                        <node-metrics>
+                            <metric match="prefix">com.hivemq.networking.</metric>
+                        </node-metrics>
+                    </cluster>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getConfig().getCluster()).hasValueSatisfying(cluster -> {
+            assertThat(cluster.getTransport()).isEqualTo(ClusterTransportType.DIRECTORY);
+            assertThat(cluster.getNodeTimeout()).isEqualTo(300_000);
+            assertThat(cluster.getNodeMetrics()).singleElement().satisfies(metric -> {
+                assertThat(metric.getValue()).isEqualTo("com.hivemq.networking.");
+                assertThat(metric.getMatch()).isEqualTo(MatchType.PREFIX);
+            });
+        });
+        assertThat(extensionConfiguration.getClusterDirectory()).hasValue(Path.of("/mnt/efs/cloudwatch"));
+    }
+
+    @Test
+    void clusterConfigurationNOK() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>5</report-interval>
+                    <aggregation/>
+                    <cluster>
+                        <directory>cluster</directory>
+                        <node-timeout>1000</node-timeout>
+                    </cluster>
+                </cloudwatch-extension-configuration>""");
+
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+        assertThat(config.getCluster()).hasValueSatisfying(cluster -> {
+            assertThat(cluster.getNodeTimeout()).isEqualTo(900_000);
+            assertThat(cluster.getNodeMetrics()).isEmpty();
+        });
+        assertThat(config.getAggregation()).isEmpty();
+    }
+
+    @Test
+    void clusterConfiguration_whenNoDirectory_thenDisabled() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <cluster/>
+                </cloudwatch-extension-configuration>""");
+
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        assertThat(extensionConfiguration.getConfig().getCluster()).isEmpty();
+        assertThat(extensionConfiguration.getClusterDirectory()).isEmpty();
+    }
+
+    @Test
+    void configCache_whenEnabled_thenWrittenAndReusedWhileUnchanged() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>10</report-interval>
+                    <config-cache>true</config-cache>
+                </cloudwatch-extension-configuration>""");
+        final var cacheFile = extensionDir.toPath().resolve("extension-config.cache");
+
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().getReportInterval()).isEqualTo(10);
+        assertThat(cacheFile).exists();
+
+        // a cached config that differs from the file shows that the cache is used instead of the file
+        final var xml = Files.readAllBytes(configFile);
+        final var cachedConfig = new ConfigurationStaxParser().unmarshalExtensionConfig(xml);
+        cachedConfig.setReportInterval(20);
+        new ConfigurationCache(cacheFile).write(ConfigurationCache.hash(xml), cachedConfig);
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().getReportInterval()).isEqualTo(20);
+
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>30</report-interval>
+                    <config-cache>true</config-cache>
+                </cloudwatch-extension-configuration>""");
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().getReportInterval()).isEqualTo(30);
+    }
+
+    @Test
+    void configCache_whenCachedConfigInvalid_thenValidatedLikeParsedConfig() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>0</report-interval>
+                    <config-cache>true</config-cache>
+                </cloudwatch-extension-configuration>""");
+
+        new ExtensionConfiguration(extensionDir);
+        final var config = new ExtensionConfiguration(extensionDir).getConfig();
+
+        assertThat(config.getReportInterval()).isEqualTo(DEF_REPORT_INTERVAL);
+    }
+
+    @Test
+    void configCache_whenDisabled_thenDeleted() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <config-cache>true</config-cache>
+                </cloudwatch-extension-configuration>""");
+        final var cacheFile = extensionDir.toPath().resolve("extension-config.cache");
+        new ExtensionConfiguration(extensionDir);
+        assertThat(cacheFile).exists();
+
+        Files.writeString(configFile, "<cloudwatch-extension-configuration/>");
+        assertThat(new ExtensionConfiguration(extensionDir).getConfig().isConfigCache()).isFalse();
+
+        assertThat(cacheFile).doesNotExist();
+    }
+
+    @Test
+    void reload_whenChanged_thenReplaced() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>10</report-interval>
+                    <metrics>
+                        <metric>com.hivemq.messages.incoming.total.count</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>0</report-interval>
+                    <metrics>
+                        <metric>com.hivemq.messages.outgoing.total.count</metric>
+                        <metric match="prefix">com.hivemq.sessions.</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+
+        assertThat(extensionConfiguration.reload()).isTrue();
+        // the reloaded configuration is validated like on startup
+        assertThat(extensionConfiguration.getConfig().getReportInterval()).isEqualTo(DEF_REPORT_INTERVAL);
+        assertThat(extensionConfiguration.getEnabledMetrics()).containsExactly(
+                "com.hivemq.messages.outgoing.total.count",
+                "com.hivemq.sessions.");
+    }
+
+    @Test
+    void reload_whenInvalid_thenCurrentConfigurationKept() throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <report-interval>10</report-interval>
+                    <metrics>
+                        <metric>com.hivemq.messages.incoming.total.count</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""");
+        final var extensionConfiguration = new ExtensionConfiguration(extensionDir);
+        final var config = extensionConfiguration.getConfig();
+
+        Files.writeString(configFile, "<cloudwatch-extension-configuration><metrics>");
+        assertThat(extensionConfiguration.reload()).isFalse();
+        Files.writeString(configFile, "");
+        assertThat(extensionConfiguration.reload()).isFalse();
+
+        assertThat(extensionConfiguration.getConfig()).isSameAs(config);
+        assertThat(extensionConfiguration.getEnabledMetrics()).containsExactly(
+                "com.hivemq.messages.incoming.total.count");
+    }
 }
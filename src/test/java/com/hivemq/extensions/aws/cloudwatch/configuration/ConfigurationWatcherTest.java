@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.extensions.aws.cloudwatch.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ConfigurationWatcherTest {
+
+    private final @NotNull ScheduledExecutorService executorService = mock();
+    private final @NotNull AtomicInteger reloads = new AtomicInteger();
+
+    private @NotNull Path configFile;
+    private @NotNull ExtensionConfiguration configuration;
+    private @NotNull ConfigurationWatcher watcher;
+
+    @BeforeEach
+    void setUp(final @NotNull @TempDir Path tempDir) throws IOException {
+        configFile = tempDir.resolve("extension-config.xml");
+        writeConfig("com.hivemq.messages.incoming.total.count");
+        configuration = new ExtensionConfiguration(tempDir.toFile());
+        watcher = new ConfigurationWatcher(configuration, executorService, reloads::incrementAndGet);
+        watcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    void start_thenPollScheduled() {
+        verify(executorService).scheduleWithFixedDelay(any(),
+                eq(ConfigurationWatcher.DEBOUNCE_MILLIS),
+                eq(ConfigurationWatcher.DEBOUNCE_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void poll_whenConfigFileChanged_thenReloadedAfterDebounce() throws Exception {
+        writeConfig("com.hivemq.messages.outgoing.total.count");
+
+        pollUntilReloaded();
+
+        assertThat(reloads).hasValue(1);
+        assertThat(configuration.getEnabledMetrics()).containsExactly("com.hivemq.messages.outgoing.total.count");
+    }
+
+    @Test
+    void poll_whenOtherFileChanged_thenNotReloaded() throws Exception {
+        Files.writeString(configFile.resolveSibling("other.xml"), "<other/>");
+
+        for (var i = 0; i < 10; i++) {
+            Thread.sleep(50);
+            watcher.poll();
+        }
+
+        assertThat(reloads).hasValue(0);
+    }
+
+    @Test
+    void poll_whenInvalidConfigFile_thenNotReloaded() throws Exception {
+        Files.writeString(configFile, "<cloudwatch-extension-configuration><metrics>");
+
+        for (var i = 0; i < 10; i++) {
+            Thread.sleep(50);
+            watcher.poll();
+        }
+
+        assertThat(reloads).hasValue(0);
+        assertThat(configuration.getEnabledMetrics()).containsExactly("com.hivemq.messages.incoming.total.count");
+    }
+
+    @Test
+    void stop_thenPollIgnored() throws Exception {
+        watcher.stop();
+        writeConfig("com.hivemq.messages.outgoing.total.count");
+
+        Thread.sleep(100);
+        watcher.poll();
+        watcher.poll();
+
+        assertThat(reloads).hasValue(0);
+        verify(executorService).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+    }
+
+    private void pollUntilReloaded() throws InterruptedException {
+        // the watch service delivers the events asynchronously
+        final var deadline = System.currentTimeMillis() + 10_000;
+        while (reloads.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            watcher.poll();
+        }
+    }
+
+    private void writeConfig(final @NotNull String metric) throws IOException {
+        Files.writeString(configFile, """
+                <cloudwatch-extension-configuration>
+                    <metrics>
+                        <metric>%s</metric>
+                    </metrics>
+                </cloudwatch-extension-configuration>""".formatted(metric));
+    }
+}